@@ -0,0 +1,213 @@
+package common;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * A set of 128-bit keys stored outside of the Java heap. Keys are kept in an
+ * open-addressing hash table with linear probing whose slots live in direct
+ * <code>ByteBuffer</code> segments, so the set neither creates an object per
+ * key nor adds to garbage collection pauses, and it can grow beyond the 2 GiB
+ * limit of a single buffer. The table doubles when it becomes half full.
+ *
+ * <p>
+ * The key (0, 0) marks empty slots and is tracked separately. All methods are
+ * synchronized.
+ * </p>
+ *
+ * <p>
+ * The memory of direct buffers is only returned when the garbage collector
+ * collects them, which may take long since they hardly use the heap. Therefore
+ * the segments replaced when the table grows are freed at once, and
+ * {@link #close()} frees the whole table.
+ * </p>
+ */
+public class OffHeapHashSet128 implements Closeable {
+
+	private static final int SLOT_SIZE = 16;
+	private static final int SEGMENT_SHIFT = 26; // 64 MiB per segment
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe;
+		Method invokeCleaner;
+		try { // Unsafe.invokeCleaner exists since Java 9, but the application is built for older versions
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) { // left to the garbage collector
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private ByteBuffer[] segments;
+	private long capacity; // number of slots, power of 2
+	private long size;
+	private boolean containsZeroKey;
+
+	/**
+	 * Constructs an empty set with room for <code>expectedSize</code> keys before
+	 * it needs to grow.
+	 *
+	 * @param expectedSize number of keys expected
+	 */
+	public OffHeapHashSet128(long expectedSize) {
+		long initialCapacity = 16;
+		while (initialCapacity < 2 * expectedSize) {
+			initialCapacity <<= 1;
+		}
+		allocate(initialCapacity);
+	}
+
+	private void allocate(long newCapacity) {
+		long bytes = newCapacity * SLOT_SIZE;
+		int noOfSegments = (int) ((bytes + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+		segments = new ByteBuffer[noOfSegments];
+		for (int i = 0; i < noOfSegments; i++) {
+			segments[i] = ByteBuffer.allocateDirect((int) Math.min(SEGMENT_SIZE, bytes - i * SEGMENT_SIZE));
+		}
+		capacity = newCapacity;
+	}
+
+	/**
+	 * Adds the key (<code>high</code>, <code>low</code>) to <code>this</code> set
+	 * if it is not yet contained.
+	 *
+	 * @param high most significant 64 bits of the key
+	 * @param low  least significant 64 bits of the key
+	 * @return true if the key was added, false if it was already contained
+	 * @throws IllegalStateException if <code>this</code> set is closed
+	 */
+	public synchronized boolean add(long high, long low) throws IllegalStateException {
+		if (segments == null)
+			throw new IllegalStateException("Set is closed.");
+		if (high == 0 && low == 0) {
+			boolean added = !containsZeroKey;
+			containsZeroKey = true;
+			size += added ? 1 : 0;
+			return added;
+		}
+		if (2 * (size + 1) > capacity) {
+			grow();
+		}
+		long slot = findSlot(high, low);
+		if (getHigh(slot) == high && getLow(slot) == low) {
+			return false;
+		}
+		put(slot, high, low);
+		size++;
+		return true;
+	}
+
+	/**
+	 * Returns true if <code>this</code> set contains the key (<code>high</code>,
+	 * <code>low</code>).
+	 *
+	 * @param high most significant 64 bits of the key
+	 * @param low  least significant 64 bits of the key
+	 * @return true if the key is contained, otherwise false
+	 * @throws IllegalStateException if <code>this</code> set is closed
+	 */
+	public synchronized boolean contains(long high, long low) throws IllegalStateException {
+		if (segments == null)
+			throw new IllegalStateException("Set is closed.");
+		if (high == 0 && low == 0) {
+			return containsZeroKey;
+		}
+		long slot = findSlot(high, low);
+		return getHigh(slot) == high && getLow(slot) == low;
+	}
+
+	/**
+	 * Gets the number of keys contained.
+	 *
+	 * @return number of keys
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	/**
+	 * Frees the memory of <code>this</code> set. Afterwards, keys can neither be
+	 * added nor looked up. Closing a closed set has no effect.
+	 */
+	@Override
+	public synchronized void close() {
+		if (segments != null) {
+			free(segments);
+			segments = null;
+		}
+	}
+
+	// slot containing the key or the empty slot where it would be put
+	private long findSlot(long high, long low) {
+		long mask = capacity - 1;
+		long slot = (high ^ low) * 0x9E3779B97F4A7C15L >>> 17 & mask; // spread keys that are no hashes
+		while (true) {
+			long slotHigh = getHigh(slot);
+			long slotLow = getLow(slot);
+			if (slotHigh == 0 && slotLow == 0 || slotHigh == high && slotLow == low) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private void grow() {
+		ByteBuffer[] oldSegments = segments;
+		long oldCapacity = capacity;
+		allocate(2 * oldCapacity);
+		for (long slot = 0; slot < oldCapacity; slot++) {
+			long position = slot * SLOT_SIZE;
+			ByteBuffer segment = oldSegments[(int) (position >>> SEGMENT_SHIFT)];
+			int offset = (int) (position & (SEGMENT_SIZE - 1));
+			long high = segment.getLong(offset);
+			long low = segment.getLong(offset + 8);
+			if (high != 0 || low != 0) {
+				put(findSlot(high, low), high, low);
+			}
+		}
+		free(oldSegments);
+	}
+
+	private static void free(ByteBuffer[] segments) {
+		if (INVOKE_CLEANER == null) {
+			return;
+		}
+		for (ByteBuffer segment : segments) {
+			try {
+				INVOKE_CLEANER.invoke(UNSAFE, segment);
+			} catch (ReflectiveOperationException e) {
+				return; // left to the garbage collector
+			}
+		}
+	}
+
+	private long getHigh(long slot) {
+		long position = slot * SLOT_SIZE;
+		return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & (SEGMENT_SIZE - 1)));
+	}
+
+	private long getLow(long slot) {
+		long position = slot * SLOT_SIZE;
+		return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & (SEGMENT_SIZE - 1)) + 8);
+	}
+
+	private void put(long slot, long high, long low) {
+		long position = slot * SLOT_SIZE;
+		ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+		int offset = (int) (position & (SEGMENT_SIZE - 1));
+		segment.putLong(offset, high);
+		segment.putLong(offset + 8, low);
+	}
+
+}
@@ -0,0 +1,46 @@
+package common;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A utility class containing methods for creating the executors of the
+ * services running many tasks concurrently.
+ */
+public class ThreadPools {
+
+	/**
+	 * Creates an executor running each task on a virtual thread if the Java
+	 * runtime provides them, otherwise on a fixed pool of daemon platform
+	 * threads.
+	 *
+	 * @param noOfPlatformThreads
+	 *            size of the pool if there are no virtual threads
+	 * @param threadNamePrefix
+	 *            of the names of the platform threads, which are numbered
+	 * @return executor running the tasks
+	 * @throws IllegalArgumentException
+	 *             if the size of the pool is less than 1
+	 */
+	public static ExecutorService newVirtualThreadOrFixedThreadPool(int noOfPlatformThreads,
+			final String threadNamePrefix) throws IllegalArgumentException {
+		if (noOfPlatformThreads < 1)
+			throw new IllegalArgumentException("Pool needs at least one thread.");
+		try { // virtual threads exist since Java 21, but the application is built for older versions
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			final AtomicInteger noOfThreads = new AtomicInteger();
+			return Executors.newFixedThreadPool(noOfPlatformThreads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, threadNamePrefix + " " + noOfThreads.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+}
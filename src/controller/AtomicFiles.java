@@ -0,0 +1,67 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A utility class for replacing files atomically: the new content is written
+ * to a temporary file next to the target, which then replaces the target, so
+ * the target is never left half-written.
+ *
+ * <p>
+ * Unlike files of <code>Files.createTempFile</code>, which only their owner
+ * may read, temporary files are created with the default permissions of new
+ * files. If the target exists, its permissions are copied, so replacing a file
+ * keeps its permissions.
+ * </p>
+ */
+class AtomicFiles {
+
+	/**
+	 * Creates an empty temporary file in the directory of the <code>target</code>
+	 * with the permissions the <code>target</code> has or, if it does not exist,
+	 * with the default permissions of new files.
+	 *
+	 * @param target to be replaced by the temporary file
+	 * @return path of the temporary file
+	 * @throws IOException if the file cannot be created
+	 */
+	static Path createTempFile(Path target) throws IOException {
+		Path directory = target.toAbsolutePath().getParent();
+		while (true) {
+			Path tempFile = directory.resolve(
+					target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+			try {
+				Files.createFile(tempFile);
+			} catch (FileAlreadyExistsException e) {
+				continue;
+			}
+			if (Files.exists(target) && Files.getFileStore(tempFile).supportsFileAttributeView("posix")) {
+				Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+			}
+			return tempFile;
+		}
+	}
+
+	/**
+	 * Replaces the <code>target</code> by the <code>tempFile</code>, atomically
+	 * if the file system supports it.
+	 *
+	 * @param tempFile replacing the target
+	 * @param target   to be replaced
+	 * @throws IOException if the file cannot be moved
+	 */
+	static void replace(Path tempFile, Path target) throws IOException {
+		try {
+			Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+}
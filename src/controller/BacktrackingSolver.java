@@ -0,0 +1,349 @@
+package controller;
+
+import java.util.Random;
+
+import model.CandidateEdgeGraph;
+
+/**
+ * An instance of the class <code>BacktrackingSolver</code> solves a
+ * Hashiwokakeru puzzle completely, i.e. it finds a solution of every solvable
+ * puzzle. Decisions on the number of bridges of an edge are made tentatively and
+ * propagated by {@link BridgeDomains}; if a contradiction is found the last
+ * decision is undone and the next number of bridges is tried.
+ *
+ * <p>
+ * The search is iterative, so even puzzles with many edges do not overflow the
+ * stack. The solver can count solutions up to a limit, e.g. 2 to find out
+ * whether a puzzle has a unique solution.
+ * </p>
+ *
+ * <p>
+ * The edge to decide next is chosen by an {@link IBranchingHeuristic} if one
+ * is set, otherwise the first edge with the fewest options is chosen. When
+ * searching for a single solution, the search can be restarted after a number
+ * of failed decisions following the Luby sequence (1, 1, 2, 1, 1, 2, 4, ...)
+ * times a unit; the order in which the numbers of bridges are tried is then
+ * randomized, so that each run explores a different part of the search space.
+ * Since the limit grows without bound, the search remains complete.
+ * </p>
+ */
+public class BacktrackingSolver {
+
+	private final CandidateEdgeGraph graph;
+	private int[] solution;
+	private int noOfSolutions;
+	private long noOfNodes;
+	private boolean wasInterrupted, wasTimedOut;
+	private long timeLimit; // 0 if the search is not limited
+	private long deadline;
+	private ISolverMetrics metrics;
+	private boolean isFixpointEventEnabled;
+	private IBranchingHeuristic heuristic;
+	private int restartUnit; // 0 if the search is not restarted
+	private long seed;
+	private Random random;
+	private int noOfRestarts;
+
+	/**
+	 * Constructs an instance of a <code>BacktrackingSolver</code> for the puzzle
+	 * represented by the <code>graph</code>.
+	 *
+	 * @param graph of the puzzle to be solved
+	 */
+	public BacktrackingSolver(CandidateEdgeGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Searches for solutions of the puzzle until <code>maxNoOfSolutions</code>
+	 * solutions have been found, the search space is exhausted or the thread is
+	 * interrupted.
+	 *
+	 * @param maxNoOfSolutions number of solutions after which the search stops
+	 * @return number of solutions found, at most <code>maxNoOfSolutions</code>
+	 */
+	public int solve(int maxNoOfSolutions) {
+		solution = null;
+		noOfSolutions = 0;
+		noOfNodes = 0;
+		noOfRestarts = 0;
+		wasInterrupted = false;
+		wasTimedOut = false;
+		deadline = System.nanoTime() + timeLimit * 1000000;
+		isFixpointEventEnabled = new PropagationFixpointEvent().isEnabled();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		search(maxNoOfSolutions);
+		if (event.shouldCommit()) {
+			event.width = graph.getWidth();
+			event.height = graph.getHeight();
+			event.noOfIslands = graph.getNoOfIslands();
+			event.noOfEdges = graph.getNoOfEdges();
+			event.noOfSolutions = noOfSolutions;
+			event.noOfNodes = noOfNodes;
+			event.commit();
+		}
+		return noOfSolutions;
+	}
+
+	private void search(int maxNoOfSolutions) {
+		BridgeDomains domains = new BridgeDomains(graph);
+		if (heuristic != null) {
+			heuristic.reset(graph);
+		}
+		boolean canRestart = restartUnit > 0 && maxNoOfSolutions == 1;
+		random = canRestart ? new Random(seed) : null;
+		long noOfFailures = 0;
+		long restartLimit = canRestart ? restartUnit : Long.MAX_VALUE;
+		int noOfEdges = graph.getNoOfEdges();
+		int[] edges = new int[noOfEdges];
+		int[] values = new int[noOfEdges];
+		int[] steps = new int[noOfEdges]; // -1 if fewer bridges are tried next, 1 if more
+		int[] marks = new int[noOfEdges];
+		int depth = 0;
+		boolean isConsistent = propagate(domains, 0);
+		int rootMark = domains.mark();
+		while (true) {
+			if ((noOfNodes & 1023) == 1023) {
+				if (Thread.currentThread().isInterrupted()) {
+					wasInterrupted = true;
+					return;
+				}
+				if (timeLimit > 0 && System.nanoTime() - deadline > 0) {
+					wasTimedOut = true;
+					return;
+				}
+			}
+			if (isConsistent) {
+				int edge = selectEdge(domains);
+				if (edge >= 0) { // decide edge, trying the larger number of bridges first unless randomized
+					edges[depth] = edge;
+					marks[depth] = domains.mark();
+					steps[depth] = random != null && random.nextBoolean() ? 1 : -1;
+					values[depth] = steps[depth] < 0 ? domains.getMax(edge) : domains.getMin(edge);
+					depth++;
+					isConsistent = assign(domains, edge, values[depth - 1], depth);
+					continue;
+				}
+				noOfSolutions++;
+				if (solution == null) {
+					solution = domains.getMinima();
+				}
+				if (noOfSolutions >= maxNoOfSolutions) {
+					return;
+				}
+			} else if (depth > 0) {
+				if (heuristic != null) {
+					heuristic.conflict(domains, edges[depth - 1]);
+				}
+				if (++noOfFailures > restartLimit) {
+					domains.undo(rootMark);
+					depth = 0;
+					noOfRestarts++;
+					noOfFailures = 0;
+					restartLimit = luby(noOfRestarts + 1) * restartUnit;
+					isConsistent = true;
+					continue;
+				}
+			}
+			while (true) { // backtrack
+				if (depth == 0) {
+					return;
+				}
+				if (metrics != null) {
+					metrics.backtracked();
+				}
+				int d = depth - 1;
+				domains.undo(marks[d]);
+				int value = values[d] + steps[d];
+				if (value >= domains.getMin(edges[d]) && value <= domains.getMax(edges[d])) {
+					values[d] = value;
+					isConsistent = assign(domains, edges[d], values[d], depth);
+					break;
+				}
+				depth--;
+			}
+		}
+	}
+
+	// i-th element (from 1) of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+	private static long luby(int i) {
+		int k = 1;
+		while ((1L << k) - 1 < i) {
+			k++;
+		}
+		if ((1L << k) - 1 == i) {
+			return 1L << (k - 1);
+		}
+		return luby(i - (int) (1L << (k - 1)) + 1);
+	}
+
+	private boolean assign(BridgeDomains domains, int edge, int value, int depth) {
+		noOfNodes++;
+		if (metrics != null) {
+			metrics.nodeVisited();
+		}
+		return domains.restrict(edge, value, value) && propagate(domains, depth);
+	}
+
+	private boolean propagate(BridgeDomains domains, int depth) {
+		PropagationFixpointEvent event = null;
+		if (isFixpointEventEnabled) {
+			event = new PropagationFixpointEvent();
+			event.begin();
+		}
+		boolean isConsistent = domains.propagate() && domains.isConnectable();
+		if (metrics != null) {
+			metrics.propagated();
+		}
+		if (event != null && event.shouldCommit()) {
+			event.depth = depth;
+			event.isConsistent = isConsistent;
+			event.commit();
+		}
+		return isConsistent;
+	}
+
+	private int selectEdge(BridgeDomains domains) {
+		return heuristic != null ? heuristic.selectEdge(domains) : selectEdgeWithFewestOptions(domains);
+	}
+
+	// undecided edge with the fewest options left, -1 if all edges are decided
+	private int selectEdgeWithFewestOptions(BridgeDomains domains) {
+		int bestEdge = -1;
+		int bestNoOfOptions = Integer.MAX_VALUE;
+		for (int e = 0; e < graph.getNoOfEdges(); e++) {
+			int noOfOptions = domains.getMax(e) - domains.getMin(e) + 1;
+			if (noOfOptions > 1 && noOfOptions < bestNoOfOptions) {
+				bestEdge = e;
+				bestNoOfOptions = noOfOptions;
+				if (noOfOptions == 2) {
+					break;
+				}
+			}
+		}
+		return bestEdge;
+	}
+
+	/**
+	 * Sets the metrics to which <code>this</code> solver reports nodes,
+	 * backtracks and propagations.
+	 *
+	 * @param metrics collecting the events or null to collect nothing
+	 */
+	public void setMetrics(ISolverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the heuristic choosing the edge to decide next.
+	 *
+	 * @param heuristic choosing edges or null to choose the first edge with the
+	 *                  fewest options
+	 */
+	public void setBranchingHeuristic(IBranchingHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Lets the search for a single solution restart after a number of failed
+	 * decisions that follows the Luby sequence times the
+	 * <code>restartUnit</code>. The order in which numbers of bridges are tried
+	 * is randomized using the <code>seed</code>. Searches counting more than one
+	 * solution are never restarted, since they must not visit a solution twice.
+	 *
+	 * @param restartUnit number of failed decisions of the shortest run or 0 to
+	 *                    never restart
+	 * @param seed        of the random order in which numbers of bridges are
+	 *                    tried
+	 * @throws IllegalArgumentException if the unit is negative
+	 */
+	public void setRestarts(int restartUnit, long seed) throws IllegalArgumentException {
+		if (restartUnit < 0)
+			throw new IllegalArgumentException("Restart unit must not be negative.");
+		this.restartUnit = restartUnit;
+		this.seed = seed;
+	}
+
+	/**
+	 * Limits the time each search may take. A search exceeding the limit stops as
+	 * if the thread had been interrupted (see {@link #wasTimedOut()
+	 * wasTimedOut}).
+	 *
+	 * @param timeLimit number of milliseconds a search may take or 0 for no limit
+	 * @throws IllegalArgumentException if the limit is negative
+	 */
+	public void setTimeLimit(long timeLimit) throws IllegalArgumentException {
+		if (timeLimit < 0)
+			throw new IllegalArgumentException("Time limit must not be negative.");
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Searches for a solution of the puzzle.
+	 *
+	 * @return number of bridges of each edge in the solution found or null if the
+	 *         puzzle is unsolvable
+	 */
+	public int[] solve() {
+		solve(1);
+		return solution;
+	}
+
+	/**
+	 * Gets the first solution found by the last search.
+	 *
+	 * @return number of bridges of each edge or null if no solution was found
+	 */
+	public int[] getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Gets the number of solutions found by the last search.
+	 *
+	 * @return number of solutions found
+	 */
+	public int getNoOfSolutions() {
+		return noOfSolutions;
+	}
+
+	/**
+	 * Returns true if the last search was stopped because the thread was
+	 * interrupted, i.e. there may be more solutions than found.
+	 *
+	 * @return true if the search was interrupted
+	 */
+	public boolean wasInterrupted() {
+		return wasInterrupted;
+	}
+
+	/**
+	 * Returns true if the last search was stopped because it exceeded the time
+	 * limit, i.e. there may be more solutions than found.
+	 *
+	 * @return true if the search timed out
+	 */
+	public boolean wasTimedOut() {
+		return wasTimedOut;
+	}
+
+	/**
+	 * Gets the number of times the last search was restarted.
+	 *
+	 * @return number of restarts
+	 */
+	public int getNoOfRestarts() {
+		return noOfRestarts;
+	}
+
+	/**
+	 * Gets the number of decisions made by the last search.
+	 *
+	 * @return number of search nodes
+	 */
+	public long getNoOfNodes() {
+		return noOfNodes;
+	}
+
+}
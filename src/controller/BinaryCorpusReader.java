@@ -0,0 +1,122 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import model.IPuzzleSituationModel;
+
+/**
+ * Reads puzzles from a file of the binary corpus format (see
+ * {@link BinaryPuzzleFormat}). The file is memory-mapped as a whole, so
+ * puzzles can be accessed randomly by index or iterated without copying them:
+ * every {@link PuzzleRecord} returned is a view of the mapped file.
+ */
+public class BinaryCorpusReader implements Closeable, Iterable<PuzzleRecord> {
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int noOfPuzzles;
+	private final int indexOffset;
+
+	/**
+	 * Opens and maps the file at <code>filePath</code>.
+	 *
+	 * @param filePath of the file to be read
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not of the binary corpus
+	 *                                  format
+	 */
+	public BinaryCorpusReader(Path filePath) throws IOException, IllegalArgumentException {
+		channel = FileChannel.open(filePath, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < BinaryPuzzleFormat.HEADER_SIZE || size > Integer.MAX_VALUE)
+				throw new IllegalArgumentException(filePath + " is not a corpus file of a valid size.");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt(0) != BinaryPuzzleFormat.MAGIC || buffer.getShort(4) != BinaryPuzzleFormat.VERSION)
+				throw new IllegalArgumentException(filePath + " is not a corpus file of version "
+						+ BinaryPuzzleFormat.VERSION + ".");
+			noOfPuzzles = buffer.getInt(BinaryPuzzleFormat.HEADER_NO_OF_PUZZLES_OFFSET);
+			long indexPosition = buffer.getLong(BinaryPuzzleFormat.HEADER_INDEX_OFFSET_OFFSET);
+			if (noOfPuzzles < 0 || indexPosition < BinaryPuzzleFormat.HEADER_SIZE
+					|| indexPosition + 8L * noOfPuzzles > size)
+				throw new IllegalArgumentException("Header of " + filePath + " is corrupt.");
+			indexOffset = (int) indexPosition;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the number of puzzles contained in the file.
+	 *
+	 * @return number of puzzles
+	 */
+	public int getNoOfPuzzles() {
+		return noOfPuzzles;
+	}
+
+	/**
+	 * Gets a view of the puzzle at <code>index</code> without copying it.
+	 *
+	 * @param index of the puzzle in the file
+	 * @return view of the puzzle
+	 * @throws IndexOutOfBoundsException if there is no puzzle at
+	 *                                   <code>index</code>
+	 */
+	public PuzzleRecord getRecord(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= noOfPuzzles)
+			throw new IndexOutOfBoundsException("There is no puzzle at index " + index + ".");
+		int offset = (int) buffer.getLong(indexOffset + 8 * index);
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(offset);
+		return new PuzzleRecord(slice.slice());
+	}
+
+	/**
+	 * Loads the puzzle at <code>index</code> into a new
+	 * <code>IPuzzleSituationModel</code>.
+	 *
+	 * @param index of the puzzle in the file
+	 * @return model of the puzzle
+	 */
+	public IPuzzleSituationModel loadPuzzle(int index) {
+		return getRecord(index).toModel();
+	}
+
+	/**
+	 * Iterates over views of all puzzles in the order they were written.
+	 */
+	@Override
+	public Iterator<PuzzleRecord> iterator() {
+		return new Iterator<PuzzleRecord>() {
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < noOfPuzzles;
+			}
+
+			@Override
+			public PuzzleRecord next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return getRecord(next++);
+			}
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
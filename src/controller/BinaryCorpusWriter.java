@@ -0,0 +1,150 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import model.CandidateEdgeGraph;
+import model.IPuzzleSituationModel;
+
+/**
+ * Writes any number of Hashiwokakero puzzles into a single file of the binary
+ * corpus format (see {@link BinaryPuzzleFormat}). Puzzles are appended one
+ * after another; the index and the final header are written when the writer is
+ * {@link #close() closed}. Files are limited to 2 GiB so that they can be
+ * mapped into memory as a whole by a {@link BinaryCorpusReader}.
+ */
+public class BinaryCorpusWriter implements Closeable {
+
+	private final FileChannel channel;
+	private long position = BinaryPuzzleFormat.HEADER_SIZE;
+	private long[] offsets = new long[64];
+	private int noOfPuzzles;
+
+	/**
+	 * Creates the file at <code>filePath</code> (overwriting an existing file) and
+	 * constructs a writer for it.
+	 *
+	 * @param filePath of the file to be written
+	 * @throws IOException if the file cannot be created
+	 */
+	public BinaryCorpusWriter(Path filePath) throws IOException {
+		channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(BinaryPuzzleFormat.HEADER_SIZE); // header is written on close
+	}
+
+	/**
+	 * Appends the islands and bridges of the <code>hashiModel</code>.
+	 *
+	 * @param hashiModel to be appended
+	 * @throws IOException              if writing fails
+	 * @throws IllegalArgumentException if the puzzle cannot be represented in the
+	 *                                  binary format
+	 * @throws IllegalStateException    if the file would exceed 2 GiB
+	 */
+	public void addPuzzle(IPuzzleSituationModel hashiModel) throws IOException, IllegalArgumentException {
+		CandidateEdgeGraph graph = CandidateEdgeGraph.of(hashiModel);
+		addPuzzle(graph, graph.getBridges(hashiModel));
+	}
+
+	/**
+	 * Appends the puzzle represented by the <code>graph</code> with the
+	 * <code>bridges</code>.
+	 *
+	 * @param graph   of the puzzle to be appended
+	 * @param bridges number of bridges (0, 1 or 2) for each edge of the graph
+	 * @throws IOException              if writing fails
+	 * @throws IllegalArgumentException if the puzzle cannot be represented in the
+	 *                                  binary format
+	 * @throws IllegalStateException    if the file would exceed 2 GiB
+	 */
+	public void addPuzzle(CandidateEdgeGraph graph, int[] bridges) throws IOException, IllegalArgumentException {
+		checkRepresentable(graph);
+		ByteBuffer record = encode(graph, bridges);
+		if (position + record.remaining() + 8L * (noOfPuzzles + 1) > Integer.MAX_VALUE)
+			throw new IllegalStateException("Corpus file is full. Puzzles need to be written to another file.");
+		if (noOfPuzzles == offsets.length) {
+			offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+		}
+		offsets[noOfPuzzles++] = position;
+		position += record.remaining();
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+	}
+
+	static void checkRepresentable(CandidateEdgeGraph graph) throws IllegalArgumentException {
+		if (graph.getWidth() > BinaryPuzzleFormat.MAX_COORDINATE + 1
+				|| graph.getHeight() > BinaryPuzzleFormat.MAX_COORDINATE + 1)
+			throw new IllegalArgumentException("Puzzle of size " + graph.getWidth() + " x " + graph.getHeight()
+					+ " is too large for the binary format.");
+		for (int i = 0; i < graph.getNoOfIslands(); i++) {
+			if (graph.getClue(i) < 0 || graph.getClue(i) > BinaryPuzzleFormat.MAX_CLUE)
+				throw new IllegalArgumentException(
+						"Island requiring " + graph.getClue(i) + " bridges cannot be stored in the binary format.");
+		}
+	}
+
+	static ByteBuffer encode(CandidateEdgeGraph graph, int[] bridges) {
+		int noOfIslands = graph.getNoOfIslands();
+		ByteBuffer record = ByteBuffer
+				.allocate(BinaryPuzzleFormat.getRecordSize(noOfIslands, graph.getNoOfEdges()));
+		record.putShort((short) graph.getWidth());
+		record.putShort((short) graph.getHeight());
+		record.putInt(noOfIslands);
+		record.putInt(graph.getNoOfEdges());
+		for (int i = 0; i < noOfIslands; i++) {
+			record.putShort((short) graph.getIslandX(i));
+			record.putShort((short) graph.getIslandY(i));
+		}
+		for (int i = 0; i < noOfIslands; i += 2) {
+			int high = i + 1 < noOfIslands ? graph.getClue(i + 1) : 0;
+			record.put((byte) (graph.getClue(i) | high << 4));
+		}
+		record.put(CandidateEdgeGraph.packBridges(bridges));
+		record.flip();
+		return record;
+	}
+
+	/**
+	 * Gets the number of puzzles added so far.
+	 *
+	 * @return number of puzzles
+	 */
+	public int getNoOfPuzzles() {
+		return noOfPuzzles;
+	}
+
+	/**
+	 * Writes the index and the header and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			ByteBuffer index = ByteBuffer.allocate(8 * noOfPuzzles);
+			for (int i = 0; i < noOfPuzzles; i++) {
+				index.putLong(offsets[i]);
+			}
+			index.flip();
+			while (index.hasRemaining()) {
+				channel.write(index);
+			}
+			ByteBuffer header = ByteBuffer.allocate(BinaryPuzzleFormat.HEADER_SIZE);
+			header.putInt(BinaryPuzzleFormat.MAGIC);
+			header.putShort(BinaryPuzzleFormat.VERSION);
+			header.putShort((short) 0);
+			header.putInt(noOfPuzzles);
+			header.putLong(position);
+			header.flip();
+			channel.write(header, 0);
+		} finally {
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package controller;
+
+/**
+ * Constants describing the layout of the binary Hashiwokakero corpus format
+ * (.hbgs files) that holds many puzzles in one file. All numbers are stored in
+ * big-endian byte order.
+ *
+ * <p>
+ * Layout of a file:
+ * <ul>
+ * <li>Header ({@value #HEADER_SIZE} bytes): magic number, version, reserved
+ * short, number of puzzles (int), offset of the index (long)</li>
+ * <li>Puzzle records, one after another (see below)</li>
+ * <li>Index: offset (long) of every puzzle record in the file</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Layout of a puzzle record:
+ * <ul>
+ * <li>Width and height (unsigned short each), number of islands and number of
+ * candidate edges (int each)</li>
+ * <li>Coordinates of the islands in natural order (unsigned short column,
+ * unsigned short row)</li>
+ * <li>Number of bridges required by each island as nibbles, two islands per
+ * byte, the first island of a byte in the low nibble</li>
+ * <li>Number of bridges built on each candidate edge as bit pairs, four edges
+ * per byte (see {@link model.CandidateEdgeGraph#packBridges(int[])
+ * packBridges})</li>
+ * </ul>
+ * Every field of a record is found at a fixed offset that can be computed from
+ * the number of islands and edges, which allows reading a record in place
+ * without parsing it.
+ * </p>
+ */
+public final class BinaryPuzzleFormat {
+
+	/**
+	 * Extension of files in the binary corpus format.
+	 */
+	public static final String FILE_EXTENSION = ".hbgs";
+
+	static final int MAGIC = 0x48424753; // "HBGS"
+	static final short VERSION = 1;
+
+	static final int HEADER_SIZE = 20;
+	static final int HEADER_NO_OF_PUZZLES_OFFSET = 8;
+	static final int HEADER_INDEX_OFFSET_OFFSET = 12;
+
+	static final int RECORD_HEADER_SIZE = 12;
+	static final int ISLAND_SIZE = 4;
+	static final int MAX_COORDINATE = 0xFFFF;
+	static final int MAX_CLUE = 0xF;
+
+	private BinaryPuzzleFormat() {
+	}
+
+	static int getIslandsOffset() {
+		return RECORD_HEADER_SIZE;
+	}
+
+	static int getCluesOffset(int noOfIslands) {
+		return RECORD_HEADER_SIZE + ISLAND_SIZE * noOfIslands;
+	}
+
+	static int getBridgesOffset(int noOfIslands) {
+		return getCluesOffset(noOfIslands) + (noOfIslands + 1) / 2;
+	}
+
+	static int getRecordSize(int noOfIslands, int noOfEdges) {
+		return getBridgesOffset(noOfIslands) + (noOfEdges + 3) / 4;
+	}
+
+}
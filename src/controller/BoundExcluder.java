@@ -0,0 +1,187 @@
+package controller;
+
+import common.Direction;
+import model.CandidateEdgeGraph;
+
+/**
+ * A <code>BoundExcluder</code> excludes numbers of bridges from the
+ * {@link BridgeDomains} of a Hashiwokakeru puzzle by hypotheses: a number of
+ * bridges is built tentatively on an undecided edge and excluded if this leads
+ * to a contradiction within a given depth. Only the lowest or highest number of
+ * bridges of an edge can be excluded since domains are intervals. It is shared
+ * by the {@link ContradictionSolver} and the {@link DifficultyGrader}.
+ *
+ * <p>
+ * At depth 0, only connectivity is checked; at depth 1, the hypothesis is
+ * propagated as well; at greater depths, there must be an edge next to an edge
+ * narrowed by the hypothesis on which every number of bridges fails at the next
+ * lower depth. Only edges next to narrowed edges are examined, since the others
+ * were not affected by the hypothesis. Hypotheses are undone by the trail of
+ * the domains.
+ * </p>
+ *
+ * <p>
+ * The search stops when the optional time limit is exceeded or the thread is
+ * interrupted. A stopped search excludes nothing more, so it never reports a
+ * contradiction it has not proven.
+ * </p>
+ */
+class BoundExcluder {
+
+	static final int NOTHING_EXCLUDED = 0, EXCLUDED = 1, CONTRADICTION = 2;
+
+	private static final Direction[] DIRECTIONS = Direction.values(); // values() copies the array each call
+
+	private final BridgeDomains domains;
+	private ISolverMetrics metrics;
+	private long deadline;
+	private boolean hasDeadline;
+	private boolean wasTimedOut, wasInterrupted;
+
+	/**
+	 * Constructs a <code>BoundExcluder</code> without time limit.
+	 *
+	 * @param domains from which numbers of bridges are excluded
+	 */
+	BoundExcluder(BridgeDomains domains) {
+		this.domains = domains;
+	}
+
+	/**
+	 * Sets the metrics to which each hypothesis (as a node) and each propagation
+	 * is reported.
+	 *
+	 * @param metrics collecting the events or null to collect nothing
+	 */
+	void setMetrics(ISolverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the number of milliseconds from now after which the search is stopped.
+	 *
+	 * @param timeLimit number of milliseconds
+	 */
+	void setTimeLimit(long timeLimit) {
+		deadline = System.nanoTime() + timeLimit * 1000000;
+		hasDeadline = true;
+		wasTimedOut = false;
+	}
+
+	/**
+	 * Returns true if the search was stopped because the time limit was exceeded.
+	 *
+	 * @return true if the time limit was exceeded
+	 */
+	boolean wasTimedOut() {
+		return wasTimedOut;
+	}
+
+	/**
+	 * Returns true if the search was stopped because the thread was interrupted.
+	 *
+	 * @return true if the thread was interrupted
+	 */
+	boolean wasInterrupted() {
+		return wasInterrupted;
+	}
+
+	/**
+	 * Propagates the domains and checks whether the islands can still be
+	 * connected.
+	 *
+	 * @return false if a contradiction was found
+	 */
+	boolean propagate() {
+		if (metrics != null) {
+			metrics.propagated();
+		}
+		return domains.propagate() && domains.isConnectable();
+	}
+
+	/**
+	 * Excludes the lowest or highest number of bridges of an undecided edge if it
+	 * leads to a contradiction within <code>depth</code> levels.
+	 *
+	 * @param depth of the hypotheses, at least 0
+	 * @return {@link #EXCLUDED} if a number of bridges was excluded,
+	 *         {@link #CONTRADICTION} if excluding it left no number of bridges
+	 *         and {@link #NOTHING_EXCLUDED} otherwise
+	 */
+	int excludeBound(int depth) {
+		for (int e = 0; e < domains.getGraph().getNoOfEdges() && !isStopped(); e++) {
+			if (!domains.isFixed(e)) {
+				int min = domains.getMin(e);
+				int max = domains.getMax(e);
+				if (fails(e, min, depth)) {
+					return domains.restrict(e, min + 1, max) ? EXCLUDED : CONTRADICTION;
+				}
+				if (fails(e, max, depth)) {
+					return domains.restrict(e, min, max - 1) ? EXCLUDED : CONTRADICTION;
+				}
+			}
+		}
+		return NOTHING_EXCLUDED;
+	}
+
+	/**
+	 * Returns true if building <code>value</code> bridges on the
+	 * <code>edge</code> certainly leads to a contradiction within
+	 * <code>depth</code> levels. Returns false if the search was stopped.
+	 */
+	private boolean fails(int edge, int value, int depth) {
+		if (isStopped()) {
+			return false;
+		}
+		if (metrics != null) {
+			metrics.nodeVisited();
+		}
+		int mark = domains.mark();
+		boolean fails;
+		if (depth == 0) {
+			fails = !domains.restrict(edge, value, value) || !domains.isConnectable();
+		} else {
+			fails = !domains.restrict(edge, value, value) || !propagate();
+			if (!fails && depth > 1) {
+				fails = containsEdgeWithoutOptions(domains.getEdgesChangedSince(mark), depth - 1);
+			}
+		}
+		domains.undo(mark);
+		return fails && !wasTimedOut && !wasInterrupted;
+	}
+
+	private boolean containsEdgeWithoutOptions(int[] changedEdges, int depth) {
+		CandidateEdgeGraph graph = domains.getGraph();
+		for (int changedEdge : changedEdges) {
+			for (int island : new int[] { graph.getEdgeStart(changedEdge), graph.getEdgeEnd(changedEdge) }) {
+				for (Direction direction : DIRECTIONS) {
+					int e = graph.getEdge(island, direction);
+					if (e >= 0 && !domains.isFixed(e) && allValuesFail(e, depth)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean allValuesFail(int edge, int depth) {
+		for (int value = domains.getMin(edge); value <= domains.getMax(edge); value++) {
+			if (!fails(edge, value, depth)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isStopped() {
+		if (hasDeadline && !wasTimedOut && System.nanoTime() - deadline > 0) {
+			wasTimedOut = true;
+		}
+		if (!wasInterrupted && Thread.currentThread().isInterrupted()) {
+			wasInterrupted = true;
+		}
+		return wasTimedOut || wasInterrupted;
+	}
+
+}
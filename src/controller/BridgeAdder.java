@@ -1,14 +1,14 @@
 package controller;
 
-import java.util.ArrayList;	
-
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.time.*;
 
 import common.Direction;
+import model.CandidateEdgeGraph;
 import model.HashiModel.Bridge;
 import model.HashiModel.Island;
+import model.IBridgeChangeListener;
 import model.IPuzzleSituationModel;
 
 //TODO: Get sure moves, but do not make them here. Instead return move to main controller und make it in the main controller.
@@ -17,17 +17,51 @@ import model.IPuzzleSituationModel;
  * An instance of the class <code>BridgeAdder</code> can add a bridge to a
  * Hashiwokakeru puzzle if this bridge must certainly be added to the puzzle
  * based on the puzzle's current state (see {@link #makeSureMove() makeSureMove}
- * method).
+ * method). Such a bridge is found by rules or, if the rules are stuck, by a
+ * {@link ContradictionSolver} that excludes all alternatives.
+ *
+ * <p>
+ * The rules of an island only depend on its own bridges and on the bridges and
+ * bridges missing of its neighbors. The bridge adder listens to the bridges
+ * changed in the model and only applies the rules to islands affected by a
+ * change since the rules were last applied to them without finding a bridge
+ * (see {@link CandidateEdgeGraph#addIslandsAffectedByChangeOf(int, boolean, BitSet)
+ * addIslandsAffectedByChangeOf}). Islands are still tried in natural order, so
+ * the bridges found are the same as if all islands were tried each time.
+ * </p>
+ *
+ * <p>
+ * <strong>Important:</strong> Islands must neither be added to the model nor
+ * change the number of bridges they require after the bridge adder was
+ * constructed.
+ * </p>
  */
 public class BridgeAdder {
 
 	private IPuzzleSituationModel hashiModel;
 	private PuzzleStateChecker stateChecker;
+	private final CandidateEdgeGraph graph;
+	private final List<Island> islands; // in the order of the graph
+	// islands whose rules may find a bridge, i.e. islands affected by a change since the rules last failed
+	private final BitSet dirtyIslands = new BitSet();
+	private final IBridgeChangeListener bridgeChangeListener = new IBridgeChangeListener() {
+		@Override
+		public void bridgeChanged(Island start, Island end, int oldNoOfBridges, int newNoOfBridges) {
+			int edge = graph.getEdgeBetween(start, end);
+			if (edge >= 0) {
+				graph.addIslandsAffectedByChangeOf(edge, (oldNoOfBridges == 0) != (newNoOfBridges == 0),
+						dirtyIslands);
+			}
+		}
+	};
 	private List<Island> neighbors;
 	private List<Island> neighborsToBuildBridge;
 	private List<Island> neighborsToBuildDoubleBridge;
 	private List<Island> neighborsRequiringMoreThanOneBridge;
 	private List<Island> neighborsRequiringMoreThanTwoBridges;
+	private HintEngine hintEngine;
+	private ISolverMetrics metrics;
+	private ContradictionSolver contradictionSolver = new ContradictionSolver();
 
 	/**
 	 * Constructs an instance of a <code>BridgeAdder</code>.
@@ -41,6 +75,51 @@ public class BridgeAdder {
 	public BridgeAdder(IPuzzleSituationModel hashiModel, PuzzleStateChecker stateChecker) {
 		this.hashiModel = hashiModel;
 		this.stateChecker = stateChecker;
+		graph = stateChecker.getGraph();
+		islands = hashiModel.getIslands();
+		dirtyIslands.set(0, islands.size());
+		hashiModel.addBridgeChangeListener(bridgeChangeListener);
+	}
+
+	/**
+	 * Sets the <code>HintEngine</code> which is asked for the next bridge first.
+	 * If no engine is set or the engine does not know a bridge, bridges are found
+	 * by using rules.
+	 * 
+	 * @param hintEngine
+	 *            knowing the solution of the puzzle; is informed about every
+	 *            bridge added
+	 */
+	public void setHintEngine(HintEngine hintEngine) {
+		this.hintEngine = hintEngine;
+	}
+
+	/**
+	 * Sets the metrics to which <code>this</code> bridge adder reports each rule
+	 * that found a bridge (see {@link ISolverMetrics#NO_OF_RULES NO_OF_RULES}).
+	 * 
+	 * @param metrics
+	 *            collecting the rule applications or null to collect nothing
+	 */
+	public void setMetrics(ISolverMetrics metrics) {
+		this.metrics = metrics;
+		if (contradictionSolver != null) {
+			contradictionSolver.setMetrics(metrics);
+		}
+	}
+
+	/**
+	 * Sets the <code>ContradictionSolver</code> which is asked for a bridge if no
+	 * rule finds one. By default a solver with default limits is used.
+	 * 
+	 * @param contradictionSolver
+	 *            finding bridges by contradiction or null to use rules only
+	 */
+	public void setContradictionSolver(ContradictionSolver contradictionSolver) {
+		this.contradictionSolver = contradictionSolver;
+		if (contradictionSolver != null) {
+			contradictionSolver.setMetrics(metrics);
+		}
 	}
 
 	/**
@@ -69,96 +148,109 @@ public class BridgeAdder {
 		if (!hashiModel.isNotYetSolved()) {
 			return false;
 		}
-		return makeSureMoveByUsingRules(); // TODO: || trialAndError(); // here an extension could be added to solve puzzle
-																// differently
+		return makeMoveBySolution() || makeSureMoveByUsingRules() || makeSureMoveByContradiction();
 	}
 
-	/*
-	 * Goal: Solving every puzzle, i.e., adding a bridge in every case that a bridge
-	 * can be added to get to the solution of the puzzle.
-	 * 
-	 * Solution idea 1: If no sure move can be made, make an unsure move (here I can
-	 * use some heuristics to choose the bridge to add), solve the puzzle with the
-	 * solver without refreshing the view until a solution is found or the puzzle
-	 * becomes unsolvable. If solution is found, add first bridge added to the
-	 * puzzle (unsure bridge). If puzzle becomes unsolvable, remove last unsure
-	 * bridge added and make another unsure move that has not been made before. Stop
-	 * if a certain time period has passed (all bridges added must be removed).
-	 * 
-	 * 
-	 */
-	
-	private static int NO_OF_TRIALS = 0;
-	
 	/**
+	 * Computes all bridges that {@link #makeSureMove() makeSureMove} would add one
+	 * after another, without changing the puzzle. The bridges are taken from the
+	 * solution if the hint engine knows it; otherwise they are found by using
+	 * rules on the puzzle, and are removed again afterwards.
 	 * 
-	 * Finds a sure move by trial and error and makes it.
-	 * 
-	 * @return true if sure move could be made.
+	 * @return both ends of each bridge to be added in the order to be added
 	 */
-	private boolean trialAndError() {
-		NO_OF_TRIALS++;
-		if (NO_OF_TRIALS <= 100) {
-			Iterator<Island> islands = hashiModel.getIslands().iterator();
-			while (islands.hasNext()) { // TODO: Time limit
-				Island island = islands.next();
-				if (island.getNoOfBridgesMissing() > 0) {
-					Iterator<Island> neighbors = hashiModel.getNeighbourIslands(island).iterator();
-					while (neighbors.hasNext()) {
-						Island neighbor = neighbors.next();
-						if (neighbor.getNoOfBridgesMissing() > 0) {
-							if (isNextMove(island, neighbor)) {
-								hashiModel.addBridgeBetween(island, neighbor);
-								stateChecker.setPuzzleState();
-								NO_OF_TRIALS--;
-								return true;
-							}
-						}
-					}
-				}
-			}
+	public List<Island[]> getSureMoves() {
+		List<Island[]> moves = hintEngine == null ? null : hintEngine.getMissingBridges();
+		if (moves != null) {
+			return moves;
 		}
-		NO_OF_TRIALS--;
-		return false;
-	}
-
-	private boolean isNextMove(Island island, Island neighbor) {
-		List<Bridge> unsureBridges = new ArrayList<>();
-		addUnsureBridgeAndResetPuzzleState(island, neighbor, unsureBridges);
+		moves = new ArrayList<>();
 		while (makeSureMove()) {
-			unsureBridges.add(hashiModel.getLastInsertedBridge());
+			Bridge bridge = hashiModel.getLastInsertedBridge();
+			moves.add(new Island[] { bridge.getStart(), bridge.getEnd() });
 		}
-		boolean isNextMove = hashiModel.isSolved();
-		removeBridgesFromModel(unsureBridges);
-		return isNextMove;
+		for (int i = moves.size() - 1; i >= 0; i--) {
+			hashiModel.removeBridgeBetween(moves.get(i)[0], moves.get(i)[1]);
+		}
+		if (hintEngine != null) {
+			hintEngine.bridgesChanged();
+		}
+		stateChecker.setPuzzleState();
+		return moves;
 	}
 
-	private void removeBridgesFromModel(List<Bridge> unsureBridges) {
-		Iterator<Bridge> unsureBridgesIterator = unsureBridges.iterator();
-		while (unsureBridgesIterator.hasNext()) {
-			hashiModel.removeBridge(unsureBridgesIterator.next(), false);
+	/**
+	 * Adds a (single) bridge between the <code>island</code> and the
+	 * <code>otherIsland</code> and updates the state of the puzzle.
+	 * 
+	 * @param island
+	 *            to connect by the bridge
+	 * @param otherIsland
+	 *            to connect by the bridge
+	 * @return true if the bridge was added
+	 */
+	public boolean addBridgeBetween(Island island, Island otherIsland) {
+		boolean bridgeWasAdded = hashiModel.addBridgeBetween(island, otherIsland);
+		if (hintEngine != null) {
+			hintEngine.bridgeChanged(island, otherIsland);
 		}
+		stateChecker.setPuzzleState();
+		return bridgeWasAdded;
 	}
 
-	private void addUnsureBridgeAndResetPuzzleState(Island island, Island neighbor, List<Bridge> unsureBridges) {
-		hashiModel.addBridgeBetween(island, neighbor);
+	/**
+	 * Adds a bridge of the solution of the puzzle that is still missing, if the
+	 * hint engine knows the solution and all bridges already built belong to it.
+	 * 
+	 * @return true if a bridge was added, otherwise false
+	 */
+	private boolean makeMoveBySolution() {
+		if (hintEngine == null) {
+			return false;
+		}
+		Island[] ends = hintEngine.getNextBridge();
+		if (ends == null) {
+			return false;
+		}
+		hashiModel.addBridgeBetween(ends[0], ends[1]);
+		hintEngine.bridgeChanged(ends[0], ends[1]);
 		stateChecker.setPuzzleState();
-		unsureBridges.add(hashiModel.getLastInsertedBridge());
+		return true;
 	}
 
 	/**
-	 * Goes through all islands of <code>hashiModel</code> iteratively trying to
-	 * find a bridge that must be added to an island (and its neighbor island).
+	 * Adds a bridge that must be built because every alternative leads to a
+	 * contradiction within the limits of the contradiction solver.
+	 * 
+	 * @return true if a bridge was added, otherwise false
+	 */
+	private boolean makeSureMoveByContradiction() {
+		if (contradictionSolver == null) {
+			return false;
+		}
+		int edge = contradictionSolver.findSureEdge(graph, graph.getBridges(hashiModel));
+		if (edge < 0) {
+			return false;
+		}
+		return addBridgeBetween(islands.get(graph.getEdgeStart(edge)), islands.get(graph.getEdgeEnd(edge)));
+	}
+
+	/**
+	 * Goes through the islands of <code>hashiModel</code> affected by a change
+	 * iteratively trying to find a bridge that must be added to an island (and its
+	 * neighbor island). Islands for which no bridge was found are not tried again
+	 * until they are affected by another change.
 	 * 
 	 * @return true if sure move could be made, otherwise false.
 	 */
 	private boolean makeSureMoveByUsingRules() {
-		boolean sureMoveWasMade = false;
-		Iterator<Island> islandIter = hashiModel.getIslands().iterator();
-		while (islandIter.hasNext() && !sureMoveWasMade) {
-			sureMoveWasMade = addSureBridgeToIsland(islandIter.next());
+		for (int island = dirtyIslands.nextSetBit(0); island >= 0; island = dirtyIslands.nextSetBit(island + 1)) {
+			dirtyIslands.clear(island); // set again by the bridge added
+			if (addSureBridgeToIsland(islands.get(island))) {
+				return true;
+			}
 		}
-		return sureMoveWasMade;
+		return false;
 	}
 
 	/**
@@ -172,6 +264,9 @@ public class BridgeAdder {
 			Island neighbor = getNeighborToWhichBridgeMustBeBuilt(island);
 			if (neighbor != null) {
 				hashiModel.addBridgeBetween(island, neighbor);
+				if (hintEngine != null) {
+					hintEngine.bridgeChanged(island, neighbor);
+				}
 				stateChecker.setPuzzleState();
 				return true;
 			}
@@ -250,22 +345,32 @@ public class BridgeAdder {
 		int noOfBuildableBridges = neighborsToBuildBridge.size() + neighborsToBuildDoubleBridge.size();
 		if (2 * neighbors.size() <= island.getNoOfBridgesRequired()
 				|| island.getNoOfBridgesMissing() == noOfBuildableBridges) {
+			ruleApplied(1);
 			return neighborsToBuildBridge.get(0); // contains one since island is missing bridge(s)
 		}
 		if ((2 * neighbors.size() - 1 <= island.getNoOfBridgesRequired()
 				|| island.getNoOfBridgesMissing() == noOfBuildableBridges - 1)
 				&& !neighborsToBuildDoubleBridge.isEmpty()) {
+			ruleApplied(2);
 			return neighborsToBuildDoubleBridge.get(0);
 		}
 		if (neighborsRequiringMoreThanOneBridge.size() == 1 && (island.getNoOfBridgesRequired() == 1
 				|| island.getNoOfBridgesRequired() == 2 && island.getNoOfBridgesMissing() == 2)) {
+			ruleApplied(3);
 			return neighborsRequiringMoreThanOneBridge.get(0);
 		}
 		if (island.getNoOfBridgesRequired() == 2 && island.getNoOfBridgesMissing() == 2
 				&& neighborsToBuildBridge.size() == 2 && neighborsRequiringMoreThanTwoBridges.size() == 1) {
+			ruleApplied(4);
 			return neighborsRequiringMoreThanTwoBridges.get(0);
 		}
 		return null;
 	}
 
+	private void ruleApplied(int rule) {
+		if (metrics != null) {
+			metrics.ruleApplied(rule);
+		}
+	}
+
 }
@@ -0,0 +1,350 @@
+package controller;
+
+import java.util.Arrays;
+
+import common.Direction;
+import model.CandidateEdgeGraph;
+
+/**
+ * An instance of <code>BridgeDomains</code> holds, for every edge of a
+ * {@link CandidateEdgeGraph}, the interval [min, max] of the numbers of bridges
+ * that can still be built on the edge, and narrows these intervals by
+ * propagating the rules of Hashiwokakero:
+ * <ul>
+ * <li>an island requires exactly as many bridges as its number says,</li>
+ * <li>bridges cannot cross and</li>
+ * <li>all islands need to be connected (see {@link #isConnectable()
+ * isConnectable}).</li>
+ * </ul>
+ *
+ * <p>
+ * Every change of an interval is recorded on a trail, so that all changes made
+ * after a {@link #mark() mark} can be undone. This allows searching by making
+ * tentative decisions and undoing them.
+ * </p>
+ */
+public class BridgeDomains {
+
+	private final CandidateEdgeGraph graph;
+	private final int[] min, max;
+	private int[] trail = new int[64]; // edge << 4 | old min << 2 | old max
+	private int trailSize;
+	private final int[] queue; // islands whose edges need to be checked
+	private final boolean[] queued;
+	private int queueHead, queueSize;
+	private int failedIsland = -1;
+	private final int[] component, stack; // reused by connectivity checks
+	private final boolean[] reached;
+
+	/**
+	 * Constructs the initial domains of the edges of the <code>graph</code>, i.e.
+	 * an edge can hold at most as many bridges as both of its ends require, but no
+	 * more than two.
+	 *
+	 * @param graph of the puzzle
+	 */
+	public BridgeDomains(CandidateEdgeGraph graph) {
+		this.graph = graph;
+		int noOfEdges = graph.getNoOfEdges();
+		min = new int[noOfEdges];
+		max = new int[noOfEdges];
+		for (int e = 0; e < noOfEdges; e++) {
+			max[e] = Math.min(2, Math.min(graph.getClue(graph.getEdgeStart(e)), graph.getClue(graph.getEdgeEnd(e))));
+		}
+		component = new int[graph.getNoOfIslands()];
+		stack = new int[graph.getNoOfIslands()];
+		reached = new boolean[graph.getNoOfIslands()];
+		queue = new int[graph.getNoOfIslands()];
+		queued = new boolean[graph.getNoOfIslands()];
+		for (int i = 0; i < graph.getNoOfIslands(); i++) {
+			enqueue(i);
+		}
+	}
+
+	public CandidateEdgeGraph getGraph() {
+		return graph;
+	}
+
+	public int getMin(int edge) {
+		return min[edge];
+	}
+
+	public int getMax(int edge) {
+		return max[edge];
+	}
+
+	/**
+	 * Returns true if the number of bridges of the <code>edge</code> is decided.
+	 *
+	 * @param edge index of the edge
+	 * @return true if min equals max
+	 */
+	public boolean isFixed(int edge) {
+		return min[edge] == max[edge];
+	}
+
+	/**
+	 * Narrows the domain of the <code>edge</code> to its intersection with
+	 * [<code>newMin</code>, <code>newMax</code>]. If the edge certainly holds a
+	 * bridge afterwards, bridges on crossing edges are forbidden. Further changes
+	 * are not propagated until {@link #propagate() propagate} is called.
+	 *
+	 * @param edge   index of the edge
+	 * @param newMin lower bound
+	 * @param newMax upper bound
+	 * @return false if the domain became empty, otherwise true
+	 */
+	public boolean restrict(int edge, int newMin, int newMax) {
+		int lower = Math.max(min[edge], newMin);
+		int upper = Math.min(max[edge], newMax);
+		if (lower > upper) {
+			return false;
+		}
+		if (lower != min[edge] || upper != max[edge]) {
+			if (trailSize == trail.length) {
+				trail = Arrays.copyOf(trail, 2 * trail.length);
+			}
+			trail[trailSize++] = edge << 4 | min[edge] << 2 | max[edge];
+			boolean isNewlyBuilt = min[edge] == 0 && lower > 0;
+			min[edge] = lower;
+			max[edge] = upper;
+			enqueue(graph.getEdgeStart(edge));
+			enqueue(graph.getEdgeEnd(edge));
+			if (isNewlyBuilt) {
+				for (int crossingEdge : graph.getCrossingEdges(edge)) {
+					if (!restrict(crossingEdge, 0, 0)) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Restricts the domains to the bridges already built, i.e. each edge must hold
+	 * at least as many bridges as in <code>bridges</code>.
+	 *
+	 * @param bridges number of bridges (0, 1 or 2) built on each edge
+	 * @return false if the bridges contradict the domains
+	 */
+	public boolean restrictToBuiltBridges(int[] bridges) {
+		for (int e = 0; e < bridges.length; e++) {
+			if (!restrict(e, bridges[e], 2)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets a mark of the current state that can be passed to
+	 * {@link #undo(int) undo}.
+	 *
+	 * @return mark of the current state
+	 */
+	public int mark() {
+		return trailSize;
+	}
+
+	/**
+	 * Undoes all changes made after the <code>mark</code> was taken.
+	 *
+	 * @param mark taken by {@link #mark() mark}
+	 */
+	public void undo(int mark) {
+		while (trailSize > mark) {
+			int entry = trail[--trailSize];
+			int edge = entry >>> 4;
+			min[edge] = (entry >> 2) & 3;
+			max[edge] = entry & 3;
+		}
+		clearQueue();
+		failedIsland = -1;
+	}
+
+	/**
+	 * Gets the edges whose domains have been narrowed after the
+	 * <code>mark</code> was taken. An edge is contained once per change.
+	 *
+	 * @param mark taken by {@link #mark() mark}
+	 * @return indices of the edges changed
+	 */
+	public int[] getEdgesChangedSince(int mark) {
+		int[] edges = new int[trailSize - mark];
+		for (int i = mark; i < trailSize; i++) {
+			edges[i - mark] = trail[i] >>> 4;
+		}
+		return edges;
+	}
+
+	private void enqueue(int island) {
+		if (!queued[island]) {
+			queued[island] = true;
+			queue[(queueHead + queueSize++) % queue.length] = island;
+		}
+	}
+
+	private int dequeue() {
+		int island = queue[queueHead];
+		queueHead = (queueHead + 1) % queue.length;
+		queueSize--;
+		queued[island] = false;
+		return island;
+	}
+
+	private void clearQueue() {
+		while (queueSize > 0) {
+			dequeue();
+		}
+	}
+
+	/**
+	 * Propagates all changes until a fixpoint is reached, i.e. no domain can be
+	 * narrowed any further by the rules regarding the number of bridges required
+	 * by islands and crossing bridges.
+	 *
+	 * @return false if a contradiction was found, otherwise true
+	 */
+	public boolean propagate() {
+		failedIsland = -1;
+		while (queueSize > 0) {
+			int island = dequeue();
+			if (!propagateIsland(island)) {
+				failedIsland = island;
+				clearQueue();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the island whose bridges could not be counted consistently by the last
+	 * call of {@link #propagate() propagate}, e.g. to weight the island when
+	 * choosing the next edge to decide.
+	 *
+	 * @return index of the island or -1 if the last propagation did not fail at
+	 *         an island
+	 */
+	public int getFailedIsland() {
+		return failedIsland;
+	}
+
+	private boolean propagateIsland(int island) {
+		int sumMin = 0, sumMax = 0;
+		for (Direction direction : Direction.values()) {
+			int edge = graph.getEdge(island, direction);
+			if (edge >= 0) {
+				sumMin += min[edge];
+				sumMax += max[edge];
+			}
+		}
+		int clue = graph.getClue(island);
+		if (sumMin > clue || sumMax < clue) {
+			return false;
+		}
+		for (Direction direction : Direction.values()) {
+			int edge = graph.getEdge(island, direction);
+			if (edge >= 0 && !isFixed(edge)) {
+				if (!restrict(edge, clue - (sumMax - max[edge]), clue - (sumMin - min[edge]))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if all islands can still be connected, i.e. the edges that can
+	 * still hold bridges connect all islands and no group of islands that is
+	 * connected by bridges already built is complete, i.e. each of its islands has
+	 * all the bridges it requires, while there are islands outside of this group.
+	 *
+	 * @return false if the islands can certainly not be connected, otherwise true
+	 */
+	public boolean isConnectable() {
+		int noOfIslands = graph.getNoOfIslands();
+		if (noOfIslands == 0) {
+			return true;
+		}
+		Arrays.fill(component, -1);
+		int noOfComponents = 0;
+		for (int start = 0; start < noOfIslands; start++) { // components of built bridges
+			if (component[start] >= 0)
+				continue;
+			boolean isComplete = true;
+			int size = 0, stackSize = 0;
+			stack[stackSize++] = start;
+			component[start] = noOfComponents;
+			while (stackSize > 0) {
+				int island = stack[--stackSize];
+				size++;
+				int noOfBridges = 0;
+				for (Direction direction : Direction.values()) {
+					int edge = graph.getEdge(island, direction);
+					if (edge < 0)
+						continue;
+					noOfBridges += min[edge];
+					int neighbor = graph.getOtherEnd(edge, island);
+					if (min[edge] > 0 && component[neighbor] < 0) {
+						component[neighbor] = noOfComponents;
+						stack[stackSize++] = neighbor;
+					}
+				}
+				if (noOfBridges < graph.getClue(island)) {
+					isComplete = false;
+				}
+			}
+			if (isComplete && size < noOfIslands) {
+				return false;
+			}
+			noOfComponents++;
+		}
+		return isReachableByPossibleBridges();
+	}
+
+	private boolean isReachableByPossibleBridges() {
+		Arrays.fill(reached, false);
+		int stackSize = 0, noOfReached = 1;
+		stack[stackSize++] = 0;
+		reached[0] = true;
+		while (stackSize > 0) {
+			int island = stack[--stackSize];
+			for (Direction direction : Direction.values()) {
+				int edge = graph.getEdge(island, direction);
+				if (edge >= 0 && max[edge] > 0 && !reached[graph.getOtherEnd(edge, island)]) {
+					reached[graph.getOtherEnd(edge, island)] = true;
+					stack[stackSize++] = graph.getOtherEnd(edge, island);
+					noOfReached++;
+				}
+			}
+		}
+		return noOfReached == graph.getNoOfIslands();
+	}
+
+	/**
+	 * Returns true if the number of bridges of every edge is decided.
+	 *
+	 * @return true if all edges are fixed
+	 */
+	public boolean isComplete() {
+		for (int e = 0; e < min.length; e++) {
+			if (!isFixed(e)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the lower bounds of all edges, which is the solution if all edges are
+	 * fixed.
+	 *
+	 * @return copy of the lower bounds
+	 */
+	public int[] getMinima() {
+		return min.clone();
+	}
+
+}
@@ -0,0 +1,153 @@
+package controller;
+
+import model.CandidateEdgeGraph;
+
+/**
+ * An instance of the class <code>ContradictionSolver</code> finds bridges that
+ * must certainly be built in a Hashiwokakeru puzzle even if the rules of the
+ * {@link BridgeAdder} are stuck. A number of bridges on an edge is built
+ * tentatively and its consequences are propagated (see {@link BridgeDomains});
+ * if this leads to a contradiction, the number of bridges is excluded. Once
+ * enough numbers have been excluded, an edge must hold more bridges than have
+ * been built on it, i.e. a sure move has been found.
+ *
+ * <p>
+ * Hypotheses are nested at most <code>maxDepth</code> levels deep: at depth 1
+ * a contradiction must appear by propagating the hypothesis, at greater depths
+ * it suffices that the hypothesis leaves an edge next to the edges it narrowed
+ * on which every number of bridges fails at the next lower depth (see
+ * {@link BoundExcluder}). Shallow hypotheses are tried first. The search gives
+ * up when the time limit is exceeded or the thread is interrupted, so it never
+ * does a full search.
+ * </p>
+ *
+ * <p>
+ * Hypotheses are undone by the trail of the {@link BridgeDomains}, so the
+ * puzzle itself is never changed. An instance holds no state between two calls
+ * of {@link #findSureEdge(CandidateEdgeGraph, int[]) findSureEdge} except its
+ * limits, but must not be used by several threads at the same time.
+ * </p>
+ */
+public class ContradictionSolver {
+
+	/**
+	 * Default number of hypotheses that may be nested.
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 2;
+
+	/**
+	 * Default number of milliseconds after which the search for a sure move is
+	 * given up.
+	 */
+	public static final long DEFAULT_TIME_LIMIT = 100;
+
+	private final int maxDepth;
+	private final long timeLimit;
+	private ISolverMetrics metrics;
+	private boolean wasTimedOut;
+
+	/**
+	 * Constructs an instance of a <code>ContradictionSolver</code> with the
+	 * {@link #DEFAULT_MAX_DEPTH default depth} and
+	 * {@link #DEFAULT_TIME_LIMIT default time limit}.
+	 */
+	public ContradictionSolver() {
+		this(DEFAULT_MAX_DEPTH, DEFAULT_TIME_LIMIT);
+	}
+
+	/**
+	 * Constructs an instance of a <code>ContradictionSolver</code>.
+	 *
+	 * @param maxDepth  number of hypotheses that may be nested, at least 1
+	 * @param timeLimit number of milliseconds after which the search for a sure
+	 *                  move is given up
+	 * @throws IllegalArgumentException if the depth is less than 1 or the time
+	 *                                  limit is negative
+	 */
+	public ContradictionSolver(int maxDepth, long timeLimit) throws IllegalArgumentException {
+		if (maxDepth < 1)
+			throw new IllegalArgumentException("Depth must be at least 1.");
+		if (timeLimit < 0)
+			throw new IllegalArgumentException("Time limit must not be negative.");
+		this.maxDepth = maxDepth;
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Sets the metrics to which <code>this</code> solver reports each hypothesis
+	 * (as a node) and each propagation.
+	 *
+	 * @param metrics collecting the events or null to collect nothing
+	 */
+	public void setMetrics(ISolverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Finds an edge of the puzzle on which another bridge must certainly be built
+	 * given the <code>bridges</code> already built. <strong>Important:</strong>
+	 * Returns -1 if no such edge is found within the limits or if the bridges
+	 * already built render the puzzle unsolvable.
+	 *
+	 * @param graph   of the puzzle
+	 * @param bridges number of bridges built on each edge of the
+	 *                <code>graph</code>
+	 * @return index of the edge in the graph or -1
+	 * @throws IllegalArgumentException if the number of bridges does not match
+	 *                                  the number of edges
+	 */
+	public int findSureEdge(CandidateEdgeGraph graph, int[] bridges) throws IllegalArgumentException {
+		if (bridges.length != graph.getNoOfEdges())
+			throw new IllegalArgumentException(
+					"Puzzle has " + graph.getNoOfEdges() + " edges, but " + bridges.length + " were given.");
+		wasTimedOut = false;
+		BridgeDomains domains = new BridgeDomains(graph);
+		BoundExcluder excluder = new BoundExcluder(domains);
+		excluder.setMetrics(metrics);
+		excluder.setTimeLimit(timeLimit);
+		if (!domains.restrictToBuiltBridges(bridges) || !excluder.propagate()) {
+			return -1;
+		}
+		int depth = 1;
+		while (depth <= maxDepth) {
+			int sureEdge = getSureEdge(domains, bridges);
+			if (sureEdge >= 0) {
+				return sureEdge;
+			}
+			int result = excluder.excludeBound(depth);
+			wasTimedOut = excluder.wasTimedOut();
+			if (result == BoundExcluder.CONTRADICTION
+					|| result == BoundExcluder.EXCLUDED && !excluder.propagate()) {
+				return -1; // every number of bridges of an edge fails
+			}
+			if (result == BoundExcluder.EXCLUDED) {
+				depth = 1;
+			} else if (wasTimedOut) {
+				return -1;
+			} else {
+				depth++;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns true if the last search for a sure move was given up because the
+	 * time limit was exceeded.
+	 *
+	 * @return true if the time limit was exceeded
+	 */
+	public boolean wasTimedOut() {
+		return wasTimedOut;
+	}
+
+	private static int getSureEdge(BridgeDomains domains, int[] bridges) {
+		for (int e = 0; e < bridges.length; e++) {
+			if (domains.getMin(e) > bridges[e]) {
+				return e;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,111 @@
+package controller;
+
+/**
+ * Immutable entry of a {@link CorpusIndex} describing a single .bgs file of a
+ * corpus of Hashiwokakero puzzles. If the file could not be loaded, width,
+ * height and number of islands are 0 and {@link #getError() getError} returns
+ * the reason.
+ */
+public class CorpusEntry {
+
+	private final String path;
+	private final long size;
+	private final long lastModified;
+	private final String contentHash;
+	private final int width, height, noOfIslands;
+	private final String error;
+
+	/**
+	 * Constructs an instance of a <code>CorpusEntry</code>.
+	 *
+	 * @param path         of the .bgs file relative to the root of the corpus
+	 * @param size         of the file in bytes
+	 * @param lastModified time of the file in milliseconds since the epoch
+	 * @param contentHash  SHA-256 hash of the content of the file as hex string
+	 * @param width        of the puzzle
+	 * @param height       of the puzzle
+	 * @param noOfIslands  of the puzzle
+	 * @param error        message if the puzzle could not be loaded, otherwise
+	 *                     <code>null</code>
+	 */
+	public CorpusEntry(String path, long size, long lastModified, String contentHash, int width, int height,
+			int noOfIslands, String error) {
+		this.path = path;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.contentHash = contentHash;
+		this.width = width;
+		this.height = height;
+		this.noOfIslands = noOfIslands;
+		this.error = error;
+	}
+
+	/**
+	 * Gets the path of the file relative to the root of the corpus using '/' as
+	 * separator.
+	 *
+	 * @return relative path of the file
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getNoOfIslands() {
+		return noOfIslands;
+	}
+
+	/**
+	 * Returns true if the puzzle could be loaded from the file.
+	 *
+	 * @return true if the puzzle is valid, otherwise false
+	 */
+	public boolean isValid() {
+		return error == null;
+	}
+
+	/**
+	 * Gets the reason why the puzzle could not be loaded.
+	 * <strong>Important:</strong> Returns <code>null</code> if the puzzle is
+	 * valid.
+	 *
+	 * @return error message or null
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Returns a copy of <code>this</code> entry with the size and time of last
+	 * modification replaced, used if a file was touched without its content
+	 * changing.
+	 */
+	CorpusEntry withFileAttributes(long size, long lastModified) {
+		return new CorpusEntry(path, size, lastModified, contentHash, width, height, noOfIslands, error);
+	}
+
+	@Override
+	public String toString() {
+		return "( " + path + " | " + width + " x " + height + " | " + noOfIslands + " )";
+	}
+
+}
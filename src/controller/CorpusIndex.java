@@ -0,0 +1,219 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Persistent index of a corpus of .bgs files holding one {@link CorpusEntry}
+ * per file. The index can be queried without loading any puzzle, e.g. to find
+ * all 20 x 20 puzzles with more than 60 islands. It is stored as a UTF-8 text
+ * file with one tab-separated line per entry. Backslashes, tabs and line
+ * breaks in paths are escaped by a backslash (<code>\\</code>,
+ * <code>\t</code>, <code>\n</code> and <code>\r</code>).
+ */
+public class CorpusIndex {
+
+	private static final String HEADER = "# path\tsize\tlastModified\tsha256\twidth\theight\tislands\terror";
+
+	private final Map<String, CorpusEntry> entries = new TreeMap<>();
+
+	/**
+	 * Loads an index from the file at <code>indexFile</code>. If there is no such
+	 * file, an empty index is returned.
+	 *
+	 * @param indexFile path of the index file
+	 * @return index read from the file
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a valid index file
+	 */
+	public static CorpusIndex load(Path indexFile) throws IOException, IllegalArgumentException {
+		CorpusIndex index = new CorpusIndex();
+		if (!Files.exists(indexFile)) {
+			return index;
+		}
+		try (BufferedReader in = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] columns = line.split("\t", -1);
+				if (columns.length != 8)
+					throw new IllegalArgumentException("Invalid line in index file " + indexFile + ": " + line);
+				index.put(new CorpusEntry(unescape(columns[0]), Long.parseLong(columns[1]), Long.parseLong(columns[2]),
+						columns[3], Integer.parseInt(columns[4]), Integer.parseInt(columns[5]),
+						Integer.parseInt(columns[6]), columns[7].isEmpty() ? null : columns[7]));
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Saves <code>this</code> index to the file at <code>indexFile</code>. The
+	 * index is written to a temporary file first which then replaces the old
+	 * index file.
+	 *
+	 * @param indexFile path of the index file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path indexFile) throws IOException {
+		Path tempFile = AtomicFiles.createTempFile(indexFile); // keeps the permissions of the old index file
+		try {
+			try (BufferedWriter out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+				out.write(HEADER);
+				out.write('\n');
+				for (CorpusEntry entry : entries.values()) {
+					out.write(toLine(entry));
+					out.write('\n');
+				}
+			}
+			AtomicFiles.replace(tempFile, indexFile);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static String toLine(CorpusEntry entry) {
+		String error = entry.isValid() ? "" : entry.getError().replaceAll("[\t\r\n]+", " ");
+		return escape(entry.getPath()) + "\t" + entry.getSize() + "\t" + entry.getLastModified() + "\t"
+				+ entry.getContentHash() + "\t" + entry.getWidth() + "\t" + entry.getHeight() + "\t"
+				+ entry.getNoOfIslands() + "\t" + error;
+	}
+
+	/**
+	 * Escapes backslashes, tabs and line breaks, which file names may contain,
+	 * so that a path always fits into one column.
+	 */
+	private static String escape(String path) {
+		StringBuilder escaped = new StringBuilder(path.length());
+		for (int i = 0; i < path.length(); i++) {
+			char c = path.charAt(i);
+			switch (c) {
+			case '\\':
+				escaped.append("\\\\");
+				break;
+			case '\t':
+				escaped.append("\\t");
+				break;
+			case '\n':
+				escaped.append("\\n");
+				break;
+			case '\r':
+				escaped.append("\\r");
+				break;
+			default:
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	private static String unescape(String column) {
+		StringBuilder path = new StringBuilder(column.length());
+		for (int i = 0; i < column.length(); i++) {
+			char c = column.charAt(i);
+			if (c == '\\') {
+				if (++i == column.length())
+					throw new IllegalArgumentException("Invalid escape sequence in path " + column);
+				switch (column.charAt(i)) {
+				case '\\':
+					c = '\\';
+					break;
+				case 't':
+					c = '\t';
+					break;
+				case 'n':
+					c = '\n';
+					break;
+				case 'r':
+					c = '\r';
+					break;
+				default:
+					throw new IllegalArgumentException("Invalid escape sequence in path " + column);
+				}
+			}
+			path.append(c);
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Gets the entry of the file at the relative <code>path</code>.
+	 * <strong>Important:</strong> Returns <code>null</code> if there is no such
+	 * entry.
+	 *
+	 * @param path of the file relative to the root of the corpus
+	 * @return entry if existing, otherwise null
+	 */
+	public CorpusEntry get(String path) {
+		return entries.get(path);
+	}
+
+	void put(CorpusEntry entry) {
+		entries.put(entry.getPath(), entry);
+	}
+
+	void retainPaths(Collection<String> paths) {
+		entries.keySet().retainAll(paths);
+	}
+
+	/**
+	 * Gets the number of files in <code>this</code> index.
+	 *
+	 * @return number of entries
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets all entries ordered by path.
+	 *
+	 * @return unmodifiable collection of all entries
+	 */
+	public Collection<CorpusEntry> getEntries() {
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	/**
+	 * Gets all entries ordered by path that match the <code>filter</code>.
+	 *
+	 * @param filter entries need to match
+	 * @return matching entries
+	 */
+	public List<CorpusEntry> query(Predicate<CorpusEntry> filter) {
+		List<CorpusEntry> result = new ArrayList<>();
+		for (CorpusEntry entry : entries.values()) {
+			if (filter.test(entry)) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets all valid <code>width x height</code> puzzles that have at least
+	 * <code>minNoOfIslands</code> islands.
+	 *
+	 * @param width          of the puzzles
+	 * @param height         of the puzzles
+	 * @param minNoOfIslands minimum number of islands
+	 * @return matching entries
+	 */
+	public List<CorpusEntry> query(int width, int height, int minNoOfIslands) {
+		return query(entry -> entry.isValid() && entry.getWidth() == width && entry.getHeight() == height
+				&& entry.getNoOfIslands() >= minNoOfIslands);
+	}
+
+}
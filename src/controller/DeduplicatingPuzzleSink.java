@@ -0,0 +1,120 @@
+package controller;
+
+import java.io.Closeable;
+import java.util.HashSet;
+import java.util.Set;
+
+import common.OffHeapHashSet128;
+import model.CanonicalForm;
+import model.IPuzzleSituationModel;
+import model.PuzzleHash;
+
+/**
+ * An <code>IPuzzleSink</code> that rejects every puzzle that is equal to a
+ * puzzle accepted before up to rotation and reflection and passes all other
+ * puzzles on to a downstream sink. Puzzles are compared by the 128-bit hash of
+ * their {@link CanonicalForm canonical form}, which are kept in an off-heap
+ * set, so tens of millions of puzzles can be deduplicated without filling the
+ * heap. The set should be freed by {@link #close()} when no more puzzles are
+ * offered.
+ *
+ * <p>
+ * The downstream sink is called without holding the lock of
+ * <code>this</code> sink, so a slow downstream sink does not hold up
+ * deduplication on other threads.
+ * </p>
+ */
+public class DeduplicatingPuzzleSink implements IPuzzleSink, Closeable {
+
+	private final OffHeapHashSet128 seenHashes;
+	private final Set<PuzzleHash> pendingHashes = new HashSet<>(); // offered downstream right now
+	private final IPuzzleSink downstream;
+
+	/**
+	 * Constructs an instance of a <code>DeduplicatingPuzzleSink</code> that only
+	 * remembers the puzzles accepted.
+	 *
+	 * @param expectedNoOfPuzzles number of puzzles expected to be accepted
+	 */
+	public DeduplicatingPuzzleSink(long expectedNoOfPuzzles) {
+		this(expectedNoOfPuzzles, null);
+	}
+
+	/**
+	 * Constructs an instance of a <code>DeduplicatingPuzzleSink</code>.
+	 *
+	 * @param expectedNoOfPuzzles number of puzzles expected to be accepted
+	 * @param downstream          sink that unique puzzles are passed on to; may be
+	 *                            <code>null</code>
+	 */
+	public DeduplicatingPuzzleSink(long expectedNoOfPuzzles, IPuzzleSink downstream) {
+		this.seenHashes = new OffHeapHashSet128(expectedNoOfPuzzles);
+		this.downstream = downstream;
+	}
+
+	/**
+	 * Accepts the puzzle if no puzzle with the same canonical form was accepted
+	 * before and the downstream sink (if any) accepts it as well. The canonical
+	 * form is only remembered if the puzzle is accepted, so a puzzle rejected
+	 * downstream does not cause equal puzzles offered later to be rejected. An
+	 * equal puzzle offered while the downstream sink decides on the puzzle is
+	 * rejected.
+	 */
+	@Override
+	public boolean accept(IPuzzleSituationModel hashiModel) {
+		PuzzleHash canonicalHash = CanonicalForm.of(hashiModel).getHash();
+		if (downstream == null) {
+			return accept(canonicalHash);
+		}
+		synchronized (this) {
+			if (seenHashes.contains(canonicalHash.getHigh(), canonicalHash.getLow())
+					|| !pendingHashes.add(canonicalHash)) {
+				return false;
+			}
+		}
+		boolean accepted = false;
+		try {
+			accepted = downstream.accept(hashiModel);
+		} finally {
+			synchronized (this) {
+				pendingHashes.remove(canonicalHash);
+				if (accepted) {
+					seenHashes.add(canonicalHash.getHigh(), canonicalHash.getLow());
+				}
+			}
+		}
+		return accepted;
+	}
+
+	/**
+	 * Accepts a puzzle by its canonical hash if no puzzle with the same hash was
+	 * accepted before. Used for puzzles that are not loaded into a model, e.g.
+	 * records of a binary corpus (see {@link PuzzleRecord#getCanonicalForm()}).
+	 * The downstream sink is not informed.
+	 *
+	 * @param canonicalHash of the puzzle
+	 * @return true if the hash was not seen before
+	 */
+	public synchronized boolean accept(PuzzleHash canonicalHash) {
+		return seenHashes.add(canonicalHash.getHigh(), canonicalHash.getLow());
+	}
+
+	/**
+	 * Gets the number of unique puzzles seen so far.
+	 *
+	 * @return number of unique puzzles
+	 */
+	public long getNoOfUniquePuzzles() {
+		return seenHashes.size();
+	}
+
+	/**
+	 * Frees the set of canonical hashes. Afterwards, no more puzzles may be
+	 * offered.
+	 */
+	@Override
+	public void close() {
+		seenHashes.close();
+	}
+
+}
@@ -0,0 +1,259 @@
+package controller;
+
+import java.util.concurrent.CancellationException;
+
+import model.CandidateEdgeGraph;
+
+/**
+ * An instance of the class <code>DifficultyGrader</code> grades how difficult
+ * a Hashiwokakeru puzzle is for a human by solving it with a ladder of
+ * techniques ordered from easy to hard (see {@link Technique}). A harder
+ * technique is only used if all easier techniques are stuck, and after it made
+ * progress the easier techniques are tried again. The grade consists of the
+ * hardest technique needed and an effort score weighting each use of a
+ * technique by its difficulty.
+ *
+ * <p>
+ * Techniques work on the {@link BridgeDomains} of the puzzle, so grading does
+ * not change any model and is fast enough to grade every puzzle of a batch.
+ * </p>
+ *
+ * <p>
+ * On large puzzles, the hypotheses of the harder techniques may take very
+ * long. Grading therefore stops when it exceeds a time limit; the puzzle is
+ * then graded {@link Technique#SEARCH SEARCH}, since a human would have to
+ * guess as well, and its grade is marked as timed out.
+ * </p>
+ */
+public class DifficultyGrader {
+
+	/**
+	 * Default number of milliseconds after which grading a puzzle is given up.
+	 */
+	public static final long DEFAULT_TIME_LIMIT = 5000;
+
+	/**
+	 * Techniques of the ladder ordered from easy to hard.
+	 */
+	public static enum Technique {
+		/**
+		 * Counting bridges: an island requires exactly as many bridges as its number
+		 * says and bridges cannot cross, i.e. the interval propagation of the
+		 * {@link BridgeDomains}.
+		 */
+		BASIC(1),
+
+		/**
+		 * A number of bridges is excluded because it would isolate a group of
+		 * islands or disconnect the islands right away.
+		 */
+		CONNECTIVITY(2),
+
+		/**
+		 * A number of bridges is excluded because counting bridges after building
+		 * them leads to a contradiction (one step lookahead).
+		 */
+		LOOKAHEAD(5),
+
+		/**
+		 * A number of bridges is excluded because it leaves an edge on which no
+		 * number of bridges survives a lookahead (contradiction two steps deep).
+		 */
+		CONTRADICTION(20),
+
+		/**
+		 * None of the techniques above makes progress, so bridges need to be guessed.
+		 */
+		SEARCH(100);
+
+		private final int weight;
+
+		private Technique(int weight) {
+			this.weight = weight;
+		}
+
+		/**
+		 * Gets the effort a single use of <code>this</code> technique adds to the
+		 * score.
+		 * 
+		 * @return weight of the technique
+		 */
+		public int getWeight() {
+			return weight;
+		}
+	}
+
+	private final long timeLimit;
+
+	/**
+	 * Constructs an instance of a <code>DifficultyGrader</code> with the
+	 * {@link #DEFAULT_TIME_LIMIT default time limit}.
+	 */
+	public DifficultyGrader() {
+		this(DEFAULT_TIME_LIMIT);
+	}
+
+	/**
+	 * Constructs an instance of a <code>DifficultyGrader</code>.
+	 * 
+	 * @param timeLimit
+	 *            number of milliseconds after which grading a puzzle is given up
+	 *            or 0 for no limit
+	 * @throws IllegalArgumentException
+	 *             if the time limit is negative
+	 */
+	public DifficultyGrader(long timeLimit) throws IllegalArgumentException {
+		if (timeLimit < 0)
+			throw new IllegalArgumentException("Time limit must not be negative.");
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Grades the puzzle represented by the <code>graph</code>.
+	 * 
+	 * @param graph
+	 *            of the puzzle
+	 * @return grade of the puzzle
+	 * @throws CancellationException
+	 *             if the thread was interrupted
+	 */
+	public Difficulty grade(CandidateEdgeGraph graph) throws CancellationException {
+		long[] noOfUses = new long[Technique.values().length];
+		BridgeDomains domains = new BridgeDomains(graph);
+		BoundExcluder excluder = new BoundExcluder(domains);
+		if (timeLimit > 0) {
+			excluder.setTimeLimit(timeLimit);
+		}
+		Technique hardest = Technique.BASIC;
+		int noOfFixedEdges = 0;
+		while (true) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("Grading was interrupted.");
+			}
+			if (!domains.propagate() || !domains.isConnectable()) {
+				return new Difficulty(false, hardest, noOfUses, false);
+			}
+			int newNoOfFixedEdges = getNoOfFixedEdges(domains);
+			noOfUses[Technique.BASIC.ordinal()] += newNoOfFixedEdges - noOfFixedEdges;
+			noOfFixedEdges = newNoOfFixedEdges;
+			if (noOfFixedEdges == graph.getNoOfEdges()) {
+				return new Difficulty(true, hardest, noOfUses, false);
+			}
+			Technique technique = Technique.CONNECTIVITY;
+			int result = excluder.excludeBound(0);
+			if (result == BoundExcluder.NOTHING_EXCLUDED) {
+				technique = Technique.LOOKAHEAD;
+				result = excluder.excludeBound(1);
+			}
+			if (result == BoundExcluder.NOTHING_EXCLUDED) {
+				technique = Technique.CONTRADICTION;
+				result = excluder.excludeBound(2);
+			}
+			if (excluder.wasInterrupted()) {
+				throw new CancellationException("Grading was interrupted.");
+			}
+			if (result == BoundExcluder.NOTHING_EXCLUDED) { // a stopped excluder excludes nothing
+				noOfUses[Technique.SEARCH.ordinal()]++;
+				return new Difficulty(true, Technique.SEARCH, noOfUses, excluder.wasTimedOut());
+			}
+			noOfUses[technique.ordinal()]++;
+			if (technique.compareTo(hardest) > 0) {
+				hardest = technique;
+			}
+			if (result == BoundExcluder.CONTRADICTION) {
+				return new Difficulty(false, hardest, noOfUses, false);
+			}
+		}
+	}
+
+	private static int getNoOfFixedEdges(BridgeDomains domains) {
+		int noOfFixedEdges = 0;
+		for (int e = 0; e < domains.getGraph().getNoOfEdges(); e++) {
+			if (domains.isFixed(e)) {
+				noOfFixedEdges++;
+			}
+		}
+		return noOfFixedEdges;
+	}
+
+	/**
+	 * The grade of a puzzle computed by a {@link DifficultyGrader}.
+	 */
+	public static class Difficulty {
+
+		private final boolean isSolvable;
+		private final Technique hardestTechnique;
+		private final long[] noOfUses;
+		private final boolean wasTimedOut;
+
+		private Difficulty(boolean isSolvable, Technique hardestTechnique, long[] noOfUses, boolean wasTimedOut) {
+			this.isSolvable = isSolvable;
+			this.hardestTechnique = hardestTechnique;
+			this.noOfUses = noOfUses;
+			this.wasTimedOut = wasTimedOut;
+		}
+
+		/**
+		 * Returns false if the techniques found out that the puzzle has no solution.
+		 * 
+		 * @return false if the puzzle is certainly unsolvable, otherwise true
+		 */
+		public boolean isSolvable() {
+			return isSolvable;
+		}
+
+		/**
+		 * Gets the hardest technique needed to solve the puzzle, which is the tier
+		 * of the puzzle.
+		 * 
+		 * @return hardest technique needed
+		 */
+		public Technique getHardestTechnique() {
+			return hardestTechnique;
+		}
+
+		/**
+		 * Returns true if grading exceeded its time limit, i.e. the puzzle was
+		 * graded {@link Technique#SEARCH SEARCH} although a technique might still
+		 * have made progress.
+		 * 
+		 * @return true if grading was given up
+		 */
+		public boolean wasTimedOut() {
+			return wasTimedOut;
+		}
+
+		/**
+		 * Gets the number of times the <code>technique</code> made progress. For
+		 * {@link Technique#BASIC BASIC}, this is the number of edges it decided.
+		 * 
+		 * @param technique
+		 *            of the ladder
+		 * @return number of uses of the technique
+		 */
+		public long getNoOfUses(Technique technique) {
+			return noOfUses[technique.ordinal()];
+		}
+
+		/**
+		 * Gets the effort score, i.e. the sum of the weights of all uses of
+		 * techniques.
+		 * 
+		 * @return effort score
+		 */
+		public long getScore() {
+			long score = 0;
+			for (Technique technique : Technique.values()) {
+				score += technique.getWeight() * noOfUses[technique.ordinal()];
+			}
+			return score;
+		}
+
+		@Override
+		public String toString() {
+			return hardestTechnique + " (" + getScore() + ")";
+		}
+
+	}
+
+}
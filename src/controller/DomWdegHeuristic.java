@@ -0,0 +1,106 @@
+package controller;
+
+import java.util.Arrays;
+
+import model.CandidateEdgeGraph;
+
+/**
+ * A <code>DomWdegHeuristic</code> branches on the undecided edge with the
+ * smallest ratio of its number of options (dom) to the weight of its two
+ * islands (wdeg). The weight of an island grows each time counting its bridges
+ * leads to a contradiction, so the search focuses on the islands that are hard
+ * to satisfy.
+ *
+ * <p>
+ * Weights decay: each contradiction adds a larger amount than the previous one,
+ * which is equivalent to multiplying all weights by the decay factor but
+ * cheaper. Thus recent contradictions count more than old ones.
+ * </p>
+ */
+public class DomWdegHeuristic implements IBranchingHeuristic {
+
+	/**
+	 * Default factor by which the weights of islands decay with each
+	 * contradiction.
+	 */
+	public static final double DEFAULT_DECAY = 0.95;
+
+	private static final double MAX_WEIGHT = 1e100; // weights are rescaled before they overflow
+
+	private final double decay;
+	private double[] weights;
+	private double increment;
+
+	/**
+	 * Constructs an instance of a <code>DomWdegHeuristic</code> with the
+	 * {@link #DEFAULT_DECAY default decay}.
+	 */
+	public DomWdegHeuristic() {
+		this(DEFAULT_DECAY);
+	}
+
+	/**
+	 * Constructs an instance of a <code>DomWdegHeuristic</code>.
+	 *
+	 * @param decay
+	 *            factor in (0, 1] by which the weights decay with each
+	 *            contradiction; 1 means no decay
+	 * @throws IllegalArgumentException
+	 *             if the decay is not in (0, 1]
+	 */
+	public DomWdegHeuristic(double decay) throws IllegalArgumentException {
+		if (!(decay > 0 && decay <= 1))
+			throw new IllegalArgumentException("Decay must be in (0, 1].");
+		this.decay = decay;
+	}
+
+	@Override
+	public void reset(CandidateEdgeGraph graph) {
+		weights = new double[graph.getNoOfIslands()];
+		Arrays.fill(weights, 1);
+		increment = 1;
+	}
+
+	@Override
+	public int selectEdge(BridgeDomains domains) {
+		CandidateEdgeGraph graph = domains.getGraph();
+		int bestEdge = -1;
+		double bestRatio = 0;
+		for (int e = 0; e < graph.getNoOfEdges(); e++) {
+			if (!domains.isFixed(e)) {
+				int noOfOptions = domains.getMax(e) - domains.getMin(e) + 1;
+				// infinite if the weights of both islands were rescaled to 0
+				double ratio = noOfOptions / (weights[graph.getEdgeStart(e)] + weights[graph.getEdgeEnd(e)]);
+				if (bestEdge < 0 || ratio < bestRatio) {
+					bestEdge = e;
+					bestRatio = ratio;
+				}
+			}
+		}
+		return bestEdge;
+	}
+
+	@Override
+	public void conflict(BridgeDomains domains, int edge) {
+		int island = domains.getFailedIsland();
+		if (island >= 0) {
+			bump(island);
+		} else { // contradiction regarding crossings or connectivity
+			CandidateEdgeGraph graph = domains.getGraph();
+			bump(graph.getEdgeStart(edge));
+			bump(graph.getEdgeEnd(edge));
+		}
+		increment /= decay;
+	}
+
+	private void bump(int island) {
+		weights[island] += increment;
+		if (weights[island] > MAX_WEIGHT) {
+			for (int i = 0; i < weights.length; i++) {
+				weights[i] /= MAX_WEIGHT;
+			}
+			increment /= MAX_WEIGHT;
+		}
+	}
+
+}
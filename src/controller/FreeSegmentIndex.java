@@ -0,0 +1,135 @@
+package controller;
+
+import java.util.BitSet;
+
+import common.Direction;
+import model.HashiModel.Island;
+
+/**
+ * A <code>FreeSegmentIndex</code> finds how far a bridge could be built from an
+ * island of a Hashiwokakeru puzzle being generated without walking the field
+ * cell by cell.
+ *
+ * <p>
+ * Each row keeps a bitmap of its cells blocking horizontal bridges, i.e. of
+ * islands and of vertical bridges crossing the row, and each column a bitmap
+ * of its cells blocking vertical bridges. The free segments of a row or column
+ * are the runs of unset bits between two blocked cells. The end of the free
+ * segment next to a cell is found by scanning the bitmap 64 cells at a time,
+ * and blocking or unblocking a cell takes constant time, so keeping the index
+ * up to date costs no more than writing the bridges to the field.
+ * </p>
+ */
+class FreeSegmentIndex {
+
+	private final int width, height;
+	private final BitSet[] blockedColumnsOfRows, blockedRowsOfColumns;
+
+	/**
+	 * Constructs the <code>FreeSegmentIndex</code> of an empty
+	 * <code>width</code> x <code>height</code> field.
+	 *
+	 * @param width
+	 *            of the field
+	 * @param height
+	 *            of the field
+	 */
+	FreeSegmentIndex(int width, int height) {
+		this.width = width;
+		this.height = height;
+		blockedColumnsOfRows = new BitSet[height];
+		for (int y = 0; y < height; y++) {
+			blockedColumnsOfRows[y] = new BitSet(width);
+		}
+		blockedRowsOfColumns = new BitSet[width];
+		for (int x = 0; x < width; x++) {
+			blockedRowsOfColumns[x] = new BitSet(height);
+		}
+	}
+
+	/**
+	 * Blocks the cell of an island added at (x, y) in its row and column.
+	 *
+	 * @param x
+	 *            column of the island
+	 * @param y
+	 *            row of the island
+	 */
+	void addIsland(int x, int y) {
+		blockedColumnsOfRows[y].set(x);
+		blockedRowsOfColumns[x].set(y);
+	}
+
+	/**
+	 * Blocks the cells between the <code>start</code> and the <code>end</code>
+	 * island for bridges crossing the bridge added between them.
+	 *
+	 * @param start
+	 *            one end of the bridge
+	 * @param end
+	 *            other end of the bridge
+	 */
+	void addBridge(Island start, Island end) {
+		setBridgeCellsBlocked(start, end, true);
+	}
+
+	/**
+	 * Unblocks the cells between the <code>start</code> and the <code>end</code>
+	 * island after the bridge between them was removed.
+	 *
+	 * @param start
+	 *            one end of the bridge
+	 * @param end
+	 *            other end of the bridge
+	 */
+	void removeBridge(Island start, Island end) {
+		setBridgeCellsBlocked(start, end, false);
+	}
+
+	private void setBridgeCellsBlocked(Island start, Island end, boolean blocked) {
+		if (start.getX() == end.getX()) { // vertical bridge crosses rows
+			int x = start.getX();
+			for (int y = Math.min(start.getY(), end.getY()) + 1; y < Math.max(start.getY(), end.getY()); y++) {
+				blockedColumnsOfRows[y].set(x, blocked);
+			}
+		} else { // horizontal bridge crosses columns
+			int y = start.getY();
+			for (int x = Math.min(start.getX(), end.getX()) + 1; x < Math.max(start.getX(), end.getX()); x++) {
+				blockedRowsOfColumns[x].set(y, blocked);
+			}
+		}
+	}
+
+	/**
+	 * Gets the first blocked cell in the <code>direction</code> from (x, y), i.e.
+	 * the end of the free segment next to (x, y). <strong>Important:</strong>
+	 * Returns the column or row just outside the field if there is no blocked
+	 * cell up to the border.
+	 *
+	 * @param x
+	 *            column of the cell
+	 * @param y
+	 *            row of the cell
+	 * @param direction
+	 *            in which to search
+	 * @return column of the blocked cell if the <code>direction</code> is
+	 *         horizontal, otherwise its row; -1, <code>width</code> or
+	 *         <code>height</code> if there is none
+	 */
+	int getFirstBlockedCell(int x, int y, Direction direction) {
+		int cell;
+		switch (direction) {
+		case NORTH:
+			return blockedRowsOfColumns[x].previousSetBit(y - 1); // -1 if there is none
+		case SOUTH:
+			cell = blockedRowsOfColumns[x].nextSetBit(y + 1);
+			return cell < 0 ? height : cell;
+		case WEST:
+			return blockedColumnsOfRows[y].previousSetBit(x - 1);
+		default: // EAST
+			cell = blockedColumnsOfRows[y].nextSetBit(x + 1);
+			return cell < 0 ? width : cell;
+		}
+	}
+
+}
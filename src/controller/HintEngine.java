@@ -0,0 +1,302 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import common.Direction;
+import model.CandidateEdgeGraph;
+import model.HashiModel.Bridge;
+import model.HashiModel.Island;
+import model.IPuzzleSituationModel;
+
+/**
+ * A <code>HintEngine</code> knows the solution of a Hashiwokakeru puzzle and
+ * finds the next bridge to be built in constant time. The solution is taken
+ * from the {@link PuzzleAnalysis} of the puzzle, which is usually computed in
+ * the background right after the puzzle has been loaded or generated (see
+ * {@link PuzzleAnalyzer}). Until the analysis is published, the engine knows
+ * no bridge. Since the analyzer publishes it as soon as a solution is found
+ * within its time limit, hints are served on large boards as well (see
+ * <code>HintHarness</code>).
+ *
+ * <p>
+ * The engine keeps the edges whose bridges are still missing and the edges
+ * holding bridges that do not belong to the solution in two sets. Both sets are
+ * updated whenever a bridge is added or removed (see
+ * {@link #bridgeChanged(Island, Island) bridgeChanged}), so neither a hint nor
+ * the detection of a wrong bridge requires scanning the puzzle.
+ * </p>
+ *
+ * <p>
+ * <strong>Important:</strong> Bridges built by the user that do not belong to
+ * the solution only render the puzzle unsolvable if the solution is unique (see
+ * {@link #containsWrongBridge() containsWrongBridge}).
+ * </p>
+ */
+public class HintEngine {
+
+	private final IPuzzleSituationModel hashiModel;
+	private Future<PuzzleAnalysis> futureAnalysis;
+	private PuzzleAnalysis analysis;
+	private CandidateEdgeGraph graph;
+	private int[] solution;
+	private Island[] islands;
+	private int[] bridges;
+	private EdgeSet missingEdges, wrongEdges;
+	private boolean isSynchronized;
+
+	/**
+	 * Constructs an instance of a <code>HintEngine</code> for the puzzle held by
+	 * the <code>hashiModel</code> whose analysis may still be running.
+	 *
+	 * @param hashiModel     holding the puzzle
+	 * @param futureAnalysis of the puzzle
+	 */
+	public HintEngine(IPuzzleSituationModel hashiModel, Future<PuzzleAnalysis> futureAnalysis) {
+		this.hashiModel = hashiModel;
+		this.futureAnalysis = futureAnalysis;
+	}
+
+	/**
+	 * Gets the analysis of the puzzle without waiting for it.
+	 * <strong>Important:</strong> Returns null if the analysis is not yet done,
+	 * was cancelled or failed.
+	 *
+	 * @return analysis of the puzzle or null
+	 */
+	public synchronized PuzzleAnalysis getAnalysis() {
+		if (analysis == null && futureAnalysis != null && futureAnalysis.isDone()) {
+			try {
+				if (!futureAnalysis.isCancelled()) {
+					setAnalysis(futureAnalysis.get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+			futureAnalysis = null;
+		}
+		return analysis;
+	}
+
+	private void setAnalysis(PuzzleAnalysis analysis) {
+		this.analysis = analysis;
+		graph = analysis.getGraph();
+		solution = analysis.getSolution();
+		List<Island> islandList = hashiModel.getIslands();
+		islands = islandList.toArray(new Island[islandList.size()]);
+		bridges = new int[graph.getNoOfEdges()];
+		missingEdges = new EdgeSet(graph.getNoOfEdges());
+		wrongEdges = new EdgeSet(graph.getNoOfEdges());
+	}
+
+	/**
+	 * Returns true if the solution of the puzzle is known.
+	 *
+	 * @return true if the solution is known, otherwise false
+	 */
+	public synchronized boolean isSolutionKnown() {
+		return getAnalysis() != null && solution != null;
+	}
+
+	/**
+	 * Returns true if the puzzle is known to have a unique solution.
+	 *
+	 * @return true if the solution is known to be unique, otherwise false
+	 */
+	public synchronized boolean isSolutionUnique() {
+		return getAnalysis() != null && analysis.isUnique();
+	}
+
+	/**
+	 * Updates the sets of missing and wrong edges after the bridge between the
+	 * <code>island</code> and the <code>otherIsland</code> has been added or
+	 * removed.
+	 *
+	 * @param island      connected by the bridge
+	 * @param otherIsland connected by the bridge
+	 */
+	public synchronized void bridgeChanged(Island island, Island otherIsland) {
+		if (!isSynchronized) {
+			return; // all bridges are compared when the engine is used next time
+		}
+		int edge = graph.getEdgeBetween(getIslandIndex(island), getIslandIndex(otherIsland));
+		if (edge >= 0) {
+			bridgeChanged(edge);
+		}
+	}
+
+	/**
+	 * Updates the sets of missing and wrong edges after the bridge on the
+	 * <code>edge</code> has been added or removed.
+	 *
+	 * @param edge index of the edge in the graph
+	 */
+	public synchronized void bridgeChanged(int edge) {
+		if (isSynchronized) {
+			bridges[edge] = getNoOfBridgesOfModel(edge);
+			updateSets(edge);
+		}
+	}
+
+	/**
+	 * Compares all bridges of the puzzle with the solution again. Needs to be
+	 * called after bridges have been changed without calling
+	 * {@link #bridgeChanged(int) bridgeChanged}, e.g. after all bridges have been
+	 * removed.
+	 */
+	public synchronized void bridgesChanged() {
+		isSynchronized = false;
+	}
+
+	private void synchronize() {
+		if (!isSynchronized && isSolutionKnown()) {
+			for (int e = 0; e < bridges.length; e++) {
+				bridges[e] = getNoOfBridgesOfModel(e);
+				updateSets(e);
+			}
+			isSynchronized = true;
+		}
+	}
+
+	private void updateSets(int edge) {
+		if (bridges[edge] < solution[edge]) {
+			missingEdges.add(edge);
+		} else {
+			missingEdges.remove(edge);
+		}
+		if (bridges[edge] > solution[edge]) {
+			wrongEdges.add(edge);
+		} else {
+			wrongEdges.remove(edge);
+		}
+	}
+
+	private int getNoOfBridgesOfModel(int edge) {
+		Island start = islands[graph.getEdgeStart(edge)];
+		Bridge bridge = hashiModel.getBridge(start, graph.isVertical(edge) ? Direction.SOUTH : Direction.EAST);
+		if (bridge == null) {
+			return 0;
+		}
+		return bridge.isDouble() ? 2 : 1;
+	}
+
+	private int getIslandIndex(Island island) {
+		return graph.getIslandIndex(island.getX(), island.getY());
+	}
+
+	/**
+	 * Gets an edge on which a bridge of the solution is still missing.
+	 * <strong>Important:</strong> Returns -1 if the solution is not (yet) known,
+	 * no bridge is missing or a bridge that does not belong to the solution has
+	 * been built, since the missing bridge may then not lead to a solution.
+	 *
+	 * @return index of the edge in the graph or -1
+	 */
+	public synchronized int getNextEdge() {
+		synchronize();
+		if (!isSynchronized || !wrongEdges.isEmpty() || missingEdges.isEmpty()) {
+			return -1;
+		}
+		return missingEdges.any();
+	}
+
+	/**
+	 * Gets the two islands between which a bridge of the solution is still
+	 * missing (see {@link #getNextEdge() getNextEdge}).
+	 *
+	 * @return both ends of the missing bridge or null
+	 */
+	public synchronized Island[] getNextBridge() {
+		int edge = getNextEdge();
+		if (edge < 0) {
+			return null;
+		}
+		return new Island[] { islands[graph.getEdgeStart(edge)], islands[graph.getEdgeEnd(edge)] };
+	}
+
+	/**
+	 * Gets all bridges of the solution that are still missing, each bridge once
+	 * per single bridge to be built, ordered by edge. <strong>Important:</strong>
+	 * Returns null if the solution is not (yet) known or a bridge that does not
+	 * belong to the solution has been built.
+	 *
+	 * @return both ends of each missing bridge or null
+	 */
+	public synchronized List<Island[]> getMissingBridges() {
+		synchronize();
+		if (!isSynchronized || !wrongEdges.isEmpty()) {
+			return null;
+		}
+		int[] edges = Arrays.copyOf(missingEdges.elements, missingEdges.size);
+		Arrays.sort(edges);
+		List<Island[]> missingBridges = new ArrayList<>();
+		for (int edge : edges) {
+			for (int b = bridges[edge]; b < solution[edge]; b++) {
+				missingBridges.add(new Island[] { islands[graph.getEdgeStart(edge)], islands[graph.getEdgeEnd(edge)] });
+			}
+		}
+		return missingBridges;
+	}
+
+	/**
+	 * Returns true if a bridge has been built that does not belong to the unique
+	 * solution of the puzzle, i.e. the puzzle cannot be solved without removing a
+	 * bridge.
+	 *
+	 * @return true if the puzzle certainly contains a wrong bridge, otherwise
+	 *         false
+	 */
+	public synchronized boolean containsWrongBridge() {
+		synchronize();
+		return isSynchronized && analysis.isUnique() && !wrongEdges.isEmpty();
+	}
+
+	/**
+	 * A set of edges supporting adding, removing and getting an element in
+	 * constant time.
+	 */
+	private static class EdgeSet {
+
+		private final int[] elements;
+		private final int[] positions; // position of edge in elements, -1 if not contained
+		private int size;
+
+		private EdgeSet(int noOfEdges) {
+			elements = new int[noOfEdges];
+			positions = new int[noOfEdges];
+			Arrays.fill(positions, -1);
+		}
+
+		private void add(int edge) {
+			if (positions[edge] < 0) {
+				positions[edge] = size;
+				elements[size++] = edge;
+			}
+		}
+
+		private void remove(int edge) {
+			int position = positions[edge];
+			if (position >= 0) {
+				int last = elements[--size];
+				elements[position] = last;
+				positions[last] = position;
+				positions[edge] = -1;
+			}
+		}
+
+		private boolean isEmpty() {
+			return size == 0;
+		}
+
+		private int any() {
+			return elements[0];
+		}
+
+	}
+
+}
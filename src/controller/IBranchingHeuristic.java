@@ -0,0 +1,51 @@
+package controller;
+
+import model.CandidateEdgeGraph;
+
+/**
+ * The <code>IBranchingHeuristic</code> interface should be implemented by a
+ * class choosing the edge on which the {@link BacktrackingSolver} decides the
+ * number of bridges next. Since a bad choice can only be revised by
+ * backtracking, the choice dominates the time needed to solve a puzzle.
+ *
+ * <p>
+ * A heuristic may learn from the decisions that failed. It is reset each time
+ * a new search starts, but not when a search restarts, so that what was
+ * learned before the restart is kept.
+ * </p>
+ */
+public interface IBranchingHeuristic {
+
+	/**
+	 * Called before a search of the puzzle represented by the <code>graph</code>
+	 * starts.
+	 *
+	 * @param graph
+	 *            of the puzzle to be searched
+	 */
+	void reset(CandidateEdgeGraph graph);
+
+	/**
+	 * Chooses the edge to decide next out of the edges whose number of bridges is
+	 * not yet fixed.
+	 *
+	 * @param domains
+	 *            holding the numbers of bridges each edge can still hold
+	 * @return index of the edge or -1 if the number of bridges of every edge is
+	 *         fixed
+	 */
+	int selectEdge(BridgeDomains domains);
+
+	/**
+	 * Called each time a decision on the <code>edge</code> led to a
+	 * contradiction, before it is undone.
+	 *
+	 * @param domains
+	 *            in which the contradiction was found (see
+	 *            {@link BridgeDomains#getFailedIsland() getFailedIsland})
+	 * @param edge
+	 *            index of the edge decided
+	 */
+	void conflict(BridgeDomains domains, int edge);
+
+}
@@ -1,5 +1,7 @@
 package controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import common.Direction;
 
 import model.HashiModel.Island;
@@ -12,6 +14,13 @@ import model.HashiModel.Island;
  * After processing an input, the state of the model of the Hashiwokakeru puzzle
  * is updated and relevant components of the view are refreshed if model changed
  * as a result of the processing.
+ * 
+ * <p>
+ * <strong>Important:</strong> The methods return immediately. The inputs are
+ * processed one after another in the order they were given on the thread
+ * writing the model, so the view learns about their effect by being refreshed
+ * only.
+ * </p>
  */
 public interface IInputListener {
 	/**
@@ -58,9 +67,10 @@ public interface IInputListener {
 	 * </ul>
 	 * </p>
 	 * 
-	 * @return true if a bridge was added, false otherwise
+	 * @return future completed with true if a bridge was added, false otherwise,
+	 *         after the view was refreshed
 	 */
-	boolean addNextBridge();
+	CompletableFuture<Boolean> addNextBridge();
 
 	/**
 	 * Starts automatic solving of the puzzle if the puzzle is currently not being
@@ -91,6 +101,26 @@ public interface IInputListener {
 	 */
 	void startAndStopSolving();
 
+	/**
+	 * Solves the puzzle automatically without any pauses, i.e. adds all bridges
+	 * that would be added by {@link #startAndStopSolving() startAndStopSolving}
+	 * at once. If the puzzle is currently being solved automatically with pauses,
+	 * the remaining bridges are added at once as well.
+	 */
+	void solveInstantly();
+
+	/**
+	 * Sets the pause made after each bridge added when solving the puzzle
+	 * automatically (see {@link #startAndStopSolving() startAndStopSolving}).
+	 * Takes effect the next time solving is started.
+	 * 
+	 * @param solvingDelay
+	 *            pause in milliseconds; 0 to add all bridges at once
+	 * @throws IllegalArgumentException
+	 *             if solvingDelay is negative
+	 */
+	void setSolvingDelay(int solvingDelay) throws IllegalArgumentException;
+
 	/**
 	 * Restarts the puzzle, i.e. removes all bridges from the puzzle and resets the
 	 * puzzle state to {@link model.PuzzleState#NOT_YET_SOLVED}.
@@ -157,8 +187,10 @@ public interface IInputListener {
 	 *            of new puzzle
 	 * @param height
 	 *            of new puzzle
+	 * @throws IllegalArgumentException
+	 *             if no puzzle of this size can be generated
 	 */
-	void generatePuzzle(int width, int height);
+	void generatePuzzle(int width, int height) throws IllegalArgumentException;
 
 	/**
 	 * Generates a new puzzle of size <code>width</code> x <code>height</code> that
@@ -176,7 +208,10 @@ public interface IInputListener {
 	 *            of new puzzle
 	 * @param noOfIslands
 	 *            of new puzzle
+	 * @throws IllegalArgumentException
+	 *             if no puzzle of this size and number of islands can be
+	 *             generated
 	 */
-	void generatePuzzle(int width, int height, int noOfIslands);
+	void generatePuzzle(int width, int height, int noOfIslands) throws IllegalArgumentException;
 
 }
@@ -0,0 +1,22 @@
+package controller;
+
+import model.IPuzzleSituationModel;
+
+/**
+ * The <code>IPuzzleSink</code> interface should be implemented by any class
+ * consuming Hashiwokakero puzzles produced in bulk, e.g. by the
+ * {@link PuzzleGenerator} or read from a corpus.
+ */
+public interface IPuzzleSink {
+
+	/**
+	 * Offers the puzzle contained in the <code>hashiModel</code> to
+	 * <code>this</code> sink.
+	 * 
+	 * @param hashiModel
+	 *            containing the puzzle
+	 * @return true if the puzzle was accepted, false if it was rejected
+	 */
+	boolean accept(IPuzzleSituationModel hashiModel);
+
+}
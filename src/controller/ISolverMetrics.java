@@ -0,0 +1,63 @@
+package controller;
+
+/**
+ * The <code>ISolverMetrics</code> interface should be implemented by a class
+ * collecting metrics of solving Hashiwokakeru puzzles, e.g. to find out why the
+ * rules of the {@link BridgeAdder} do not suffice to solve a puzzle or where
+ * time is spent by the {@link PuzzleStateChecker}.
+ *
+ * <p>
+ * Components accept an instance of <code>ISolverMetrics</code> through a
+ * setter and do not collect anything if no instance is set.
+ * </p>
+ */
+public interface ISolverMetrics {
+
+	/**
+	 * Number of rules used by the {@link BridgeAdder} to find a bridge that must
+	 * be built. The rules are numbered from 1 in the order they are tried:
+	 * <ol>
+	 * <li>the island needs a bridge to each neighbor it can still be connected
+	 * to,</li>
+	 * <li>the island needs a double bridge to each neighbor but one,</li>
+	 * <li>the island can only reach one neighbor that requires more than one
+	 * bridge,</li>
+	 * <li>an island requiring two bridges has two neighbors, only one of which
+	 * requires more than two bridges.</li>
+	 * </ol>
+	 */
+	int NO_OF_RULES = 4;
+
+	/**
+	 * Called each time a rule found a bridge that must be built.
+	 * 
+	 * @param rule
+	 *            number of the rule from 1 to {@link #NO_OF_RULES NO_OF_RULES}
+	 */
+	void ruleApplied(int rule);
+
+	/**
+	 * Called each time a search makes a decision, i.e. visits a node of its
+	 * search tree.
+	 */
+	void nodeVisited();
+
+	/**
+	 * Called each time a search undoes a decision.
+	 */
+	void backtracked();
+
+	/**
+	 * Called each time propagation reaches a fixpoint.
+	 */
+	void propagated();
+
+	/**
+	 * Called each time the state of a puzzle has been checked.
+	 * 
+	 * @param nanos
+	 *            time the check took in nanoseconds
+	 */
+	void stateChecked(long nanos);
+
+}
@@ -0,0 +1,77 @@
+package controller;
+
+import model.CandidateEdgeGraph;
+
+/**
+ * A <code>LargestComponentHeuristic</code> branches on an undecided edge
+ * touching the largest group of islands that is already connected by bridges
+ * but not yet finished. Growing one group keeps the decisions local, so
+ * contradictions regarding the connectivity of the islands are found early.
+ * Ties are broken by the number of options of the edge.
+ */
+public class LargestComponentHeuristic implements IBranchingHeuristic {
+
+	private int[] parent, size; // union-find of the islands connected by certain bridges
+
+	@Override
+	public void reset(CandidateEdgeGraph graph) {
+		parent = new int[graph.getNoOfIslands()];
+		size = new int[graph.getNoOfIslands()];
+	}
+
+	@Override
+	public int selectEdge(BridgeDomains domains) {
+		CandidateEdgeGraph graph = domains.getGraph();
+		for (int island = 0; island < parent.length; island++) {
+			parent[island] = island;
+			size[island] = 1;
+		}
+		for (int e = 0; e < graph.getNoOfEdges(); e++) {
+			if (domains.getMin(e) > 0) {
+				union(graph.getEdgeStart(e), graph.getEdgeEnd(e));
+			}
+		}
+		int bestEdge = -1;
+		int bestSize = 0, bestNoOfOptions = Integer.MAX_VALUE;
+		for (int e = 0; e < graph.getNoOfEdges(); e++) {
+			if (!domains.isFixed(e)) { // both ends of an undecided edge are unfinished
+				int componentSize = Math.max(size[find(graph.getEdgeStart(e))], size[find(graph.getEdgeEnd(e))]);
+				int noOfOptions = domains.getMax(e) - domains.getMin(e) + 1;
+				if (componentSize > bestSize || componentSize == bestSize && noOfOptions < bestNoOfOptions) {
+					bestEdge = e;
+					bestSize = componentSize;
+					bestNoOfOptions = noOfOptions;
+				}
+			}
+		}
+		return bestEdge;
+	}
+
+	private int find(int island) {
+		while (parent[island] != island) {
+			parent[island] = parent[parent[island]];
+			island = parent[island];
+		}
+		return island;
+	}
+
+	private void union(int island, int otherIsland) {
+		int root = find(island);
+		int otherRoot = find(otherIsland);
+		if (root != otherRoot) {
+			if (size[root] < size[otherRoot]) {
+				int swap = root;
+				root = otherRoot;
+				otherRoot = swap;
+			}
+			parent[otherRoot] = root;
+			size[root] += size[otherRoot];
+		}
+	}
+
+	@Override
+	public void conflict(BridgeDomains domains, int edge) {
+		// nothing is learned
+	}
+
+}
@@ -1,5 +1,13 @@
 package controller;
 
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import common.Direction;
 import gui.IPuzzleSituationView;
 import gui.JMainFrame;
@@ -7,16 +15,34 @@ import model.HashiModel.Island;
 import model.IPuzzleSituationModel;
 
 /**
- * Main controller receiving and processing inputs from view.
+ * Main controller receiving and processing inputs from view. Inputs are turned
+ * into commands of a {@link ModelCommandQueue}, which is the only writer of the
+ * model, so the event dispatch thread never waits for them.
  */
 public class MainPuzzleController implements IInputListener {
 
-	private IPuzzleSituationModel hashiModel;
+	/**
+	 * Name of the system property holding the directory in which solutions are
+	 * cached across sessions. If it is not set, solutions are only cached in
+	 * memory.
+	 */
+	public static final String SOLUTION_CACHE_DIRECTORY_PROPERTY = "hashi.solutionCacheDir";
+
+	private static final int NO_OF_SOLUTIONS_CACHED_IN_MEMORY = 64;
+	private static final long MAX_SOLUTION_CACHE_DISK_SIZE = 16L << 20;
+
+	private IPuzzleSituationModel hashiModel; // only accessed by commands
 
 	// Controller components
+	private final ModelCommandQueue commandQueue;
+	private final SolutionCache solutionCache;
+	private final PuzzleAnalyzer analyzer;
+	private Future<PuzzleAnalysis> analysis;
+	private HintEngine hintEngine;
 	private PuzzleStateChecker stateChecker;
 	private BridgeAdder bridgeAdder;
 	private PuzzleSolver solver;
+	private volatile int solvingDelay = PuzzleSolver.DEFAULT_DELAY;
 
 	// View components
 	private IPuzzleSituationView view;
@@ -30,100 +56,201 @@ public class MainPuzzleController implements IInputListener {
 	 * <code>PuzzleSolver</code>, as well as the view of the application.
 	 */
 	public MainPuzzleController() {
-		hashiModel = new PuzzleGenerator().getPuzzleSituationModel(); // singleton design pattern could be used
-		view = new JMainFrame(this, hashiModel);
-		initControllerComponentsAndSetPuzzleState();
+		String solutionCacheDirectory = System.getProperty(SOLUTION_CACHE_DIRECTORY_PROPERTY);
+		solutionCache = new SolutionCache(NO_OF_SOLUTIONS_CACHED_IN_MEMORY,
+				solutionCacheDirectory == null ? null : Paths.get(solutionCacheDirectory), MAX_SOLUTION_CACHE_DISK_SIZE);
+		ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Hashi puzzle analyzer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		analyzer = new PuzzleAnalyzer(backgroundExecutor, solutionCache);
+		commandQueue = new ModelCommandQueue();
+		final IPuzzleSituationModel initialModel = new PuzzleGenerator().getPuzzleSituationModel(); // singleton design pattern could be used
+		view = new JMainFrame(this, initialModel);
+		commandQueue.setView(view);
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				hashiModel = initialModel;
+				commandQueue.setPuzzleSituationModel(hashiModel);
+				initControllerComponentsAndSetPuzzleState();
+			}
+		});
 	}
 
 	private void initControllerComponentsAndSetPuzzleState() {
+		if (analysis != null) {
+			analysis.cancel(true);
+		}
+		analysis = analyzer.analyze(hashiModel);
+		hintEngine = new HintEngine(hashiModel, analysis);
 		stateChecker = new PuzzleStateChecker(hashiModel);
+		stateChecker.setHintEngine(hintEngine);
 		stateChecker.setPuzzleState();
 		bridgeAdder = new BridgeAdder(hashiModel, stateChecker);
-		solver = new PuzzleSolver(bridgeAdder, view);
+		bridgeAdder.setHintEngine(hintEngine);
+		solver = new PuzzleSolver(bridgeAdder, view, commandQueue);
 	}
 
 	@Override
-	public void makeMove(Island island, Direction directionOfClick, boolean addBridge) {
-		if (!solver.isAlive()) { // state design pattern could be used
-			Island otherIsland = hashiModel.getNeighborIsland(island, directionOfClick); // design by contract: island != null
-			if (island != null && otherIsland != null) { 
-				if (addBridge) {
-					hashiModel.addBridgeBetween(island, otherIsland);
-				} else { // removeBridge
-					hashiModel.removeBridgeBetween(island, otherIsland);
+	public void makeMove(final Island island, final Direction directionOfClick, final boolean addBridge) {
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!solver.isRunning() && isIslandOfPuzzle(island)) { // state design pattern could be used
+					Island otherIsland = hashiModel.getNeighborIsland(island, directionOfClick);
+					if (otherIsland != null) {
+						if (addBridge) {
+							hashiModel.addBridgeBetween(island, otherIsland);
+						} else { // removeBridge
+							hashiModel.removeBridgeBetween(island, otherIsland);
+						}
+						hintEngine.bridgeChanged(island, otherIsland);
+					}
+					stateChecker.setPuzzleState();
 				}
 			}
-			stateChecker.setPuzzleState();
-			view.refresh();
-		}
+		});
+	}
+
+	// the view may still show a puzzle replaced by a command given before
+	private boolean isIslandOfPuzzle(Island island) {
+		return island != null && hashiModel.isValidFieldPosition(island.getX(), island.getY())
+				&& hashiModel.getFieldElementAt(island.getX(), island.getY()) == island;
 	}
 
 	@Override
-	public boolean addNextBridge() {
-		if (!solver.isAlive()) {
-			boolean moveCouldBeMade = bridgeAdder.makeSureMove();
-			stateChecker.setPuzzleState();
-			view.refresh();
-			return moveCouldBeMade;
-		}
-		return false; 
+	public CompletableFuture<Boolean> addNextBridge() {
+		return commandQueue.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				if (!solver.isRunning()) {
+					boolean moveCouldBeMade = bridgeAdder.makeSureMove();
+					stateChecker.setPuzzleState();
+					if (!moveCouldBeMade) {
+						commandQueue.publishSnapshot(); // the view explains why from the state shown
+					}
+					return moveCouldBeMade;
+				}
+				return false;
+			}
+		});
 	}
 
 	@Override
 	public void startAndStopSolving() {
-		if (!solver.isAlive()) {
-			solver = new PuzzleSolver(bridgeAdder, view);
-			solver.solvePuzzleWithPauses();
-		} else {
-			solver.interrupt();
-		}
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!solver.isRunning()) {
+					solver = new PuzzleSolver(bridgeAdder, view, commandQueue, solvingDelay);
+					solver.solvePuzzleWithPauses();
+				} else {
+					solver.stop();
+				}
+			}
+		});
+	}
+
+	@Override
+	public void solveInstantly() {
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				solver.stop();
+				solver = new PuzzleSolver(bridgeAdder, view, commandQueue, 0);
+				solver.solvePuzzleWithPauses();
+			}
+		});
+	}
+
+	@Override
+	public void setSolvingDelay(int solvingDelay) throws IllegalArgumentException {
+		if (solvingDelay < 0)
+			throw new IllegalArgumentException("Delay must not be negative.");
+		this.solvingDelay = solvingDelay;
 	}
 
 	@Override
 	public void restartPuzzle() {
-		solver.interrupt();
-		hashiModel.removeAllBridges();
-		stateChecker.setPuzzleState();
-		view.refresh();
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				solver.stop();
+				hashiModel.removeAllBridges();
+				hintEngine.bridgesChanged();
+				stateChecker.setPuzzleState();
+			}
+		});
 	}
 
 	@Override
-	public void loadPuzzle(String filePath) {
-		solver.interrupt();
-		hashiModel = new PuzzleLoader().loadPuzzle(filePath);
-		updateViewAndControllerComponents();
+	public void loadPuzzle(final String filePath) {
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				solver.stop();
+				setPuzzleSituationModel(new PuzzleLoader().loadPuzzle(filePath));
+			}
+		});
 	}
 
-	private void updateViewAndControllerComponents() {
+	private void setPuzzleSituationModel(IPuzzleSituationModel hashiModel) {
+		this.hashiModel = hashiModel;
+		commandQueue.setPuzzleSituationModel(hashiModel);
 		initControllerComponentsAndSetPuzzleState();
 		view.setPuzzleSituationModelAndRefresh(hashiModel);
 	}
 
 	@Override
-	public void savePuzzle(String fileName) {
-		solver.interrupt();
-		new PuzzleSaver().savePuzzle(fileName, hashiModel);
+	public void savePuzzle(final String fileName) {
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				solver.stop();
+				new PuzzleSaver().savePuzzle(fileName, hashiModel);
+			}
+		});
 	}
 
 	@Override
 	public void generatePuzzle() {
-		solver.interrupt();
-		hashiModel = new PuzzleGenerator().getPuzzleSituationModel();
-		updateViewAndControllerComponents();
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				solver.stop();
+				setPuzzleSituationModel(new PuzzleGenerator().getPuzzleSituationModel());
+			}
+		});
 	}
 
 	@Override
-	public void generatePuzzle(int width, int height) {
-		solver.interrupt();
-		hashiModel = new PuzzleGenerator().getPuzzleSituationModel(width, height);
-		updateViewAndControllerComponents();
+	public void generatePuzzle(final int width, final int height) throws IllegalArgumentException {
+		PuzzleGenerator.checkPuzzleConfiguration(width, height);
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				solver.stop();
+				setPuzzleSituationModel(new PuzzleGenerator().getPuzzleSituationModel(width, height));
+			}
+		});
 	}
 
 	@Override
-	public void generatePuzzle(int width, int height, int noOfIslands) {
-		solver.interrupt();
-		hashiModel = new PuzzleGenerator().getPuzzleSituationModel(width, height, noOfIslands);
-		updateViewAndControllerComponents();
+	public void generatePuzzle(final int width, final int height, final int noOfIslands)
+			throws IllegalArgumentException {
+		PuzzleGenerator.checkPuzzleConfiguration(width, height, noOfIslands);
+		commandQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				solver.stop();
+				setPuzzleSituationModel(new PuzzleGenerator().getPuzzleSituationModel(width, height, noOfIslands));
+			}
+		});
 	}
 
 }
@@ -0,0 +1,248 @@
+package controller;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gui.IPuzzleSituationView;
+import model.CandidateEdgeGraph;
+import model.HashiModel.Island;
+import model.IBridgeChangeListener;
+import model.IPuzzleSituationModel;
+import model.PuzzleSnapshot;
+
+/**
+ * A <code>ModelCommandQueue</code> is the single writer of the model of the
+ * Hashiwokakeru puzzle shown by the view. Commands, e.g. moves of the user,
+ * steps of the solver, loading or generating a puzzle, are run one after another
+ * on a dedicated thread in the order they are given, so they never race each
+ * other and the event dispatch thread never waits for them.
+ *
+ * <p>
+ * Whenever a command has run and no further command is waiting, an immutable
+ * {@link PuzzleSnapshot} of the model is published to the view, which paints
+ * from snapshots only. The bridges changed are tracked by listening to the
+ * model, so each snapshot tells the view which edges changed since the previous
+ * one.
+ * </p>
+ */
+public class ModelCommandQueue {
+
+	private final ScheduledThreadPoolExecutor writer;
+	private volatile Thread writerThread;
+	private final AtomicInteger noOfWaitingCommands = new AtomicInteger();
+	private volatile IPuzzleSituationView view;
+
+	// model written and its bridges as of the last change, only accessed by the writer thread
+	private IPuzzleSituationModel hashiModel;
+	private CandidateEdgeGraph graph;
+	private List<Island> islands;
+	private byte[] bridges;
+	private final BitSet changedEdges = new BitSet();
+	private boolean allEdgesChanged;
+	private final IBridgeChangeListener bridgeChangeListener = new IBridgeChangeListener() {
+		@Override
+		public void bridgeChanged(Island start, Island end, int oldNoOfBridges, int newNoOfBridges) {
+			int edge = graph.getEdgeBetween(start, end);
+			if (edge >= 0) {
+				bridges[edge] = (byte) newNoOfBridges;
+				changedEdges.set(edge);
+			}
+		}
+	};
+
+	/**
+	 * Constructs an instance of a <code>ModelCommandQueue</code> and starts its
+	 * writer thread.
+	 */
+	public ModelCommandQueue() {
+		writer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Hashi model writer");
+				thread.setDaemon(true);
+				writerThread = thread;
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Sets the view the snapshots are published to.
+	 *
+	 * @param view
+	 *            receiving snapshots or null to publish none
+	 */
+	public void setView(IPuzzleSituationView view) {
+		this.view = view;
+	}
+
+	/**
+	 * Sets the model the commands write. Must be called by a command. The next
+	 * snapshot is one in which all edges may have changed.
+	 *
+	 * @param hashiModel
+	 *            written from now on
+	 * @throws IllegalStateException
+	 *             if not called on the writer thread
+	 */
+	public void setPuzzleSituationModel(IPuzzleSituationModel hashiModel) throws IllegalStateException {
+		checkWriterThread();
+		if (this.hashiModel != null) {
+			this.hashiModel.removeBridgeChangeListener(bridgeChangeListener);
+		}
+		this.hashiModel = hashiModel;
+		graph = CandidateEdgeGraph.of(hashiModel);
+		islands = Collections.unmodifiableList(hashiModel.getIslands());
+		int[] bridgesOfModel = graph.getBridges(hashiModel);
+		bridges = new byte[bridgesOfModel.length];
+		for (int e = 0; e < bridges.length; e++) {
+			bridges[e] = (byte) bridgesOfModel[e];
+		}
+		hashiModel.addBridgeChangeListener(bridgeChangeListener);
+		changedEdges.clear();
+		allEdgesChanged = true;
+	}
+
+	/**
+	 * Returns true if the calling thread is the writer thread, i.e. if it is
+	 * running a command.
+	 *
+	 * @return true if called by a command
+	 */
+	public boolean isWriterThread() {
+		return Thread.currentThread() == writerThread;
+	}
+
+	private void checkWriterThread() throws IllegalStateException {
+		if (!isWriterThread())
+			throw new IllegalStateException("Model must only be written by commands of the queue.");
+	}
+
+	/**
+	 * Runs the <code>command</code> after all commands given before. If the
+	 * command fails, its exception is printed.
+	 *
+	 * @param command
+	 *            to be run
+	 */
+	public void execute(final Runnable command) {
+		submit(new Callable<Void>() {
+			@Override
+			public Void call() {
+				try {
+					command.run();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Runs the <code>command</code> after all commands given before.
+	 *
+	 * @param command
+	 *            to be run
+	 * @return future result of the command, completed after the snapshot taken
+	 *         after the command was published
+	 */
+	public <T> CompletableFuture<T> submit(final Callable<T> command) {
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		noOfWaitingCommands.incrementAndGet();
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				T value = null;
+				Exception exception = null;
+				try {
+					value = command.call();
+				} catch (Exception e) {
+					exception = e;
+				}
+				noOfWaitingCommands.decrementAndGet();
+				publishSnapshotIfIdle();
+				if (exception == null) {
+					result.complete(value);
+				} else {
+					result.completeExceptionally(exception);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Runs the <code>command</code> repeatedly, first after the commands given
+	 * before and then each time after a pause of <code>delay</code>
+	 * milliseconds, until the future returned is cancelled. Commands given in the
+	 * meantime run between two runs of the <code>command</code>.
+	 *
+	 * @param command
+	 *            to be run repeatedly
+	 * @param delay
+	 *            pause in milliseconds between two runs
+	 * @return future to cancel the repetition with
+	 */
+	public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, long delay) {
+		return writer.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					command.run();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+				publishSnapshotIfIdle();
+			}
+		}, 0, delay, TimeUnit.MILLISECONDS);
+	}
+
+	// publishes only once for commands given in a burst, e.g. all moves of solving instantly
+	private void publishSnapshotIfIdle() {
+		if (noOfWaitingCommands.get() == 0) {
+			publishSnapshot(view);
+		}
+	}
+
+	/**
+	 * Publishes a snapshot of the model to the view right away, so that the view
+	 * shows the current state of the model before it is told anything about it,
+	 * e.g. that solving finished. Must be called by a command.
+	 *
+	 * @throws IllegalStateException
+	 *             if not called by a command
+	 */
+	public void publishSnapshot() throws IllegalStateException {
+		checkWriterThread();
+		publishSnapshot(view);
+	}
+
+	private void publishSnapshot(IPuzzleSituationView view) {
+		if (view == null || hashiModel == null) {
+			return;
+		}
+		int[] changed = allEdgesChanged ? null : changedEdges.stream().toArray();
+		PuzzleSnapshot snapshot = new PuzzleSnapshot(hashiModel, graph, islands, bridges,
+				PuzzleSnapshot.getEdgeOfLastInsertedBridge(hashiModel, graph), hashiModel.getPuzzleState(), changed);
+		changedEdges.clear();
+		allEdgesChanged = false;
+		view.refresh(snapshot);
+	}
+
+	/**
+	 * Stops running commands, discarding those still waiting.
+	 */
+	public void shutdown() {
+		writer.shutdownNow();
+	}
+
+}
@@ -0,0 +1,59 @@
+package controller;
+
+import common.Direction;
+import model.CandidateEdgeGraph;
+
+/**
+ * A <code>MostConstrainedIslandHeuristic</code> branches on the island that
+ * has the least room to place its missing bridges, i.e. the island whose
+ * undecided edges can hold the fewest bridges beyond the number of bridges the
+ * island is still missing. Ties are broken by the number of undecided edges.
+ * Of the island's undecided edges the one with the fewest options is decided.
+ */
+public class MostConstrainedIslandHeuristic implements IBranchingHeuristic {
+
+	@Override
+	public void reset(CandidateEdgeGraph graph) {
+		// nothing is learned
+	}
+
+	@Override
+	public int selectEdge(BridgeDomains domains) {
+		CandidateEdgeGraph graph = domains.getGraph();
+		int bestEdge = -1;
+		int bestSlack = Integer.MAX_VALUE, bestNoOfUndecidedEdges = Integer.MAX_VALUE;
+		for (int island = 0; island < graph.getNoOfIslands(); island++) {
+			int sumMax = 0, noOfUndecidedEdges = 0, edge = -1;
+			for (Direction direction : Direction.values()) {
+				int e = graph.getEdge(island, direction);
+				if (e >= 0) {
+					sumMax += domains.getMax(e);
+					if (!domains.isFixed(e)) {
+						noOfUndecidedEdges++;
+						if (edge < 0 || getNoOfOptions(domains, e) < getNoOfOptions(domains, edge)) {
+							edge = e;
+						}
+					}
+				}
+			}
+			int slack = sumMax - graph.getClue(island); // bridges that can be placed but are not missing
+			if (edge >= 0 && (slack < bestSlack
+					|| slack == bestSlack && noOfUndecidedEdges < bestNoOfUndecidedEdges)) {
+				bestEdge = edge;
+				bestSlack = slack;
+				bestNoOfUndecidedEdges = noOfUndecidedEdges;
+			}
+		}
+		return bestEdge;
+	}
+
+	private static int getNoOfOptions(BridgeDomains domains, int edge) {
+		return domains.getMax(edge) - domains.getMin(edge) + 1;
+	}
+
+	@Override
+	public void conflict(BridgeDomains domains, int edge) {
+		// nothing is learned
+	}
+
+}
@@ -0,0 +1,25 @@
+package controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event spanning the propagation after a decision of the
+ * {@link BacktrackingSolver} until a fixpoint or a contradiction is reached.
+ */
+@Name("hashi.PropagationFixpoint")
+@Label("Propagation Fixpoint")
+@Category("Hashiwokakeru")
+@Description("Propagation of a decision until no domain can be narrowed further")
+class PropagationFixpointEvent extends Event {
+
+	@Label("Depth")
+	int depth;
+
+	@Label("Consistent")
+	boolean isConsistent;
+
+}
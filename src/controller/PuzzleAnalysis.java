@@ -0,0 +1,90 @@
+package controller;
+
+import controller.DifficultyGrader.Difficulty;
+import model.CandidateEdgeGraph;
+
+/**
+ * A <code>PuzzleAnalysis</code> holds everything that is computed about a
+ * Hashiwokakeru puzzle once it has been loaded or generated (see
+ * {@link PuzzleAnalyzer}): its graph, a solution, whether the solution is
+ * unique and how difficult the puzzle is. The analysis is published as soon as
+ * a solution is known; the number of solutions and the difficulty are added
+ * when they have been determined.
+ */
+public class PuzzleAnalysis {
+
+	private final CandidateEdgeGraph graph;
+	private final int[] solution;
+	private volatile int noOfSolutions;
+	private volatile Difficulty difficulty;
+
+	/**
+	 * Constructs an instance of a <code>PuzzleAnalysis</code>.
+	 *
+	 * @param graph         of the puzzle
+	 * @param solution      number of bridges of each edge of the graph or null if
+	 *                      no solution was found
+	 * @param noOfSolutions 1 if the solution is unique, 2 if the puzzle has two or
+	 *                      more solutions, 0 if it has none or if the search was
+	 *                      stopped before uniqueness was determined
+	 */
+	public PuzzleAnalysis(CandidateEdgeGraph graph, int[] solution, int noOfSolutions) {
+		this.graph = graph;
+		this.solution = solution;
+		this.noOfSolutions = noOfSolutions;
+	}
+
+	public CandidateEdgeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Gets the solution found. <strong>Important:</strong> Returns null if the
+	 * puzzle is unsolvable or no solution was found within the time limit.
+	 *
+	 * @return number of bridges of each edge of the graph or null; must not be
+	 *         modified
+	 */
+	public int[] getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Returns true if a solution of the puzzle was found.
+	 *
+	 * @return true if the puzzle is solvable, otherwise false
+	 */
+	public boolean isSolvable() {
+		return solution != null;
+	}
+
+	/**
+	 * Returns true if the puzzle is known to have exactly one solution. Returns
+	 * false while its solutions are still being counted.
+	 *
+	 * @return true if the solution is unique, otherwise false
+	 */
+	public boolean isUnique() {
+		return noOfSolutions == 1;
+	}
+
+	/**
+	 * Gets the difficulty of the puzzle as graded by the
+	 * {@link DifficultyGrader}. <strong>Important:</strong> Returns null if the
+	 * puzzle has not been graded yet.
+	 *
+	 * @return grade of the puzzle or null
+	 */
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+
+	void setNoOfSolutions(int noOfSolutions) {
+		this.noOfSolutions = noOfSolutions;
+	}
+
+	void setDifficulty(Difficulty difficulty) {
+		this.difficulty = difficulty;
+	}
+
+}
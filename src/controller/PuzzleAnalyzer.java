@@ -0,0 +1,172 @@
+package controller;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import controller.SolutionCache.CachedSolution;
+import model.CandidateEdgeGraph;
+import model.HashiModel.Island;
+import model.IPuzzleSituationModel;
+
+/**
+ * A <code>PuzzleAnalyzer</code> analyzes puzzles in the background as soon as
+ * they have been loaded or generated, so that later interactions like hints,
+ * automatic solving and state checks do not need to compute anything expensive.
+ * The result is published as a {@link PuzzleAnalysis} through a
+ * <code>Future</code>, which should be cancelled when the puzzle is replaced.
+ *
+ * <p>
+ * Each search is done by a solver configured like those of the
+ * {@link SolveService} within a time limit. A first solution is searched by
+ * restarting searches, which find one on large puzzles much faster than a
+ * search counting solutions. The analysis is published as soon as a solution
+ * is known, so hints wait neither for the search counting solutions, which
+ * determines uniqueness afterwards (see {@link PuzzleAnalysis#isUnique()
+ * isUnique}), nor for grading within the time limit of the
+ * {@link DifficultyGrader} (see {@link PuzzleAnalysis#getDifficulty()
+ * getDifficulty}).
+ * </p>
+ */
+public class PuzzleAnalyzer {
+
+	/**
+	 * Number of milliseconds each search for solutions of a puzzle may take.
+	 */
+	public static final long SOLVE_TIME_LIMIT = SolveService.DEFAULT_BUDGET;
+
+	private final ExecutorService executor;
+	private final SolutionCache solutionCache;
+	private final DifficultyGrader grader = new DifficultyGrader();
+
+	/**
+	 * Constructs an instance of a <code>PuzzleAnalyzer</code>.
+	 *
+	 * @param executor      running the analyses
+	 * @param solutionCache to which solutions found are added and from which the
+	 *                      solution of a puzzle seen before is taken
+	 */
+	public PuzzleAnalyzer(ExecutorService executor, SolutionCache solutionCache) {
+		this.executor = executor;
+		this.solutionCache = solutionCache;
+	}
+
+	/**
+	 * Starts the analysis of the puzzle held by the <code>hashiModel</code>. Only
+	 * the islands are read from the model and they are read before this method
+	 * returns, so bridges may be changed while the analysis is running.
+	 *
+	 * @param hashiModel holding the puzzle
+	 * @return future result of the analysis, which completes as soon as a
+	 *         solution is known; cancelling it interrupts the analysis including
+	 *         counting solutions and grading
+	 */
+	public Future<PuzzleAnalysis> analyze(IPuzzleSituationModel hashiModel) {
+		List<Island> islands = hashiModel.getIslands();
+		final int width = hashiModel.getWidth();
+		final int height = hashiModel.getHeight();
+		final int[] xs = new int[islands.size()];
+		final int[] ys = new int[islands.size()];
+		final int[] clues = new int[islands.size()];
+		for (int i = 0; i < islands.size(); i++) {
+			xs[i] = islands.get(i).getX();
+			ys[i] = islands.get(i).getY();
+			clues[i] = islands.get(i).getNoOfBridgesRequired();
+		}
+		final FutureAnalysis futureAnalysis = new FutureAnalysis();
+		futureAnalysis.task = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					analyze(new CandidateEdgeGraph(width, height, xs, ys, clues), futureAnalysis);
+				} catch (Throwable t) { // ignored if the analysis has been published
+					futureAnalysis.completeExceptionally(t);
+				}
+			}
+		});
+		return futureAnalysis;
+	}
+
+	/**
+	 * Analyzes the puzzle represented by the <code>graph</code> in the calling
+	 * thread including counting its solutions and grading it.
+	 *
+	 * @param graph of the puzzle
+	 * @return analysis of the puzzle
+	 * @throws CancellationException if the thread was interrupted
+	 */
+	public PuzzleAnalysis analyze(CandidateEdgeGraph graph) throws CancellationException {
+		return analyze(graph, null);
+	}
+
+	// completes the future analysis, if any, as soon as a solution is known
+	private PuzzleAnalysis analyze(CandidateEdgeGraph graph, CompletableFuture<PuzzleAnalysis> futureAnalysis)
+			throws CancellationException {
+		int[] solution = null;
+		int noOfSolutions = SolutionCache.UNKNOWN_NO_OF_SOLUTIONS;
+		CachedSolution cachedSolution = solutionCache.getCachedSolution(graph);
+		if (cachedSolution != null) { // keep hints consistent with earlier sessions
+			solution = cachedSolution.getSolution();
+			noOfSolutions = cachedSolution.getNoOfSolutions();
+		}
+		boolean isUnsolvable = false;
+		if (solution == null) {
+			BacktrackingSolver solver = SolveService.newSolver(graph, SOLVE_TIME_LIMIT);
+			solution = solver.solve(); // restarts
+			checkInterrupted(solver);
+			isUnsolvable = solution == null && !solver.wasTimedOut();
+		}
+		PuzzleAnalysis analysis = new PuzzleAnalysis(graph, solution, noOfSolutions);
+		if (solution != null && futureAnalysis != null) {
+			futureAnalysis.complete(analysis);
+		}
+		if (noOfSolutions == SolutionCache.UNKNOWN_NO_OF_SOLUTIONS && !isUnsolvable) {
+			BacktrackingSolver solver = SolveService.newSolver(graph, SOLVE_TIME_LIMIT);
+			int noOfSolutionsFound = solver.solve(2); // searches counting solutions are never restarted
+			checkInterrupted(solver);
+			if (!solver.wasTimedOut()) { // otherwise uniqueness stays unknown
+				noOfSolutions = noOfSolutionsFound;
+			}
+			if (solution == null && solver.getSolution() != null) {
+				solution = solver.getSolution();
+				analysis = new PuzzleAnalysis(graph, solution, noOfSolutions);
+			} else {
+				analysis.setNoOfSolutions(noOfSolutions);
+			}
+			if (solution != null) {
+				solutionCache.putSolution(graph, solution, noOfSolutions);
+			}
+		}
+		if (futureAnalysis != null) {
+			futureAnalysis.complete(analysis); // ignored if published before
+		}
+		analysis.setDifficulty(grader.grade(graph));
+		return analysis;
+	}
+
+	private static void checkInterrupted(BacktrackingSolver solver) throws CancellationException {
+		if (solver.wasInterrupted())
+			throw new CancellationException("Analysis was interrupted.");
+	}
+
+	/**
+	 * The future of an analysis that completes before the analysis is done.
+	 * Cancelling it also stops the rest of the analysis, which a completed
+	 * <code>CompletableFuture</code> would ignore.
+	 */
+	private static class FutureAnalysis extends CompletableFuture<PuzzleAnalysis> {
+
+		private volatile Future<?> task;
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean isCancelled = super.cancel(mayInterruptIfRunning);
+			task.cancel(true);
+			return isCancelled;
+		}
+
+	}
+
+}
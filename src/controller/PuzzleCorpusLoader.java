@@ -0,0 +1,188 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import model.IPuzzleSituationModel;
+
+/**
+ * Class for loading a whole corpus of .bgs files, i.e. a directory tree, into a
+ * persistent {@link CorpusIndex}.
+ *
+ * <p>
+ * Files are parsed in parallel by a bounded pool of threads, each file by its
+ * own {@link PuzzleLoader}. When the index is updated, files whose size and
+ * time of last modification did not change are skipped without being read.
+ * Files that were touched but whose content hash did not change are not parsed
+ * again either.
+ * </p>
+ */
+public class PuzzleCorpusLoader {
+
+	private final int noOfThreads;
+	private int noOfFilesSkipped, noOfFilesParsed;
+
+	/**
+	 * Constructs an instance of a <code>PuzzleCorpusLoader</code> using one
+	 * thread per available processor.
+	 */
+	public PuzzleCorpusLoader() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs an instance of a <code>PuzzleCorpusLoader</code> using at most
+	 * <code>noOfThreads</code> threads for parsing.
+	 *
+	 * @param noOfThreads maximum number of threads used for parsing
+	 * @throws IllegalArgumentException if <code>noOfThreads</code> is less than 1
+	 */
+	public PuzzleCorpusLoader(int noOfThreads) throws IllegalArgumentException {
+		if (noOfThreads < 1)
+			throw new IllegalArgumentException("At least one thread is needed to load a corpus.");
+		this.noOfThreads = noOfThreads;
+	}
+
+	/**
+	 * Brings the index stored at <code>indexFile</code> up to date with the .bgs
+	 * files found in the directory tree at <code>rootDirectory</code> and saves
+	 * it. New and changed files are parsed, entries of deleted files are removed
+	 * and unchanged files are skipped.
+	 *
+	 * @param rootDirectory of the corpus
+	 * @param indexFile     path of the index file; it is created if it does not
+	 *                      exist
+	 * @return the updated index
+	 * @throws IOException              if the directory tree cannot be walked or
+	 *                                  the index cannot be read or written
+	 * @throws IllegalArgumentException if the index file is not valid
+	 */
+	public CorpusIndex updateIndex(Path rootDirectory, Path indexFile) throws IOException, IllegalArgumentException {
+		CorpusIndex index = CorpusIndex.load(indexFile);
+		noOfFilesSkipped = 0;
+		noOfFilesParsed = 0;
+		List<Path> files;
+		try (Stream<Path> tree = Files.walk(rootDirectory)) {
+			files = tree.filter(path -> path.toString().endsWith(".bgs") && Files.isRegularFile(path))
+					.collect(Collectors.toList());
+		}
+		Set<String> paths = new HashSet<>();
+		List<Callable<CorpusEntry>> tasks = new ArrayList<>();
+		for (Path file : files) {
+			String relativePath = toRelativePath(rootDirectory, file);
+			paths.add(relativePath);
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			long size = attributes.size();
+			long lastModified = attributes.lastModifiedTime().toMillis();
+			CorpusEntry oldEntry = index.get(relativePath);
+			if (oldEntry != null && oldEntry.getSize() == size && oldEntry.getLastModified() == lastModified) {
+				noOfFilesSkipped++;
+			} else {
+				tasks.add(() -> loadEntry(file, relativePath, size, lastModified, oldEntry));
+			}
+		}
+		for (CorpusEntry entry : runInParallel(tasks)) {
+			index.put(entry);
+		}
+		index.retainPaths(paths);
+		index.save(indexFile);
+		return index;
+	}
+
+	private static String toRelativePath(Path rootDirectory, Path file) {
+		return rootDirectory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+	}
+
+	private List<CorpusEntry> runInParallel(List<Callable<CorpusEntry>> tasks) throws IOException {
+		List<CorpusEntry> entries = new ArrayList<>(tasks.size());
+		if (tasks.isEmpty()) {
+			return entries;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(noOfThreads, tasks.size()));
+		try {
+			for (Future<CorpusEntry> future : executor.invokeAll(tasks)) {
+				entries.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Loading of corpus was interrupted.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return entries;
+	}
+
+	private CorpusEntry loadEntry(Path file, String relativePath, long size, long lastModified, CorpusEntry oldEntry)
+			throws IOException {
+		byte[] content = Files.readAllBytes(file);
+		String contentHash = hash(content);
+		if (oldEntry != null && oldEntry.getContentHash().equals(contentHash)) { // touched but unchanged
+			return oldEntry.withFileAttributes(size, lastModified);
+		}
+		synchronized (this) {
+			noOfFilesParsed++;
+		}
+		try {
+			IPuzzleSituationModel hashiModel = new PuzzleLoader()
+					.loadPuzzleFromContent(new String(content, StandardCharsets.UTF_8));
+			return new CorpusEntry(relativePath, size, lastModified, contentHash, hashiModel.getWidth(),
+					hashiModel.getHeight(), hashiModel.getNoOfIslands(), null);
+		} catch (RuntimeException e) { // syntax or semantic error in file
+			String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+			return new CorpusEntry(relativePath, size, lastModified, contentHash, 0, 0, 0, error);
+		}
+	}
+
+	private static String hash(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder hex = new StringBuilder(2 * digest.length);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) { // every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gets the number of files skipped during the last update because their size
+	 * and time of last modification did not change.
+	 *
+	 * @return number of files skipped
+	 */
+	public int getNoOfFilesSkipped() {
+		return noOfFilesSkipped;
+	}
+
+	/**
+	 * Gets the number of files parsed during the last update.
+	 *
+	 * @return number of files parsed
+	 */
+	public synchronized int getNoOfFilesParsed() {
+		return noOfFilesParsed;
+	}
+
+}
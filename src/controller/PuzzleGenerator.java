@@ -2,7 +2,6 @@ package controller;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 
@@ -18,19 +17,53 @@ import model.IPuzzleSituationModel;
  * puzzle that can be solved. Randomness is confined by constraints such as the
  * number of islands that the puzzle should have or the width and height of the
  * puzzle.
+ * 
+ * <p>
+ * Puzzles of up to 1000 x 1000 with hundred thousands of islands can be
+ * generated. The cells where a new island can be placed next to an existing
+ * one are found through a {@link FreeSegmentIndex} instead of walking the
+ * field, so generating takes time about linear in the number of islands.
+ * </p>
  */
 public class PuzzleGenerator {
 
-	private static final int MIN_WIDTH = 4, MIN_HEIGHT = 4, MAX_WIDTH = 25, MAX_HEIGHT = 25, MIN_NO_OF_ISLANDS = 2;
+	private static final int MIN_WIDTH = 4, MIN_HEIGHT = 4, MAX_WIDTH = 1000, MAX_HEIGHT = 1000, MIN_NO_OF_ISLANDS = 2;
+	private static final int MAX_RANDOM_WIDTH = 25, MAX_RANDOM_HEIGHT = 25; // if no size is given
+	private static final int MAX_NO_OF_SAMPLES = 8; // random cells tried before all cells of a segment are checked
 	private IPuzzleSituationModel hashiModel; // model created
+	private FreeSegmentIndex freeSegments; // of the model created
 
-	private static Random random = new Random();
+	private final Random random;
 	// to generate width, height, noOfIslands, coords of islands and type of bridges
 
 	private List<Island> bridgeableIslands;
 	// islands from or to which a bridge can still be built, from these islands
 	// islands are picked to build a bridge to a new island
 
+	/**
+	 * Constructs an instance of a <code>PuzzleGenerator</code> generating
+	 * different puzzles each time the application is run.
+	 */
+	public PuzzleGenerator() {
+		this(new Random());
+	}
+
+	/**
+	 * Constructs an instance of a <code>PuzzleGenerator</code> that always
+	 * generates the same sequence of puzzles for the same <code>seed</code>, e.g.
+	 * to build a fixed corpus for benchmarks.
+	 * 
+	 * @param seed
+	 *            of the random number generator
+	 */
+	public PuzzleGenerator(long seed) {
+		this(new Random(seed));
+	}
+
+	private PuzzleGenerator(Random random) {
+		this.random = random;
+	}
+
 	/**
 	 * Generates a random, solvable Hashiwokakero puzzle with random width and
 	 * height in interval [4, 25], respectively and random number of islands in
@@ -39,13 +72,13 @@ public class PuzzleGenerator {
 	 * @return A Hashiwokakero puzzle that can be solved
 	 */
 	public IPuzzleSituationModel getPuzzleSituationModel() {
-		int width = random.nextInt(MAX_WIDTH - MIN_WIDTH + 1) + MIN_WIDTH;
-		int height = random.nextInt(MAX_HEIGHT - MIN_HEIGHT + 1) + MIN_HEIGHT;
+		int width = random.nextInt(MAX_RANDOM_WIDTH - MIN_WIDTH + 1) + MIN_WIDTH;
+		int height = random.nextInt(MAX_RANDOM_HEIGHT - MIN_HEIGHT + 1) + MIN_HEIGHT;
 		int noOfIslands = getRandNoOfIslands(width, height);
 		return getPuzzleSituationModel(width, height, noOfIslands);
 	}
 
-	private static int getRandNoOfIslands(int width, int height) {
+	private int getRandNoOfIslands(int width, int height) {
 		int minNoOfIslands = width < height ? width : height;
 		int maxNoOfIslands = getMaxNoOfIslands(width, height);
 		// if width = height = 4 then minNoOfIslands = 4 and maxNoOfIslands = 3
@@ -66,7 +99,7 @@ public class PuzzleGenerator {
 	 * @param height of puzzle to be generated
 	 * @return A Hashiwokakero puzzle that can be solved
 	 * @throws IllegalArgumentException if <code>width</code> or <code>height</code>
-	 *                                  is not in [4, 25]
+	 *                                  is not in [4, 1000]
 	 */
 	public IPuzzleSituationModel getPuzzleSituationModel(int width, int height) throws IllegalArgumentException {
 		int noOfIslands = getRandNoOfIslands(width, height);
@@ -77,6 +110,45 @@ public class PuzzleGenerator {
 		return MIN_WIDTH <= width && width <= MAX_WIDTH && MIN_HEIGHT <= height && height <= MAX_HEIGHT;
 	};
 
+	/**
+	 * Checks if a <code>width</code> x <code>height</code> puzzle can be
+	 * generated, e.g. before generating it on another thread.
+	 * 
+	 * @param width  of puzzle to be generated
+	 * @param height of puzzle to be generated
+	 * @throws IllegalArgumentException if <code>width</code> or <code>height</code>
+	 *                                  is not in [4, 1000]
+	 */
+	public static void checkPuzzleConfiguration(int width, int height) throws IllegalArgumentException {
+		if (!isPuzzleConfigurationValid(width, height))
+			throw new IllegalArgumentException(
+					"Board configuration is not valid for generating a puzzle. Width needs to be between " + MIN_WIDTH
+							+ " and " + MAX_WIDTH + ". Height needs to be between " + MIN_HEIGHT + " and " + MAX_HEIGHT
+							+ ".");
+	}
+
+	/**
+	 * Checks if a <code>width</code> x <code>height</code> puzzle with
+	 * <code>noOfIslands</code> number of islands can be generated, e.g. before
+	 * generating it on another thread.
+	 * 
+	 * @param width       of puzzle to be generated
+	 * @param height      of puzzle to be generated
+	 * @param noOfIslands of puzzle to be generated
+	 * @throws IllegalArgumentException if <code>width</code> or <code>height</code>
+	 *                                  is not in [4, 1000] or
+	 *                                  <code>noOfIslands</code> is not in [2,
+	 *                                  <code>width</code>*<code>height</code> / 5]
+	 */
+	public static void checkPuzzleConfiguration(int width, int height, int noOfIslands)
+			throws IllegalArgumentException {
+		checkPuzzleConfiguration(width, height);
+		if (MIN_NO_OF_ISLANDS > noOfIslands || noOfIslands > getMaxNoOfIslands(width, height))
+			throw new IllegalArgumentException(
+					"Board configuration is not valid for generating a puzzle. Number of islands needs to be between "
+							+ MIN_NO_OF_ISLANDS + " and " + getMaxNoOfIslands(width, height) + ".");
+	}
+
 	/**
 	 * Generates a random, solvable <code>width</code> x <code>height</code>
 	 * Hashiwokakero puzzle with <code>noOfIslands</code> number of islands.
@@ -86,34 +158,51 @@ public class PuzzleGenerator {
 	 * @param noOfIslands The number of islands of the puzzle to be generated
 	 * @return A Hashiwokakero puzzle that can be solved
 	 * @throws IllegalArgumentException if <code>width</code> or <code>height</code>
-	 *                                  is not in [4, 25] or
+	 *                                  is not in [4, 1000] or
 	 *                                  <code>noOfIslands</code> is not in [2,
 	 *                                  max(4,
 	 *                                  <code>width</code>*<code>height</code> / 5)]
 	 */
 	public IPuzzleSituationModel getPuzzleSituationModel(int width, int height, int noOfIslands)
 			throws IllegalArgumentException {
-		// check if width and height are valid
-		if (!isPuzzleConfigurationValid(width, height))
-			throw new IllegalArgumentException(
-					"Board configuration is not valid for generating a puzzle. Width needs to be between " + MIN_WIDTH
-							+ " and " + MAX_WIDTH + ". Height needs to be between " + MIN_HEIGHT + " and " + MAX_HEIGHT
-							+ ".");
-		// check if noOfIslands is valid
-		if (MIN_NO_OF_ISLANDS > noOfIslands || noOfIslands > getMaxNoOfIslands(width, height))
-			throw new IllegalArgumentException(
-					"Board configuration is not valid for generating a puzzle. Number of islands needs to be between "
-							+ MIN_NO_OF_ISLANDS + " and " + getMaxNoOfIslands(width, height) + ".");
+		checkPuzzleConfiguration(width, height, noOfIslands);
 		// create model and populate it with islands and bridges until requirements are
 		// met
+		hashiModel = null; // do not reuse model generated by previous call
 		while (hashiModel == null || hashiModel.getNoOfIslands() != noOfIslands) {
-			hashiModel = new HashiModel(width, height);
+			hashiModel = HashiModel.of(width, height, noOfIslands);
+			freeSegments = new FreeSegmentIndex(width, height);
 			addSolvedHashiPuzzleToModel(noOfIslands);
 		}
+		freeSegments = null;
 		hashiModel.removeAllBridges();
 		return hashiModel;
 	}
 
+	/**
+	 * Generates random, solvable Hashiwokakero puzzles (see
+	 * {@link #getPuzzleSituationModel() getPuzzleSituationModel}) and offers them
+	 * to the <code>sink</code> until the <code>sink</code> has accepted
+	 * <code>noOfPuzzles</code> puzzles or <code>maxNoOfAttempts</code> puzzles
+	 * have been generated. Combined with a {@link DeduplicatingPuzzleSink}, only
+	 * puzzles that differ from each other up to rotation and reflection are
+	 * passed on.
+	 * 
+	 * @param noOfPuzzles     number of puzzles to be accepted by the sink
+	 * @param maxNoOfAttempts maximum number of puzzles to be generated
+	 * @param sink            the puzzles are offered to
+	 * @return number of puzzles accepted by the sink
+	 */
+	public int generatePuzzles(int noOfPuzzles, int maxNoOfAttempts, IPuzzleSink sink) {
+		int noOfPuzzlesAccepted = 0;
+		for (int attempt = 0; attempt < maxNoOfAttempts && noOfPuzzlesAccepted < noOfPuzzles; attempt++) {
+			if (sink.accept(getPuzzleSituationModel())) {
+				noOfPuzzlesAccepted++;
+			}
+		}
+		return noOfPuzzlesAccepted;
+	}
+
 	// populate model with islands and bridges until requirements are met
 	private void addSolvedHashiPuzzleToModel(int noOfIslands) {
 		bridgeableIslands = new ArrayList<>();
@@ -134,6 +223,7 @@ public class PuzzleGenerator {
 
 	private void addIslandToModelAndBridgeableIslands(int x, int y) {
 		hashiModel.addIslandAt(x, y);
+		freeSegments.addIsland(x, y);
 		bridgeableIslands.add(hashiModel.getIslandAt(x, y));
 	}
 
@@ -141,11 +231,12 @@ public class PuzzleGenerator {
 		// pick island from bridgeableIslands
 		int randIslandIndex = random.nextInt(bridgeableIslands.size());
 		Island existingIsland = bridgeableIslands.get(randIslandIndex);
-		List<Coordinates> validNeighborIslandCoords = getValidNeighborIslandCoords(existingIsland);
-		if (validNeighborIslandCoords.isEmpty()) {
-			bridgeableIslands.remove(randIslandIndex);
+		Coordinates coords = getRandomNeighborIslandCoords(existingIsland);
+		if (coords == null) { // remove in constant time, the order of bridgeableIslands does not matter
+			int lastIndex = bridgeableIslands.size() - 1;
+			bridgeableIslands.set(randIslandIndex, bridgeableIslands.get(lastIndex));
+			bridgeableIslands.remove(lastIndex);
 		} else { // new island including bridge to existing one can be added
-			Coordinates coords = validNeighborIslandCoords.get(random.nextInt(validNeighborIslandCoords.size()));
 			// check if bridge must be split to add island
 			if (hashiModel.bridgeAt(coords.x, coords.y)) {
 				addIslandBySplittingBridgeWithBridgeToExIslands(existingIsland, coords);
@@ -160,30 +251,34 @@ public class PuzzleGenerator {
 		addIslandToModelAndBridgeableIslands(coords.x, coords.y);
 		Island newIsland = hashiModel.getIslandAt(coords.x, coords.y);
 		boolean isDouble = random.nextBoolean();
-		hashiModel.addBridgeBetweenIslandsAndResetBridgesRequired(existingIsland, newIsland, isDouble);
+		addBridgeToModel(existingIsland, newIsland, isDouble);
 	}
 
 	private void addIslandBySplittingBridgeWithBridgeToExIslands(Island existingIsland, Coordinates coords) {
 		Bridge oldBridge = hashiModel.getBridgeAt(coords.x, coords.y);
 		hashiModel.removeBridgeBetweenIslandsAndResetBridgesRequired(oldBridge, true);
+		freeSegments.removeBridge(oldBridge.getStart(), oldBridge.getEnd());
 		addIslandWithBridgeToExIsland(existingIsland, coords);
 		Island newIsland = hashiModel.getIslandAt(coords.x, coords.y);
-		hashiModel.addBridgeBetweenIslandsAndResetBridgesRequired(oldBridge.getStart(), newIsland,
-				oldBridge.isDouble());
-		hashiModel.addBridgeBetweenIslandsAndResetBridgesRequired(oldBridge.getEnd(), newIsland, oldBridge.isDouble());
+		addBridgeToModel(oldBridge.getStart(), newIsland, oldBridge.isDouble());
+		addBridgeToModel(oldBridge.getEnd(), newIsland, oldBridge.isDouble());
+	}
+
+	private void addBridgeToModel(Island existingIsland, Island newIsland, boolean isDouble) {
+		hashiModel.addBridgeBetweenIslandsAndResetBridgesRequired(existingIsland, newIsland, isDouble);
+		freeSegments.addBridge(existingIsland, newIsland);
 	}
 
 	/**
-	 * Generates a list of coordinates in a random direction from the
-	 * <code>existingIsland</code> where a neighbor island to
-	 * <code>existingIsland</code> can be placed.
+	 * Picks coordinates in a random direction from the <code>existingIsland</code>
+	 * where a neighbor island to <code>existingIsland</code> can be placed.
 	 * 
 	 * <p>
 	 * Direction is chosen randomly out of all possible directions but when no
 	 * suitable coordinates can be found, direction is removed from possible
 	 * directions and another direction is chosen out of all possible directions.
 	 * This continues until either suitable coordinates are found or no possible
-	 * direction remains in which case an empty list of coordinates is returned.
+	 * direction remains in which case null is returned.
 	 * </p>
 	 * 
 	 * <p>
@@ -196,18 +291,19 @@ public class PuzzleGenerator {
 	 * </p>
 	 * 
 	 * @param existingIsland that is used for generating coordinates
-	 * @return A list of coordinates on which a neighbor island to the existing
-	 *         island can be placed
+	 * @return coordinates on which a neighbor island to the existing island can be
+	 *         placed or null if there are none
 	 */
-	private List<Coordinates> getValidNeighborIslandCoords(Island existingIsland) {
-		List<Coordinates> validNeighborIslandCoords = Collections.EMPTY_LIST;
-		Iterator<Direction> neighborDirectionsIter = getDirectsWithoutBridgesRandOrd(existingIsland).iterator();
+	private Coordinates getRandomNeighborIslandCoords(Island existingIsland) {
 		// check directions from existingIsland to find coords in which bridge to new
 		// island can be built until no direction left or possible direction found
-		while (neighborDirectionsIter.hasNext() && validNeighborIslandCoords.isEmpty()) {
-			validNeighborIslandCoords = getValidNeighborIslandCoords(existingIsland, neighborDirectionsIter.next());
+		for (Direction direction : getDirectsWithoutBridgesRandOrd(existingIsland)) {
+			Coordinates coords = getRandomNeighborIslandCoords(existingIsland, direction);
+			if (coords != null) {
+				return coords;
+			}
 		}
-		return validNeighborIslandCoords;
+		return null;
 	}
 
 	// returns a shuffled list of directions in which no bridge has been built from
@@ -218,41 +314,69 @@ public class PuzzleGenerator {
 			if (hashiModel.getBridge(island, direction) == null)
 				directionsWithoutBridges.add(direction);
 		}
-		Collections.shuffle(directionsWithoutBridges);
+		Collections.shuffle(directionsWithoutBridges, random);
 		return directionsWithoutBridges;
 	}
 
 	/**
-	 * Generates a list of coordinates in the <code>direction</code> from the
-	 * <code>existingIsland</code> where a neighbor island to
-	 * <code>existingIsland</code> can be placed.
+	 * Picks coordinates uniformly at random out of all coordinates in the
+	 * <code>direction</code> from the <code>existingIsland</code> where a neighbor
+	 * island to <code>existingIsland</code> can be placed (see
+	 * {@link #getRandomNeighborIslandCoords(Island)}).
 	 * 
-	 * A neighbor island to the <code>existingIsland</code> can be placed at a pair
-	 * of coordinates (x, y) if there would be no bridge crossing between the
-	 * neighbor island and the <code>existingIsland</code> and if the (vertical and
-	 * horizontal) distance of the neighbor island to other islands is greater 1.
-	 * <b>Note that there could be a bridge crossing at (x, y) since the "between"
-	 * excludes the coordinates of the islands themselves.</b>
+	 * <p>
+	 * The candidates are the cells of the free segment next to the
+	 * <code>existingIsland</code>, which ends at the first island or crossing
+	 * bridge. A crossing bridge may be split by the new island, so its cell is a
+	 * candidate as well. Random candidates are tried first; all candidates are
+	 * only checked if none of them is suitable, e.g. because the segment is
+	 * short.
+	 * </p>
 	 * 
 	 * @param existingIsland that is used for generating coordinates
 	 * @param direction      in which coordinates are searched for
-	 * @return A list of coordinates in <code>direction</code> on which a neighbor
-	 *         island to the existing island can be placed
+	 * @return coordinates in <code>direction</code> on which a neighbor island to
+	 *         the existing island can be placed or null if there are none
 	 */
-	private List<Coordinates> getValidNeighborIslandCoords(Island existingIsland, Direction direction) {
+	private Coordinates getRandomNeighborIslandCoords(Island existingIsland, Direction direction) {
+		boolean isHorizontal = direction == Direction.EAST || direction == Direction.WEST;
+		int step = direction == Direction.EAST || direction == Direction.SOUTH ? 1 : -1;
+		int origin = isHorizontal ? existingIsland.getX() : existingIsland.getY();
+		int blockedCell = freeSegments.getFirstBlockedCell(existingIsland.getX(), existingIsland.getY(), direction);
+		// cells right next to an island are never suitable
+		int first = origin + 2 * step;
+		int last;
+		if (blockedCell < 0 || blockedCell >= (isHorizontal ? hashiModel.getWidth() : hashiModel.getHeight())) {
+			last = blockedCell - step; // at the border
+		} else if (isHorizontal ? hashiModel.islandAt(blockedCell, existingIsland.getY())
+				: hashiModel.islandAt(existingIsland.getX(), blockedCell)) {
+			last = blockedCell - 2 * step;
+		} else { // crossing bridge
+			last = blockedCell;
+		}
+		int noOfCells = (last - first) * step + 1;
+		for (int sample = 0; sample < MAX_NO_OF_SAMPLES && noOfCells > 0; sample++) {
+			Coordinates coords = getCoords(existingIsland, isHorizontal, first + step * random.nextInt(noOfCells));
+			if (hashiModel.isValidIslandPosition(coords.x, coords.y)) {
+				return coords;
+			}
+		}
 		List<Coordinates> validNeighborIslandCoords = new ArrayList<>();
-		// add all coordinates that a neighbor island could be built on to list
-		Coordinates coords = existingIsland.getCoords().getNextCoordsIn(direction);
-		while (hashiModel.isValidFieldPosition(coords.x, coords.y) && !hashiModel.islandAt(coords.x, coords.y)) {
+		for (int cell = 0; cell < noOfCells; cell++) {
+			Coordinates coords = getCoords(existingIsland, isHorizontal, first + step * cell);
 			if (hashiModel.isValidIslandPosition(coords.x, coords.y)) {
 				validNeighborIslandCoords.add(coords);
 			}
-			if (hashiModel.bridgeAt(coords.x, coords.y)) {
-				break;
-			}
-			coords = coords.getNextCoordsIn(direction);
 		}
-		return validNeighborIslandCoords;
+		if (validNeighborIslandCoords.isEmpty()) {
+			return null;
+		}
+		return validNeighborIslandCoords.get(random.nextInt(validNeighborIslandCoords.size()));
+	}
+
+	// coordinates of the cell in the row or column of the island
+	private static Coordinates getCoords(Island island, boolean isHorizontal, int cell) {
+		return isHorizontal ? new Coordinates(cell, island.getY()) : new Coordinates(island.getX(), cell);
 	}
 
 }
@@ -6,6 +6,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -21,8 +24,8 @@ import model.IPuzzleSituationModel;
 public class PuzzleLoader {
 
 	private String remainingFileString;
-	private static String FILE_STRING_REG = "(.*)";
-	private static String FILE_STRING_REG_NOT_EMPTY = "(.+)";
+	private static final String FILE_STRING_REG = "(.*)";
+	private static final String FILE_STRING_REG_NOT_EMPTY = "(.+)";
 
 	private int noOfIslandsToAdd; // to model in regard to FIELD section
 	private List<Island> islands; // to be added to model
@@ -72,13 +75,108 @@ public class PuzzleLoader {
 	 */
 	public IPuzzleSituationModel loadPuzzle(String filePath) throws IllegalArgumentException {
 		checkFileType(filePath);
-		remainingFileString = convertFileToString(filePath);
+		return loadPuzzleFromFileString(convertFileToString(filePath));
+	}
+
+	/**
+	 * Loads all Hashiwokakero puzzles from the .bgs file at <code>filePath</code>
+	 * that contains several puzzles one after another, each starting with its own
+	 * FIELD section (see {@link PuzzleSaver#savePuzzles(String, Iterable, boolean)
+	 * savePuzzles}). A file containing a single puzzle is loaded as well. Errors
+	 * are handled like in the {@link #loadPuzzle(String) loadPuzzle} method.
+	 *
+	 * @param filePath
+	 *            of file which puzzles are to be loaded from
+	 * @return Hashiwokakero puzzles in the order they are found in the file
+	 * @throws IllegalArgumentException
+	 *             if file cannot be found at <code>filePath</code>, file is not of
+	 *             type .bgs or one of the puzzles contains syntax or semantic
+	 *             errors
+	 */
+	public List<IPuzzleSituationModel> loadPuzzles(String filePath) throws IllegalArgumentException {
+		checkFileType(filePath);
+		List<IPuzzleSituationModel> puzzles = new ArrayList<>();
+		for (String puzzleString : convertFileToString(filePath).split("(?=FIELD)")) {
+			if (!puzzleString.isEmpty()) {
+				puzzles.add(loadPuzzleFromFileString(puzzleString));
+			}
+		}
+		return puzzles;
+	}
+
+	/**
+	 * Loads a Hashiwokakero puzzle from the <code>fileContent</code> of a .bgs
+	 * file that has already been read in. Errors are handled like in the
+	 * {@link #loadPuzzle(String) loadPuzzle} method.
+	 *
+	 * @param fileContent
+	 *            content of a .bgs file
+	 * @return A Hashiwokakero puzzle
+	 * @throws IllegalArgumentException
+	 *             if the content contains syntax or semantic errors
+	 */
+	public IPuzzleSituationModel loadPuzzleFromContent(String fileContent) throws IllegalArgumentException {
+		try (BufferedReader in = new BufferedReader(new StringReader(fileContent))) {
+			return loadPuzzleFromFileString(convertToFileString(in));
+		} catch (IOException e) { // cannot happen when reading from a string
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private IPuzzleSituationModel loadPuzzleFromFileString(String fileString) throws IllegalArgumentException {
+		remainingFileString = fileString;
 		IPuzzleSituationModel hashiModel = loadEmptyPuzzleSituationModel();
 		loadIslands(hashiModel);
 		loadBridges(hashiModel);
 		return hashiModel;
 	}
 
+	/**
+	 * Converts the .bgs files at <code>bgsFilePaths</code> into a single file of
+	 * the binary corpus format (see {@link BinaryPuzzleFormat}) at
+	 * <code>binFilePath</code>. The puzzles are stored in the order of the paths
+	 * given, including the bridges they contain.
+	 *
+	 * @param bgsFilePaths of the .bgs files to be converted
+	 * @param binFilePath  of the binary file to be written
+	 * @throws IllegalArgumentException if one of the .bgs files cannot be loaded
+	 *                                  (see {@link #loadPuzzle(String)
+	 *                                  loadPuzzle}) or the binary file cannot be
+	 *                                  written
+	 */
+	public void convertToBinary(List<String> bgsFilePaths, String binFilePath) throws IllegalArgumentException {
+		try (BinaryCorpusWriter writer = new BinaryCorpusWriter(Paths.get(binFilePath))) {
+			for (String bgsFilePath : bgsFilePaths) {
+				writer.addPuzzle(loadPuzzle(bgsFilePath));
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Binary file at " + binFilePath + " could not be written.", e);
+		}
+	}
+
+	/**
+	 * Loads the puzzle at <code>index</code> from the file of the binary corpus
+	 * format (see {@link BinaryPuzzleFormat}) at <code>binFilePath</code>. To load
+	 * many puzzles from the same file, a {@link BinaryCorpusReader} should be used
+	 * instead.
+	 *
+	 * @param binFilePath of the binary file
+	 * @param index       of the puzzle in the binary file
+	 * @return A Hashiwokakero puzzle
+	 * @throws IllegalArgumentException if the file cannot be read, is not of the
+	 *                                  binary corpus format or does not contain a
+	 *                                  puzzle at <code>index</code>
+	 */
+	public IPuzzleSituationModel loadPuzzleFromBinary(String binFilePath, int index) throws IllegalArgumentException {
+		try (BinaryCorpusReader reader = new BinaryCorpusReader(Paths.get(binFilePath))) {
+			return reader.loadPuzzle(index);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Binary file at " + binFilePath + " could not be read.", e);
+		} catch (IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException(binFilePath + " does not contain a puzzle at index " + index + ".", e);
+		}
+	}
+
 	private void checkFileType(String filePath) throws IllegalArgumentException {
 		if (!filePath.endsWith(".bgs")) {
 			throw new IllegalArgumentException(
@@ -97,21 +195,30 @@ public class PuzzleLoader {
 	 *             if file cannot be found at filePath.
 	 */
 	private static String convertFileToString(String filePath) throws IllegalArgumentException {
-		StringBuffer sb = new StringBuffer();
 		try (BufferedReader in = new BufferedReader(new FileReader(filePath))) {
-			String line = in.readLine();
-			while (line != null) {
-				if (!line.startsWith("#")) { // comments are ignored
-					sb.append(line);
-				}
-				line = in.readLine();
-			}
+			return convertToFileString(in);
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 			throw new IllegalArgumentException("File at " + filePath + " could not be found.");
 		} catch (IOException e) {
 			System.out.println("IOException reading " + filePath + ".");
 			e.printStackTrace();
+			return "";
+		}
+	}
+
+	/**
+	 * Reads in all lines from <code>in</code> and converts them to a string
+	 * without whitespaces and comments.
+	 */
+	private static String convertToFileString(BufferedReader in) throws IOException {
+		StringBuffer sb = new StringBuffer();
+		String line = in.readLine();
+		while (line != null) {
+			if (!line.startsWith("#")) { // comments are ignored
+				sb.append(line);
+			}
+			line = in.readLine();
 		}
 		String result = sb.toString();
 		result = result.replaceAll("\\s+", ""); // remove whitespaces
@@ -155,7 +262,7 @@ public class PuzzleLoader {
 		noOfIslandsToAdd = Integer.parseInt(m.group(3));
 		remainingFileString = m.group(4);
 		checkFieldSemantics(width, height);
-		return new HashiModel(width, height);
+		return HashiModel.of(width, height, noOfIslandsToAdd);
 	}
 
 	private void checkFieldSemantics(int width, int height) throws IllegalArgumentException {
@@ -0,0 +1,199 @@
+package controller;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import model.CandidateEdgeGraph;
+import model.CanonicalForm;
+import model.IPuzzleSituationModel;
+
+/**
+ * A <code>PuzzleRecord</code> is a view of a single puzzle stored in the
+ * binary corpus format (see {@link BinaryPuzzleFormat}). The record does not
+ * copy any data: all accessors read directly from the underlying buffer, which
+ * is usually a slice of a memory-mapped corpus file or of a
+ * {@link PuzzleSlab}. Only the bridges of records of a slab can be changed.
+ */
+public class PuzzleRecord {
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Constructs a view of the record starting at position 0 of the
+	 * <code>buffer</code>.
+	 *
+	 * @param buffer containing the record
+	 */
+	PuzzleRecord(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public int getWidth() {
+		return Short.toUnsignedInt(buffer.getShort(0));
+	}
+
+	public int getHeight() {
+		return Short.toUnsignedInt(buffer.getShort(2));
+	}
+
+	public int getNoOfIslands() {
+		return buffer.getInt(4);
+	}
+
+	/**
+	 * Gets the number of candidate edges of the puzzle (see
+	 * {@link CandidateEdgeGraph}).
+	 *
+	 * @return number of candidate edges
+	 */
+	public int getNoOfEdges() {
+		return buffer.getInt(8);
+	}
+
+	public int getIslandX(int island) {
+		return Short.toUnsignedInt(buffer.getShort(BinaryPuzzleFormat.getIslandsOffset()
+				+ BinaryPuzzleFormat.ISLAND_SIZE * island));
+	}
+
+	public int getIslandY(int island) {
+		return Short.toUnsignedInt(buffer.getShort(BinaryPuzzleFormat.getIslandsOffset()
+				+ BinaryPuzzleFormat.ISLAND_SIZE * island + 2));
+	}
+
+	/**
+	 * Gets the number of bridges required by the <code>island</code>.
+	 *
+	 * @param island index of the island in natural order
+	 * @return number of bridges required
+	 */
+	public int getClue(int island) {
+		int packed = buffer.get(BinaryPuzzleFormat.getCluesOffset(getNoOfIslands()) + (island >> 1));
+		return (island & 1) == 0 ? packed & 0xF : (packed >> 4) & 0xF;
+	}
+
+	/**
+	 * Gets the number of bridges built on the <code>edge</code>.
+	 *
+	 * @param edge index of the candidate edge
+	 * @return number of bridges (0, 1 or 2)
+	 */
+	public int getBridges(int edge) {
+		int packed = buffer.get(BinaryPuzzleFormat.getBridgesOffset(getNoOfIslands()) + (edge >> 2));
+		return (packed >> ((edge & 3) << 1)) & 3;
+	}
+
+	/**
+	 * Sets the number of bridges built on the <code>edge</code> in place.
+	 *
+	 * @param edge        index of the candidate edge
+	 * @param noOfBridges number of bridges (0, 1 or 2)
+	 * @throws IllegalArgumentException if <code>noOfBridges</code> is not in [0,
+	 *                                  2]
+	 * @throws ReadOnlyBufferException  if the record is a view of a corpus file
+	 */
+	public void setBridges(int edge, int noOfBridges) throws IllegalArgumentException, ReadOnlyBufferException {
+		if (noOfBridges < 0 || noOfBridges > 2)
+			throw new IllegalArgumentException("There cannot be " + noOfBridges + " bridges on an edge.");
+		int index = BinaryPuzzleFormat.getBridgesOffset(getNoOfIslands()) + (edge >> 2);
+		int shift = (edge & 3) << 1;
+		buffer.put(index, (byte) (buffer.get(index) & ~(3 << shift) | noOfBridges << shift));
+	}
+
+	/**
+	 * Sets the number of bridges built on every edge to the number built in the
+	 * <code>hashiModel</code>, e.g. after the model created from the record was
+	 * solved.
+	 *
+	 * @param hashiModel of the puzzle of the record
+	 * @throws IllegalArgumentException if the model has other edges than the
+	 *                                  record
+	 * @throws ReadOnlyBufferException  if the record is a view of a corpus file
+	 */
+	public void setBridges(IPuzzleSituationModel hashiModel) throws IllegalArgumentException, ReadOnlyBufferException {
+		int[] bridges = CandidateEdgeGraph.of(hashiModel).getBridges(hashiModel);
+		if (bridges.length != getNoOfEdges())
+			throw new IllegalArgumentException(
+					"Model has " + bridges.length + " edges but the record has " + getNoOfEdges() + " edges.");
+		for (int e = 0; e < bridges.length; e++) {
+			setBridges(e, bridges[e]);
+		}
+	}
+
+	/**
+	 * Gets the number of bytes of the record.
+	 *
+	 * @return size of the record
+	 */
+	int getSize() {
+		return BinaryPuzzleFormat.getRecordSize(getNoOfIslands(), getNoOfEdges());
+	}
+
+	/**
+	 * Gets the bytes of the record without copying them.
+	 *
+	 * @return new buffer whose remaining bytes are the record
+	 */
+	ByteBuffer getBytes() {
+		ByteBuffer bytes = buffer.duplicate();
+		bytes.position(0);
+		bytes.limit(getSize());
+		return bytes;
+	}
+
+	/**
+	 * Builds the <code>CandidateEdgeGraph</code> of the puzzle.
+	 *
+	 * @return graph of the puzzle's islands
+	 */
+	public CandidateEdgeGraph toCandidateEdgeGraph() {
+		int noOfIslands = getNoOfIslands();
+		int[] xs = new int[noOfIslands];
+		int[] ys = new int[noOfIslands];
+		int[] clues = new int[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			xs[i] = getIslandX(i);
+			ys[i] = getIslandY(i);
+			clues[i] = getClue(i);
+		}
+		return new CandidateEdgeGraph(getWidth(), getHeight(), xs, ys, clues);
+	}
+
+	/**
+	 * Computes the canonical form of the puzzle without building its graph or
+	 * model.
+	 *
+	 * @return canonical form of the puzzle
+	 */
+	public CanonicalForm getCanonicalForm() {
+		int noOfIslands = getNoOfIslands();
+		int[] xs = new int[noOfIslands];
+		int[] ys = new int[noOfIslands];
+		int[] clues = new int[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			xs[i] = getIslandX(i);
+			ys[i] = getIslandY(i);
+			clues[i] = getClue(i);
+		}
+		return new CanonicalForm(getWidth(), getHeight(), xs, ys, clues);
+	}
+
+	/**
+	 * Creates a new <code>IPuzzleSituationModel</code> containing the islands and
+	 * bridges of the record.
+	 *
+	 * @return new model of the puzzle
+	 * @throws IllegalArgumentException if the record is not consistent
+	 */
+	public IPuzzleSituationModel toModel() throws IllegalArgumentException {
+		CandidateEdgeGraph graph = toCandidateEdgeGraph();
+		if (graph.getNoOfEdges() != getNoOfEdges())
+			throw new IllegalArgumentException("Record declares " + getNoOfEdges() + " edges but its islands have "
+					+ graph.getNoOfEdges() + " edges.");
+		int[] bridges = new int[getNoOfEdges()];
+		for (int e = 0; e < bridges.length; e++) {
+			bridges[e] = getBridges(e);
+		}
+		return graph.toModel(bridges);
+	}
+
+}
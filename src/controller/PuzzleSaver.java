@@ -2,11 +2,22 @@ package controller;
 
 import java.io.BufferedWriter;
 
-import java.io.FileOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import common.Direction;
 import model.HashiModel.Bridge;
@@ -16,79 +27,260 @@ import model.IPuzzleSituationModel;
 /**
  * Class for saving the current state of a Hashiwokakero puzzle into a .bgs
  * file.
+ *
+ * <p>
+ * Puzzles are streamed to the target, i.e. the content of a file is never held
+ * in memory as a whole. Several puzzles can be written into one file one after
+ * another (see {@link #savePuzzles(String, Iterable, boolean) savePuzzles} and
+ * {@link #appendPuzzles(String, Iterable) appendPuzzles}); such a file can be
+ * read by {@link PuzzleLoader#loadPuzzles(String) loadPuzzles}. An instance of
+ * a <code>PuzzleSaver</code> holds no state and can be reused.
+ * </p>
  */
 public class PuzzleSaver {
 
-	private String filePath;
-	private StringBuilder fileStringBuilder = new StringBuilder();
-	private IPuzzleSituationModel hashiModel;
-	private List<Island> allIslands;
-
 	/**
 	 * Saves the current state of the puzzle contained in the
 	 * <code>hashiModel</code> as .bgs file at <code>filePath</code>.
-	 * 
+	 *
+	 * @param filePath
+	 *            which .bgs file containing current state of puzzle is saved at
+	 * @param hashiModel
+	 *            containing the current state of the puzzle
+	 * @return true if the puzzle was saved, otherwise false
+	 */
+	public boolean savePuzzle(String filePath, IPuzzleSituationModel hashiModel) {
+		return savePuzzle(filePath, hashiModel, false);
+	}
+
+	/**
+	 * Saves the current state of the puzzle contained in the
+	 * <code>hashiModel</code> as .bgs file at <code>filePath</code>. If
+	 * <code>atomic</code> is true, the puzzle is written to a temporary file
+	 * first, which then replaces the file at <code>filePath</code>, so that the
+	 * file at <code>filePath</code> is never left half-written.
+	 *
 	 * @param filePath
 	 *            which .bgs file containing current state of puzzle is saved at
 	 * @param hashiModel
 	 *            containing the current state of the puzzle
+	 * @param atomic
+	 *            true if the file is to be replaced atomically
+	 * @return true if the puzzle was saved, otherwise false
 	 */
-	public void savePuzzle(String filePath, IPuzzleSituationModel hashiModel) {
-		this.filePath = filePath;
-		this.hashiModel = hashiModel;
-		writeToFile(getFileString());
+	public boolean savePuzzle(String filePath, IPuzzleSituationModel hashiModel, boolean atomic) {
+		return savePuzzles(filePath, Collections.singletonList(hashiModel), atomic);
 	}
 
-	private void writeToFile(String fileString) {
-		try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath), "utf-8"))) {
-			out.write(fileString);
-			out.flush();
-			out.close();
+	/**
+	 * Saves the current state of all <code>puzzles</code> one after another into
+	 * the .bgs file at <code>filePath</code>. If <code>atomic</code> is true, the
+	 * puzzles are written to a temporary file first, which then replaces the file
+	 * at <code>filePath</code>.
+	 *
+	 * @param filePath
+	 *            which .bgs file containing the puzzles is saved at
+	 * @param puzzles
+	 *            to be saved
+	 * @param atomic
+	 *            true if the file is to be replaced atomically
+	 * @return true if the puzzles were saved, otherwise false
+	 */
+	public boolean savePuzzles(String filePath, Iterable<? extends IPuzzleSituationModel> puzzles, boolean atomic) {
+		Path path = Paths.get(filePath);
+		try {
+			if (atomic) {
+				writeAtomically(path, puzzles);
+			} else {
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					writePuzzles(channel, puzzles);
+				}
+			}
+			return true;
 		} catch (IOException e) {
 			System.out.println("IOException writing " + filePath);
 			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Appends the current state of all <code>puzzles</code> one after another to
+	 * the .bgs file at <code>filePath</code>. The file is created if it does not
+	 * exist.
+	 *
+	 * @param filePath
+	 *            of the .bgs file the puzzles are appended to
+	 * @param puzzles
+	 *            to be appended
+	 * @return true if the puzzles were appended, otherwise false
+	 */
+	public boolean appendPuzzles(String filePath, Iterable<? extends IPuzzleSituationModel> puzzles) {
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			writePuzzles(channel, puzzles);
+			return true;
+		} catch (IOException e) {
+			System.out.println("IOException writing " + filePath);
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	private void writeAtomically(Path path, Iterable<? extends IPuzzleSituationModel> puzzles) throws IOException {
+		Path tempFile = AtomicFiles.createTempFile(path); // keeps the permissions of the old file
+		try {
+			try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+				writePuzzles(channel, puzzles);
+				channel.force(true); // content must be on disk before it replaces the old file
+			}
+			AtomicFiles.replace(tempFile, path);
+		} finally {
+			Files.deleteIfExists(tempFile);
 		}
 	}
 
-	private String getFileString() {
-		allIslands = hashiModel.getIslands();
-		addFieldString();
-		addIslandString();
-		addBridgesString();
-		return fileStringBuilder.toString();
+	private void writePuzzles(FileChannel channel, Iterable<? extends IPuzzleSituationModel> puzzles)
+			throws IOException {
+		Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+		for (IPuzzleSituationModel hashiModel : puzzles) {
+			writePuzzle(out, hashiModel);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the current state of the puzzle contained in the
+	 * <code>hashiModel</code> in .bgs format to the <code>channel</code> at its
+	 * current position.
+	 *
+	 * @param channel
+	 *            the puzzle is written to
+	 * @param hashiModel
+	 *            containing the current state of the puzzle
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writePuzzle(FileChannel channel, IPuzzleSituationModel hashiModel) throws IOException {
+		writePuzzles(channel, Collections.singletonList(hashiModel));
 	}
 
-	private void addFieldString() {
-		fileStringBuilder.append("FIELD\n");
-		fileStringBuilder.append(
-				hashiModel.getWidth() + " x " + hashiModel.getHeight() + " | " + hashiModel.getNoOfIslands() + "\n");
+	/**
+	 * Writes the current state of the puzzle contained in the
+	 * <code>hashiModel</code> in UTF-8 encoded .bgs format to the
+	 * <code>outputStream</code>. The stream is flushed but not closed.
+	 *
+	 * @param outputStream
+	 *            the puzzle is written to
+	 * @param hashiModel
+	 *            containing the current state of the puzzle
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writePuzzle(OutputStream outputStream, IPuzzleSituationModel hashiModel) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		writePuzzle(out, hashiModel);
+		out.flush();
 	}
 
-	private void addIslandString() {
-		fileStringBuilder.append("\nISLANDS\n");
-		for (int index = 0; index < hashiModel.getNoOfIslands(); index++) {
-			Island island = allIslands.get(index);
-			fileStringBuilder.append(island + "\n");
+	/**
+	 * Writes the current state of the puzzle contained in the
+	 * <code>hashiModel</code> in .bgs format to the <code>out</code> writer. The
+	 * writer is neither flushed nor closed.
+	 *
+	 * @param out
+	 *            the puzzle is written to
+	 * @param hashiModel
+	 *            containing the current state of the puzzle
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writePuzzle(Writer out, IPuzzleSituationModel hashiModel) throws IOException {
+		List<Island> allIslands = hashiModel.getIslands();
+		writeField(out, hashiModel);
+		writeIslands(out, allIslands);
+		writeBridges(out, hashiModel, allIslands);
+	}
+
+	private void writeField(Writer out, IPuzzleSituationModel hashiModel) throws IOException {
+		out.write("FIELD\n");
+		out.write(Integer.toString(hashiModel.getWidth()));
+		out.write(" x ");
+		out.write(Integer.toString(hashiModel.getHeight()));
+		out.write(" | ");
+		out.write(Integer.toString(hashiModel.getNoOfIslands()));
+		out.write('\n');
+	}
+
+	private void writeIslands(Writer out, List<Island> allIslands) throws IOException {
+		out.write("\nISLANDS\n");
+		for (Island island : allIslands) {
+			writeTuple(out, Integer.toString(island.getX()), Integer.toString(island.getY()),
+					Integer.toString(island.getNoOfBridgesRequired()));
 		}
 	}
-	
-	private static Direction[] SOUTH_AND_EAST = {Direction.SOUTH, Direction.EAST};
 
-	private void addBridgesString() {
-		fileStringBuilder.append("\nBRIDGES\n");
-		for (int islandIdx = 0; islandIdx < hashiModel.getNoOfIslands(); islandIdx++) {
-			addBridgesString(islandIdx);
+	private static final Direction[] SOUTH_AND_EAST = {Direction.SOUTH, Direction.EAST};
+
+	private void writeBridges(Writer out, IPuzzleSituationModel hashiModel, List<Island> allIslands)
+			throws IOException {
+		out.write("\nBRIDGES\n");
+		Map<Island, Integer> islandIndices = new HashMap<>(2 * allIslands.size());
+		for (int index = 0; index < allIslands.size(); index++) {
+			islandIndices.put(allIslands.get(index), index);
 		}
+		for (int startIndex = 0; startIndex < allIslands.size(); startIndex++) {
+			Bridge bridgeToAdd;
+			final Island startIsland = allIslands.get(startIndex);
+			for (Direction direction : SOUTH_AND_EAST) {
+				if ((bridgeToAdd = hashiModel.getBridge(startIsland, direction)) != null) {
+					int endIndex = islandIndices.get(bridgeToAdd.getOtherEnd(startIsland));
+					writeTuple(out, Integer.toString(startIndex), Integer.toString(endIndex),
+							Boolean.toString(bridgeToAdd.isDouble()));
+				}
+			}
+		}
+	}
+
+	// writes "( first, second | third )\n"
+	private void writeTuple(Writer out, String first, String second, String third) throws IOException {
+		out.write("( ");
+		out.write(first);
+		out.write(", ");
+		out.write(second);
+		out.write(" | ");
+		out.write(third);
+		out.write(" )\n");
 	}
 
-	private void addBridgesString(int startIndex) {
-		Bridge bridgeToAdd;
-		final Island startIsland = allIslands.get(startIndex);
-		for (Direction direction : SOUTH_AND_EAST) {
-			if ((bridgeToAdd = hashiModel.getBridge(startIsland, direction)) != null) {
-				int endIndex = Collections.binarySearch(allIslands, bridgeToAdd.getOtherEnd(startIsland));
-				fileStringBuilder.append("( " + startIndex + ", " + endIndex + " | " + bridgeToAdd.isDouble() + " )\n");
+	/**
+	 * Converts every puzzle contained in the file of the binary corpus format (see
+	 * {@link BinaryPuzzleFormat}) at <code>binFilePath</code> into a .bgs file in
+	 * the directory at <code>directoryPath</code>. The puzzle at index
+	 * <code>i</code> of the binary file is saved as
+	 * <code>HashiPuzzle_WxH_i.bgs</code>, where <code>W</code> and <code>H</code>
+	 * are its width and height, e.g. <code>HashiPuzzle_25x25_0.bgs</code>.
+	 * Existing files are replaced.
+	 *
+	 * @param binFilePath   of the binary file to be converted
+	 * @param directoryPath of the directory the .bgs files are saved in
+	 * @return number of puzzles converted
+	 * @throws IllegalArgumentException if the binary file cannot be read or is not
+	 *                                  of the binary corpus format or a .bgs file
+	 *                                  cannot be saved in the directory
+	 */
+	public int convertFromBinary(String binFilePath, String directoryPath) throws IllegalArgumentException {
+		try (BinaryCorpusReader reader = new BinaryCorpusReader(Paths.get(binFilePath))) {
+			for (int index = 0; index < reader.getNoOfPuzzles(); index++) {
+				IPuzzleSituationModel puzzle = reader.loadPuzzle(index);
+				String fileName = "HashiPuzzle_" + puzzle.getWidth() + "x" + puzzle.getHeight() + "_" + index + ".bgs";
+				if (!savePuzzle(new File(directoryPath, fileName).getPath(), puzzle))
+					throw new IllegalArgumentException(fileName + " could not be saved in " + directoryPath + ".");
 			}
+			return reader.getNoOfPuzzles();
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Binary file at " + binFilePath + " could not be read.", e);
 		}
 	}
 
@@ -0,0 +1,150 @@
+package controller;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import model.CandidateEdgeGraph;
+import model.IPuzzleSituationModel;
+
+/**
+ * A <code>PuzzleSlab</code> keeps a large number of puzzles resident outside of
+ * the Java heap. Every puzzle is a record of the binary corpus format (see
+ * {@link BinaryPuzzleFormat}), i.e. a fixed layout of its islands, their clues
+ * and the bridges built on its candidate edges, stored in direct
+ * <code>ByteBuffer</code> segments shared by all puzzles. The slab creates no
+ * object per puzzle or island, so heap usage and garbage collection pauses stay
+ * flat however many puzzles it holds; only the offsets of the records take 8
+ * bytes per puzzle on the heap.
+ *
+ * <p>
+ * Records of a corpus file are copied into the slab as they are, without being
+ * parsed. Their bridges can be changed in place (see
+ * {@link PuzzleRecord#setBridges(int, int) setBridges}), e.g. to keep the
+ * state of a puzzle while another one is worked on. An
+ * <code>IPuzzleSituationModel</code> of a puzzle is only created when needed
+ * (see {@link PuzzleRecord#toModel() toModel}).
+ * </p>
+ *
+ * <p>
+ * A slab is not thread-safe while puzzles are added. Records of different
+ * puzzles can be read and changed by different threads.
+ * </p>
+ */
+public class PuzzleSlab {
+
+	private static final int SEGMENT_SHIFT = 26; // 64 MiB per segment
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+	private ByteBuffer[] segments = new ByteBuffer[0];
+	private int usedBytesOfLastSegment;
+	private long noOfBytes;
+	// segment of a record in the high and its offset in the segment in the low 32 bits
+	private long[] locations = new long[64];
+	private int noOfPuzzles;
+
+	/**
+	 * Copies the <code>record</code> into <code>this</code> slab.
+	 *
+	 * @param record to be copied, e.g. a view of a corpus file
+	 * @return index of the puzzle in the slab
+	 */
+	public int addPuzzle(PuzzleRecord record) {
+		return addPuzzle(record.getBytes());
+	}
+
+	/**
+	 * Copies the records of all puzzles of the corpus file read by the
+	 * <code>reader</code> into <code>this</code> slab.
+	 *
+	 * @param reader of the corpus file
+	 * @return number of puzzles added
+	 */
+	public int addPuzzles(BinaryCorpusReader reader) {
+		for (PuzzleRecord record : reader) {
+			addPuzzle(record);
+		}
+		return reader.getNoOfPuzzles();
+	}
+
+	/**
+	 * Adds the islands and bridges of the <code>hashiModel</code> to
+	 * <code>this</code> slab.
+	 *
+	 * @param hashiModel to be added
+	 * @return index of the puzzle in the slab
+	 * @throws IllegalArgumentException if the puzzle cannot be represented in the
+	 *                                  binary format
+	 */
+	public int addPuzzle(IPuzzleSituationModel hashiModel) throws IllegalArgumentException {
+		CandidateEdgeGraph graph = CandidateEdgeGraph.of(hashiModel);
+		BinaryCorpusWriter.checkRepresentable(graph);
+		return addPuzzle(BinaryCorpusWriter.encode(graph, graph.getBridges(hashiModel)));
+	}
+
+	private int addPuzzle(ByteBuffer bytes) {
+		int size = bytes.remaining();
+		if (segments.length == 0 || usedBytesOfLastSegment + size > segments[segments.length - 1].capacity()) {
+			// records never span segments, a record larger than a segment gets one of its own
+			segments = Arrays.copyOf(segments, segments.length + 1);
+			segments[segments.length - 1] = ByteBuffer.allocateDirect(Math.max(SEGMENT_SIZE, size));
+			usedBytesOfLastSegment = 0;
+		}
+		ByteBuffer segment = segments[segments.length - 1].duplicate();
+		segment.position(usedBytesOfLastSegment);
+		segment.put(bytes);
+		if (noOfPuzzles == locations.length) {
+			locations = Arrays.copyOf(locations, 2 * locations.length);
+		}
+		locations[noOfPuzzles] = (long) (segments.length - 1) << 32 | usedBytesOfLastSegment;
+		usedBytesOfLastSegment += size;
+		noOfBytes += size;
+		return noOfPuzzles++;
+	}
+
+	/**
+	 * Gets the number of puzzles contained.
+	 *
+	 * @return number of puzzles
+	 */
+	public int getNoOfPuzzles() {
+		return noOfPuzzles;
+	}
+
+	/**
+	 * Gets the number of bytes taken by the records of all puzzles.
+	 *
+	 * @return number of bytes of the records
+	 */
+	public long getNoOfBytes() {
+		return noOfBytes;
+	}
+
+	/**
+	 * Gets a view of the puzzle at <code>index</code> without copying it. Changes
+	 * of its bridges are written to the slab.
+	 *
+	 * @param index of the puzzle in the slab
+	 * @return view of the puzzle
+	 * @throws IndexOutOfBoundsException if there is no puzzle at
+	 *                                   <code>index</code>
+	 */
+	public PuzzleRecord getRecord(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= noOfPuzzles)
+			throw new IndexOutOfBoundsException("There is no puzzle at index " + index + ".");
+		ByteBuffer slice = segments[(int) (locations[index] >>> 32)].duplicate();
+		slice.position((int) locations[index]);
+		return new PuzzleRecord(slice.slice());
+	}
+
+	/**
+	 * Loads the puzzle at <code>index</code> into a new
+	 * <code>IPuzzleSituationModel</code>.
+	 *
+	 * @param index of the puzzle in the slab
+	 * @return model of the puzzle
+	 */
+	public IPuzzleSituationModel loadPuzzle(int index) {
+		return getRecord(index).toModel();
+	}
+
+}
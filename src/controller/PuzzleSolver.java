@@ -1,68 +1,166 @@
 package controller;
 
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
 import gui.IPuzzleSituationView;
+import model.HashiModel.Island;
 
 /**
- * This class is an extension of <code>Thread</code> of which an instance (when
- * the {@link #run() run} method is called) automatically solves a Hashiwokakeru
- * puzzle by adding bridges until it is either interrupted or no more bridge can
- * be added. For a bridge to be added, it certainly must be added based on the
- * current state of the puzzle (see {@link BridgeAdder#makeSureMove()
- * makeSureMove()} method).
+ * An instance of the class <code>PuzzleSolver</code> automatically solves a
+ * Hashiwokakeru puzzle by adding bridges until it is either stopped or no more
+ * bridge can be added. For a bridge to be added, it certainly must be added
+ * based on the current state of the puzzle (see
+ * {@link BridgeAdder#makeSureMove() makeSureMove()} method).
+ *
+ * <p>
+ * Solving is split into two parts: all bridges to be added are computed at full
+ * speed when solving is started (see {@link BridgeAdder#getSureMoves()
+ * getSureMoves()} method). Afterwards they are added one after another as
+ * commands of the {@link ModelCommandQueue}, i.e. on the thread writing the
+ * model, with a pause between two bridges. Moves of the user given in the
+ * meantime run between two bridges. If the pause is 0, all bridges are added at
+ * once by a single command.
+ * </p>
  */
-public class PuzzleSolver extends Thread {
+public class PuzzleSolver {
+
+	/**
+	 * Default pause in milliseconds between two bridges being added.
+	 */
+	public static final int DEFAULT_DELAY = 2000;
 
 	private BridgeAdder bridgeAdder;
 	private IPuzzleSituationView view;
+	private ModelCommandQueue commandQueue;
+	private int delay;
+	private List<Island[]> moves;
+	private int nextMove;
+	private volatile ScheduledFuture<?> steps; // each adding a bridge
+
+	/**
+	 * Constructs an instance of a <code>PuzzleSolver</code> that pauses
+	 * {@link #DEFAULT_DELAY DEFAULT_DELAY} milliseconds after each bridge.
+	 *
+	 * @param bridgeAdder
+	 *            used to add bridges to the puzzle
+	 * @param view
+	 *            that is informed if the state of <code>this</code> solver
+	 *            changes
+	 * @param commandQueue
+	 *            writing the model, whose snapshots refresh the view after a
+	 *            bridge has been added
+	 */
+	public PuzzleSolver(BridgeAdder bridgeAdder, IPuzzleSituationView view, ModelCommandQueue commandQueue) {
+		this(bridgeAdder, view, commandQueue, DEFAULT_DELAY);
+	}
 
 	/**
 	 * Constructs an instance of a <code>PuzzleSolver</code>.
-	 * 
+	 *
 	 * @param bridgeAdder
 	 *            used to add bridges to the puzzle
 	 * @param view
-	 *            that is refreshed if bridge has been added or state of the
-	 *            <code>this</code> solver changes
+	 *            that is informed if the state of <code>this</code> solver
+	 *            changes
+	 * @param commandQueue
+	 *            writing the model, whose snapshots refresh the view after a
+	 *            bridge has been added
+	 * @param delay
+	 *            pause in milliseconds after each bridge; 0 to add all bridges at
+	 *            once
+	 * @throws IllegalArgumentException
+	 *             if delay is negative
 	 */
-	public PuzzleSolver(BridgeAdder bridgeAdder, IPuzzleSituationView view) {
+	public PuzzleSolver(BridgeAdder bridgeAdder, IPuzzleSituationView view, ModelCommandQueue commandQueue,
+			int delay) throws IllegalArgumentException {
+		if (delay < 0)
+			throw new IllegalArgumentException("Delay must not be negative.");
 		this.bridgeAdder = bridgeAdder;
 		this.view = view;
+		this.commandQueue = commandQueue;
+		this.delay = delay;
 	}
 
 	/**
-	 * Runs the <code>this</code> thread. Bridges are added until no more bridges
-	 * can be added (see {@link BridgeAdder#makeSureMove() makeSureMove()} method)
-	 * or <code>this</code> thread is interrupted. Each time after a bridge is added
-	 * a pause is made and the view is refreshed. Each time the state of
-	 * <code>this</code> thread changes the view is refreshed.
+	 * Starts solving the puzzle. Must be called by a command of the
+	 * {@link ModelCommandQueue}. Bridges are added until no more bridges can be
+	 * added (see {@link BridgeAdder#makeSureMove() makeSureMove()} method) or
+	 * <code>this</code> solver is stopped. Each time after a bridge is added a
+	 * pause is made. Each time the state of <code>this</code> solver changes the
+	 * view is informed.
 	 */
-	@Override
-	public void run() {
+	public void solvePuzzleWithPauses() {
+		if (isRunning()) {
+			return;
+		}
+		moves = bridgeAdder.getSureMoves();
+		nextMove = 0;
+		if (delay == 0) {
+			solvePuzzleInstantly();
+			return;
+		}
 		view.setSolverStateAndRefresh(SolverState.RUNNING);
-		try {
-			while (bridgeAdder.makeSureMove()) {
-				view.refresh();
-				Thread.sleep(2000);
+		steps = commandQueue.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				if (!addNextMove()) {
+					steps.cancel(false);
+					commandQueue.publishSnapshot(); // the view shows the final state when told solving finished
+					view.setSolverStateAndRefresh(SolverState.FINISHED);
+				}
 			}
-			view.setSolverStateAndRefresh(SolverState.FINISHED);
-		} catch (InterruptedException e) {
-			this.interrupt(); // Necessary to get correct state of solver
-			view.setSolverStateAndRefresh(SolverState.INTERRUPTED);
+		}, delay);
+	}
+
+	private void solvePuzzleInstantly() {
+		while (addNextMove())
+			;
+		commandQueue.publishSnapshot();
+		view.setSolverStateAndRefresh(SolverState.FINISHED);
+	}
+
+	private boolean addNextMove() {
+		if (nextMove >= moves.size()) {
+			return false;
 		}
+		Island[] move = moves.get(nextMove++);
+		return bridgeAdder.addBridgeBetween(move[0], move[1]);
 	}
 
 	/**
-	 * Starts <code>this</code> thread.
+	 * Returns true if <code>this</code> solver is currently adding bridges.
+	 *
+	 * @return true if solving is running, otherwise false
 	 */
-	public void solvePuzzleWithPauses() {
-		this.start();
+	public boolean isRunning() {
+		ScheduledFuture<?> steps = this.steps;
+		return steps != null && !steps.isDone();
 	}
 
 	/**
-	 * <code>Enum</code> representing the states of <code>this</code> thread.
-	 * 
-	 
-	 *
+	 * Stops <code>this</code> solver if it is running. May be called from any
+	 * thread; if not called by a command, <code>this</code> solver is stopped
+	 * after the commands given before.
+	 */
+	public void stop() {
+		if (!commandQueue.isWriterThread()) {
+			commandQueue.execute(new Runnable() {
+				@Override
+				public void run() {
+					stop();
+				}
+			});
+			return;
+		}
+		if (isRunning()) {
+			steps.cancel(false);
+			view.setSolverStateAndRefresh(SolverState.INTERRUPTED);
+		}
+	}
+
+	/**
+	 * <code>Enum</code> representing the states of a <code>PuzzleSolver</code>.
 	 */
 	public static enum SolverState {
 		/**
@@ -71,7 +169,7 @@ public class PuzzleSolver extends Thread {
 		RUNNING,
 
 		/**
-		 * <code>PuzzleSolver.this</code> was interrupted
+		 * <code>PuzzleSolver.this</code> was stopped
 		 */
 		INTERRUPTED,
 
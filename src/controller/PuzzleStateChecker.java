@@ -1,44 +1,119 @@
 package controller;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-
-import model.PuzzleState;
 import common.Direction;
-import model.HashiModel.Bridge;
+import model.CandidateEdgeGraph;
 import model.HashiModel.Island;
+import model.IBridgeChangeListener;
 import model.IPuzzleSituationModel;
+import model.PuzzleState;
 
 /**
- * 
+ *
  * Instances of the <code>PuzzleStateChecker</code> class are used to determine
  * the current <code>PuzzleState</code> of an instance of a Hashiwokakeru puzzle
  * and updating it.
+ *
+ * <p>
+ * The checker keeps the state of every island in bitsets over the islands of
+ * the puzzle's {@link CandidateEdgeGraph}: islands having too many bridges,
+ * islands having all their bridges, islands that cannot get all their bridges
+ * any more and islands of isolated components, i.e. of components of islands
+ * having all their bridges. The state of the puzzle is read from the first
+ * island set in any of these bitsets, which is found a word of 64 islands at a
+ * time. The checker listens to the bridges changed in the model, so a check
+ * only re-evaluates the islands a change can affect: the ends of the bridge,
+ * their neighbors and the ends of the edges crossing it, and only searches the
+ * components of the ends of the bridge for isolation.
+ * </p>
+ *
+ * <p>
+ * <strong>Important:</strong> Islands must neither be added to the model nor
+ * change the number of bridges they require after the checker was constructed.
+ * </p>
  */
 public class PuzzleStateChecker {
 
+	private static final Direction[] DIRECTIONS = Direction.values(); // values() copies the array each call
+
 	private IPuzzleSituationModel hashiModel;
-	private Island[] allIslands;
-	private boolean[] checkedForIsolation;
-	// checkedForIsolation[i] true if it has been checked that island islands[i]
-	// belongs to isolated component, i. e. component to which no bridge can be
-	// built (islands of component have all bridges)
+	private final CandidateEdgeGraph graph;
+	private HintEngine hintEngine;
+	private ISolverMetrics metrics;
+
+	private final byte[] bridges; // number of bridges on each edge
+	private final int[] noOfBridgesMissing; // of each island
+	private final int[] noOfCrossingBridges; // of each edge, a bridge can only be built on it if there is none
+	private final BitSet overFullIslands = new BitSet(); // too many bridges
+	private final BitSet completeIslands = new BitSet(); // all bridges
+	private final BitSet infeasibleIslands = new BitSet(); // bridges missing that cannot be built any more
+	private final BitSet isolatedIslands = new BitSet(); // of isolated components
+	private boolean allIslandsIsolated; // true if all islands form one isolated component
+	// islands to be re-evaluated and ends of bridges changed since the last check
+	private final BitSet dirtyIslands = new BitSet();
+	private final BitSet changedIslands = new BitSet();
+	// breadth first search through the bridges of a component
+	private final int[] queue;
+	private final BitSet visitedIslands = new BitSet();
+
+	private final IBridgeChangeListener bridgeChangeListener = new IBridgeChangeListener() {
+		@Override
+		public void bridgeChanged(Island start, Island end, int oldNoOfBridges, int newNoOfBridges) {
+			int edge = graph.getEdgeBetween(start, end);
+			if (edge >= 0) {
+				changeBridges(edge, oldNoOfBridges, newNoOfBridges);
+			}
+		}
+	};
 
 	/**
 	 * Constructs a <code>PuzzleStateChecker</code> for determining and setting the
 	 * state of the <code>hashiModel</code>.
-	 * 
+	 *
 	 * @param hashiModel
 	 *            whose state is to be determined and set
 	 */
 	public PuzzleStateChecker(IPuzzleSituationModel hashiModel) {
 		this.hashiModel = hashiModel;
-		this.allIslands = new Island[hashiModel.getNoOfIslands()];
-		hashiModel.getIslands().toArray(allIslands);
-		this.checkedForIsolation = new boolean[allIslands.length];
+		graph = CandidateEdgeGraph.of(hashiModel);
+		int noOfIslands = graph.getNoOfIslands();
+		int[] bridgesOfModel = graph.getBridges(hashiModel);
+		bridges = new byte[bridgesOfModel.length];
+		noOfBridgesMissing = new int[noOfIslands];
+		noOfCrossingBridges = new int[bridgesOfModel.length];
+		for (int i = 0; i < noOfIslands; i++) {
+			noOfBridgesMissing[i] = graph.getClue(i);
+		}
+		for (int e = 0; e < bridges.length; e++) {
+			changeBridges(e, 0, bridgesOfModel[e]);
+		}
+		queue = new int[noOfIslands];
+		dirtyIslands.set(0, noOfIslands);
+		changedIslands.set(0, noOfIslands);
+		hashiModel.addBridgeChangeListener(bridgeChangeListener);
+	}
+
+	/**
+	 * Sets the <code>HintEngine</code> that knows the solution of the puzzle. If
+	 * the solution is unique, a bridge that does not belong to it renders the
+	 * puzzle unsolvable even if this cannot be seen from the bridges yet.
+	 *
+	 * @param hintEngine
+	 *            knowing the solution of the puzzle
+	 */
+	public void setHintEngine(HintEngine hintEngine) {
+		this.hintEngine = hintEngine;
+	}
+
+	/**
+	 * Sets the metrics to which the time of each state check is reported.
+	 *
+	 * @param metrics
+	 *            collecting the times or null to collect nothing
+	 */
+	public void setMetrics(ISolverMetrics metrics) {
+		this.metrics = metrics;
 	}
 
 	/**
@@ -46,106 +121,164 @@ public class PuzzleStateChecker {
 	 * reference to.
 	 */
 	public void setPuzzleState() {
-		hashiModel.setPuzzleState(getPuzzleState());
+		long start = metrics != null ? System.nanoTime() : 0;
+		PuzzleState state = getPuzzleState();
+		if (state == PuzzleState.NOT_YET_SOLVED && hintEngine != null && hintEngine.containsWrongBridge()) {
+			state = PuzzleState.UNSOLVABLE;
+		}
+		hashiModel.setPuzzleState(state);
+		if (metrics != null) {
+			metrics.stateChecked(System.nanoTime() - start);
+		}
 	}
 
+	// the state is given by the first island having too many bridges, being isolated or infeasible
 	private PuzzleState getPuzzleState() {
-		resetIsolationCheck();
-		for (int islandIndex = 0; islandIndex < allIslands.length; islandIndex++) {
-			if (allIslands[islandIndex].getNoOfBridgesMissing() < 0) {
-				return PuzzleState.CONTAINS_ERROR;
-			}
-			if (allIslands[islandIndex].getNoOfBridgesMissing() == 0) {
-				int noOfIslandsOfIsolatedGraph = checkForIsolationAndReturnNoOfIslandsOfIsolatedComponent(islandIndex);
-				if (noOfIslandsOfIsolatedGraph > 0) {
-					if (noOfIslandsOfIsolatedGraph == hashiModel.getNoOfIslands()) {
-						return PuzzleState.SOLVED;
-					} else { // not all islands can be connected since there is isolation
-						return PuzzleState.UNSOLVABLE;
-					}
-				}
-			} else if (!reqiredBridgesCanBeBuilt(allIslands[islandIndex])) {
-				return PuzzleState.UNSOLVABLE;
-			}
+		update();
+		int overFull = firstOf(overFullIslands);
+		int isolated = firstOf(isolatedIslands);
+		int infeasible = firstOf(infeasibleIslands);
+		if (overFull < isolated && overFull < infeasible) {
+			return PuzzleState.CONTAINS_ERROR;
+		} else if (isolated < infeasible) {
+			return allIslandsIsolated ? PuzzleState.SOLVED : PuzzleState.UNSOLVABLE;
+		} else if (infeasible < Integer.MAX_VALUE) {
+			return PuzzleState.UNSOLVABLE;
 		}
 		return PuzzleState.NOT_YET_SOLVED;
 	}
 
-	private void resetIsolationCheck() {
-		for (int i = 0; i < checkedForIsolation.length; i++) {
-			checkedForIsolation[i] = false;
+	private static int firstOf(BitSet islands) {
+		int island = islands.nextSetBit(0);
+		return island < 0 ? Integer.MAX_VALUE : island;
+	}
+
+	private void changeBridges(int edge, int oldNoOfBridges, int newNoOfBridges) {
+		bridges[edge] = (byte) newNoOfBridges;
+		int start = graph.getEdgeStart(edge);
+		int end = graph.getEdgeEnd(edge);
+		noOfBridgesMissing[start] -= newNoOfBridges - oldNoOfBridges;
+		noOfBridgesMissing[end] -= newNoOfBridges - oldNoOfBridges;
+		changedIslands.set(start);
+		changedIslands.set(end);
+		boolean wasBridgedOrFreed = (oldNoOfBridges == 0) != (newNoOfBridges == 0);
+		if (wasBridgedOrFreed) { // edges crossing are blocked or free again
+			for (int crossingEdge : graph.getCrossingEdges(edge)) {
+				noOfCrossingBridges[crossingEdge] += newNoOfBridges == 0 ? -1 : 1;
+			}
 		}
+		graph.addIslandsAffectedByChangeOf(edge, wasBridgedOrFreed, dirtyIslands);
 	}
 
 	/**
-	 * Checks if it was already checked if island in islands array at islandIndex
-	 * belongs to isolated component and returns the number of islands belonging to
-	 * this isolated component. If the island at islandIndex does not belong to an
-	 * isolated component, 0 is returned, but nevertheless all islands of component
-	 * are marked as checked for isolation so that method returns quicker in the
-	 * future.
-	 * 
-	 * 
-	 * @param islandIndex
-	 *            of island in islands array to be checked
-	 * @return number of islands belonging to isolated component
+	 * Gets the graph of the islands of the model, which is indexed like the model's
+	 * islands.
+	 *
+	 * @return graph of the puzzle
 	 */
-	private int checkForIsolationAndReturnNoOfIslandsOfIsolatedComponent(int islandIndex) {
-		if (checkedForIsolation[islandIndex])
-			return 0; // else breadthFirstSearch (BFS) starting from island islands[islandIndex]
-		LinkedList<Island> queue = new LinkedList<>();
-		queue.add(allIslands[islandIndex]);
-		boolean islandMissingBridgesFound = false;
-		int noOfIslandsOfIsolatedComponent = 0;
-		while (!queue.isEmpty()) {
-			Island front = queue.poll();
-			int frontIndex = Arrays.binarySearch(allIslands, front);
-			if (!checkedForIsolation[frontIndex]) { // termination condition
-				if (front.getNoOfBridgesMissing() == 0) {
-					noOfIslandsOfIsolatedComponent++;
-				} else { // component, that island at islandIndex belongs to, is not isolated
-					islandMissingBridgesFound = true;
+	CandidateEdgeGraph getGraph() {
+		return graph;
+	}
+
+	private void update() {
+		for (int island = dirtyIslands.nextSetBit(0); island >= 0; island = dirtyIslands.nextSetBit(island + 1)) {
+			int missing = noOfBridgesMissing[island];
+			overFullIslands.set(island, missing < 0);
+			completeIslands.set(island, missing == 0);
+			infeasibleIslands.set(island, missing > 0 && !requiredBridgesCanBeBuilt(island));
+		}
+		dirtyIslands.clear();
+		// components changed cover all isolated components an end of a changed bridge belonged to
+		for (int island = changedIslands.nextSetBit(0); island >= 0; island = changedIslands
+				.nextSetBit(island + 1)) {
+			if (isolatedIslands.get(island)) {
+				int noOfIslands = searchComponent(island, false);
+				for (int i = 0; i < noOfIslands; i++) {
+					isolatedIslands.clear(queue[i]);
+				}
+				allIslandsIsolated = false;
+			}
+		}
+		for (int island = changedIslands.nextSetBit(0); island >= 0; island = changedIslands
+				.nextSetBit(island + 1)) {
+			if (completeIslands.get(island) && !isolatedIslands.get(island)) {
+				int noOfIslands = searchComponent(island, true);
+				if (noOfIslands > 0) {
+					for (int i = 0; i < noOfIslands; i++) {
+						isolatedIslands.set(queue[i]);
+					}
+					allIslandsIsolated = noOfIslands == graph.getNoOfIslands();
 				}
-				checkedForIsolation[frontIndex] = true; // necessary for termination and quick returns in future
-				addConnectedNeighborsToQueue(queue, front); // get rest of component
 			}
 		}
-		return islandMissingBridgesFound ? 0 : noOfIslandsOfIsolatedComponent;
+		changedIslands.clear();
 	}
 
-	private void addConnectedNeighborsToQueue(LinkedList<Island> queue, Island island) {
-		for (Direction direction : Direction.values()) {
-			Bridge bridge = hashiModel.getBridge(island, direction);
-			if (bridge != null) {
-				queue.add(bridge.getOtherEnd(island));
+	/**
+	 * Searches the component of the <code>island</code> breadth first along the
+	 * bridges and leaves its islands at the front of the queue. If
+	 * <code>untilIncomplete</code> is true, the search stops at the first island
+	 * missing bridges or having too many.
+	 *
+	 * @param island
+	 *            of the component
+	 * @param untilIncomplete
+	 *            true if only isolated components are searched completely
+	 * @return number of islands of the component or 0 if the search was stopped
+	 */
+	private int searchComponent(int island, boolean untilIncomplete) {
+		int head = 0, tail = 0;
+		queue[tail++] = island;
+		visitedIslands.set(island);
+		boolean isIsolated = true;
+		while (head < tail) {
+			int front = queue[head++];
+			if (untilIncomplete && !completeIslands.get(front)) {
+				isIsolated = false;
+				break;
 			}
+			for (Direction direction : DIRECTIONS) {
+				int edge = graph.getEdge(front, direction);
+				if (edge >= 0 && bridges[edge] > 0) {
+					int neighbor = graph.getOtherEnd(edge, front);
+					if (!visitedIslands.get(neighbor)) {
+						visitedIslands.set(neighbor);
+						queue[tail++] = neighbor;
+					}
+				}
+			}
+		}
+		for (int i = 0; i < tail; i++) {
+			visitedIslands.clear(queue[i]);
 		}
+		return isIsolated ? tail : 0;
 	}
 
 	/**
 	 * Returns true if it is (still) possible to build all the bridges the
 	 * <code>island</code> requires, otherwise false. The <code>island</code> is
-	 * missing at least one bridge.
-	 * 
+	 * missing at least one bridge. Bridges can only be built to neighbors missing
+	 * bridges on edges no bridge crosses.
+	 *
 	 * @param island
-	 *            that is to be checked.
+	 *            index of the island that is to be checked.
 	 * @return true if it is (still) possible to build all the bridges the
 	 *         <code>island</code> requires, otherwise false.
 	 */
-	private boolean reqiredBridgesCanBeBuilt(Island island) {
+	private boolean requiredBridgesCanBeBuilt(int island) {
 		int noOfBuildableBridges = 0;
-		for (Direction direction : Direction.values()) {
-			Island neighbor = hashiModel.getNeighborIsland(island, direction);
-			if (neighbor != null && neighbor.getNoOfBridgesMissing() > 0) {
-				Bridge bridge = hashiModel.getBridge(island, direction);
-				if (neighbor.getNoOfBridgesMissing() > 1 && bridge == null) { 
+		for (Direction direction : DIRECTIONS) {
+			int edge = graph.getEdge(island, direction);
+			if (edge >= 0 && noOfCrossingBridges[edge] == 0) {
+				int neighborMissing = noOfBridgesMissing[graph.getOtherEnd(edge, island)];
+				if (neighborMissing > 1 && bridges[edge] == 0) {
 					noOfBuildableBridges += 2;
-				} else if (bridge == null || !bridge.isDouble()) { // on bridge can still be built in direction
+				} else if (neighborMissing > 0 && bridges[edge] < 2) {
 					noOfBuildableBridges++;
 				}
 			}
 		}
-		return island.getNoOfBridgesMissing() <= noOfBuildableBridges;
+		return noOfBridgesMissing[island] <= noOfBuildableBridges;
 	}
 
 }
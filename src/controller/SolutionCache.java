@@ -0,0 +1,406 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.CandidateEdgeGraph;
+import model.CanonicalForm;
+import model.PuzzleHash;
+
+/**
+ * A <code>SolutionCache</code> stores solutions of Hashiwokakeru puzzles so
+ * that a puzzle that is opened again or solved again in a batch run does not
+ * need to be solved again. A solution is stored in the frame of the puzzle's
+ * {@link CanonicalForm canonical form} under its canonical hash, so it is also
+ * found for rotated or reflected copies of the puzzle. Since the hash covers the
+ * size of the field, the positions of the islands and the number of bridges
+ * they require, a changed puzzle never gets a stale solution.
+ *
+ * <p>
+ * Solutions are stored as packed bridges (2 bits per edge, see
+ * {@link CandidateEdgeGraph#packBridges(int[]) packBridges}) followed by a byte
+ * telling whether the solution is known to be unique, in two tiers: an
+ * in-memory tier holding the most recently used solutions and an optional
+ * on-disk tier, i.e. one file per solution in a directory, whose total size is
+ * bounded by evicting the least recently used files.
+ * </p>
+ *
+ * <p>
+ * The cache is thread safe. Only the in-memory tier is accessed under a lock;
+ * files are read, written and evicted outside of it, so a slow disk does not
+ * hold up lookups on other threads.
+ * </p>
+ */
+public class SolutionCache {
+
+	/**
+	 * File extension of solutions stored on disk.
+	 */
+	public static final String FILE_EXTENSION = ".sol";
+
+	/**
+	 * Number of solutions of a cached solution whose uniqueness has not been
+	 * determined.
+	 */
+	public static final int UNKNOWN_NO_OF_SOLUTIONS = 0;
+
+	private final Map<PuzzleHash, byte[]> memoryTier;
+	private final Path directory;
+	private final long maxDiskSize;
+	private final AtomicLong diskSize = new AtomicLong(); // approximate while files are written concurrently
+	private final AtomicBoolean isEvicting = new AtomicBoolean();
+	private long noOfHits, noOfMisses;
+
+	/**
+	 * Constructs an instance of a <code>SolutionCache</code> that keeps at most
+	 * <code>maxNoOfSolutions</code> solutions in memory and has no on-disk tier.
+	 *
+	 * @param maxNoOfSolutions number of solutions kept in memory
+	 */
+	public SolutionCache(int maxNoOfSolutions) {
+		this(maxNoOfSolutions, null, 0);
+	}
+
+	/**
+	 * Constructs an instance of a <code>SolutionCache</code> that keeps at most
+	 * <code>maxNoOfSolutions</code> solutions in memory and stores solutions in
+	 * the <code>directory</code> using at most <code>maxDiskSize</code> bytes.
+	 * If the directory cannot be created, the cache works without on-disk tier.
+	 *
+	 * @param maxNoOfSolutions number of solutions kept in memory
+	 * @param directory        of the on-disk tier or null if there is none
+	 * @param maxDiskSize      number of bytes the on-disk tier may use
+	 */
+	public SolutionCache(final int maxNoOfSolutions, Path directory, long maxDiskSize) {
+		memoryTier = new LinkedHashMap<PuzzleHash, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<PuzzleHash, byte[]> eldest) {
+				return size() > maxNoOfSolutions;
+			}
+		};
+		this.maxDiskSize = maxDiskSize;
+		if (directory != null) {
+			try {
+				Files.createDirectories(directory);
+				for (Path file : listSolutionFiles(directory)) {
+					diskSize.addAndGet(Files.size(file));
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				directory = null;
+			}
+		}
+		this.directory = directory;
+	}
+
+	/**
+	 * Gets the solution of the puzzle represented by the <code>graph</code> if
+	 * it is cached, otherwise solves the puzzle by a solver configured like those
+	 * of the {@link SolveService#newSolver(CandidateEdgeGraph, long) SolveService}
+	 * and caches its solution.
+	 *
+	 * @param graph  of the puzzle
+	 * @param budget number of milliseconds solving may take or 0 for no limit
+	 * @return number of bridges of each edge of the <code>graph</code> in the
+	 *         solution or null if the puzzle is unsolvable or no solution was
+	 *         found within the <code>budget</code>
+	 * @throws IllegalArgumentException if the budget is negative
+	 * @throws CancellationException    if the thread was interrupted
+	 */
+	public int[] getOrSolve(CandidateEdgeGraph graph, long budget)
+			throws IllegalArgumentException, CancellationException {
+		int[] solution = getSolution(graph);
+		if (solution == null) {
+			BacktrackingSolver solver = SolveService.newSolver(graph, budget);
+			solution = solver.solve();
+			if (solver.wasInterrupted())
+				throw new CancellationException("Solving was interrupted.");
+			if (solution != null) {
+				putSolution(graph, solution);
+			}
+		}
+		return solution;
+	}
+
+	/**
+	 * Gets the cached solution of the puzzle represented by the
+	 * <code>graph</code>.
+	 *
+	 * @param graph of the puzzle
+	 * @return number of bridges of each edge of the <code>graph</code> in the
+	 *         solution or null if no solution is cached
+	 */
+	public int[] getSolution(CandidateEdgeGraph graph) {
+		CachedSolution cachedSolution = getCachedSolution(graph);
+		return cachedSolution == null ? null : cachedSolution.getSolution();
+	}
+
+	/**
+	 * Gets the cached solution of the puzzle represented by the
+	 * <code>graph</code> together with the number of solutions of the puzzle.
+	 *
+	 * @param graph of the puzzle
+	 * @return cached solution or null if no solution is cached
+	 */
+	public CachedSolution getCachedSolution(CandidateEdgeGraph graph) {
+		CanonicalForm canonicalForm = CanonicalForm.of(graph);
+		CandidateEdgeGraph canonicalGraph = canonicalForm.toCandidateEdgeGraph();
+		int noOfPackedBytes = (canonicalGraph.getNoOfEdges() + 3) / 4;
+		byte[] packed = get(canonicalForm.getHash(), noOfPackedBytes);
+		if (packed == null) {
+			return null;
+		}
+		int[] canonicalBridges = CandidateEdgeGraph.unpackBridges(packed, canonicalGraph.getNoOfEdges());
+		int[] canonicalEdges = getCanonicalEdges(graph, canonicalForm, canonicalGraph);
+		int[] bridges = new int[graph.getNoOfEdges()];
+		for (int e = 0; e < bridges.length; e++) {
+			bridges[e] = canonicalBridges[canonicalEdges[e]];
+		}
+		// solutions stored without the byte are of unknown uniqueness
+		int noOfSolutions = packed.length > noOfPackedBytes ? packed[noOfPackedBytes] : UNKNOWN_NO_OF_SOLUTIONS;
+		return new CachedSolution(bridges, noOfSolutions);
+	}
+
+	/**
+	 * Caches the <code>solution</code> of the puzzle represented by the
+	 * <code>graph</code>.
+	 *
+	 * @param graph    of the puzzle
+	 * @param solution number of bridges of each edge of the <code>graph</code>
+	 * @throws IllegalArgumentException if the number of bridges does not match
+	 *                                  the number of edges
+	 */
+	public void putSolution(CandidateEdgeGraph graph, int[] solution) throws IllegalArgumentException {
+		putSolution(graph, solution, UNKNOWN_NO_OF_SOLUTIONS);
+	}
+
+	/**
+	 * Caches the <code>solution</code> of the puzzle represented by the
+	 * <code>graph</code> together with the number of solutions of the puzzle.
+	 *
+	 * @param graph         of the puzzle
+	 * @param solution      number of bridges of each edge of the
+	 *                      <code>graph</code>
+	 * @param noOfSolutions 1 if the solution is unique, 2 if the puzzle has two or
+	 *                      more solutions or {@link #UNKNOWN_NO_OF_SOLUTIONS}
+	 * @throws IllegalArgumentException if the number of bridges does not match
+	 *                                  the number of edges or the number of
+	 *                                  solutions is not 0, 1 or 2
+	 */
+	public void putSolution(CandidateEdgeGraph graph, int[] solution, int noOfSolutions)
+			throws IllegalArgumentException {
+		if (solution.length != graph.getNoOfEdges())
+			throw new IllegalArgumentException(
+					"Solution has " + solution.length + " edges, but puzzle has " + graph.getNoOfEdges() + ".");
+		if (noOfSolutions < UNKNOWN_NO_OF_SOLUTIONS || noOfSolutions > 2)
+			throw new IllegalArgumentException("Number of solutions must be 0, 1 or 2, but is " + noOfSolutions + ".");
+		CanonicalForm canonicalForm = CanonicalForm.of(graph);
+		CandidateEdgeGraph canonicalGraph = canonicalForm.toCandidateEdgeGraph();
+		int[] canonicalEdges = getCanonicalEdges(graph, canonicalForm, canonicalGraph);
+		int[] canonicalBridges = new int[canonicalGraph.getNoOfEdges()];
+		for (int e = 0; e < solution.length; e++) {
+			canonicalBridges[canonicalEdges[e]] = solution[e];
+		}
+		byte[] packed = CandidateEdgeGraph.packBridges(canonicalBridges);
+		packed = Arrays.copyOf(packed, packed.length + 1);
+		packed[packed.length - 1] = (byte) noOfSolutions;
+		put(canonicalForm.getHash(), packed);
+	}
+
+	// index of each edge of the graph in the canonical graph
+	private static int[] getCanonicalEdges(CandidateEdgeGraph graph, CanonicalForm canonicalForm,
+			CandidateEdgeGraph canonicalGraph) {
+		int[] canonicalIslands = new int[graph.getNoOfIslands()];
+		for (int i = 0; i < canonicalIslands.length; i++) {
+			int x = graph.getIslandX(i);
+			int y = graph.getIslandY(i);
+			canonicalIslands[i] = canonicalGraph.getIslandIndex(canonicalForm.toCanonicalX(x, y),
+					canonicalForm.toCanonicalY(x, y));
+		}
+		int[] canonicalEdges = new int[graph.getNoOfEdges()];
+		for (int e = 0; e < canonicalEdges.length; e++) {
+			canonicalEdges[e] = canonicalGraph.getEdgeBetween(canonicalIslands[graph.getEdgeStart(e)],
+					canonicalIslands[graph.getEdgeEnd(e)]);
+		}
+		return canonicalEdges;
+	}
+
+	private byte[] get(PuzzleHash hash, int expectedLength) {
+		byte[] packed;
+		synchronized (this) {
+			packed = memoryTier.get(hash);
+		}
+		if (packed == null && directory != null) {
+			packed = readFromDisk(hash);
+		}
+		synchronized (this) {
+			// the length differs only if a file is corrupt, the byte of the number of solutions may be missing
+			if (packed == null || packed.length != expectedLength && packed.length != expectedLength + 1) {
+				noOfMisses++;
+				return null;
+			}
+			if (!memoryTier.containsKey(hash)) { // read from disk
+				memoryTier.put(hash, packed);
+			}
+			noOfHits++;
+		}
+		return packed;
+	}
+
+	private void put(PuzzleHash hash, byte[] packed) {
+		synchronized (this) {
+			memoryTier.put(hash, packed);
+		}
+		if (directory != null) {
+			writeToDisk(hash, packed);
+		}
+	}
+
+	private byte[] readFromDisk(PuzzleHash hash) {
+		Path file = getFile(hash);
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try {
+			byte[] packed = Files.readAllBytes(file);
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); // mark as used
+			return packed;
+		} catch (NoSuchFileException e) {
+			return null; // evicted meanwhile
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	private void writeToDisk(PuzzleHash hash, byte[] packed) {
+		Path file = getFile(hash);
+		try {
+			long oldSize = Files.exists(file) ? Files.size(file) : 0;
+			Path tempFile = AtomicFiles.createTempFile(file);
+			try {
+				Files.write(tempFile, packed);
+				AtomicFiles.replace(tempFile, file);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+			if (diskSize.addAndGet(packed.length - oldSize) > maxDiskSize && isEvicting.compareAndSet(false, true)) {
+				try {
+					evict();
+				} finally {
+					isEvicting.set(false);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// deletes least recently used files until the on-disk tier uses at most 3/4 of
+	// its size, so that eviction is not needed after every write; only one thread
+	// evicts at a time, and it corrects the size drifted by concurrent writes
+	private void evict() throws IOException {
+		List<Path> files = listSolutionFiles(directory);
+		final Map<Path, Long> lastModified = new LinkedHashMap<>();
+		long size = 0;
+		for (Path file : files) {
+			lastModified.put(file, Files.getLastModifiedTime(file).toMillis());
+			size += Files.size(file);
+		}
+		files.sort(Comparator.comparing(lastModified::get));
+		long noOfBytesDeleted = 0;
+		for (Path file : files) {
+			if (size - noOfBytesDeleted <= maxDiskSize / 4 * 3) {
+				break;
+			}
+			long fileSize = Files.size(file);
+			if (Files.deleteIfExists(file)) {
+				noOfBytesDeleted += fileSize;
+			}
+		}
+		diskSize.set(size - noOfBytesDeleted);
+	}
+
+	private static List<Path> listSolutionFiles(Path directory) throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		return files;
+	}
+
+	private Path getFile(PuzzleHash hash) {
+		return directory.resolve(hash + FILE_EXTENSION);
+	}
+
+	/**
+	 * Gets the number of lookups that found a cached solution.
+	 *
+	 * @return number of hits
+	 */
+	public synchronized long getNoOfHits() {
+		return noOfHits;
+	}
+
+	/**
+	 * Gets the number of lookups that did not find a cached solution.
+	 *
+	 * @return number of misses
+	 */
+	public synchronized long getNoOfMisses() {
+		return noOfMisses;
+	}
+
+	/**
+	 * A <code>CachedSolution</code> is a solution taken from the cache together
+	 * with the number of solutions of its puzzle.
+	 */
+	public static class CachedSolution {
+
+		private final int[] solution;
+		private final int noOfSolutions;
+
+		private CachedSolution(int[] solution, int noOfSolutions) {
+			this.solution = solution;
+			this.noOfSolutions = noOfSolutions;
+		}
+
+		/**
+		 * Gets the solution.
+		 *
+		 * @return number of bridges of each edge of the graph of the puzzle
+		 */
+		public int[] getSolution() {
+			return solution;
+		}
+
+		/**
+		 * Gets the number of solutions of the puzzle.
+		 *
+		 * @return 1 if the solution is unique, 2 if the puzzle has two or more
+		 *         solutions or {@link SolutionCache#UNKNOWN_NO_OF_SOLUTIONS}
+		 */
+		public int getNoOfSolutions() {
+			return noOfSolutions;
+		}
+
+	}
+
+}
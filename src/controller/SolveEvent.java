@@ -0,0 +1,37 @@
+package controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event spanning a search of the
+ * {@link BacktrackingSolver} from start to end.
+ */
+@Name("hashi.Solve")
+@Label("Solve")
+@Category("Hashiwokakeru")
+@Description("Search for solutions of a puzzle")
+class SolveEvent extends Event {
+
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	@Label("Islands")
+	int noOfIslands;
+
+	@Label("Edges")
+	int noOfEdges;
+
+	@Label("Solutions")
+	int noOfSolutions;
+
+	@Label("Nodes")
+	long noOfNodes;
+
+}
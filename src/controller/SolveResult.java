@@ -0,0 +1,106 @@
+package controller;
+
+import model.CandidateEdgeGraph;
+import model.IPuzzleSituationModel;
+
+/**
+ * A <code>SolveResult</code> holds the outcome of solving a Hashiwokakeru
+ * puzzle by a {@link SolveService}.
+ */
+public class SolveResult {
+
+	private final Status status;
+	private final CandidateEdgeGraph graph;
+	private final int[] solution;
+	private final long noOfNodes;
+	private final long elapsedTime;
+
+	/**
+	 * Constructs an instance of a <code>SolveResult</code>.
+	 *
+	 * @param status      of the request
+	 * @param graph       of the puzzle
+	 * @param solution    number of bridges of each edge of the graph or null if no
+	 *                    solution was found
+	 * @param noOfNodes   number of decisions made by the search
+	 * @param elapsedTime number of milliseconds solving took
+	 */
+	public SolveResult(Status status, CandidateEdgeGraph graph, int[] solution, long noOfNodes, long elapsedTime) {
+		this.status = status;
+		this.graph = graph;
+		this.solution = solution;
+		this.noOfNodes = noOfNodes;
+		this.elapsedTime = elapsedTime;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public CandidateEdgeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Gets the solution found. <strong>Important:</strong> Returns null unless the
+	 * status is {@link Status#SOLVED SOLVED}.
+	 *
+	 * @return number of bridges of each edge of the graph or null; must not be
+	 *         modified
+	 */
+	public int[] getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Builds a new model of the puzzle holding all bridges of the solution.
+	 * <strong>Important:</strong> Returns null unless the status is
+	 * {@link Status#SOLVED SOLVED}.
+	 *
+	 * @return solved puzzle or null
+	 */
+	public IPuzzleSituationModel getSolvedModel() {
+		return solution == null ? null : graph.toModel(solution);
+	}
+
+	/**
+	 * Gets the number of decisions made by the search, 0 if the solution was
+	 * cached.
+	 *
+	 * @return number of search nodes
+	 */
+	public long getNoOfNodes() {
+		return noOfNodes;
+	}
+
+	/**
+	 * Gets the number of milliseconds solving took, not counting the time the
+	 * request waited to be run.
+	 *
+	 * @return elapsed time in milliseconds
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * <code>Enum</code> representing the outcomes of a request.
+	 */
+	public static enum Status {
+		/**
+		 * A solution was found
+		 */
+		SOLVED,
+
+		/**
+		 * The puzzle has no solution
+		 */
+		UNSOLVABLE,
+
+		/**
+		 * Solving was stopped because it exceeded the time budget of the request
+		 */
+		BUDGET_EXCEEDED
+	}
+
+}
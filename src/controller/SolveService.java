@@ -0,0 +1,229 @@
+package controller;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import common.ThreadPools;
+import model.CandidateEdgeGraph;
+import model.IPuzzleSituationModel;
+
+/**
+ * A <code>SolveService</code> solves many Hashiwokakeru puzzles concurrently,
+ * e.g. when the solver is embedded in a server. Each request is given as a
+ * model or as the content of a .bgs file and is answered by a
+ * <code>CompletableFuture</code> of a {@link SolveResult}.
+ *
+ * <p>
+ * Each request runs in its own task with its own solver, so requests share no
+ * mutable state except the optional {@link SolutionCache}, which is thread
+ * safe. By default each request runs on a virtual thread if the Java runtime
+ * provides them, otherwise on a pool with one platform thread per processor.
+ * A request stops when it exceeds its time budget, which yields a result with
+ * status {@link SolveResult.Status#BUDGET_EXCEEDED BUDGET_EXCEEDED}, or when
+ * its future is cancelled, which interrupts the search.
+ * </p>
+ */
+public class SolveService {
+
+	/**
+	 * Default number of milliseconds a request may take.
+	 */
+	public static final long DEFAULT_BUDGET = 10000;
+
+	private static final int RESTART_UNIT = 32;
+	private static final long SEED = 42; // of the order in which numbers of bridges are tried after restarts
+
+	private final ExecutorService executor;
+	private SolutionCache solutionCache;
+
+	/**
+	 * Constructs an instance of a <code>SolveService</code> running requests on
+	 * virtual threads if available, otherwise on a bounded pool of platform
+	 * threads.
+	 */
+	public SolveService() {
+		this(ThreadPools.newVirtualThreadOrFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+				"Hashi solve service"));
+	}
+
+	/**
+	 * Constructs an instance of a <code>SolveService</code> running requests on
+	 * the <code>executor</code>.
+	 *
+	 * @param executor
+	 *            running the requests; is shut down by {@link #shutdown()
+	 *            shutdown}
+	 */
+	public SolveService(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the cache from which solutions of puzzles seen before are taken and to
+	 * which solutions found are added.
+	 *
+	 * @param solutionCache
+	 *            of solutions or null to always solve
+	 */
+	public void setSolutionCache(SolutionCache solutionCache) {
+		this.solutionCache = solutionCache;
+	}
+
+	/**
+	 * Solves the puzzle held by the <code>hashiModel</code>. Only the islands are
+	 * read from the model and they are read before this method returns, so the
+	 * model may be changed while the puzzle is solved.
+	 *
+	 * @param hashiModel
+	 *            holding the puzzle
+	 * @param budget
+	 *            number of milliseconds solving may take or 0 for no limit
+	 * @return future result; cancelling it stops solving
+	 * @throws IllegalArgumentException
+	 *             if the budget is negative
+	 */
+	public CompletableFuture<SolveResult> solve(IPuzzleSituationModel hashiModel, long budget)
+			throws IllegalArgumentException {
+		checkBudget(budget);
+		final CandidateEdgeGraph graph = CandidateEdgeGraph.of(hashiModel);
+		return submit(new Request() {
+			@Override
+			public CandidateEdgeGraph getGraph() {
+				return graph;
+			}
+		}, budget);
+	}
+
+	/**
+	 * Solves the puzzle given by the content of a .bgs file. If the content
+	 * cannot be loaded (see {@link PuzzleLoader#loadPuzzle(String) loadPuzzle}),
+	 * the future completes exceptionally with an
+	 * <code>IllegalArgumentException</code>.
+	 *
+	 * @param bgsContent
+	 *            content of a .bgs file
+	 * @param budget
+	 *            number of milliseconds solving may take or 0 for no limit
+	 * @return future result; cancelling it stops solving
+	 * @throws IllegalArgumentException
+	 *             if the budget is negative
+	 */
+	public CompletableFuture<SolveResult> solve(final String bgsContent, long budget)
+			throws IllegalArgumentException {
+		checkBudget(budget);
+		return submit(new Request() {
+			@Override
+			public CandidateEdgeGraph getGraph() {
+				return CandidateEdgeGraph.of(new PuzzleLoader().loadPuzzleFromContent(bgsContent));
+			}
+		}, budget);
+	}
+
+	private static void checkBudget(long budget) throws IllegalArgumentException {
+		if (budget < 0)
+			throw new IllegalArgumentException("Budget must not be negative.");
+	}
+
+	private CompletableFuture<SolveResult> submit(final Request request, final long budget) {
+		final CompletableFuture<SolveResult> result = new CompletableFuture<>();
+		final Future<?> task = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					result.complete(solve(request.getGraph(), budget));
+				} catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			}
+		});
+		result.whenComplete(new BiConsumer<SolveResult, Throwable>() {
+			@Override
+			public void accept(SolveResult solveResult, Throwable t) {
+				if (result.isCancelled()) {
+					task.cancel(true);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Solves the puzzle represented by the <code>graph</code> in the calling
+	 * thread.
+	 *
+	 * @param graph
+	 *            of the puzzle
+	 * @param budget
+	 *            number of milliseconds solving may take or 0 for no limit
+	 * @return result of solving
+	 * @throws CancellationException
+	 *             if the thread was interrupted
+	 */
+	public SolveResult solve(CandidateEdgeGraph graph, long budget) throws CancellationException {
+		long start = System.nanoTime();
+		SolutionCache cache = solutionCache;
+		int[] solution = cache == null ? null : cache.getSolution(graph);
+		if (solution != null) {
+			return new SolveResult(SolveResult.Status.SOLVED, graph, solution, 0, getMillisSince(start));
+		}
+		BacktrackingSolver solver = newSolver(graph, budget);
+		solution = solver.solve();
+		if (solver.wasInterrupted()) {
+			throw new CancellationException("Solving was interrupted.");
+		}
+		SolveResult.Status status;
+		if (solution != null) {
+			status = SolveResult.Status.SOLVED;
+			if (cache != null) {
+				cache.putSolution(graph, solution);
+			}
+		} else {
+			status = solver.wasTimedOut() ? SolveResult.Status.BUDGET_EXCEEDED : SolveResult.Status.UNSOLVABLE;
+		}
+		return new SolveResult(status, graph, solution, solver.getNoOfNodes(), getMillisSince(start));
+	}
+
+	/**
+	 * Creates a solver configured like the solvers of the requests: it branches
+	 * by the {@link DomWdegHeuristic}, restarts and stops when it exceeds the
+	 * <code>budget</code>. Puzzles solved outside the service should be solved
+	 * by such a solver, since the default solver may search for hours on large
+	 * puzzles.
+	 *
+	 * @param graph
+	 *            of the puzzle
+	 * @param budget
+	 *            number of milliseconds each search may take or 0 for no limit
+	 * @return solver of the puzzle
+	 * @throws IllegalArgumentException
+	 *             if the budget is negative
+	 */
+	public static BacktrackingSolver newSolver(CandidateEdgeGraph graph, long budget)
+			throws IllegalArgumentException {
+		BacktrackingSolver solver = new BacktrackingSolver(graph);
+		solver.setBranchingHeuristic(new DomWdegHeuristic());
+		solver.setRestarts(RESTART_UNIT, SEED);
+		solver.setTimeLimit(budget);
+		return solver;
+	}
+
+	private static long getMillisSince(long start) {
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	/**
+	 * Stops accepting requests and interrupts the requests still running.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// puzzle of a request, read when the request is run
+	private interface Request {
+		CandidateEdgeGraph getGraph();
+	}
+
+}
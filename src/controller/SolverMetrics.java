@@ -0,0 +1,124 @@
+package controller;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An instance of the class <code>SolverMetrics</code> counts the events
+ * reported through the {@link ISolverMetrics} interface. Counters may be
+ * updated by several threads at the same time, so a single instance can collect
+ * the metrics of a whole batch run. The metrics can be dumped as JSON (see
+ * {@link #toJson() toJson}).
+ */
+public class SolverMetrics implements ISolverMetrics {
+
+	private final LongAdder[] ruleApplications = new LongAdder[NO_OF_RULES];
+	private final LongAdder noOfNodes = new LongAdder();
+	private final LongAdder noOfBacktracks = new LongAdder();
+	private final LongAdder noOfPropagations = new LongAdder();
+	private final LongAdder noOfStateChecks = new LongAdder();
+	private final LongAdder stateCheckNanos = new LongAdder();
+	private final LongAccumulator maxStateCheckNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Constructs an instance of <code>SolverMetrics</code> with all counters set
+	 * to 0.
+	 */
+	public SolverMetrics() {
+		for (int i = 0; i < NO_OF_RULES; i++) {
+			ruleApplications[i] = new LongAdder();
+		}
+	}
+
+	@Override
+	public void ruleApplied(int rule) {
+		ruleApplications[rule - 1].increment();
+	}
+
+	@Override
+	public void nodeVisited() {
+		noOfNodes.increment();
+	}
+
+	@Override
+	public void backtracked() {
+		noOfBacktracks.increment();
+	}
+
+	@Override
+	public void propagated() {
+		noOfPropagations.increment();
+	}
+
+	@Override
+	public void stateChecked(long nanos) {
+		noOfStateChecks.increment();
+		stateCheckNanos.add(nanos);
+		maxStateCheckNanos.accumulate(nanos);
+	}
+
+	/**
+	 * Gets the number of times the <code>rule</code> found a bridge.
+	 * 
+	 * @param rule
+	 *            number of the rule from 1 to {@link #NO_OF_RULES NO_OF_RULES}
+	 * @return number of applications of the rule
+	 */
+	public long getNoOfRuleApplications(int rule) {
+		return ruleApplications[rule - 1].sum();
+	}
+
+	public long getNoOfNodes() {
+		return noOfNodes.sum();
+	}
+
+	public long getNoOfBacktracks() {
+		return noOfBacktracks.sum();
+	}
+
+	public long getNoOfPropagations() {
+		return noOfPropagations.sum();
+	}
+
+	public long getNoOfStateChecks() {
+		return noOfStateChecks.sum();
+	}
+
+	/**
+	 * Gets the total time spent checking states.
+	 * 
+	 * @return time in nanoseconds
+	 */
+	public long getStateCheckNanos() {
+		return stateCheckNanos.sum();
+	}
+
+	/**
+	 * Gets the time of the slowest state check.
+	 * 
+	 * @return time in nanoseconds
+	 */
+	public long getMaxStateCheckNanos() {
+		return maxStateCheckNanos.get();
+	}
+
+	/**
+	 * Gets all metrics as a JSON object.
+	 * 
+	 * @return JSON representation of the metrics
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{\"ruleApplications\":[");
+		for (int rule = 1; rule <= NO_OF_RULES; rule++) {
+			json.append(rule > 1 ? "," : "").append(getNoOfRuleApplications(rule));
+		}
+		json.append("],\"nodes\":").append(getNoOfNodes());
+		json.append(",\"backtracks\":").append(getNoOfBacktracks());
+		json.append(",\"propagations\":").append(getNoOfPropagations());
+		json.append(",\"stateChecks\":").append(getNoOfStateChecks());
+		json.append(",\"stateCheckNanos\":").append(getStateCheckNanos());
+		json.append(",\"maxStateCheckNanos\":").append(getMaxStateCheckNanos());
+		return json.append('}').toString();
+	}
+
+}
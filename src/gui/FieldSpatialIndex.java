@@ -0,0 +1,196 @@
+package gui;
+
+import java.util.Arrays;
+
+import model.CandidateEdgeGraph;
+
+/**
+ * A <code>FieldSpatialIndex</code> finds the islands and the candidate edges,
+ * i.e. the places where bridges can be built, of a Hashiwokakeru puzzle inside a
+ * rectangle of the field without going through all islands.
+ *
+ * <p>
+ * The field is divided into square buckets of {@link #BUCKET_SIZE} x
+ * <code>BUCKET_SIZE</code> grid points. Each island is stored in the bucket
+ * containing it, each edge in every bucket it passes through. A query visits the
+ * buckets overlapping the rectangle only, so its cost depends on the size of the
+ * rectangle but not on the size of the field.
+ * </p>
+ */
+class FieldSpatialIndex {
+
+	/**
+	 * Number of columns and rows of grid points covered by a bucket.
+	 */
+	static final int BUCKET_SIZE = 16;
+
+	private final CandidateEdgeGraph graph;
+	private final int noOfBucketColumns, noOfBucketRows;
+	// entries of bucket b are at [firstEntry[b], firstEntry[b + 1])
+	private final int[] firstIslandEntry, islandEntries;
+	private final int[] firstEdgeEntry, edgeEntries;
+
+	private final int[] edgeMarks; // query in which an edge was found last, to report it once
+	private int query;
+	private int[] result = new int[64];
+
+	/**
+	 * Constructs the <code>FieldSpatialIndex</code> of the islands and edges of
+	 * the <code>graph</code>.
+	 *
+	 * @param graph
+	 *            of the puzzle
+	 */
+	FieldSpatialIndex(CandidateEdgeGraph graph) {
+		this.graph = graph;
+		noOfBucketColumns = Math.max(1, (graph.getWidth() + BUCKET_SIZE - 1) / BUCKET_SIZE);
+		noOfBucketRows = Math.max(1, (graph.getHeight() + BUCKET_SIZE - 1) / BUCKET_SIZE);
+		int noOfBuckets = noOfBucketColumns * noOfBucketRows;
+		firstIslandEntry = new int[noOfBuckets + 1];
+		for (int i = 0; i < graph.getNoOfIslands(); i++) {
+			firstIslandEntry[getBucket(graph.getIslandX(i), graph.getIslandY(i)) + 1]++;
+		}
+		toFirstEntries(firstIslandEntry);
+		islandEntries = new int[graph.getNoOfIslands()];
+		int[] next = Arrays.copyOf(firstIslandEntry, noOfBuckets);
+		for (int i = 0; i < graph.getNoOfIslands(); i++) {
+			islandEntries[next[getBucket(graph.getIslandX(i), graph.getIslandY(i))]++] = i;
+		}
+		firstEdgeEntry = new int[noOfBuckets + 1];
+		for (int e = 0; e < graph.getNoOfEdges(); e++) {
+			for (int b : getBucketsOfEdge(e)) {
+				firstEdgeEntry[b + 1]++;
+			}
+		}
+		toFirstEntries(firstEdgeEntry);
+		edgeEntries = new int[firstEdgeEntry[noOfBuckets]];
+		next = Arrays.copyOf(firstEdgeEntry, noOfBuckets);
+		for (int e = 0; e < graph.getNoOfEdges(); e++) {
+			for (int b : getBucketsOfEdge(e)) {
+				edgeEntries[next[b]++] = e;
+			}
+		}
+		edgeMarks = new int[graph.getNoOfEdges()];
+	}
+
+	private static void toFirstEntries(int[] counts) {
+		for (int b = 1; b < counts.length; b++) {
+			counts[b] += counts[b - 1];
+		}
+	}
+
+	private int getBucket(int x, int y) {
+		return y / BUCKET_SIZE * noOfBucketColumns + x / BUCKET_SIZE;
+	}
+
+	private int[] getBucketsOfEdge(int edge) {
+		int start = graph.getEdgeStart(edge), end = graph.getEdgeEnd(edge);
+		int minColumn = graph.getIslandX(start) / BUCKET_SIZE, maxColumn = graph.getIslandX(end) / BUCKET_SIZE;
+		int minRow = graph.getIslandY(start) / BUCKET_SIZE, maxRow = graph.getIslandY(end) / BUCKET_SIZE;
+		int[] buckets = new int[(maxColumn - minColumn + 1) * (maxRow - minRow + 1)];
+		int i = 0;
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				buckets[i++] = row * noOfBucketColumns + column;
+			}
+		}
+		return buckets;
+	}
+
+	/**
+	 * Gets the graph whose islands and edges are indexed.
+	 *
+	 * @return graph of the puzzle
+	 */
+	CandidateEdgeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Gets the islands inside the rectangle of grid points given, borders
+	 * included.
+	 *
+	 * @param minX
+	 *            column of the left border
+	 * @param minY
+	 *            row of the top border
+	 * @param maxX
+	 *            column of the right border
+	 * @param maxY
+	 *            row of the bottom border
+	 * @return indexes of the islands in the graph in no particular order
+	 */
+	int[] getIslandsIn(int minX, int minY, int maxX, int maxY) {
+		int noOfIslands = 0;
+		for (int bucket : getBucketsIn(minX, minY, maxX, maxY)) {
+			for (int k = firstIslandEntry[bucket]; k < firstIslandEntry[bucket + 1]; k++) {
+				int island = islandEntries[k];
+				int x = graph.getIslandX(island), y = graph.getIslandY(island);
+				if (minX <= x && x <= maxX && minY <= y && y <= maxY) {
+					noOfIslands = addToResult(noOfIslands, island);
+				}
+			}
+		}
+		return Arrays.copyOf(result, noOfIslands);
+	}
+
+	/**
+	 * Gets the edges passing through the rectangle of grid points given, borders
+	 * included.
+	 *
+	 * @param minX
+	 *            column of the left border
+	 * @param minY
+	 *            row of the top border
+	 * @param maxX
+	 *            column of the right border
+	 * @param maxY
+	 *            row of the bottom border
+	 * @return indexes of the edges in the graph in no particular order
+	 */
+	int[] getEdgesIn(int minX, int minY, int maxX, int maxY) {
+		int noOfEdges = 0;
+		query++;
+		for (int bucket : getBucketsIn(minX, minY, maxX, maxY)) {
+			for (int k = firstEdgeEntry[bucket]; k < firstEdgeEntry[bucket + 1]; k++) {
+				int edge = edgeEntries[k];
+				if (edgeMarks[edge] != query) {
+					edgeMarks[edge] = query;
+					int start = graph.getEdgeStart(edge), end = graph.getEdgeEnd(edge);
+					if (graph.getIslandX(start) <= maxX && minX <= graph.getIslandX(end)
+							&& graph.getIslandY(start) <= maxY && minY <= graph.getIslandY(end)) {
+						noOfEdges = addToResult(noOfEdges, edge);
+					}
+				}
+			}
+		}
+		return Arrays.copyOf(result, noOfEdges);
+	}
+
+	private int[] getBucketsIn(int minX, int minY, int maxX, int maxY) {
+		int minColumn = Math.max(0, minX) / BUCKET_SIZE;
+		int minRow = Math.max(0, minY) / BUCKET_SIZE;
+		int maxColumn = Math.min(noOfBucketColumns - 1, Math.max(0, maxX) / BUCKET_SIZE);
+		int maxRow = Math.min(noOfBucketRows - 1, Math.max(0, maxY) / BUCKET_SIZE);
+		if (minX > maxX || minY > maxY || minColumn > maxColumn || minRow > maxRow) {
+			return new int[0];
+		}
+		int[] buckets = new int[(maxColumn - minColumn + 1) * (maxRow - minRow + 1)];
+		int i = 0;
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				buckets[i++] = row * noOfBucketColumns + column;
+			}
+		}
+		return buckets;
+	}
+
+	private int addToResult(int size, int value) {
+		if (size == result.length) {
+			result = Arrays.copyOf(result, 2 * size);
+		}
+		result[size] = value;
+		return size + 1;
+	}
+
+}
@@ -2,19 +2,29 @@ package gui;
 
 import controller.PuzzleSolver.SolverState;
 import model.IPuzzleSituationModel;
+import model.PuzzleSnapshot;
 
 /**
  * Classes that implement the <code>IPuzzleSituationView</code> interface
  * represent the parts of the view of the Hashiwokakeru puzzle application that
  * need to be refreshed or that are responsible for refreshing the components of
  * the view that need to be refreshed.
+ * 
+ * <p>
+ * <strong>Important:</strong> The methods are called by the thread writing the
+ * model, not by the event dispatch thread.
+ * </p>
  */
 public interface IPuzzleSituationView {
 	/**
 	 * Refreshes, i.e. repaints, <code>this</code> component or components managed
-	 * by <code>this</code> component that need to be refreshed.
+	 * by <code>this</code> component that need to be refreshed to show the
+	 * <code>snapshot</code> of the puzzle.
+	 * 
+	 * @param snapshot
+	 *            of the model taken after it changed
 	 */
-	public void refresh();
+	public void refresh(PuzzleSnapshot snapshot);
 
 	/**
 	 * Sets the <code>hashiModel</code> as the new model <code>this</code>
@@ -5,30 +5,35 @@ import java.awt.GridLayout;
 import java.awt.LayoutManager;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.function.Consumer;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import controller.IInputListener;
 import controller.PuzzleSolver.SolverState;
 import model.IPuzzleSituationModel;
+import model.PuzzleState;
 
 /**
  * 
- * A <code>JPanel</code> containing two buttons, one for adding a bridge and one
- * for solving the whole puzzle automatically. If no (further) bridge can be
- * added a dialog is shown that informs the user of the cause.
+ * A <code>JPanel</code> containing three buttons, one for adding a bridge, one
+ * for solving the whole puzzle automatically step by step and one for solving
+ * it at once. If no (further) bridge can be added a dialog is shown that
+ * informs the user of the cause.
  */
-public class JControlPanel extends JPanel implements IModelQuerier {
+public class JControlPanel extends JPanel {
 
 	private Container owner;
 	private IInputListener inputListener; // to add bridge automatically and start and stop solving the puzzle
 											// automatically
-	private IPuzzleSituationModel model; // to get PuzzleState
+	private PuzzleState puzzleState; // of the snapshot shown, to determine the cause in the dialog
 	private JButton nextBridgeButton = new JButton("Nächste Brücke");
 	private JButton solvePuzzleButton = new JButton("Automatisch lösen");
+	private JButton solveInstantlyButton = new JButton("Sofort lösen");
 
 	/**
 	 * 
@@ -40,21 +45,24 @@ public class JControlPanel extends JPanel implements IModelQuerier {
 	 * @param inputListener
 	 *            which is informed when clicking a button
 	 * @param model
-	 *            of the puzzle to query to get the current state of the puzzle to
-	 *            determine the cause of why no (further) bridge could be added
+	 *            of the puzzle whose initial state is shown; later states are set
+	 *            from the snapshots shown (see {@link #setPuzzleState(PuzzleState)
+	 *            setPuzzleState})
 	 * 
 	 */
 	public JControlPanel(Container owner, IInputListener inputListener, IPuzzleSituationModel model) {
 		this.owner = owner;
 		this.inputListener = inputListener;
-		this.model = model;
-		GridLayout gridLayout = new GridLayout(1, 2);
+		puzzleState = model.getPuzzleState();
+		GridLayout gridLayout = new GridLayout(1, 3);
 		gridLayout.setHgap(20);
 		setLayout(gridLayout);
 		nextBridgeButton.addActionListener(getNextBridgeActionListener());
 		solvePuzzleButton.addActionListener(getSolvePuzzleActionListener());
+		solveInstantlyButton.addActionListener(getSolveInstantlyActionListener());
 		add(nextBridgeButton);
 		add(solvePuzzleButton);
+		add(solveInstantlyButton);
 	}
 
 	private ActionListener getNextBridgeActionListener() {
@@ -62,11 +70,22 @@ public class JControlPanel extends JPanel implements IModelQuerier {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				boolean bridgeCouldBeSet = inputListener.addNextBridge();
-				if (!bridgeCouldBeSet) {
-					JOptionPane.showMessageDialog(owner, getDialogMessage(), getDialogTitle(),
-							JOptionPane.PLAIN_MESSAGE);
-				}
+				inputListener.addNextBridge().thenAccept(new Consumer<Boolean>() {
+
+					@Override
+					public void accept(Boolean bridgeCouldBeSet) {
+						if (!bridgeCouldBeSet) {
+							SwingUtilities.invokeLater(new Runnable() { // completed by thread writing the model
+
+								@Override
+								public void run() {
+									JOptionPane.showMessageDialog(owner, getDialogMessage(), getDialogTitle(),
+											JOptionPane.PLAIN_MESSAGE);
+								}
+							});
+						}
+					}
+				});
 			}
 
 		};
@@ -83,6 +102,17 @@ public class JControlPanel extends JPanel implements IModelQuerier {
 		};
 	}
 
+	private ActionListener getSolveInstantlyActionListener() {
+		return new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				inputListener.solveInstantly();
+			}
+
+		};
+	}
+
 	/**
 	 * 
 	 * @return message (string) to be displayed in dialog if no more bridges can be
@@ -90,7 +120,7 @@ public class JControlPanel extends JPanel implements IModelQuerier {
 	 */
 	private Object getDialogMessage() {
 		String message;
-		switch (model.getPuzzleState()) {
+		switch (puzzleState) {
 		case SOLVED:
 			message = "Herzlichen Glückwunsch, das Rätsel ist gelöst! Es kann keine Brücke mehr hinzugefügt werden.";
 			break;
@@ -114,7 +144,7 @@ public class JControlPanel extends JPanel implements IModelQuerier {
 	 */
 	private String getDialogTitle() {
 		String title;
-		switch (model.getPuzzleState()) {
+		switch (puzzleState) {
 		case SOLVED:
 			title = "Das Rätsel ist gelöst!";
 			break;
@@ -152,9 +182,16 @@ public class JControlPanel extends JPanel implements IModelQuerier {
 		}
 	}
 
-	@Override
-	public void setPuzzleSituationModel(IPuzzleSituationModel model) {
-		this.model = model;
+	/**
+	 * Sets the state of the puzzle of the snapshot shown, which the dialog shown if
+	 * no (further) bridge can be added explains. Must be called on the event
+	 * dispatch thread.
+	 * 
+	 * @param puzzleState
+	 *            of the snapshot shown
+	 */
+	public void setPuzzleState(PuzzleState puzzleState) {
+		this.puzzleState = puzzleState;
 	}
 
 	/**
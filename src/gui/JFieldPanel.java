@@ -1,26 +1,39 @@
 package gui;
 
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.event.MouseListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
 
 import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 
-import common.Coordinates;
 import common.Direction;
 import controller.IInputListener;
-import model.HashiModel.Bridge;
+import model.CandidateEdgeGraph;
 import model.HashiModel.Island;
 import model.IPuzzleSituationModel;
+import model.PuzzleSnapshot;
 
 /**
  * 
@@ -40,10 +53,40 @@ import model.IPuzzleSituationModel;
  * <code>IInputListener</code> is informed to try to add (left mouse button) or
  * remove (right mouse button) a bridge in the direction indicated by the click.
  * If direction is ambiguous or there is no island at the coordinates of the
- * click, the click is ignored.
+ * click, the click is ignored. Dragging the mouse from an island over further
+ * islands of the same row or column adds or removes a bridge between each pair
+ * of neighbors passed. A click is mapped to its grid point by the inverse of
+ * the transformation used for the last paint, so finding the island clicked
+ * does not depend on the size of the field.
+ * </p>
+ * 
+ * <p>
+ * Islands are drawn into an offscreen image that is kept between two repaints
+ * and drawn above the bridges. Only islands whose number of missing bridges
+ * changed since the last repaint are drawn again; the whole image is only
+ * drawn again if the size of the panel, its font, the model or the number
+ * shown inside the islands changes.
+ * </p>
+ * 
+ * <p>
+ * The panel paints immutable snapshots of the puzzle taken by the thread
+ * writing the model, so it never reads the model while it changes. For each
+ * snapshot it repaints only the regions covering the bridges changed since the
+ * previous one, their islands and the bridge highlighted as last inserted
+ * before and after the change. Bridges outside of the region to be repainted
+ * are skipped.
+ * </p>
+ * 
+ * <p>
+ * Inside a <code>JScrollPane</code>, the field can be zoomed by turning the mouse
+ * wheel while holding down the control key and scrolled otherwise. Only the
+ * islands and bridges inside the visible part of the panel are drawn; they are
+ * found by a spatial index, so painting does not slow down with the size of the
+ * field. If islands become too small to read, they are drawn without numbers
+ * and double bridges as single thick lines.
  * </p>
  */
-public class JFieldPanel extends JPanel implements IModelQuerier {
+public class JFieldPanel extends JPanel implements IModelQuerier, Scrollable {
 
 	public static final Color COLOR_ISLAND_MISSING_BRIDGE = new Color(192, 192, 192); // GREY
 	public static final Color COLOR_ISLAND_WITH_ALL_BRIDGES = new Color(148, 198, 148); // GREEN
@@ -54,16 +97,42 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 	private final int DIST_BETW_ADJ_GRID_POINTS = 100; // distance between adjacent grid points
 	private final int ISLAND_RADIUS = 50; // DIST_BETW_ADJ_GRID_POINTS / 2
 	private final int CLICK_TOLERANCE = 50; // DIST_BETW_ADJ_GRID_POINTS / 2
+	private final int CLICK_AMBIGUITY_TOLERANCE = 5; // distance to a diagonal of an island below which a click is ignored
 	private final int DIST_BETWEEN_BRIDGES = 20; // belonging to double bridge
+	private final int DRAWING_MARGIN = ISLAND_RADIUS + 4; // around grid point, covers island and antialiasing
+
+	private static final Dimension DEFAULT_SIZE = new Dimension(500, 500);
+	private static final double ZOOM_FACTOR_PER_WHEEL_STEP = 1.25;
+	private static final int MAX_GRID_DISTANCE_IN_PIXELS = 150; // when zoomed in completely
+	private static final int MIN_ISLAND_DIAMETER_FOR_DETAILS = 12; // in pixels
 
-	private IPuzzleSituationModel hashiModel;
+	private PuzzleSnapshot snapshot; // painted
+	private CandidateEdgeGraph graph; // of the snapshot
 	private IInputListener inputListener;
 
 	private double scaleFactor;
-	private double translation;
+	private AffineTransform fieldTransform = new AffineTransform(); // from user coordinates to panel, as last painted
+	private AffineTransform inverseFieldTransform; // from panel to user coordinates, null if panel has no size
+	private int dragIsland = -1; // island the mouse was last dragged over, -1 if not dragging
+	private boolean isDragWithLeftMouseButton;
+	private double zoom = 1.0; // 1 fits the whole field into the viewport
 
 	private boolean showNoOfMissingBridges;
 
+	private Rectangle highlightedBridgeBounds; // of the bridge last inserted in user coordinates, may be null
+
+	private static final BasicStroke BRIDGE_STROKE = new BasicStroke(2.0f); // default 1.0f
+	private static final BasicStroke LAST_INSERTED_BRIDGE_STROKE = new BasicStroke(10.0f);
+
+	private FieldSpatialIndex spatialIndex; // of the islands and edges of the graph
+	private BufferedImage islandLayer; // visible islands in device pixels, null if it needs to be drawn again
+	private BufferedImage spareIslandLayer; // reused when scrolling
+	private Rectangle islandLayerBounds; // part of the panel covered by islandLayer
+	private Dimension islandLayerPanelSize; // size of the panel when islandLayer was drawn
+	private boolean islandLayerDetailed; // if islands in islandLayer show numbers
+	private final BitSet changedIslands = new BitSet(); // to be drawn again into islandLayer
+	private Font font, islandFont; // font of the panel and font derived from it for island numbers
+
 	/**
 	 * 
 	 * Constructs an instance of a JFieldPanel that has a preferred size of 500x500
@@ -79,14 +148,18 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 	public JFieldPanel(IPuzzleSituationModel hashiModel, IInputListener inputListener) {
 		setPuzzleSituationModel(hashiModel);
 		this.inputListener = inputListener;
-		setPreferredSize(new Dimension(500, 500));
-		addMouseListener(getMouseAdapterNotifyingListener());
+		setPreferredSize(DEFAULT_SIZE);
+		MouseAdapter mouseAdapter = getMouseAdapterNotifyingListener();
+		addMouseListener(mouseAdapter);
+		addMouseMotionListener(mouseAdapter);
+		addMouseWheelListener(getMouseWheelListenerZoomingOrScrolling());
 	}
 
 	/**
 	 * 
 	 * Set <code>hashiModel</code> as the <code>IPuzzleSituationModel</code> which
-	 * the field is painted of.
+	 * the field is painted of by painting a snapshot of it. The model must not be
+	 * changed while the snapshot is taken.
 	 * 
 	 * @param hashiModel
 	 *            containing the width and height of the field as well as the
@@ -94,12 +167,50 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 	 */
 	@Override
 	public void setPuzzleSituationModel(IPuzzleSituationModel hashiModel) {
-		this.hashiModel = hashiModel;
-		this.userCoordinateWidth = (hashiModel.getWidth() + 1) * DIST_BETW_ADJ_GRID_POINTS; // +1 to add left border
-		this.userCoordinateHeight = (hashiModel.getHeight() + 1) * DIST_BETW_ADJ_GRID_POINTS; // + 1 to add top border
+		setPuzzleSnapshot(PuzzleSnapshot.of(hashiModel));
 	}
 
-	private MouseListener getMouseAdapterNotifyingListener() {
+	/**
+	 * 
+	 * Paints the <code>snapshot</code> of the puzzle from now on. If it is a
+	 * snapshot of the puzzle painted before, only the regions of the bridges
+	 * changed are repainted, otherwise the whole field. Must be called on the
+	 * event dispatch thread.
+	 * 
+	 * @param snapshot
+	 *            of the puzzle taken after it changed
+	 */
+	public void setPuzzleSnapshot(PuzzleSnapshot snapshot) {
+		PuzzleSnapshot previousSnapshot = this.snapshot;
+		this.snapshot = snapshot;
+		if (previousSnapshot == null || snapshot.getGraph() != graph) {
+			graph = snapshot.getGraph();
+			spatialIndex = new FieldSpatialIndex(graph);
+			dragIsland = -1;
+			if (previousSnapshot != null
+					&& previousSnapshot.getPuzzleSituationModel() != snapshot.getPuzzleSituationModel() && zoom != 1.0) {
+				zoom = 1.0;
+				setPreferredSize(DEFAULT_SIZE);
+				revalidate();
+			}
+			this.userCoordinateWidth = (graph.getWidth() + 1) * DIST_BETW_ADJ_GRID_POINTS; // +1 to add left border
+			this.userCoordinateHeight = (graph.getHeight() + 1) * DIST_BETW_ADJ_GRID_POINTS; // + 1 to add top border
+		}
+		if (previousSnapshot == null || snapshot.getGraph() != previousSnapshot.getGraph()
+				|| snapshot.getChangedEdges() == null) {
+			islandLayer = null;
+			changedIslands.clear();
+			highlightedBridgeBounds = getBoundsOfLastInsertedBridge();
+			repaint();
+			return;
+		}
+		for (int edge : snapshot.getChangedEdges()) {
+			repaintChangedBridge(edge);
+		}
+		repaintHighlightedBridge();
+	}
+
+	private MouseAdapter getMouseAdapterNotifyingListener() {
 		return new MouseAdapter() {
 			@Override
 			public void mouseClicked(MouseEvent e) {
@@ -107,9 +218,117 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 					reTransformCoordinatesAndNotifyListener(e.getX(), e.getY(), SwingUtilities.isLeftMouseButton(e));
 				}
 			}
+
+			@Override
+			public void mousePressed(MouseEvent e) {
+				if (SwingUtilities.isLeftMouseButton(e) || SwingUtilities.isRightMouseButton(e)) {
+					dragIsland = getIslandNear(toUserCoordinates(e.getX(), e.getY()), ISLAND_RADIUS);
+					isDragWithLeftMouseButton = SwingUtilities.isLeftMouseButton(e);
+				}
+			}
+
+			@Override
+			public void mouseDragged(MouseEvent e) {
+				if (dragIsland >= 0) {
+					scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+					int island = getIslandNear(toUserCoordinates(e.getX(), e.getY()), ISLAND_RADIUS);
+					if (island >= 0 && island != dragIsland) {
+						makeMovesBetween(dragIsland, island, isDragWithLeftMouseButton);
+						dragIsland = island;
+					}
+				}
+			}
+
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				dragIsland = -1;
+			}
+		};
+	}
+
+	private MouseWheelListener getMouseWheelListenerZoomingOrScrolling() {
+		return new MouseWheelListener() {
+			@Override
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				if (e.isControlDown()) {
+					zoom(Math.pow(ZOOM_FACTOR_PER_WHEEL_STEP, -e.getPreciseWheelRotation()), e.getPoint());
+				} else if (getParent() != null) { // let scroll pane scroll
+					getParent().dispatchEvent(SwingUtilities.convertMouseEvent(JFieldPanel.this, e, getParent()));
+				}
+			}
 		};
 	}
 
+	/**
+	 * 
+	 * Zooms into or out of the field keeping the point of the field at the
+	 * <code>anchor</code> where it is on the screen. The field cannot be zoomed
+	 * out further than to fit into the viewport and not be zoomed in further
+	 * than to a distance of {@value #MAX_GRID_DISTANCE_IN_PIXELS} pixels between
+	 * adjacent grid points. Does nothing if the panel is not inside a
+	 * <code>JViewport</code>.
+	 * 
+	 * @param factor
+	 *            by which the field is enlarged, less than 1 to shrink it
+	 * @param anchor
+	 *            in coordinates of the panel, e.g. position of the mouse
+	 */
+	public void zoom(double factor, Point anchor) {
+		if (!(getParent() instanceof JViewport)) {
+			return;
+		}
+		JViewport viewport = (JViewport) getParent();
+		Dimension extent = viewport.getExtentSize();
+		double fittingGridDistance = Math.min((double) extent.width / (graph.getWidth() + 1),
+				(double) extent.height / (graph.getHeight() + 1));
+		double maxZoom = Math.max(1.0, MAX_GRID_DISTANCE_IN_PIXELS / fittingGridDistance);
+		double newZoom = Math.max(1.0, Math.min(zoom * factor, maxZoom));
+		if (newZoom == zoom || extent.width <= 0 || extent.height <= 0) {
+			return;
+		}
+		zoom = newZoom;
+		Dimension size = new Dimension((int) Math.round(extent.width * zoom),
+				(int) Math.round(extent.height * zoom));
+		double factorX = (double) size.width / getWidth();
+		double factorY = (double) size.height / getHeight();
+		Point viewPosition = viewport.getViewPosition();
+		setPreferredSize(zoom == 1.0 ? DEFAULT_SIZE : size);
+		setSize(size); // immediately, so the view position can be set
+		int x = (int) Math.round(anchor.x * factorX) - (anchor.x - viewPosition.x);
+		int y = (int) Math.round(anchor.y * factorY) - (anchor.y - viewPosition.y);
+		viewport.setViewPosition(new Point(Math.max(0, Math.min(x, size.width - extent.width)),
+				Math.max(0, Math.min(y, size.height - extent.height))));
+		revalidate();
+		repaint();
+	}
+
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		return DEFAULT_SIZE;
+	}
+
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return Math.max(1, (int) Math.round(scaleFactor * DIST_BETW_ADJ_GRID_POINTS));
+	}
+
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+		int gridDistance = getScrollableUnitIncrement(visibleRect, orientation, direction);
+		int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+		return Math.max(gridDistance, extent - gridDistance); // keep one row or column in view
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return zoom == 1.0;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return zoom == 1.0;
+	}
+
 	/**
 	 * 
 	 * Sets the number of bridges painted inside each island.
@@ -120,6 +339,10 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 	 *            of bridges that the island requires is shown
 	 */
 	public void setIslandString(boolean showNoOfBridgesMissing) {
+		if (this.showNoOfMissingBridges != showNoOfBridgesMissing) {
+			islandLayer = null;
+			repaint();
+		}
 		this.showNoOfMissingBridges = showNoOfBridgesMissing;
 	}
 
@@ -127,41 +350,248 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		Graphics2D g2 = (Graphics2D) g;
-		transformGraphicsToCenterGridOnPanel(g2);
-		// translation before scaling because scaling not considered in translation
-		transformGraphicsToScaleToUserCoordinateSystem(g2);
-		drawIslandsAndBridges(g2);
+		AffineTransform deviceTransform = g2.getTransform();
+		updateFieldTransform();
+		g2.transform(fieldTransform);
+		drawBridges(g2);
+		g2.setTransform(deviceTransform);
+		Rectangle visibleRect = getVisibleRect();
+		updateIslandLayer(visibleRect, deviceTransform.getScaleX(), deviceTransform.getScaleY());
+		g2.drawImage(islandLayer, visibleRect.x, visibleRect.y, visibleRect.width, visibleRect.height, null);
+	}
+
+	/**
+	 * Draws the islands whose number of missing bridges changed into the island
+	 * layer, or all visible islands into a new layer if the layer is outdated,
+	 * e.g. because the field was scrolled or zoomed.
+	 * 
+	 * @param visibleRect
+	 *            visible part of the panel
+	 * @param deviceScaleX
+	 *            number of pixels per horizontal unit of the panel
+	 * @param deviceScaleY
+	 *            number of pixels per vertical unit of the panel
+	 */
+	private void updateIslandLayer(Rectangle visibleRect, double deviceScaleX, double deviceScaleY) {
+		int width = Math.max(1, (int) Math.ceil(visibleRect.width * deviceScaleX));
+		int height = Math.max(1, (int) Math.ceil(visibleRect.height * deviceScaleY));
+		boolean detailed = isDetailed();
+		BitSet islandsToDraw = new BitSet();
+		if (islandLayer == null || islandLayer.getWidth() != width || islandLayer.getHeight() != height
+				|| !getSize().equals(islandLayerPanelSize) || detailed != islandLayerDetailed
+				|| !getFont().equals(font) || !canBeScrolled(visibleRect, deviceScaleX, deviceScaleY)) {
+			islandLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			islandLayerPanelSize = getSize();
+			islandLayerDetailed = detailed;
+			font = getFont();
+			islandFont = font.deriveFont((float) ISLAND_RADIUS); // resize font to fit island
+			for (int island : getIslandsIn(toUserRectangle(visibleRect))) {
+				islandsToDraw.set(island);
+			}
+		} else if (!visibleRect.equals(islandLayerBounds)) {
+			Rectangle previousBounds = islandLayerBounds;
+			scrollIslandLayer(visibleRect, deviceScaleX, deviceScaleY);
+			for (int island : getIslandsIn(toUserRectangle(visibleRect))) { // islands not fully scrolled in
+				if (!previousBounds.contains(toPanelRectangle(getBounds(island, island)))) {
+					islandsToDraw.set(island);
+				}
+			}
+		}
+		islandLayerBounds = visibleRect;
+		islandsToDraw.or(changedIslands);
+		changedIslands.clear();
+		if (islandsToDraw.isEmpty()) {
+			return;
+		}
+		Graphics2D g2 = islandLayer.createGraphics();
+		g2.scale(deviceScaleX, deviceScaleY);
+		g2.translate(-visibleRect.x, -visibleRect.y);
+		g2.transform(fieldTransform);
+		if (detailed) {
+			activateAntialiasingForSmootherLines(g2);
+		}
+		g2.setFont(islandFont);
+		for (int island = islandsToDraw.nextSetBit(0); island >= 0; island = islandsToDraw.nextSetBit(island + 1)) {
+			clearIsland(g2, island);
+			drawIsland(g2, island, detailed);
+		}
+		g2.dispose();
+	}
+
+	// if the island layer shares a part with the visible part of the panel at whole device pixels
+	private boolean canBeScrolled(Rectangle visibleRect, double deviceScaleX, double deviceScaleY) {
+		double dx = (islandLayerBounds.x - visibleRect.x) * deviceScaleX;
+		double dy = (islandLayerBounds.y - visibleRect.y) * deviceScaleY;
+		return visibleRect.intersects(islandLayerBounds) && dx == Math.rint(dx) && dy == Math.rint(dy);
+	}
+
+	// moves the part of the island layer still visible to where it is after scrolling
+	private void scrollIslandLayer(Rectangle visibleRect, double deviceScaleX, double deviceScaleY) {
+		BufferedImage scrolledLayer = spareIslandLayer;
+		if (scrolledLayer == null || scrolledLayer.getWidth() != islandLayer.getWidth()
+				|| scrolledLayer.getHeight() != islandLayer.getHeight()) {
+			scrolledLayer = new BufferedImage(islandLayer.getWidth(), islandLayer.getHeight(),
+					BufferedImage.TYPE_INT_ARGB);
+		}
+		Graphics2D g2 = scrolledLayer.createGraphics();
+		g2.setComposite(AlphaComposite.Clear);
+		g2.fillRect(0, 0, scrolledLayer.getWidth(), scrolledLayer.getHeight());
+		g2.setComposite(AlphaComposite.Src);
+		g2.drawImage(islandLayer, (int) Math.rint((islandLayerBounds.x - visibleRect.x) * deviceScaleX),
+				(int) Math.rint((islandLayerBounds.y - visibleRect.y) * deviceScaleY), null);
+		g2.dispose();
+		spareIslandLayer = islandLayer;
+		islandLayer = scrolledLayer;
+	}
+
+	// if islands are large enough to show their numbers
+	private boolean isDetailed() {
+		return scaleFactor * 2 * ISLAND_RADIUS >= MIN_ISLAND_DIAMETER_FOR_DETAILS;
+	}
+
+	// part of the field in user coordinates shown by the part of the panel
+	private Rectangle2D toUserRectangle(Rectangle panelRect) {
+		if (inverseFieldTransform == null) {
+			return new Rectangle2D.Double();
+		}
+		return inverseFieldTransform.createTransformedShape(panelRect).getBounds2D();
+	}
+
+	// islands drawn at least partly inside the rectangle in user coordinates
+	private int[] getIslandsIn(Rectangle2D userRect) {
+		return spatialIndex.getIslandsIn(getMinGridPoint(userRect.getMinX()), getMinGridPoint(userRect.getMinY()),
+				getMaxGridPoint(userRect.getMaxX()), getMaxGridPoint(userRect.getMaxY()));
+	}
+
+	// edges on which bridges drawn at least partly inside the rectangle in user coordinates can be
+	private int[] getEdgesIn(Rectangle2D userRect) {
+		return spatialIndex.getEdgesIn(getMinGridPoint(userRect.getMinX()), getMinGridPoint(userRect.getMinY()),
+				getMaxGridPoint(userRect.getMaxX()), getMaxGridPoint(userRect.getMaxY()));
+	}
+
+	// center of the grid point in user coordinates, the grid starting after a border
+	private int toUserCoordinate(int gridPoint) {
+		return (gridPoint + 1) * DIST_BETW_ADJ_GRID_POINTS;
+	}
+
+	private int getMinGridPoint(double userCoordinate) {
+		return (int) Math.floor((userCoordinate - DRAWING_MARGIN) / DIST_BETW_ADJ_GRID_POINTS) - 1;
+	}
+
+	private int getMaxGridPoint(double userCoordinate) {
+		return (int) Math.ceil((userCoordinate + DRAWING_MARGIN) / DIST_BETW_ADJ_GRID_POINTS) - 1;
+	}
+
+	/**
+	 * Repaints the region of the panel covering the bridges on the
+	 * <code>edge</code> and marks its islands to be drawn again.
+	 */
+	private void repaintChangedBridge(int edge) {
+		int start = graph.getEdgeStart(edge), end = graph.getEdgeEnd(edge);
+		changedIslands.set(start);
+		changedIslands.set(end);
+		repaintUserRectangle(getBounds(start, end));
+	}
+
+	// repaints the bridges highlighted as last inserted before and after the snapshot
+	private void repaintHighlightedBridge() {
+		Rectangle newHighlightedBridgeBounds = getBoundsOfLastInsertedBridge();
+		if (highlightedBridgeBounds != null && !highlightedBridgeBounds.equals(newHighlightedBridgeBounds)) {
+			repaintUserRectangle(highlightedBridgeBounds);
+		}
+		if (newHighlightedBridgeBounds != null) {
+			repaintUserRectangle(newHighlightedBridgeBounds);
+		}
+		highlightedBridgeBounds = newHighlightedBridgeBounds;
+	}
+
+	private Rectangle getBoundsOfLastInsertedBridge() {
+		int edge = snapshot.getLastInsertedEdge();
+		return edge < 0 ? null : getBounds(graph.getEdgeStart(edge), graph.getEdgeEnd(edge));
+	}
+
+	// bounds of the islands and the bridge between them in user coordinates
+	private Rectangle getBounds(int start, int end) {
+		int margin = DRAWING_MARGIN;
+		int minX = Math.min(graph.getIslandX(start), graph.getIslandX(end));
+		int minY = Math.min(graph.getIslandY(start), graph.getIslandY(end));
+		int maxX = Math.max(graph.getIslandX(start), graph.getIslandX(end));
+		int maxY = Math.max(graph.getIslandY(start), graph.getIslandY(end));
+		return new Rectangle(toUserCoordinate(minX) - margin, toUserCoordinate(minY) - margin,
+				(maxX - minX) * DIST_BETW_ADJ_GRID_POINTS + 2 * margin,
+				(maxY - minY) * DIST_BETW_ADJ_GRID_POINTS + 2 * margin);
+	}
+
+	private void repaintUserRectangle(Rectangle bounds) {
+		if (scaleFactor <= 0.0) { // not painted yet
+			repaint();
+			return;
+		}
+		repaint(toPanelRectangle(bounds));
 	}
 
-	private void transformGraphicsToCenterGridOnPanel(Graphics2D g2) {
-		double horDistanceBetweenGridPoints = (double) getWidth() / (double) (hashiModel.getWidth() + 1);
-		double verDistanceBetweenGridPoints = (double) getHeight() / (double) (hashiModel.getHeight() + 1);
+	// part of the panel covering the rectangle in user coordinates
+	private Rectangle toPanelRectangle(Rectangle userRect) {
+		Rectangle panelRect = fieldTransform.createTransformedShape(userRect).getBounds();
+		panelRect.grow(1, 1); // for rounding
+		return panelRect;
+	}
+
+	private void clearIsland(Graphics2D g2, int island) {
+		int x = toUserCoordinate(graph.getIslandX(island)) - ISLAND_RADIUS - 2; // margin for antialiasing
+		int y = toUserCoordinate(graph.getIslandY(island)) - ISLAND_RADIUS - 2;
+		g2.setComposite(AlphaComposite.Clear);
+		g2.fillRect(x, y, 2 * ISLAND_RADIUS + 4, 2 * ISLAND_RADIUS + 4);
+		g2.setComposite(AlphaComposite.SrcOver);
+	}
+
+	/**
+	 * Computes the transformation from user coordinates to the panel for the
+	 * current size of the panel and its inverse for mapping clicks back. The grid
+	 * is centered first and scaled second, since the translation is computed in
+	 * coordinates of the panel.
+	 */
+	private void updateFieldTransform() {
+		double horDistanceBetweenGridPoints = (double) getWidth() / (double) (graph.getWidth() + 1);
+		double verDistanceBetweenGridPoints = (double) getHeight() / (double) (graph.getHeight() + 1);
 		double differenceBetweenDistances = horDistanceBetweenGridPoints - verDistanceBetweenGridPoints;
+		AffineTransform transform = new AffineTransform();
 		if (differenceBetweenDistances > 0) { // grid can take up all vertical space but must be centered horizontally
-			translation = differenceBetweenDistances * (double) (hashiModel.getWidth() + 1) / 2.0; // / 2.0 to center
-			g2.transform(AffineTransform.getTranslateInstance(translation, 0));
+			transform.translate(differenceBetweenDistances * (double) (graph.getWidth() + 1) / 2.0, 0);
 		} else { // grid can take up all horizontal space but must be centered vertically
-			translation = differenceBetweenDistances * (double) (hashiModel.getHeight() + 1) / 2.0;
-			g2.transform(AffineTransform.getTranslateInstance(0, -translation));
+			transform.translate(0, -differenceBetweenDistances * (double) (graph.getHeight() + 1) / 2.0);
 		}
-	}
-
-	private void transformGraphicsToScaleToUserCoordinateSystem(Graphics2D g2) {
 		double scaleX = (double) getWidth() / (double) userCoordinateWidth;
 		double scaleY = (double) getHeight() / (double) userCoordinateHeight;
 		scaleFactor = Math.min(scaleX, scaleY);
-		AffineTransform at = AffineTransform.getScaleInstance(scaleFactor, scaleFactor);
-		g2.transform(at);
+		transform.scale(scaleFactor, scaleFactor);
+		fieldTransform = transform;
+		try {
+			inverseFieldTransform = transform.createInverse();
+		} catch (NoninvertibleTransformException e) { // panel has no size
+			inverseFieldTransform = null;
+		}
 	}
 
-	private void drawIslandsAndBridges(Graphics2D g2) {
-		activateAntialiasingForSmootherLines(g2);
-		if (hashiModel.getLastInsertedBridge() != null) { // needs to be drawn first to be in the background
-			drawLastInsertedBridge(g2, hashiModel.getLastInsertedBridge());
+	private void drawBridges(Graphics2D g2) {
+		if (isDetailed()) {
+			activateAntialiasingForSmootherLines(g2);
 		}
-		for (Island island : hashiModel.getIslands()) {
-			drawEastAndSouthBridge(g2, island); // need to be drawn before start and end island to be in the background
-			drawIsland(g2, island);
+		if (snapshot.getLastInsertedEdge() >= 0) { // needs to be drawn first to be in the background
+			drawLastInsertedBridge(g2, snapshot.getLastInsertedEdge());
+		}
+		g2.setColor(Color.BLACK);
+		Rectangle clip = g2.getClipBounds(); // in user coordinates
+		Rectangle2D userRect = clip != null ? clip : toUserRectangle(getVisibleRect());
+		boolean detailed = isDetailed();
+		BasicStroke doubleBridgeStroke = detailed ? BRIDGE_STROKE
+				: new BasicStroke((float) (2.0 / scaleFactor)); // two pixels wide
+		for (int edge : getEdgesIn(userRect)) { // islands are drawn above the bridges afterwards
+			int noOfBridges = snapshot.getNoOfBridges(edge);
+			if (noOfBridges > 0) {
+				g2.setStroke(noOfBridges == 2 ? doubleBridgeStroke : BRIDGE_STROKE);
+				drawBridge(g2, edge, noOfBridges == 2 && detailed);
+			}
 		}
 	}
 
@@ -169,58 +599,53 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 	}
 
-	private void drawLastInsertedBridge(Graphics2D g2, Bridge bridge) {
-		g2.setStroke(new BasicStroke(10.0f)); // default 1.0f
+	private void drawLastInsertedBridge(Graphics2D g2, int edge) {
+		g2.setStroke(LAST_INSERTED_BRIDGE_STROKE);
 		g2.setColor(COLOR_BRIDGE_LAST_INSERTED);
-		drawBridge(g2, bridge);
+		drawBridge(g2, edge, snapshot.getNoOfBridges(edge) == 2);
+		g2.setColor(Color.BLACK);
 	}
 
-	private void drawBridge(Graphics2D g2, Bridge bridge) {
-		if (bridge.isDouble()) {
-			drawDoubleBridge(g2, bridge.getStart().getCoords(), bridge.getEnd().getCoords(), bridge.isVertical());
+	// a double bridge is drawn as a single line if not detailed
+	private void drawBridge(Graphics2D g2, int edge, boolean asDoubleBridge) {
+		int start = graph.getEdgeStart(edge), end = graph.getEdgeEnd(edge);
+		int startX = graph.getIslandX(start), startY = graph.getIslandY(start);
+		int endX = graph.getIslandX(end), endY = graph.getIslandY(end);
+		if (asDoubleBridge) {
+			drawDoubleBridge(g2, startX, startY, endX, endY, graph.isVertical(edge));
 		} else {
-			drawSimpleBridge(g2, bridge.getStart().getCoords(), bridge.getEnd().getCoords());
+			drawSimpleBridge(g2, startX, startY, endX, endY);
 		}
 	}
 
-	private void drawSimpleBridge(Graphics2D g2, Coordinates start, Coordinates end) {
-		g2.drawLine((start.x + 1) * 100, (start.y + 1) * 100, (end.x + 1) * 100, (end.y + 1) * 100);
+	private void drawSimpleBridge(Graphics2D g2, int startX, int startY, int endX, int endY) {
+		g2.drawLine(toUserCoordinate(startX), toUserCoordinate(startY), toUserCoordinate(endX),
+				toUserCoordinate(endY));
 	}
 
-	private void drawDoubleBridge(Graphics2D g2, Coordinates start, Coordinates end, boolean isVertical) {
+	private void drawDoubleBridge(Graphics2D g2, int startX, int startY, int endX, int endY, boolean isVertical) {
 		if (isVertical) {
-			g2.drawLine((start.x + 1) * 100 - DIST_BETWEEN_BRIDGES / 2, (start.y + 1) * 100,
-					(end.x + 1) * 100 - DIST_BETWEEN_BRIDGES / 2, (end.y + 1) * 100);
-			g2.drawLine((start.x + 1) * 100 + DIST_BETWEEN_BRIDGES / 2, (start.y + 1) * 100,
-					(end.x + 1) * 100 + DIST_BETWEEN_BRIDGES / 2, (end.y + 1) * 100);
+			g2.drawLine(toUserCoordinate(startX) - DIST_BETWEEN_BRIDGES / 2, toUserCoordinate(startY),
+					toUserCoordinate(endX) - DIST_BETWEEN_BRIDGES / 2, toUserCoordinate(endY));
+			g2.drawLine(toUserCoordinate(startX) + DIST_BETWEEN_BRIDGES / 2, toUserCoordinate(startY),
+					toUserCoordinate(endX) + DIST_BETWEEN_BRIDGES / 2, toUserCoordinate(endY));
 		} else {
-			g2.drawLine((start.x + 1) * 100, (start.y + 1) * 100 - DIST_BETWEEN_BRIDGES / 2, (end.x + 1) * 100,
-					(end.y + 1) * 100 - DIST_BETWEEN_BRIDGES / 2);
-			g2.drawLine((start.x + 1) * 100, (start.y + 1) * 100 + DIST_BETWEEN_BRIDGES / 2, (end.x + 1) * 100,
-					(end.y + 1) * 100 + DIST_BETWEEN_BRIDGES / 2);
-		}
-	}
-
-	private final Direction[] EAST_AND_SOUTH = { Direction.EAST, Direction.SOUTH };
-
-	private void drawEastAndSouthBridge(Graphics2D g2, Island island) {
-		g2.setStroke(new BasicStroke(2.0f)); // default 1.0f
-		g2.setColor(Color.BLACK);
-		Bridge bridge;
-		for (Direction direction : EAST_AND_SOUTH) {
-			if ((bridge = hashiModel.getBridge(island, direction)) != null) {
-				drawBridge(g2, bridge);
-			}
+			g2.drawLine(toUserCoordinate(startX), toUserCoordinate(startY) - DIST_BETWEEN_BRIDGES / 2,
+					toUserCoordinate(endX), toUserCoordinate(endY) - DIST_BETWEEN_BRIDGES / 2);
+			g2.drawLine(toUserCoordinate(startX), toUserCoordinate(startY) + DIST_BETWEEN_BRIDGES / 2,
+					toUserCoordinate(endX), toUserCoordinate(endY) + DIST_BETWEEN_BRIDGES / 2);
 		}
 	}
 
-	private void drawIsland(Graphics2D g2, Island island) {
-		int x = (island.getCoords().x + 1) * 100 - ISLAND_RADIUS;
-		int y = (island.getCoords().y + 1) * 100 - ISLAND_RADIUS;
-		int noOfBridgesMissing = island.getNoOfBridgesMissing();
+	private void drawIsland(Graphics2D g2, int island, boolean detailed) {
+		int x = toUserCoordinate(graph.getIslandX(island)) - ISLAND_RADIUS;
+		int y = toUserCoordinate(graph.getIslandY(island)) - ISLAND_RADIUS;
+		int noOfBridgesMissing = snapshot.getNoOfBridgesMissing(island);
 		setIslandColor(g2, noOfBridgesMissing);
 		g2.fillOval(x, y, 2 * ISLAND_RADIUS, 2 * ISLAND_RADIUS);
-		drawIslandString(g2, island, x, y, noOfBridgesMissing);
+		if (detailed) {
+			drawIslandString(g2, island, x, y, noOfBridgesMissing);
+		}
 	}
 
 	private void setIslandColor(Graphics2D g2, int noOfBridgesMissing) {
@@ -233,52 +658,98 @@ public class JFieldPanel extends JPanel implements IModelQuerier {
 		}
 	}
 
-	private void drawIslandString(Graphics2D g2, Island island, int x, int y, int noOfBridgesMissing) {
+	private void drawIslandString(Graphics2D g2, int island, int x, int y, int noOfBridgesMissing) {
 		g2.setColor(Color.BLACK);
-		g2.setFont(getFont().deriveFont((float) ISLAND_RADIUS)); // resize font to fit island
 		FontMetrics fm = g2.getFontMetrics();
-		int noOfBridgesToBeDrawn = showNoOfMissingBridges ? noOfBridgesMissing : island.getNoOfBridgesRequired();
+		int noOfBridgesToBeDrawn = showNoOfMissingBridges ? noOfBridgesMissing : graph.getClue(island);
 		String noString = Integer.toString(noOfBridgesToBeDrawn);
 		g2.drawString(noString, x + ISLAND_RADIUS - fm.stringWidth(noString) / 2,
 				y + ISLAND_RADIUS - fm.getHeight() / 2 + fm.getAscent());
 	}
 
-	private void reTransformCoordinatesAndNotifyListener(int panelX, int panelY, boolean isLeftMouseButton) throws IllegalArgumentException {
-		double reTranslatedX = translation > 0.0 ? (double) panelX - translation : (double) panelX;
-		double reTranslatedY = translation > 0.0 ? (double) panelY : (double) panelY + translation;
-		// retrans. needs to be before resc. since it comes before resc. when painted
-		double reScaledX = reTranslatedX / scaleFactor;
-		double reScaledY = reTranslatedY / scaleFactor;
-		int islandX = Math.toIntExact(Math.round(reScaledX / (double) DIST_BETW_ADJ_GRID_POINTS)) - 1;
-		int islandY = Math.toIntExact(Math.round(reScaledY / (double) DIST_BETW_ADJ_GRID_POINTS)) - 1;
-		double islandCenterX = (double) (islandX + 1) * 100.0;
-		double islandCenterY = (double) (islandY + 1) * 100.0;
-		if (islandX >= 0 && islandX < hashiModel.getWidth() && islandY >= 0 && islandY < hashiModel.getHeight()
-				&& hashiModel.islandAt(islandX, islandY)) {
-			Island island = hashiModel.getIslandAt(islandX, islandY);
-			Direction directionOfClick = getDirectionOfClick(reScaledX, reScaledY, islandCenterX, islandCenterY);
-			inputListener.makeMove(island, directionOfClick, isLeftMouseButton);
+	private void reTransformCoordinatesAndNotifyListener(int panelX, int panelY, boolean isLeftMouseButton) {
+		Point2D userPoint = toUserCoordinates(panelX, panelY);
+		int island = getIslandNear(userPoint, CLICK_TOLERANCE);
+		if (island >= 0) {
+			Direction directionOfClick = getDirectionOfClick(userPoint.getX(), userPoint.getY(),
+					toUserCoordinate(graph.getIslandX(island)), toUserCoordinate(graph.getIslandY(island)));
+			if (directionOfClick != null) {
+				inputListener.makeMove(snapshot.getIslands().get(island), directionOfClick, isLeftMouseButton);
+			}
+		}
+	}
+
+	// point of the panel in user coordinates, null if the panel has not been painted yet
+	private Point2D toUserCoordinates(int panelX, int panelY) {
+		if (inverseFieldTransform == null) {
+			return null;
+		}
+		return inverseFieldTransform.transform(new Point2D.Double(panelX, panelY), null);
+	}
+
+	/**
+	 * Gets the island at the grid point nearest to the <code>userPoint</code>
+	 * in time logarithmic in the number of islands.
+	 * 
+	 * @param userPoint
+	 *            in user coordinates, may be null
+	 * @param tolerance
+	 *            maximum horizontal and vertical distance between the point and
+	 *            the center of the island
+	 * @return index of the island in the graph or -1 if there is none near the
+	 *         point
+	 */
+	private int getIslandNear(Point2D userPoint, double tolerance) {
+		if (userPoint == null) {
+			return -1;
+		}
+		long islandX = Math.round(userPoint.getX() / DIST_BETW_ADJ_GRID_POINTS) - 1;
+		long islandY = Math.round(userPoint.getY() / DIST_BETW_ADJ_GRID_POINTS) - 1;
+		if (islandX < 0 || islandX >= graph.getWidth() || islandY < 0 || islandY >= graph.getHeight()
+				|| Math.abs(userPoint.getX() - (islandX + 1) * DIST_BETW_ADJ_GRID_POINTS) > tolerance
+				|| Math.abs(userPoint.getY() - (islandY + 1) * DIST_BETW_ADJ_GRID_POINTS) > tolerance) {
+			return -1;
 		}
+		return graph.getIslandIndex((int) islandX, (int) islandY);
 	}
 
+	// direction from the center of the island to the click, null if the click is about as far from both axes
 	private Direction getDirectionOfClick(double reScaledX, double reScaledY, double islandCenterX,
-			double islandCenterY) throws IllegalArgumentException {
-		if (islandCenterY > reScaledY && reScaledY >= islandCenterY - CLICK_TOLERANCE
-				&& Math.abs(reScaledX - islandCenterX) <= Math.abs(reScaledY - islandCenterY)) {
-			return Direction.NORTH;
+			double islandCenterY) {
+		double distanceX = Math.abs(reScaledX - islandCenterX);
+		double distanceY = Math.abs(reScaledY - islandCenterY);
+		if (Math.abs(distanceX - distanceY) < CLICK_AMBIGUITY_TOLERANCE) {
+			return null;
 		}
-		if (islandCenterX > reScaledX && reScaledX >= islandCenterX - CLICK_TOLERANCE
-				&& Math.abs(reScaledY - islandCenterY) <= Math.abs(reScaledX - islandCenterX)) {
-			return Direction.WEST;
+		if (distanceY > distanceX) {
+			return reScaledY < islandCenterY ? Direction.NORTH : Direction.SOUTH;
 		}
-		if (islandCenterY <= reScaledY && reScaledY < islandCenterY + CLICK_TOLERANCE
-				&& Math.abs(reScaledX - islandCenterX) < Math.abs(reScaledY - islandCenterY)) {
-			return Direction.SOUTH;
+		return reScaledX < islandCenterX ? Direction.WEST : Direction.EAST;
+	}
+
+	/**
+	 * Adds or removes a bridge between each pair of neighbors from the island
+	 * <code>from</code> to the island <code>to</code> if both lie in the same row
+	 * or column and are connected by candidate edges. Otherwise, e.g. if the
+	 * mouse was dragged diagonally, nothing happens.
+	 */
+	private void makeMovesBetween(int start, int end, boolean addBridges) {
+		Island from = snapshot.getIslands().get(start), to = snapshot.getIslands().get(end);
+		if (from.getCoords().x != to.getCoords().x && from.getCoords().y != to.getCoords().y) {
+			return;
+		}
+		Direction direction = from.getCoords().getDirectionOfCoord(to.getCoords());
+		int noOfMoves = 0;
+		for (int island = start; island != end; noOfMoves++) {
+			int edge = graph.getEdge(island, direction);
+			if (edge < 0) {
+				return;
+			}
+			island = graph.getOtherEnd(edge, island);
 		}
-		if (islandCenterX <= reScaledX && reScaledX < islandCenterX + CLICK_TOLERANCE
-				&& Math.abs(reScaledY - islandCenterY) < Math.abs(reScaledX - islandCenterX)) {
-			return Direction.EAST;
+		for (int island = start; noOfMoves > 0; noOfMoves--) {
+			inputListener.makeMove(snapshot.getIslands().get(island), direction, addBridges);
+			island = graph.getOtherEnd(graph.getEdge(island, direction), island);
 		}
-		throw new IllegalArgumentException("Direction of click is ambiguous.");
 	}
 }
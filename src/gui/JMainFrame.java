@@ -12,12 +12,15 @@ import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
 import javax.swing.border.Border;
 
 import controller.IInputListener;
 import controller.PuzzleSolver.SolverState;
 import model.IPuzzleSituationModel;
+import model.PuzzleSnapshot;
+import model.PuzzleState;
 
 /**
  * 
@@ -28,7 +31,8 @@ import model.IPuzzleSituationModel;
  * The elements: A menuBar for (re-)starting, loading, saving a Hashiwokakeru
  * puzzle as well as quitting the application, a panel which contains a
  * graphical representation of the Hashiwokakeru puzzle and serves as an input
- * device for adding and removing bridges, a checkbox to change the numbers (of
+ * device for adding and removing bridges inside a scroll pane for zooming into
+ * large puzzles, a checkbox to change the numbers (of
  * bridges) painted inside the islands of the (representation of the)
  * Hashiwokakeru puzzle, a control panel to automatically set one bridge or
  * solve the whole puzzle and a state label showing the current state of the
@@ -40,7 +44,8 @@ import model.IPuzzleSituationModel;
  * acting as the main interface for the controller to refresh the view and/or
  * change the model. Other elements of the view, e.g. the panel containing (the
  * graphical representation of) the Hashiwokakeru puzzle, are updated by the
- * <code>JMainFrame</code>.
+ * <code>JMainFrame</code>. As the controller calls it from the thread writing
+ * the model, it hands each call over to the event dispatch thread.
  * </p>
  */
 public class JMainFrame extends JFrame implements IPuzzleSituationView {
@@ -48,7 +53,7 @@ public class JMainFrame extends JFrame implements IPuzzleSituationView {
 	private static final Border COMPONENT_PADDING = BorderFactory.createEmptyBorder(5, 5, 5, 5);
 
 	private IInputListener inputListener;
-	private IPuzzleSituationModel hashiModel;
+	private PuzzleState puzzleState; // of the snapshot shown
 	private JFieldPanel fieldPanel;
 	private JControlPanel controlPanel;
 	private JLabel puzzleStateLabel;
@@ -63,7 +68,7 @@ public class JMainFrame extends JFrame implements IPuzzleSituationView {
 	public JMainFrame(IInputListener inputListener, IPuzzleSituationModel hashiModel) {
 		super();
 		this.inputListener = inputListener;
-		this.hashiModel = hashiModel;
+		puzzleState = hashiModel.getPuzzleState();
 		fieldPanel = new JFieldPanel(hashiModel, inputListener);
 		controlPanel = new JControlPanel(this, inputListener, hashiModel);
 		puzzleStateLabel = new JLabel(getStateText());
@@ -92,7 +97,9 @@ public class JMainFrame extends JFrame implements IPuzzleSituationView {
 		Border outsideBorder = BorderFactory.createCompoundBorder(COMPONENT_PADDING, blackLineBorder);
 		Border border = BorderFactory.createCompoundBorder(outsideBorder, COMPONENT_PADDING);
 		surroundingPanel.setBorder(border);
-		surroundingPanel.add(fieldPanel);
+		JScrollPane scrollPane = new JScrollPane(fieldPanel); // for zooming into large fields
+		scrollPane.setBorder(null);
+		surroundingPanel.add(scrollPane);
 		surroundingPanel.setAlignmentX(LEFT_ALIGNMENT);
 		getContentPane().add(surroundingPanel);
 	}
@@ -108,7 +115,6 @@ public class JMainFrame extends JFrame implements IPuzzleSituationView {
 				} else {
 					fieldPanel.setIslandString(false);
 				}
-				refresh();
 			}
 
 		});
@@ -121,7 +127,7 @@ public class JMainFrame extends JFrame implements IPuzzleSituationView {
 	}
 
 	private Color getStateTextColor() {
-		switch (hashiModel.getPuzzleState()) {
+		switch (puzzleState) {
 		case CONTAINS_ERROR:
 			return JFieldPanel.COLOR_INVALID_ISLAND;
 		case SOLVED:
@@ -134,7 +140,7 @@ public class JMainFrame extends JFrame implements IPuzzleSituationView {
 	}
 
 	private String getStateText() {
-		switch (hashiModel.getPuzzleState()) {
+		switch (puzzleState) {
 		case NOT_YET_SOLVED:
 			return "noch nicht gelöst";
 		case CONTAINS_ERROR:
@@ -154,32 +160,49 @@ public class JMainFrame extends JFrame implements IPuzzleSituationView {
 		getContentPane().add(component);
 	}
 
+	/**
+	 * Shows the <code>snapshot</code> in the field panel, which repaints the
+	 * bridges and islands that changed, and updates the state label.
+	 */
 	@Override
-	public void refresh() {
-		setPuzzleStateLabel();
-		SwingUtilities.invokeLater(new Runnable() { // not always edt
+	public void refresh(final PuzzleSnapshot snapshot) {
+		SwingUtilities.invokeLater(new Runnable() {
 
 			@Override
 			public void run() {
-				repaint();
-
+				fieldPanel.setPuzzleSnapshot(snapshot);
+				puzzleState = snapshot.getPuzzleState();
+				setPuzzleStateLabel();
+				controlPanel.setPuzzleState(puzzleState);
 			}
 		});
 	}
 
+	/**
+	 * Sets the <code>hashiModel</code> as the model of the menu bar. The field
+	 * panel, the state label and the control panel are refreshed by the snapshot
+	 * following.
+	 */
 	@Override
-	public void setPuzzleSituationModelAndRefresh(IPuzzleSituationModel hashiModel) {
-		this.hashiModel = hashiModel;
-		((JPuzzleMenuBar) getJMenuBar()).setPuzzleSituationModel(hashiModel);
-		fieldPanel.setPuzzleSituationModel(hashiModel);
-		controlPanel.setPuzzleSituationModel(hashiModel);
-		refresh();
+	public void setPuzzleSituationModelAndRefresh(final IPuzzleSituationModel hashiModel) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run() {
+				((JPuzzleMenuBar) getJMenuBar()).setPuzzleSituationModel(hashiModel);
+			}
+		});
 	}
 
 	@Override
-	public void setSolverStateAndRefresh(SolverState solverState) {
-		controlPanel.setSolverState(solverState);
-		refresh();
+	public void setSolverStateAndRefresh(final SolverState solverState) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run() {
+				controlPanel.setSolverState(solverState);
+			}
+		});
 	}
 
 }
@@ -4,24 +4,31 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 
+import javax.swing.ButtonGroup;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JRadioButtonMenuItem;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import controller.IInputListener;
+import controller.PuzzleSolver;
 import model.IPuzzleSituationModel;
 
 /**
  * An extension of <code>JMenuBar</code> representing the menu and dialogs of
  * the Hashiwokakeru puzzle application for restarting and saving the currently
- * shown puzzle, creating and loading a new puzzle as well as quitting the
+ * shown puzzle, creating and loading a new puzzle, choosing the pause between
+ * bridges when the puzzle is solved automatically as well as quitting the
  * application.
  */
 public class JPuzzleMenuBar extends JMenuBar implements IModelQuerier {
 
+	private static final String[] SOLVING_DELAY_NAMES = { "Langsam (2 s)", "Mittel (0,5 s)", "Schnell (0,1 s)" };
+	private static final int[] SOLVING_DELAYS = { PuzzleSolver.DEFAULT_DELAY, 500, 100 };
+
 	private JFrame owner;
 	private IInputListener inputListener;
 	private IPuzzleSituationModel model;
@@ -53,6 +60,14 @@ public class JPuzzleMenuBar extends JMenuBar implements IModelQuerier {
 		menu.add(getSavePuzzleMenuItem());
 		menu.add(getSavePuzzleAsMenuItem());
 		menu.add(getExitMenuItem());
+		JMenu solvingDelayMenu = new JMenu("Lösungsgeschwindigkeit");
+		add(solvingDelayMenu);
+		ButtonGroup solvingDelayGroup = new ButtonGroup();
+		for (int i = 0; i < SOLVING_DELAYS.length; i++) {
+			JMenuItem menuItem = getSolvingDelayMenuItem(SOLVING_DELAY_NAMES[i], SOLVING_DELAYS[i]);
+			solvingDelayGroup.add(menuItem);
+			solvingDelayMenu.add(menuItem);
+		}
 	}
 
 	private JMenuItem getNewPuzzleMenuItem() {
@@ -156,6 +171,19 @@ public class JPuzzleMenuBar extends JMenuBar implements IModelQuerier {
 		};
 	}
 
+	private JMenuItem getSolvingDelayMenuItem(String name, final int solvingDelay) {
+		JMenuItem menuItem = new JRadioButtonMenuItem(name, solvingDelay == PuzzleSolver.DEFAULT_DELAY);
+		menuItem.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				inputListener.setSolvingDelay(solvingDelay);
+			}
+
+		});
+		return menuItem;
+	}
+
 	private JMenuItem getExitMenuItem() {
 		JMenuItem menuItem = new JMenuItem("Beenden");
 		menuItem.addActionListener(new ActionListener() {
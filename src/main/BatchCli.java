@@ -0,0 +1,167 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import controller.BacktrackingSolver;
+import controller.BinaryCorpusReader;
+import controller.BinaryPuzzleFormat;
+import controller.BridgeAdder;
+import controller.DifficultyGrader;
+import controller.DifficultyGrader.Difficulty;
+import controller.DifficultyGrader.Technique;
+import controller.PuzzleAnalyzer;
+import controller.PuzzleLoader;
+import controller.PuzzleRecord;
+import controller.PuzzleStateChecker;
+import controller.SolveService;
+import controller.SolverMetrics;
+import model.CandidateEdgeGraph;
+import model.IPuzzleSituationModel;
+
+/**
+ * Command line interface solving a batch of Hashiwokakeru puzzles and printing
+ * the metrics collected while solving them as JSON. Each puzzle is solved twice:
+ * by the rules of the <code>BridgeAdder</code>, as far as they get, and
+ * completely by the <code>BacktrackingSolver</code>, which also finds out if
+ * the solution is unique. Each puzzle is graded by the
+ * <code>DifficultyGrader</code> as well. Solving and grading are limited in
+ * time like in the <code>PuzzleAnalyzer</code>; puzzles exceeding a limit are
+ * counted as timed out.
+ *
+ * <p>
+ * Usage: <code>BatchCli path...</code>, where each path is a .bgs file, a
+ * binary corpus file or a directory that is searched for such files.
+ * </p>
+ */
+public class BatchCli {
+
+	private static final String USAGE = "Usage: BatchCli path... (.bgs files, " + BinaryPuzzleFormat.FILE_EXTENSION
+			+ " files or directories)";
+
+	private final SolverMetrics metrics = new SolverMetrics();
+	private final DifficultyGrader grader = new DifficultyGrader();
+	private final int[] noOfPuzzlesPerTier = new int[Technique.values().length];
+	private long totalDifficultyScore;
+	private int noOfPuzzles, noOfInvalidFiles, noOfPuzzlesSolvedByRules, noOfUniquePuzzles,
+			noOfPuzzlesWithMultipleSolutions, noOfUnsolvablePuzzles, noOfPuzzlesTimedOut,
+			noOfGradesTimedOut;
+
+	/**
+	 * Solves all puzzles found at the paths given and prints the metrics as JSON.
+	 * 
+	 * @param args
+	 *            paths of puzzle files or directories
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println(USAGE);
+			return;
+		}
+		BatchCli batch = new BatchCli();
+		long start = System.nanoTime();
+		for (String arg : args) {
+			for (Path file : findPuzzleFiles(Paths.get(arg))) {
+				batch.solvePuzzlesIn(file);
+			}
+		}
+		System.out.println(batch.toJson((System.nanoTime() - start) / 1_000_000));
+	}
+
+	private static List<Path> findPuzzleFiles(Path path) {
+		if (!Files.isDirectory(path)) {
+			List<Path> files = new ArrayList<>();
+			files.add(path);
+			return files;
+		}
+		try (Stream<Path> paths = Files.walk(path)) {
+			return paths.filter(file -> Files.isRegularFile(file) && (file.toString().endsWith(".bgs")
+					|| file.toString().endsWith(BinaryPuzzleFormat.FILE_EXTENSION))).sorted()
+					.collect(Collectors.toList());
+		} catch (IOException e) {
+			e.printStackTrace();
+			return new ArrayList<>();
+		}
+	}
+
+	private void solvePuzzlesIn(Path file) {
+		try {
+			if (file.toString().endsWith(BinaryPuzzleFormat.FILE_EXTENSION)) {
+				try (BinaryCorpusReader reader = new BinaryCorpusReader(file)) {
+					for (PuzzleRecord record : reader) {
+						solve(record.toModel());
+					}
+				}
+			} else {
+				for (IPuzzleSituationModel hashiModel : new PuzzleLoader().loadPuzzles(file.toString())) {
+					solve(hashiModel);
+				}
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println(file + ": " + e.getMessage());
+			noOfInvalidFiles++;
+		}
+	}
+
+	private void solve(IPuzzleSituationModel hashiModel) {
+		noOfPuzzles++;
+		hashiModel.removeAllBridges();
+		PuzzleStateChecker stateChecker = new PuzzleStateChecker(hashiModel);
+		stateChecker.setMetrics(metrics);
+		stateChecker.setPuzzleState();
+		BridgeAdder bridgeAdder = new BridgeAdder(hashiModel, stateChecker);
+		bridgeAdder.setMetrics(metrics);
+		bridgeAdder.setContradictionSolver(null); // count puzzles solved by the rules alone
+		while (bridgeAdder.makeSureMove()) {
+		}
+		if (hashiModel.isSolved()) {
+			noOfPuzzlesSolvedByRules++;
+		}
+		CandidateEdgeGraph graph = CandidateEdgeGraph.of(hashiModel);
+		Difficulty difficulty = grader.grade(graph);
+		noOfPuzzlesPerTier[difficulty.getHardestTechnique().ordinal()]++;
+		totalDifficultyScore += difficulty.getScore();
+		if (difficulty.wasTimedOut()) {
+			noOfGradesTimedOut++;
+		}
+		BacktrackingSolver solver = SolveService.newSolver(graph, PuzzleAnalyzer.SOLVE_TIME_LIMIT);
+		solver.setMetrics(metrics);
+		int noOfSolutions = solver.solve(2);
+		if (solver.wasTimedOut()) {
+			noOfPuzzlesTimedOut++;
+			return;
+		}
+		switch (noOfSolutions) {
+		case 0:
+			noOfUnsolvablePuzzles++;
+			break;
+		case 1:
+			noOfUniquePuzzles++;
+			break;
+		default:
+			noOfPuzzlesWithMultipleSolutions++;
+		}
+	}
+
+	private String toJson(long millis) {
+		StringBuilder tiers = new StringBuilder("{");
+		for (Technique technique : Technique.values()) {
+			tiers.append(technique.ordinal() > 0 ? "," : "").append('"').append(technique).append("\":")
+					.append(noOfPuzzlesPerTier[technique.ordinal()]);
+		}
+		tiers.append('}');
+		return "{\"puzzles\":" + noOfPuzzles + ",\"invalidFiles\":" + noOfInvalidFiles + ",\"solvedByRules\":"
+				+ noOfPuzzlesSolvedByRules + ",\"unique\":" + noOfUniquePuzzles + ",\"multipleSolutions\":"
+				+ noOfPuzzlesWithMultipleSolutions + ",\"unsolvable\":" + noOfUnsolvablePuzzles + ",\"timedOut\":"
+				+ noOfPuzzlesTimedOut + ",\"millis\":" + millis + ",\"tiers\":" + tiers + ",\"gradingTimedOut\":"
+				+ noOfGradesTimedOut + ",\"totalDifficultyScore\":" + totalDifficultyScore + ",\"metrics\":"
+				+ metrics.toJson() + "}";
+	}
+
+}
@@ -0,0 +1,82 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.BacktrackingSolver;
+import controller.DomWdegHeuristic;
+import controller.IBranchingHeuristic;
+import controller.LargestComponentHeuristic;
+import controller.MostConstrainedIslandHeuristic;
+import controller.PuzzleGenerator;
+import model.CandidateEdgeGraph;
+
+/**
+ * Command line benchmark comparing the branching heuristics of the
+ * <code>BacktrackingSolver</code> with and without restarts. The corpus is
+ * generated from a fixed seed, so every run solves the same puzzles and the
+ * results of different runs can be compared.
+ *
+ * <p>
+ * Usage: <code>HeuristicBenchmark [noOfPuzzles [seed]]</code>
+ * </p>
+ */
+public class HeuristicBenchmark {
+
+	private static final int DEFAULT_NO_OF_PUZZLES = 200, WIDTH = 25, HEIGHT = 25, NO_OF_ISLANDS = 100,
+			RESTART_UNIT = 32;
+	private static final long DEFAULT_SEED = 42;
+
+	/**
+	 * Generates the corpus and prints a table with one row per configuration.
+	 *
+	 * @param args
+	 *            number of puzzles and seed of the corpus, both optional
+	 */
+	public static void main(String[] args) {
+		int noOfPuzzles = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NO_OF_PUZZLES;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+		List<CandidateEdgeGraph> corpus = generateCorpus(noOfPuzzles, seed);
+		for (CandidateEdgeGraph graph : corpus) { // warm up, so the first row is not slowed down by compilation
+			new BacktrackingSolver(graph).solve();
+		}
+		System.out.println(String.format("%-32s %8s %12s %10s %10s", "heuristic", "solved", "nodes", "restarts",
+				"ms"));
+		for (boolean restarts : new boolean[] { false, true }) {
+			run("fewest options", null, restarts, corpus, seed);
+			run("most constrained island", new MostConstrainedIslandHeuristic(), restarts, corpus, seed);
+			run("largest component", new LargestComponentHeuristic(), restarts, corpus, seed);
+			run("dom/wdeg", new DomWdegHeuristic(), restarts, corpus, seed);
+		}
+	}
+
+	private static List<CandidateEdgeGraph> generateCorpus(int noOfPuzzles, long seed) {
+		PuzzleGenerator generator = new PuzzleGenerator(seed);
+		List<CandidateEdgeGraph> corpus = new ArrayList<>();
+		for (int i = 0; i < noOfPuzzles; i++) {
+			corpus.add(CandidateEdgeGraph.of(generator.getPuzzleSituationModel(WIDTH, HEIGHT, NO_OF_ISLANDS)));
+		}
+		return corpus;
+	}
+
+	private static void run(String name, IBranchingHeuristic heuristic, boolean restarts,
+			List<CandidateEdgeGraph> corpus, long seed) {
+		int noOfSolvedPuzzles = 0;
+		long noOfNodes = 0, noOfRestarts = 0;
+		long start = System.nanoTime();
+		for (CandidateEdgeGraph graph : corpus) {
+			BacktrackingSolver solver = new BacktrackingSolver(graph);
+			solver.setBranchingHeuristic(heuristic);
+			solver.setRestarts(restarts ? RESTART_UNIT : 0, seed);
+			if (solver.solve() != null) {
+				noOfSolvedPuzzles++;
+			}
+			noOfNodes += solver.getNoOfNodes();
+			noOfRestarts += solver.getNoOfRestarts();
+		}
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		System.out.println(String.format("%-32s %8d %12d %10d %10d", name + (restarts ? " + Luby" : ""),
+				noOfSolvedPuzzles, noOfNodes, noOfRestarts, millis));
+	}
+
+}
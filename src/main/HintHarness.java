@@ -0,0 +1,90 @@
+package main;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import controller.HintEngine;
+import controller.PuzzleAnalysis;
+import controller.PuzzleAnalyzer;
+import controller.PuzzleGenerator;
+import controller.PuzzleStateChecker;
+import controller.SolutionCache;
+import model.HashiModel.Island;
+import model.IPuzzleSituationModel;
+
+/**
+ * Command line check that hints are served on large boards. A large puzzle is
+ * generated and analyzed in the background like in the application, and a
+ * {@link HintEngine} is asked for a hint until it serves one. Then every bridge
+ * the engine serves is built until the puzzle is solved.
+ *
+ * <p>
+ * Exits with status 1 if no hint was served within twice the time limit of the
+ * searches of the {@link PuzzleAnalyzer} plus a margin, or if building the
+ * bridges served did not solve the puzzle.
+ * </p>
+ *
+ * <p>
+ * Usage: <code>HintHarness [width height noOfIslands [seed]]</code>
+ * </p>
+ */
+public class HintHarness {
+
+	private static final int DEFAULT_WIDTH = 100, DEFAULT_HEIGHT = 100, DEFAULT_NO_OF_ISLANDS = 1500;
+	private static final long DEFAULT_SEED = 3;
+	private static final long MARGIN = 5000, POLL_INTERVAL = 10;
+
+	/**
+	 * Generates and analyzes the puzzle and prints when the first hint was served.
+	 *
+	 * @param args
+	 *            width, height and number of islands of the puzzle and seed, all
+	 *            optional
+	 */
+	public static void main(String[] args) {
+		int width = args.length > 2 ? Integer.parseInt(args[0]) : DEFAULT_WIDTH;
+		int height = args.length > 2 ? Integer.parseInt(args[1]) : DEFAULT_HEIGHT;
+		int noOfIslands = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_NO_OF_ISLANDS;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+		IPuzzleSituationModel hashiModel = new PuzzleGenerator(seed).getPuzzleSituationModel(width, height,
+				noOfIslands);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			long start = System.nanoTime();
+			Future<PuzzleAnalysis> analysis = new PuzzleAnalyzer(executor, new SolutionCache(1)).analyze(hashiModel);
+			HintEngine hintEngine = new HintEngine(hashiModel, analysis);
+			long deadline = start + (2 * PuzzleAnalyzer.SOLVE_TIME_LIMIT + MARGIN) * 1000000;
+			Island[] hint = hintEngine.getNextBridge();
+			while (hint == null && System.nanoTime() - deadline < 0) {
+				Thread.sleep(POLL_INTERVAL);
+				hint = hintEngine.getNextBridge();
+			}
+			long millis = (System.nanoTime() - start) / 1000000;
+			String puzzle = width + " x " + height + " puzzle with " + noOfIslands + " islands";
+			if (hint == null) {
+				System.out.println("No hint for the " + puzzle + " within " + millis + " ms");
+				System.exit(1);
+			}
+			System.out.println("First hint for the " + puzzle + " after " + millis + " ms, solution "
+					+ (hintEngine.isSolutionUnique() ? "unique" : "not known to be unique"));
+			int noOfHints = 0;
+			for (; hint != null; hint = hintEngine.getNextBridge()) {
+				hashiModel.addBridgeBetween(hint[0], hint[1]);
+				hintEngine.bridgeChanged(hint[0], hint[1]);
+				noOfHints++;
+			}
+			PuzzleStateChecker stateChecker = new PuzzleStateChecker(hashiModel);
+			stateChecker.setPuzzleState();
+			System.out.println(noOfHints + " hints built, puzzle " + hashiModel.getPuzzleState());
+			if (!hashiModel.isSolved()) {
+				System.exit(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
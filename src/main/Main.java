@@ -1,6 +1,7 @@
 package main;
 
 import java.io.File;
+import java.util.Arrays;
 
 import controller.BridgeAdder;
 import controller.MainPuzzleController;
@@ -17,9 +18,35 @@ import model.IPuzzleSituationModel;
 public class Main {
 
 	/*
-	 * Starts the application.
+	 * Starts the application or, if the first argument is --batch, solves the
+	 * puzzles at the paths given as further arguments (see BatchCli) or, if it is
+	 * --benchmark, compares the branching heuristics (see HeuristicBenchmark) or,
+	 * if it is --server, serves the engine over HTTP (see PuzzleHttpServer) or, if
+	 * it is --stress, changes models on several threads at once (see
+	 * StressHarness) or, if it is --hints, checks that hints are served on a
+	 * large board (see HintHarness).
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("--batch")) {
+			BatchCli.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--benchmark")) {
+			HeuristicBenchmark.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--server")) {
+			PuzzleHttpServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--stress")) {
+			StressHarness.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--hints")) {
+			HintHarness.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		new MainPuzzleController();
 //		for (int i = 0; i < 1000; i++) {
 //			testSolvePuzzle("/Users/Hightown/Desktop/BGS/");
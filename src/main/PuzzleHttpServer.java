@@ -0,0 +1,332 @@
+package main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import common.ThreadPools;
+import controller.PuzzleGenerator;
+import controller.PuzzleLoader;
+import controller.PuzzleSaver;
+import controller.PuzzleStateChecker;
+import controller.SolveResult;
+import controller.SolveService;
+import model.IPuzzleSituationModel;
+
+/**
+ * Embedded HTTP server offering the engine without the GUI, e.g. to be called
+ * over loopback by a game backend. It offers two endpoints:
+ * <ul>
+ * <li><code>POST /solve[?budget=ms]</code> with the content of a .bgs file as
+ * body answers with JSON holding the state of the puzzle posted, the status of
+ * solving, statistics and the solved puzzle as .bgs text. Bridges of the
+ * puzzle posted are ignored when solving.</li>
+ * <li><code>GET /generate?width=w&amp;height=h[&amp;islands=n][&amp;seed=s]</code>
+ * answers with a generated puzzle as .bgs text. The same seed always yields
+ * the same puzzle.</li>
+ * </ul>
+ *
+ * <p>
+ * Each exchange is handled on a virtual thread if the Java runtime provides
+ * them, otherwise on a pool of platform threads. Solving is handed over to a
+ * shared {@link SolveService}. Since neither the exchanges nor the service are
+ * bounded on virtual threads, at most one puzzle per processor is solved or
+ * generated at the same time. Further requests wait for their turn; a request
+ * that cannot start within {@link #MAX_WAITING_TIME} milliseconds is answered
+ * with status 503, so the server stays responsive under load.
+ * </p>
+ *
+ * <p>
+ * Usage: <code>PuzzleHttpServer [port]</code>
+ * </p>
+ */
+public class PuzzleHttpServer {
+
+	/**
+	 * Port the server listens on if none is given.
+	 */
+	public static final int DEFAULT_PORT = 8080;
+
+	/**
+	 * Number of milliseconds a request may wait until its puzzle is solved or
+	 * generated.
+	 */
+	public static final long MAX_WAITING_TIME = 10000;
+
+	private static final int NO_OF_PLATFORM_THREADS = 64;
+
+	private final HttpServer server;
+	private final ExecutorService exchangeExecutor;
+	private final SolveService solveService;
+	private final Semaphore permits = new Semaphore(Runtime.getRuntime().availableProcessors(), true); // to compute
+
+	/**
+	 * Constructs an instance of a <code>PuzzleHttpServer</code> listening on the
+	 * <code>address</code>. The server must be {@link #start() started}.
+	 *
+	 * @param address
+	 *            to listen on
+	 * @param solveService
+	 *            solving the puzzles posted
+	 * @throws IOException
+	 *             if the address cannot be bound
+	 */
+	public PuzzleHttpServer(InetSocketAddress address, SolveService solveService) throws IOException {
+		this.solveService = solveService;
+		server = HttpServer.create(address, 0);
+		server.createContext("/solve", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleSolve(exchange);
+			}
+		});
+		server.createContext("/generate", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleGenerate(exchange);
+			}
+		});
+		exchangeExecutor = ThreadPools.newVirtualThreadOrFixedThreadPool(NO_OF_PLATFORM_THREADS, "Hashi HTTP exchange");
+		server.setExecutor(exchangeExecutor);
+	}
+
+	/**
+	 * Starts the server on the loopback address.
+	 *
+	 * @param args
+	 *            port, optional
+	 */
+	public static void main(String[] args) {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		try {
+			PuzzleHttpServer server = new PuzzleHttpServer(
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), port), new SolveService());
+			server.start();
+			System.out.println("Listening on http://localhost:" + server.getPort() + "/");
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops accepting requests, waits at most <code>delay</code> seconds for the
+	 * exchanges running and shuts down the solve service.
+	 *
+	 * @param delay
+	 *            number of seconds to wait for running exchanges
+	 */
+	public void stop(int delay) {
+		server.stop(delay);
+		exchangeExecutor.shutdownNow();
+		solveService.shutdown();
+	}
+
+	/**
+	 * Gets the port the server listens on, e.g. if it was started on port 0.
+	 *
+	 * @return port
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handleSolve(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("POST")) {
+				sendError(exchange, 405, "Use POST with the content of a .bgs file as body.");
+				return;
+			}
+			Map<String, String> parameters = getParameters(exchange);
+			long budget = getLong(parameters, "budget", SolveService.DEFAULT_BUDGET);
+			IPuzzleSituationModel hashiModel = new PuzzleLoader()
+					.loadPuzzleFromContent(new String(readBody(exchange), StandardCharsets.UTF_8));
+			new PuzzleStateChecker(hashiModel).setPuzzleState();
+			if (!permits.tryAcquire(MAX_WAITING_TIME, TimeUnit.MILLISECONDS)) {
+				sendError(exchange, 503, "Server is busy.");
+				return;
+			}
+			SolveResult result;
+			try {
+				result = solveService.solve(hashiModel, budget).get();
+			} finally {
+				permits.release();
+			}
+			StringBuilder json = new StringBuilder();
+			json.append("{\"puzzleState\":\"").append(hashiModel.getPuzzleState()).append("\",\"status\":\"")
+					.append(result.getStatus()).append("\",\"width\":").append(hashiModel.getWidth())
+					.append(",\"height\":").append(hashiModel.getHeight()).append(",\"islands\":")
+					.append(hashiModel.getNoOfIslands()).append(",\"edges\":")
+					.append(result.getGraph().getNoOfEdges()).append(",\"nodes\":").append(result.getNoOfNodes())
+					.append(",\"millis\":").append(result.getElapsedTime()).append(",\"solution\":");
+			if (result.getSolution() == null) {
+				json.append("null");
+			} else {
+				json.append(toJsonString(toBgs(result.getSolvedModel())));
+			}
+			json.append('}');
+			send(exchange, 200, "application/json", json.toString());
+		} catch (IllegalArgumentException e) {
+			sendError(exchange, 400, e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			sendError(exchange, 503, "Server is shutting down.");
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+			sendError(exchange, 500, String.valueOf(e.getCause()));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleGenerate(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				sendError(exchange, 405, "Use GET.");
+				return;
+			}
+			Map<String, String> parameters = getParameters(exchange);
+			int width = (int) getLong(parameters, "width", -1);
+			int height = (int) getLong(parameters, "height", -1);
+			if (width < 0 || height < 0)
+				throw new IllegalArgumentException("Parameters width and height are required.");
+			PuzzleGenerator generator = parameters.containsKey("seed")
+					? new PuzzleGenerator(getLong(parameters, "seed", 0))
+					: new PuzzleGenerator();
+			int noOfIslands = (int) getLong(parameters, "islands", 0);
+			if (!permits.tryAcquire(MAX_WAITING_TIME, TimeUnit.MILLISECONDS)) {
+				sendError(exchange, 503, "Server is busy.");
+				return;
+			}
+			IPuzzleSituationModel hashiModel;
+			try {
+				hashiModel = parameters.containsKey("islands") ? generator.getPuzzleSituationModel(width, height, noOfIslands)
+						: generator.getPuzzleSituationModel(width, height);
+			} finally {
+				permits.release();
+			}
+			send(exchange, 200, "text/plain; charset=utf-8", toBgs(hashiModel));
+		} catch (IllegalArgumentException e) {
+			sendError(exchange, 400, e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			sendError(exchange, 503, "Server is shutting down.");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static Map<String, String> getParameters(HttpExchange exchange) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				int separator = parameter.indexOf('=');
+				if (separator > 0) {
+					parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+							URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+				}
+			}
+		}
+		return parameters;
+	}
+
+	private static long getLong(Map<String, String> parameters, String name, long defaultValue)
+			throws IllegalArgumentException {
+		String value = parameters.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value);
+		}
+	}
+
+	private static byte[] readBody(HttpExchange exchange) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] buffer = new byte[8192];
+			int noOfBytes;
+			while ((noOfBytes = in.read(buffer)) > 0) {
+				body.write(buffer, 0, noOfBytes);
+			}
+		}
+		return body.toByteArray();
+	}
+
+	private static String toBgs(IPuzzleSituationModel hashiModel) throws IOException {
+		StringWriter out = new StringWriter();
+		new PuzzleSaver().writePuzzle(out, hashiModel);
+		return out.toString();
+	}
+
+	private static String toJsonString(String s) {
+		StringBuilder json = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+		return json.append('"').toString();
+	}
+
+	private static void sendError(HttpExchange exchange, int code, String message) throws IOException {
+		send(exchange, code, "application/json", "{\"error\":" + toJsonString(String.valueOf(message)) + "}");
+	}
+
+	private static void send(HttpExchange exchange, int code, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(code, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import common.Direction;
+import controller.BridgeAdder;
+import controller.PuzzleGenerator;
+import controller.PuzzleStateChecker;
+import model.HashiModel.Bridge;
+import model.HashiModel.Island;
+import model.IBridgeChangeListener;
+import model.IPuzzleSituationModel;
+
+/**
+ * Command line stress test of models changed concurrently. Each thread
+ * generates its own puzzles and changes their bridges by sure moves of the
+ * <code>BridgeAdder</code>, random bridges added and removed and restarts.
+ * After every move the bridge last inserted into the model (see
+ * {@link IPuzzleSituationModel#getLastInsertedBridge() getLastInsertedBridge})
+ * is compared with the top of a stack of the bridges inserted that the thread
+ * keeps from the bridge changes it is notified of. Since models used on
+ * different threads share nothing, no move of one thread may disturb the
+ * journal of a model of another thread.
+ *
+ * <p>
+ * Exits with status 1 if the last inserted bridge differed from the top of the
+ * stack at least once.
+ * </p>
+ *
+ * <p>
+ * Usage: <code>StressHarness [noOfThreads [noOfMovesPerThread [seed]]]</code>
+ * </p>
+ */
+public class StressHarness {
+
+	private static final int DEFAULT_NO_OF_MOVES_PER_THREAD = 20000, WIDTH = 25, HEIGHT = 25, NO_OF_ISLANDS = 100,
+			NO_OF_MOVES_PER_PUZZLE = 2000;
+	private static final long DEFAULT_SEED = 42;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final AtomicLong noOfMoves = new AtomicLong(), noOfMismatches = new AtomicLong();
+	private volatile String firstMismatch;
+
+	/**
+	 * Runs the threads and prints the number of moves and mismatches.
+	 *
+	 * @param args
+	 *            number of threads, number of moves per thread and seed, all
+	 *            optional
+	 */
+	public static void main(String[] args) {
+		int noOfThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int noOfMovesPerThread = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NO_OF_MOVES_PER_THREAD;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+		StressHarness harness = new StressHarness();
+		long start = System.nanoTime();
+		harness.run(noOfThreads, noOfMovesPerThread, seed);
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		System.out.println(noOfThreads + " threads, " + harness.noOfMoves.get() + " moves, "
+				+ harness.noOfMismatches.get() + " mismatches, " + millis + " ms");
+		if (harness.noOfMismatches.get() > 0) {
+			System.out.println("First mismatch: " + harness.firstMismatch);
+			System.exit(1);
+		}
+	}
+
+	private void run(int noOfThreads, final int noOfMovesPerThread, long seed) {
+		Thread[] threads = new Thread[noOfThreads];
+		for (int t = 0; t < noOfThreads; t++) {
+			final long seedOfThread = seed + t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					changeModels(noOfMovesPerThread, seedOfThread);
+				}
+			}, "Hashi stress " + t);
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void changeModels(int noOfMoves, long seed) {
+		PuzzleGenerator generator = new PuzzleGenerator(seed);
+		Random random = new Random(seed);
+		for (int move = 0; move < noOfMoves; move += NO_OF_MOVES_PER_PUZZLE) {
+			IPuzzleSituationModel hashiModel = generator.getPuzzleSituationModel(WIDTH, HEIGHT, NO_OF_ISLANDS);
+			changeModel(hashiModel, Math.min(NO_OF_MOVES_PER_PUZZLE, noOfMoves - move), random);
+		}
+	}
+
+	private void changeModel(IPuzzleSituationModel hashiModel, int noOfMoves, Random random) {
+		final List<Island[]> expectedStack = new ArrayList<>();
+		hashiModel.addBridgeChangeListener(new IBridgeChangeListener() {
+			@Override
+			public void bridgeChanged(Island start, Island end, int oldNoOfBridges, int newNoOfBridges) {
+				for (int i = oldNoOfBridges; i < newNoOfBridges; i++) {
+					expectedStack.add(new Island[] { start, end });
+				}
+				for (int i = newNoOfBridges; i < oldNoOfBridges; i++) { // the latest entries of the bridge
+					for (int j = expectedStack.size() - 1; j >= 0; j--) {
+						if (expectedStack.get(j)[0] == start && expectedStack.get(j)[1] == end) {
+							expectedStack.remove(j);
+							break;
+						}
+					}
+				}
+			}
+		});
+		PuzzleStateChecker stateChecker = new PuzzleStateChecker(hashiModel);
+		BridgeAdder bridgeAdder = new BridgeAdder(hashiModel, stateChecker);
+		bridgeAdder.setContradictionSolver(null); // rules are enough to build many bridges quickly
+		List<Island> islands = hashiModel.getIslands();
+		for (int move = 0; move < noOfMoves; move++) {
+			int kind = random.nextInt(100);
+			if (kind < 40) {
+				bridgeAdder.makeSureMove();
+			} else if (kind < 99) {
+				Island island = islands.get(random.nextInt(islands.size()));
+				Island neighbor = hashiModel.getNeighborIsland(island, DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+				if (neighbor != null) {
+					if (kind < 70 && hashiModel.getBridgeBetween(island, neighbor) == null) {
+						hashiModel.addBridgeBetween(island, neighbor, random.nextInt(4) == 0);
+					} else if (kind < 70) {
+						hashiModel.addBridgeBetween(island, neighbor);
+					} else {
+						hashiModel.removeBridgeBetween(island, neighbor, random.nextInt(4) == 0);
+					}
+				}
+			} else {
+				hashiModel.removeAllBridges();
+			}
+			check(hashiModel, expectedStack);
+		}
+	}
+
+	private void check(IPuzzleSituationModel hashiModel, List<Island[]> expectedStack) {
+		noOfMoves.incrementAndGet();
+		Bridge lastInsertedBridge = hashiModel.getLastInsertedBridge();
+		Island[] expected = expectedStack.isEmpty() ? null : expectedStack.get(expectedStack.size() - 1);
+		boolean matches = expected == null ? lastInsertedBridge == null
+				: lastInsertedBridge != null && lastInsertedBridge.getStart() == expected[0]
+						&& lastInsertedBridge.getEnd() == expected[1];
+		if (!matches && noOfMismatches.getAndIncrement() == 0) {
+			firstMismatch = Thread.currentThread().getName() + ": expected "
+					+ (expected == null ? "none" : expected[0] + " - " + expected[1]) + ", but was "
+					+ lastInsertedBridge;
+		}
+	}
+
+}
@@ -0,0 +1,489 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import common.Direction;
+import model.HashiModel.Bridge;
+import model.HashiModel.Island;
+
+/**
+ *
+ * An instance of <code>CandidateEdgeGraph</code> is an immutable, index based
+ * representation of the islands of a Hashiwokakeru puzzle and of all the edges
+ * on which bridges could possibly be built, i.e. the edges between islands that
+ * are neighbors when bridges are ignored.
+ *
+ * <p>
+ * Islands are indexed in natural order, i.e. by column first and row second
+ * (like {@link IPuzzleSituationModel#getIslands() getIslands}). Edges are
+ * indexed by going through the islands in natural order and adding the edge to
+ * the south neighbor first and the edge to the east neighbor second. The start
+ * of an edge is always its north or west end. Bridges are represented by an
+ * <code>int[]</code> holding the number of bridges (0, 1 or 2) built on each
+ * edge.
+ * </p>
+ */
+public class CandidateEdgeGraph {
+
+	private static final int NO_EDGE = -1;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final int width, height;
+	private final int[] islandX, islandY, clues;
+	private final int[] edgeStart, edgeEnd;
+	private final boolean[] edgeVertical;
+	private final int[] incidentEdges; // incidentEdges[4 * island + direction.ordinal()]
+	private final int[][] crossingEdges;
+
+	/**
+	 * Constructs an instance of a <code>CandidateEdgeGraph</code> of a
+	 * <code>width x height</code> puzzle whose i-th island is found at
+	 * (<code>islandX[i]</code>, <code>islandY[i]</code>) and requires
+	 * <code>clues[i]</code> bridges. The islands do not need to be ordered.
+	 *
+	 * @param width   of the puzzle
+	 * @param height  of the puzzle
+	 * @param islandX columns of the islands
+	 * @param islandY rows of the islands
+	 * @param clues   number of bridges required by the islands
+	 * @throws IllegalArgumentException if the arrays differ in length, an island
+	 *                                  is not on the field or two islands share
+	 *                                  the same coordinates
+	 */
+	public CandidateEdgeGraph(int width, int height, int[] islandX, int[] islandY, int[] clues)
+			throws IllegalArgumentException {
+		if (islandX.length != islandY.length || islandX.length != clues.length)
+			throw new IllegalArgumentException("Coordinates and clues of islands need to be of the same length.");
+		this.width = width;
+		this.height = height;
+		int noOfIslands = islandX.length;
+		Integer[] order = new Integer[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			if (islandX[i] < 0 || islandY[i] < 0 || islandX[i] >= width || islandY[i] >= height)
+				throw new IllegalArgumentException(
+						"Island at (" + islandX[i] + ", " + islandY[i] + ") is not on the field.");
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> islandX[a] != islandX[b] ? Integer.compare(islandX[a], islandX[b])
+				: Integer.compare(islandY[a], islandY[b]));
+		this.islandX = new int[noOfIslands];
+		this.islandY = new int[noOfIslands];
+		this.clues = new int[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			this.islandX[i] = islandX[order[i]];
+			this.islandY[i] = islandY[order[i]];
+			this.clues[i] = clues[order[i]];
+			if (i > 0 && this.islandX[i] == this.islandX[i - 1] && this.islandY[i] == this.islandY[i - 1])
+				throw new IllegalArgumentException(
+						"There are two islands at (" + this.islandX[i] + ", " + this.islandY[i] + ").");
+		}
+		incidentEdges = new int[4 * noOfIslands];
+		Arrays.fill(incidentEdges, NO_EDGE);
+		int[] eastNeighbors = getEastNeighbors();
+		int[] starts = new int[2 * noOfIslands];
+		int[] ends = new int[2 * noOfIslands];
+		boolean[] vertical = new boolean[2 * noOfIslands];
+		int noOfEdges = 0;
+		for (int i = 0; i < noOfIslands; i++) {
+			if (i + 1 < noOfIslands && this.islandX[i + 1] == this.islandX[i]) { // south neighbor
+				starts[noOfEdges] = i;
+				ends[noOfEdges] = i + 1;
+				vertical[noOfEdges] = true;
+				incidentEdges[4 * i + Direction.SOUTH.ordinal()] = noOfEdges;
+				incidentEdges[4 * (i + 1) + Direction.NORTH.ordinal()] = noOfEdges;
+				noOfEdges++;
+			}
+			if (eastNeighbors[i] != NO_EDGE) {
+				starts[noOfEdges] = i;
+				ends[noOfEdges] = eastNeighbors[i];
+				incidentEdges[4 * i + Direction.EAST.ordinal()] = noOfEdges;
+				incidentEdges[4 * eastNeighbors[i] + Direction.WEST.ordinal()] = noOfEdges;
+				noOfEdges++;
+			}
+		}
+		edgeStart = Arrays.copyOf(starts, noOfEdges);
+		edgeEnd = Arrays.copyOf(ends, noOfEdges);
+		edgeVertical = Arrays.copyOf(vertical, noOfEdges);
+		crossingEdges = computeCrossingEdges(eastNeighbors);
+	}
+
+	/**
+	 * Constructs the <code>CandidateEdgeGraph</code> of the islands of the
+	 * <code>hashiModel</code>. Bridges of the <code>hashiModel</code> are ignored
+	 * (see {@link #getBridges(IPuzzleSituationModel) getBridges}).
+	 *
+	 * @param hashiModel whose islands are represented by the graph
+	 * @return graph of the islands of the puzzle
+	 */
+	public static CandidateEdgeGraph of(IPuzzleSituationModel hashiModel) {
+		List<Island> islands = hashiModel.getIslands();
+		int[] xs = new int[islands.size()];
+		int[] ys = new int[islands.size()];
+		int[] clues = new int[islands.size()];
+		for (int i = 0; i < islands.size(); i++) {
+			xs[i] = islands.get(i).getX();
+			ys[i] = islands.get(i).getY();
+			clues[i] = islands.get(i).getNoOfBridgesRequired();
+		}
+		return new CandidateEdgeGraph(hashiModel.getWidth(), hashiModel.getHeight(), xs, ys, clues);
+	}
+
+	// islands sorted by row first and column second, neighbors in the same row
+	private int[] getEastNeighbors() {
+		int noOfIslands = islandX.length;
+		Integer[] rowOrder = new Integer[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			rowOrder[i] = i;
+		}
+		Arrays.sort(rowOrder, (a, b) -> islandY[a] != islandY[b] ? Integer.compare(islandY[a], islandY[b])
+				: Integer.compare(islandX[a], islandX[b]));
+		int[] eastNeighbors = new int[noOfIslands];
+		Arrays.fill(eastNeighbors, NO_EDGE);
+		for (int k = 0; k + 1 < noOfIslands; k++) {
+			if (islandY[rowOrder[k]] == islandY[rowOrder[k + 1]]) {
+				eastNeighbors[rowOrder[k]] = rowOrder[k + 1];
+			}
+		}
+		return eastNeighbors;
+	}
+
+	/**
+	 * Determines for every edge the edges crossing it. Horizontal edges of a row
+	 * are disjoint, therefore, for each row crossed by a vertical edge at most one
+	 * horizontal edge can cross it, which is found by binary search.
+	 */
+	private int[][] computeCrossingEdges(int[] eastNeighbors) {
+		int noOfEdges = edgeStart.length;
+		List<List<Integer>> crossings = new ArrayList<>(noOfEdges);
+		List<List<Integer>> horizontalEdgesByRow = new ArrayList<>(height);
+		for (int y = 0; y < height; y++) {
+			horizontalEdgesByRow.add(new ArrayList<>());
+		}
+		for (int e = 0; e < noOfEdges; e++) {
+			crossings.add(new ArrayList<>(0));
+			if (!edgeVertical[e]) {
+				horizontalEdgesByRow.get(islandY[edgeStart[e]]).add(e);
+			}
+		}
+		for (List<Integer> row : horizontalEdgesByRow) {
+			row.sort((a, b) -> Integer.compare(islandX[edgeStart[a]], islandX[edgeStart[b]]));
+		}
+		for (int v = 0; v < noOfEdges; v++) {
+			if (!edgeVertical[v])
+				continue;
+			int x = islandX[edgeStart[v]];
+			for (int y = islandY[edgeStart[v]] + 1; y < islandY[edgeEnd[v]]; y++) {
+				int h = findHorizontalEdgeCovering(horizontalEdgesByRow.get(y), x);
+				if (h != NO_EDGE) {
+					crossings.get(v).add(h);
+					crossings.get(h).add(v);
+				}
+			}
+		}
+		int[][] result = new int[noOfEdges][];
+		for (int e = 0; e < noOfEdges; e++) {
+			result[e] = crossings.get(e).stream().mapToInt(Integer::intValue).toArray();
+		}
+		return result;
+	}
+
+	private int findHorizontalEdgeCovering(List<Integer> row, int x) {
+		int low = 0, high = row.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int edge = row.get(mid);
+			if (islandX[edgeEnd[edge]] <= x) {
+				low = mid + 1;
+			} else if (islandX[edgeStart[edge]] >= x) {
+				high = mid - 1;
+			} else {
+				return edge;
+			}
+		}
+		return NO_EDGE;
+	}
+
+	/**
+	 * Gets the width, i.e. the number of columns, of the puzzle.
+	 *
+	 * @return width of the puzzle
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height, i.e. the number of rows, of the puzzle.
+	 *
+	 * @return height of the puzzle
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gets the number of islands of the puzzle.
+	 *
+	 * @return number of islands
+	 */
+	public int getNoOfIslands() {
+		return islandX.length;
+	}
+
+	/**
+	 * Gets the number of edges on which bridges could possibly be built.
+	 *
+	 * @return number of edges
+	 */
+	public int getNoOfEdges() {
+		return edgeStart.length;
+	}
+
+	public int getIslandX(int island) {
+		return islandX[island];
+	}
+
+	public int getIslandY(int island) {
+		return islandY[island];
+	}
+
+	/**
+	 * Gets the number of bridges required by the <code>island</code>.
+	 *
+	 * @param island index of the island
+	 * @return number of bridges required
+	 */
+	public int getClue(int island) {
+		return clues[island];
+	}
+
+	/**
+	 * Gets the index of the north or west end of the <code>edge</code>.
+	 *
+	 * @param edge index of the edge
+	 * @return index of the island at the start of the edge
+	 */
+	public int getEdgeStart(int edge) {
+		return edgeStart[edge];
+	}
+
+	/**
+	 * Gets the index of the south or east end of the <code>edge</code>.
+	 *
+	 * @param edge index of the edge
+	 * @return index of the island at the end of the edge
+	 */
+	public int getEdgeEnd(int edge) {
+		return edgeEnd[edge];
+	}
+
+	/**
+	 * Gets the index of the island at the other end of the <code>edge</code>.
+	 *
+	 * @param edge   index of the edge
+	 * @param island index of one end of the edge
+	 * @return index of the other end of the edge
+	 */
+	public int getOtherEnd(int edge, int island) {
+		return edgeStart[edge] == island ? edgeEnd[edge] : edgeStart[edge];
+	}
+
+	public boolean isVertical(int edge) {
+		return edgeVertical[edge];
+	}
+
+	/**
+	 * Gets the index of the edge of the <code>island</code> in the
+	 * <code>direction</code>. <strong>Important:</strong> Returns -1 if there is
+	 * no neighbor in the <code>direction</code>.
+	 *
+	 * @param island    index of the island
+	 * @param direction of the edge
+	 * @return index of the edge if existing, otherwise -1
+	 */
+	public int getEdge(int island, Direction direction) {
+		return incidentEdges[4 * island + direction.ordinal()];
+	}
+
+	/**
+	 * Gets the index of the edge between the islands with the indices
+	 * <code>island</code> and <code>otherIsland</code>.
+	 * <strong>Important:</strong> Returns -1 if the islands are not neighbors.
+	 *
+	 * @param island      index of one end of the edge
+	 * @param otherIsland index of the other end of the edge
+	 * @return index of the edge if existing, otherwise -1
+	 */
+	public int getEdgeBetween(int island, int otherIsland) {
+		for (Direction direction : Direction.values()) {
+			int edge = getEdge(island, direction);
+			if (edge != NO_EDGE && getOtherEnd(edge, island) == otherIsland) {
+				return edge;
+			}
+		}
+		return NO_EDGE;
+	}
+
+	/**
+	 * Gets the index of the edge between the <code>island</code> and the
+	 * <code>otherIsland</code> of a model containing the same islands as
+	 * <code>this</code> graph. <strong>Important:</strong> Returns -1 if the
+	 * islands are not neighbors.
+	 *
+	 * @param island      one end of the edge
+	 * @param otherIsland other end of the edge
+	 * @return index of the edge if existing, otherwise -1
+	 */
+	public int getEdgeBetween(Island island, Island otherIsland) {
+		int start = getIslandIndex(island.getX(), island.getY());
+		int end = getIslandIndex(otherIsland.getX(), otherIsland.getY());
+		return start < 0 || end < 0 ? NO_EDGE : getEdgeBetween(start, end);
+	}
+
+	/**
+	 * Gets the indices of all edges crossing the <code>edge</code>. A bridge can
+	 * only be built on the <code>edge</code> if there is no bridge on any of these
+	 * edges.
+	 *
+	 * @param edge index of the edge
+	 * @return indices of crossing edges; must not be modified
+	 */
+	public int[] getCrossingEdges(int edge) {
+		return crossingEdges[edge];
+	}
+
+	/**
+	 * Adds the islands affected by a change of the number of bridges on the
+	 * <code>edge</code> to the <code>islands</code>, i.e. the islands whose
+	 * bridges missing, neighbors or bridges to neighbors may have changed: both
+	 * ends of the edge and their neighbors and, if the edge was bridged or freed,
+	 * the ends of the edges crossing it.
+	 *
+	 * @param edge              index of the edge changed
+	 * @param wasBridgedOrFreed true if the edge had no bridge before or has no
+	 *                          bridge after the change
+	 * @param islands           indices of islands the affected ones are added to
+	 */
+	public void addIslandsAffectedByChangeOf(int edge, boolean wasBridgedOrFreed, BitSet islands) {
+		addIslandAndNeighbors(edgeStart[edge], islands);
+		addIslandAndNeighbors(edgeEnd[edge], islands);
+		if (wasBridgedOrFreed) {
+			for (int crossingEdge : crossingEdges[edge]) {
+				islands.set(edgeStart[crossingEdge]);
+				islands.set(edgeEnd[crossingEdge]);
+			}
+		}
+	}
+
+	private void addIslandAndNeighbors(int island, BitSet islands) {
+		islands.set(island);
+		for (Direction direction : DIRECTIONS) {
+			int edge = getEdge(island, direction);
+			if (edge != NO_EDGE) {
+				islands.set(getOtherEnd(edge, island));
+			}
+		}
+	}
+
+	/**
+	 * Gets the index of the island at (x, y). <strong>Important:</strong> Returns
+	 * -1 if there is no island at (x, y).
+	 *
+	 * @param x coordinate
+	 * @param y coordinate
+	 * @return index of the island if existing, otherwise -1
+	 */
+	public int getIslandIndex(int x, int y) {
+		int low = 0, high = islandX.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (islandX[mid] < x || islandX[mid] == x && islandY[mid] < y) {
+				low = mid + 1;
+			} else if (islandX[mid] == x && islandY[mid] == y) {
+				return mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the number of bridges built on each edge of <code>this</code> graph in
+	 * the <code>hashiModel</code>, which needs to contain the same islands as
+	 * <code>this</code> graph.
+	 *
+	 * @param hashiModel whose bridges are read
+	 * @return number of bridges (0, 1 or 2) for each edge
+	 */
+	public int[] getBridges(IPuzzleSituationModel hashiModel) {
+		int[] bridges = new int[getNoOfEdges()];
+		for (int e = 0; e < bridges.length; e++) {
+			Island start = hashiModel.getIslandAt(islandX[edgeStart[e]], islandY[edgeStart[e]]);
+			Bridge bridge = hashiModel.getBridge(start, edgeVertical[e] ? Direction.SOUTH : Direction.EAST);
+			if (bridge != null) {
+				bridges[e] = bridge.isDouble() ? 2 : 1;
+			}
+		}
+		return bridges;
+	}
+
+	/**
+	 * Creates a new <code>IPuzzleSituationModel</code> containing the islands of
+	 * <code>this</code> graph and the <code>bridges</code>.
+	 *
+	 * @param bridges number of bridges (0, 1 or 2) for each edge or
+	 *                <code>null</code> if no bridges are to be added
+	 * @return new model of the puzzle
+	 * @throws IllegalArgumentException if bridges are crossing
+	 */
+	public IPuzzleSituationModel toModel(int[] bridges) throws IllegalArgumentException {
+		IPuzzleSituationModel hashiModel = HashiModel.of(width, height, getNoOfIslands());
+		for (int i = 0; i < getNoOfIslands(); i++) {
+			hashiModel.addIslandAt(islandX[i], islandY[i], clues[i]);
+		}
+		if (bridges != null) {
+			for (int e = 0; e < getNoOfEdges(); e++) {
+				if (bridges[e] > 0) {
+					hashiModel.addBridgeBetween(hashiModel.getIslandAt(islandX[edgeStart[e]], islandY[edgeStart[e]]),
+							hashiModel.getIslandAt(islandX[edgeEnd[e]], islandY[edgeEnd[e]]), bridges[e] == 2);
+				}
+			}
+		}
+		return hashiModel;
+	}
+
+	/**
+	 * Packs the number of bridges of each edge into two bits, four edges per byte,
+	 * starting with the least significant bits.
+	 *
+	 * @param bridges number of bridges (0, 1 or 2) for each edge
+	 * @return packed bridges
+	 */
+	public static byte[] packBridges(int[] bridges) {
+		byte[] packed = new byte[(bridges.length + 3) / 4];
+		for (int e = 0; e < bridges.length; e++) {
+			packed[e >> 2] |= (bridges[e] & 3) << ((e & 3) << 1);
+		}
+		return packed;
+	}
+
+	/**
+	 * Unpacks bridges packed by {@link #packBridges(int[]) packBridges}.
+	 *
+	 * @param packed    bridges
+	 * @param noOfEdges number of edges that were packed
+	 * @return number of bridges (0, 1 or 2) for each edge
+	 */
+	public static int[] unpackBridges(byte[] packed, int noOfEdges) {
+		int[] bridges = new int[noOfEdges];
+		for (int e = 0; e < noOfEdges; e++) {
+			bridges[e] = (packed[e >> 2] >> ((e & 3) << 1)) & 3;
+		}
+		return bridges;
+	}
+
+}
@@ -0,0 +1,283 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import model.HashiModel.Island;
+
+/**
+ * The <code>CanonicalForm</code> of a Hashiwokakeru puzzle is the smallest
+ * encoding of the puzzle over all eight symmetries of its field (four rotations,
+ * each with and without reflection). Two puzzles have the same canonical form
+ * if and only if one can be turned into the other by rotating and/or
+ * reflecting it. Only the size of the field and the islands including the
+ * number of bridges they require are encoded, bridges are not.
+ *
+ * <p>
+ * The encoding of a puzzle under a symmetry consists of the transformed width
+ * and height, the number of islands and, for each island ordered by its
+ * transformed position, the position (column * height + row) and the number of
+ * bridges required. Encodings are compared lexicographically.
+ * </p>
+ */
+public class CanonicalForm {
+
+	/**
+	 * Number of symmetries of a field.
+	 */
+	public static final int NO_OF_TRANSFORMS = 8;
+
+	private final int width, height;
+	private final int transform;
+	private final int[] encoding;
+	private PuzzleHash hash;
+
+	/**
+	 * Computes the canonical form of a <code>width x height</code> puzzle whose
+	 * i-th island is found at (<code>islandX[i]</code>, <code>islandY[i]</code>)
+	 * and requires <code>clues[i]</code> bridges.
+	 *
+	 * @param width   of the puzzle
+	 * @param height  of the puzzle
+	 * @param islandX columns of the islands
+	 * @param islandY rows of the islands
+	 * @param clues   number of bridges required by the islands
+	 */
+	public CanonicalForm(int width, int height, int[] islandX, int[] islandY, int[] clues) {
+		this.width = width;
+		this.height = height;
+		int[] best = null;
+		int bestTransform = 0;
+		for (int t = 0; t < NO_OF_TRANSFORMS; t++) {
+			int[] candidate = encode(t, islandX, islandY, clues);
+			if (best == null || compare(candidate, best) < 0) {
+				best = candidate;
+				bestTransform = t;
+			}
+		}
+		this.encoding = best;
+		this.transform = bestTransform;
+	}
+
+	/**
+	 * Computes the canonical form of the puzzle contained in the
+	 * <code>hashiModel</code>.
+	 *
+	 * @param hashiModel containing the puzzle
+	 * @return canonical form of the puzzle
+	 */
+	public static CanonicalForm of(IPuzzleSituationModel hashiModel) {
+		List<Island> islands = hashiModel.getIslands();
+		int[] xs = new int[islands.size()];
+		int[] ys = new int[islands.size()];
+		int[] clues = new int[islands.size()];
+		for (int i = 0; i < islands.size(); i++) {
+			xs[i] = islands.get(i).getX();
+			ys[i] = islands.get(i).getY();
+			clues[i] = islands.get(i).getNoOfBridgesRequired();
+		}
+		return new CanonicalForm(hashiModel.getWidth(), hashiModel.getHeight(), xs, ys, clues);
+	}
+
+	/**
+	 * Computes the canonical form of the puzzle represented by the
+	 * <code>graph</code>.
+	 *
+	 * @param graph of the puzzle
+	 * @return canonical form of the puzzle
+	 */
+	public static CanonicalForm of(CandidateEdgeGraph graph) {
+		int noOfIslands = graph.getNoOfIslands();
+		int[] xs = new int[noOfIslands];
+		int[] ys = new int[noOfIslands];
+		int[] clues = new int[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			xs[i] = graph.getIslandX(i);
+			ys[i] = graph.getIslandY(i);
+			clues[i] = graph.getClue(i);
+		}
+		return new CanonicalForm(graph.getWidth(), graph.getHeight(), xs, ys, clues);
+	}
+
+	private int[] encode(int t, int[] islandX, int[] islandY, int[] clues) {
+		int transformedHeight = getTransformedHeight(t);
+		long[] islands = new long[islandX.length];
+		for (int i = 0; i < islandX.length; i++) {
+			long position = (long) transformX(t, islandX[i], islandY[i]) * transformedHeight
+					+ transformY(t, islandX[i], islandY[i]);
+			islands[i] = position << 8 | clues[i] & 0xFF;
+		}
+		Arrays.sort(islands);
+		int[] result = new int[3 + 2 * islands.length];
+		result[0] = getTransformedWidth(t);
+		result[1] = transformedHeight;
+		result[2] = islands.length;
+		for (int i = 0; i < islands.length; i++) {
+			result[3 + 2 * i] = (int) (islands[i] >>> 8);
+			result[4 + 2 * i] = (int) (islands[i] & 0xFF);
+		}
+		return result;
+	}
+
+	private static int compare(int[] encoding, int[] otherEncoding) {
+		for (int i = 0; i < encoding.length && i < otherEncoding.length; i++) {
+			if (encoding[i] != otherEncoding[i]) {
+				return Integer.compare(encoding[i], otherEncoding[i]);
+			}
+		}
+		return Integer.compare(encoding.length, otherEncoding.length);
+	}
+
+	private int getTransformedWidth(int t) {
+		return swapsAxes(t) ? height : width;
+	}
+
+	private int getTransformedHeight(int t) {
+		return swapsAxes(t) ? width : height;
+	}
+
+	private static boolean swapsAxes(int t) {
+		return t == 1 || t == 3 || t == 6 || t == 7;
+	}
+
+	// transforms: identity, rotation by 90, 180, 270 degrees, horizontal and
+	// vertical reflection, reflection at main and anti-diagonal
+	private int transformX(int t, int x, int y) {
+		switch (t) {
+		case 0:
+		case 5:
+			return x;
+		case 1:
+		case 7:
+			return height - 1 - y;
+		case 2:
+		case 4:
+			return width - 1 - x;
+		default: // 3, 6
+			return y;
+		}
+	}
+
+	private int transformY(int t, int x, int y) {
+		switch (t) {
+		case 0:
+		case 4:
+			return y;
+		case 1:
+		case 6:
+			return x;
+		case 2:
+		case 5:
+			return height - 1 - y;
+		default: // 3, 7
+			return width - 1 - x;
+		}
+	}
+
+	/**
+	 * Gets the index (0 to 7) of the symmetry that turns the puzzle into its
+	 * canonical form.
+	 *
+	 * @return index of the canonical symmetry
+	 */
+	public int getTransform() {
+		return transform;
+	}
+
+	/**
+	 * Gets the column of (x, y) after turning the puzzle into its canonical form.
+	 *
+	 * @param x coordinate in the original puzzle
+	 * @param y coordinate in the original puzzle
+	 * @return x coordinate in the canonical puzzle
+	 */
+	public int toCanonicalX(int x, int y) {
+		return transformX(transform, x, y);
+	}
+
+	/**
+	 * Gets the row of (x, y) after turning the puzzle into its canonical form.
+	 *
+	 * @param x coordinate in the original puzzle
+	 * @param y coordinate in the original puzzle
+	 * @return y coordinate in the canonical puzzle
+	 */
+	public int toCanonicalY(int x, int y) {
+		return transformY(transform, x, y);
+	}
+
+	/**
+	 * Gets the width of the puzzle in its canonical form.
+	 *
+	 * @return canonical width
+	 */
+	public int getCanonicalWidth() {
+		return encoding[0];
+	}
+
+	/**
+	 * Gets the height of the puzzle in its canonical form.
+	 *
+	 * @return canonical height
+	 */
+	public int getCanonicalHeight() {
+		return encoding[1];
+	}
+
+	/**
+	 * Builds the <code>CandidateEdgeGraph</code> of the puzzle in its canonical
+	 * form.
+	 *
+	 * @return graph of the canonical puzzle
+	 */
+	public CandidateEdgeGraph toCandidateEdgeGraph() {
+		int noOfIslands = encoding[2];
+		int[] xs = new int[noOfIslands];
+		int[] ys = new int[noOfIslands];
+		int[] clues = new int[noOfIslands];
+		for (int i = 0; i < noOfIslands; i++) {
+			xs[i] = encoding[3 + 2 * i] / getCanonicalHeight();
+			ys[i] = encoding[3 + 2 * i] % getCanonicalHeight();
+			clues[i] = encoding[4 + 2 * i];
+		}
+		return new CandidateEdgeGraph(getCanonicalWidth(), getCanonicalHeight(), xs, ys, clues);
+	}
+
+	/**
+	 * Gets the canonical encoding as bytes (big-endian ints).
+	 *
+	 * @return canonical encoding
+	 */
+	public byte[] toBytes() {
+		ByteBuffer bytes = ByteBuffer.allocate(4 * encoding.length);
+		for (int value : encoding) {
+			bytes.putInt(value);
+		}
+		return bytes.array();
+	}
+
+	/**
+	 * Gets the 128-bit hash of the canonical encoding. Puzzles that are equal up
+	 * to rotation and reflection have the same hash.
+	 *
+	 * @return canonical hash of the puzzle
+	 */
+	public PuzzleHash getHash() {
+		if (hash == null) {
+			hash = PuzzleHash.of(toBytes());
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof CanonicalForm && Arrays.equals(encoding, ((CanonicalForm) obj).encoding);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(encoding);
+	}
+
+}
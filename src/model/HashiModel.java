@@ -2,6 +2,7 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import common.Coordinates;
 import common.Direction;
@@ -12,6 +13,15 @@ import model.HashiModel.Bridge;
  * This class models a Hashiwokakero puzzle and its current state.
  */
 public class HashiModel implements IPuzzleSituationModel {
+
+	/*
+	 * Smallest area and number of cells per island for which an empty model of
+	 * the size is sparse (see of).
+	 */
+	private static final int MIN_SPARSE_AREA = 1 << 18;
+	private static final int MIN_SPARSE_CELLS_PER_ISLAND = 64;
+
+	private final int width, height;
 	private int noOfIslands;
 
 	/**
@@ -21,13 +31,29 @@ public class HashiModel implements IPuzzleSituationModel {
 	 * for 0 &lt= i &lt <code>width</code> the <code>field[i].length</code> equals
 	 * <code>width</code>. If there is no island or bridge at
 	 * <code>field[y][x]</code>, <code>field[y][x]</code> = <code>null</code>.
+	 * Subclasses storing the field elements differently leave it
+	 * <code>null</code>.
 	 * 
 	 */
-	private FieldElement[][] field;
+	private final FieldElement[][] field;
+
+	/*
+	 * Islands ordered naturally, built when first needed after an island was
+	 * added, so getting the islands does not go through the whole field.
+	 */
+	private volatile List<Island> islands;
 
 	private PuzzleState puzzleState = PuzzleState.NOT_YET_SOLVED;
-	private Bridge lastInsertedBridge;
-	private static int bridgeCounter; // needed to determine lastInsertedBridge
+	/*
+	 * Journal of the bridges of this model in the order they were inserted, a
+	 * double bridge appearing once per single bridge. The last entry is the bridge
+	 * last inserted. It belongs to this model alone, so models used by different
+	 * threads do not interfere. Entries of bridges removed from the field are
+	 * dropped lazily, so removing a bridge does not go through the whole journal.
+	 */
+	private final List<Bridge> moveJournal = new ArrayList<>();
+	private int noOfRemovedJournalEntries; // entries of bridges no longer on the field
+	private final List<IBridgeChangeListener> bridgeChangeListeners = new CopyOnWriteArrayList<>();
 
 	/**
 	 * 
@@ -42,17 +68,62 @@ public class HashiModel implements IPuzzleSituationModel {
 	 *            of the Hashiwokakeru puzzle
 	 */
 	public HashiModel(int width, int height) {
-		field = new FieldElement[height][width];
+		this(width, height, true);
+	}
+
+	/**
+	 * 
+	 * Constructs an instance of an empty <code>width x height</code> Hashiwokakeru
+	 * puzzle whose field elements are stored by the subclass if
+	 * <code>allocateField</code> is false. The subclass then overrides all methods
+	 * storing or retrieving field elements.
+	 * 
+	 * @param width
+	 *            of the Hashiwokakeru puzzle
+	 * @param height
+	 *            of the Hashiwokakeru puzzle
+	 * @param allocateField
+	 *            true if the field elements are stored in a
+	 *            <code>width x height</code> array
+	 */
+	protected HashiModel(int width, int height, boolean allocateField) {
+		this.width = width;
+		this.height = height;
+		field = allocateField ? new FieldElement[height][width] : null;
+	}
+
+	/**
+	 * 
+	 * Constructs an instance of an empty <code>width x height</code> Hashiwokakeru
+	 * puzzle suited to about <code>noOfIslands</code> islands. Large puzzles with
+	 * few islands are modelled by a {@link SparseHashiModel}, whose memory is
+	 * proportional to the islands rather than the area, all others by a
+	 * <code>HashiModel</code>, whose queries are faster.
+	 * 
+	 * @param width
+	 *            of the Hashiwokakeru puzzle
+	 * @param height
+	 *            of the Hashiwokakeru puzzle
+	 * @param noOfIslands
+	 *            expected number of islands
+	 * @return empty model of the puzzle
+	 */
+	public static HashiModel of(int width, int height, int noOfIslands) {
+		long area = (long) width * height;
+		if (area >= MIN_SPARSE_AREA && area >= (long) MIN_SPARSE_CELLS_PER_ISLAND * noOfIslands) {
+			return new SparseHashiModel(width, height);
+		}
+		return new HashiModel(width, height);
 	}
 
 	@Override
 	public int getWidth() {
-		return field[0].length;
+		return width;
 	}
 
 	@Override
 	public int getHeight() {
-		return field.length;
+		return height;
 	}
 
 	@Override
@@ -99,8 +170,65 @@ public class HashiModel implements IPuzzleSituationModel {
 					"(" + x + ", " + y + ") are not valid coordinates. x needs to be between 0 and " + maxX
 							+ ", y betweeen 0 and " + maxY + ".");
 		}
+		return getElementAt(x, y);
+	}
+
+	/**
+	 * Gets the element at the valid field position (x, y).
+	 * 
+	 * @param x
+	 *            column of the field position
+	 * @param y
+	 *            row of the field position
+	 * @return island or bridge at (x, y) or <code>null</code> if there is none
+	 */
+	protected FieldElement getElementAt(int x, int y) {
 		return field[y][x];
 	}
+
+	/**
+	 * Puts the <code>island</code> just created on the field.
+	 * 
+	 * @param island
+	 *            to be put on the field
+	 */
+	protected void putIsland(Island island) {
+		field[island.getY()][island.getX()] = island;
+	}
+
+	/**
+	 * Puts the <code>bridge</code> just created on the cells between its ends.
+	 * 
+	 * @param bridge
+	 *            to be put on the field
+	 */
+	protected void putBridge(Bridge bridge) {
+		Island start = bridge.getStart();
+		Island end = bridge.getEnd();
+		for (int x = start.getCoords().x + 1; x < end.getCoords().x; x++) {
+			field[start.getCoords().y][x] = bridge;
+		}
+		for (int y = start.getCoords().y + 1; y < end.getCoords().y; y++) {
+			field[y][start.getCoords().x] = bridge;
+		}
+	}
+
+	/**
+	 * Clears the cells between the ends of the <code>bridge</code> removed.
+	 * 
+	 * @param bridge
+	 *            to be taken from the field
+	 */
+	protected void clearBridge(Bridge bridge) {
+		Island start = bridge.getStart();
+		Island end = bridge.getEnd();
+		for (int x = start.getCoords().x + 1; x < end.getCoords().x; x++) {
+			field[start.getCoords().y][x] = null;
+		}
+		for (int y = start.getCoords().y + 1; y < end.getCoords().y; y++) {
+			field[y][start.getCoords().x] = null;
+		}
+	}
 	
 	@Override
 	public Island getIslandAt(int x, int y) throws IllegalArgumentException {
@@ -168,8 +296,9 @@ public class HashiModel implements IPuzzleSituationModel {
 			throw new IllegalArgumentException(
 					"Island cannot be added at (" + x + ", " + y + ") because at the coordinates there is a bridge.");
 		}
-		field[y][x] = new Island(x, y);
+		putIsland(new Island(x, y));
 		noOfIslands++;
+		islands = null;
 		getIslandAt(x, y).setNoOfBridgesRequired(noOfBridges);
 	}
 	
@@ -177,7 +306,21 @@ public class HashiModel implements IPuzzleSituationModel {
 
 	@Override
 	public List<Island> getIslands() {
-		List<Island> islands = new ArrayList<>();
+		List<Island> islands = this.islands;
+		if (islands == null) {
+			islands = collectIslands();
+			this.islands = islands;
+		}
+		return new ArrayList<>(islands); // callers may change their list
+	}
+
+	/**
+	 * Collects the islands of the field ordered naturally, i.e. column by column.
+	 * 
+	 * @return new list of all islands
+	 */
+	protected List<Island> collectIslands() {
+		List<Island> islands = new ArrayList<>(noOfIslands);
 		for (int x = 0; x < getWidth(); x++) {
 			for (int y = 0; y < getHeight(); y++) {
 				if (islandAt(x, y)) {
@@ -188,6 +331,27 @@ public class HashiModel implements IPuzzleSituationModel {
 		return islands;
 	}
 
+	/**
+	 * Collects the bridges of the field, each bridge once.
+	 * 
+	 * @return new list of all bridges
+	 */
+	protected List<Bridge> collectBridges() {
+		List<Bridge> bridges = new ArrayList<>();
+		// row by row, each bridge at its first cell
+		for (int y = 0; y < getHeight(); y++) {
+			for (int x = 0; x < getWidth(); x++) {
+				if (bridgeAt(x, y)) {
+					Bridge bridge = (Bridge) getFieldElementAt(x, y);
+					if (bridge.isVertical() ? y == bridge.getStart().getY() + 1 : x == bridge.getStart().getX() + 1) {
+						bridges.add(bridge);
+					}
+				}
+			}
+		}
+		return bridges;
+	}
+
 	@Override
 	public Island getNeighborIsland(Island island, Direction direction) throws IllegalArgumentException {
 		if (island == null || direction == null)
@@ -212,7 +376,19 @@ public class HashiModel implements IPuzzleSituationModel {
 		return neighbourIslands;
 	}
 
-	private Island getNeighbourIslandNotConnected(Island island, Direction direction) {
+	/**
+	 * Gets the first island in the <code>direction</code> of the
+	 * <code>island</code> if neither a bridge nor anything else lies between
+	 * them.
+	 * 
+	 * @param island
+	 *            to start from
+	 * @param direction
+	 *            in which to search
+	 * @return neighbor island not connected to the <code>island</code> or
+	 *         <code>null</code> if there is none
+	 */
+	protected Island getNeighbourIslandNotConnected(Island island, Direction direction) {
 		Coordinates coords = island.getCoords().getNextCoordsIn(direction);
 		while (isValidFieldPosition(coords.x, coords.y) && getFieldElementAt(coords.x, coords.y) == null) {
 			// move one more step in direction
@@ -262,7 +438,7 @@ public class HashiModel implements IPuzzleSituationModel {
 
 	@Override
 	public Bridge getLastInsertedBridge() {
-		return lastInsertedBridge;
+		return moveJournal.isEmpty() ? null : moveJournal.get(moveJournal.size() - 1);
 	}
 
 	@Override
@@ -281,7 +457,8 @@ public class HashiModel implements IPuzzleSituationModel {
 			return addBridgeBetween(island, otherIsland, false);
 		} else if (!bridge.isDouble()) { // single bridge already existing
 			bridge.setDouble(true);
-			lastInsertedBridge = bridge; // update bridge last inserted // TODO: incapsulate in setDouble method
+			moveJournal.add(bridge);
+			fireBridgeChanged(bridge, 1, 2);
 			return true;
 		} else { // double bridge already existing
 			return false;
@@ -305,16 +482,12 @@ public class HashiModel implements IPuzzleSituationModel {
 		}
 		// create bridge
 		Bridge bridge = new Bridge(island, otherIsland, doubleBridge);
-		// put bridge on field
-		Island start = bridge.getStart();
-		Island end = bridge.getEnd();
-		for (int x = start.getCoords().x + 1; x < end.getCoords().x; x++) {
-			field[start.getCoords().y][x] = bridge;
-		}
-		for (int y = start.getCoords().y + 1; y < end.getCoords().y; y++) {
-			field[y][start.getCoords().x] = bridge;
+		putBridge(bridge);
+		moveJournal.add(bridge);
+		if (doubleBridge) {
+			moveJournal.add(bridge);
 		}
-		lastInsertedBridge = bridge; // update last inserted bridge // TODO: incapsulate in bridge creation
+		fireBridgeChanged(bridge, 0, doubleBridge ? 2 : 1);
 		return true;
 	}
 	
@@ -343,23 +516,20 @@ public class HashiModel implements IPuzzleSituationModel {
 		Bridge bridge = getBridgeBetween(island, otherIsland);
 		// check if bridge exists and what kind of bridge it is
 		if (bridge != null) {
-			if (bridge.isDouble() && !doubleBridge) {
+			int oldNoOfBridges = bridge.isDouble() ? 2 : 1;
+			int newNoOfBridges = bridge.isDouble() && !doubleBridge ? 1 : 0;
+			if (newNoOfBridges == 1) {
 				// only a single bridge of a double bridge is to be removed
 				bridge.setDouble(false);
+				moveJournal.remove(moveJournal.lastIndexOf(bridge));
+				dropRemovedBridgesFromJournal();
 			} else { // remove whole bridge from field
-				Island start = bridge.getStart();
-				Island end = bridge.getEnd();
-				for (int x = start.getCoords().x + 1; x < end.getCoords().x; x++) {
-					field[start.getCoords().y][x] = null;
-				}
-				for (int y = start.getCoords().y + 1; y < end.getCoords().y; y++) {
-					field[y][start.getCoords().x] = null;
-				}
-			}
-			// update bridge last inserted
-			if (bridge.equals(lastInsertedBridge)) {
-				updateLastInsertedBridge();
+				bridge.isOnField = false;
+				noOfRemovedJournalEntries += oldNoOfBridges;
+				dropRemovedBridgesFromJournal();
+				clearBridge(bridge);
 			}
+			fireBridgeChanged(bridge, oldNoOfBridges, newNoOfBridges);
 			return true;
 		}
 		return false;
@@ -383,29 +553,46 @@ public class HashiModel implements IPuzzleSituationModel {
 		return bridgeWasRemoved;
 	}
 
-	private void updateLastInsertedBridge() {
-		lastInsertedBridge = null;
-		// determine bridge with highest number (= bridge last inserted)
-		for (int x = 0; x < getWidth(); x++) {
-			for (int y = 0; y < getHeight(); y++) {
-				if (bridgeAt(x, y) && (lastInsertedBridge == null
-						|| lastInsertedBridge.getBridgeNo() < ((Bridge) getFieldElementAt(x, y)).getBridgeNo())) {
-					lastInsertedBridge = (Bridge) getFieldElementAt(x, y);
+	// keeps a bridge on the field last and compacts the journal once half of it is removed bridges
+	private void dropRemovedBridgesFromJournal() {
+		while (!moveJournal.isEmpty() && !moveJournal.get(moveJournal.size() - 1).isOnField) {
+			moveJournal.remove(moveJournal.size() - 1);
+			noOfRemovedJournalEntries--;
+		}
+		if (noOfRemovedJournalEntries > moveJournal.size() / 2) {
+			int noOfEntries = 0;
+			for (Bridge bridge : moveJournal) {
+				if (bridge.isOnField) {
+					moveJournal.set(noOfEntries++, bridge);
 				}
 			}
+			moveJournal.subList(noOfEntries, moveJournal.size()).clear();
+			noOfRemovedJournalEntries = 0;
+		}
+	}
+
+	private void fireBridgeChanged(Bridge bridge, int oldNoOfBridges, int newNoOfBridges) {
+		for (IBridgeChangeListener listener : bridgeChangeListeners) {
+			listener.bridgeChanged(bridge.getStart(), bridge.getEnd(), oldNoOfBridges, newNoOfBridges);
 		}
 	}
 
+	@Override
+	public void addBridgeChangeListener(IBridgeChangeListener listener) {
+		bridgeChangeListeners.add(listener);
+	}
+
+	@Override
+	public void removeBridgeChangeListener(IBridgeChangeListener listener) {
+		bridgeChangeListeners.remove(listener);
+	}
+
 	@Override
 	public void removeAllBridges() {
-		for (int x = 0; x < getWidth(); x++) {
-			for (int y = 0; y < getHeight(); y++) {
-				// check if bridget at (x, y)
-				if (bridgeAt(x, y)) { // remove bridge
-					Bridge bridge = (Bridge) getFieldElementAt(x, y);
-					removeBridgeBetween(bridge.getStart(), bridge.getEnd(), true);
-				}
-			}
+		moveJournal.clear(); // at once instead of bridge by bridge
+		noOfRemovedJournalEntries = 0;
+		for (Bridge bridge : collectBridges()) {
+			removeBridgeBetween(bridge.getStart(), bridge.getEnd(), true);
 		}
 	}
 
@@ -564,7 +751,7 @@ public class HashiModel implements IPuzzleSituationModel {
 	public class Bridge implements FieldElement {
 		private Island start, end;
 		private boolean isDouble, isVertical;
-		private int singleBridgeNo, bridgeNo;
+		private boolean isOnField = true; // false once removed, its journal entries are dropped lazily
 
 		private Bridge(Island islandA, Island islandB, boolean isDouble) throws IllegalArgumentException {
 			// check orientation of bridge
@@ -582,11 +769,6 @@ public class HashiModel implements IPuzzleSituationModel {
 			this.start = islandAisStart ? islandA : islandB;
 			this.end = islandAisStart ? islandB : islandA;
 			this.isDouble = isDouble;
-			bridgeNo = bridgeCounter++; // to determine bridge last inserted
-		}
-
-		private int getBridgeNo() {
-			return bridgeNo;
 		}
 
 		/**
@@ -608,14 +790,6 @@ public class HashiModel implements IPuzzleSituationModel {
 		}
 
 		private void setDouble(boolean isDouble) {
-			if (isDouble) { // update bridgeNo
-				if (!this.isDouble) {
-					singleBridgeNo = bridgeNo; // lazy instantiation
-					bridgeNo = bridgeCounter++;
-				}
-			} else {
-				bridgeNo = singleBridgeNo;
-			}
 			this.isDouble = isDouble;
 		}
 
@@ -0,0 +1,33 @@
+package model;
+
+import model.HashiModel.Island;
+
+/**
+ * The <code>IBridgeChangeListener</code> interface should be implemented by a
+ * class that needs to know when bridges of a Hashiwokakeru puzzle change, e.g.
+ * to repaint only the part of the puzzle that changed. Listeners are added to
+ * an {@link IPuzzleSituationModel} and informed by the thread changing the
+ * model.
+ */
+public interface IBridgeChangeListener {
+
+	/**
+	 * Called after the number of bridges between the <code>start</code> and the
+	 * <code>end</code> island has changed. Since an island's number of missing
+	 * bridges only depends on its bridges, the missing numbers of exactly these
+	 * two islands have changed.
+	 * 
+	 * @param start
+	 *            north or west end of the bridge
+	 * @param end
+	 *            south or east end of the bridge
+	 * @param oldNoOfBridges
+	 *            number of bridges (0, 1 or 2) between the islands before the
+	 *            change
+	 * @param newNoOfBridges
+	 *            number of bridges (0, 1 or 2) between the islands after the
+	 *            change
+	 */
+	void bridgeChanged(Island start, Island end, int oldNoOfBridges, int newNoOfBridges);
+
+}
@@ -612,4 +612,23 @@ public interface IPuzzleSituationModel {
 	 */
 	void removeAllBridges();
 
+	/**
+	 * Adds a <code>listener</code> that is informed each time a bridge is added
+	 * or removed.
+	 * 
+	 * @param listener
+	 *            to be informed about changed bridges
+	 */
+	void addBridgeChangeListener(IBridgeChangeListener listener);
+
+	/**
+	 * Removes a <code>listener</code> added by
+	 * {@link #addBridgeChangeListener(IBridgeChangeListener)
+	 * addBridgeChangeListener}.
+	 * 
+	 * @param listener
+	 *            not to be informed any more
+	 */
+	void removeBridgeChangeListener(IBridgeChangeListener listener);
+
 }
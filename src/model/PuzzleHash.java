@@ -0,0 +1,141 @@
+package model;
+
+/**
+ * An immutable 128-bit hash of a Hashiwokakeru puzzle, computed with MurmurHash3
+ * (x64, 128-bit variant) from an encoding of the puzzle, usually its
+ * {@link CanonicalForm canonical form}.
+ */
+public final class PuzzleHash {
+
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private final long high, low;
+
+	/**
+	 * Constructs an instance of a <code>PuzzleHash</code> from its two halves.
+	 *
+	 * @param high most significant 64 bits
+	 * @param low  least significant 64 bits
+	 */
+	public PuzzleHash(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * Computes the hash of the <code>data</code>.
+	 *
+	 * @param data to be hashed
+	 * @return 128-bit hash of the data
+	 */
+	public static PuzzleHash of(byte[] data) {
+		long h1 = 0, h2 = 0;
+		int noOfBlocks = data.length / 16;
+		for (int i = 0; i < noOfBlocks; i++) {
+			long k1 = getLittleEndianLong(data, 16 * i);
+			long k2 = getLittleEndianLong(data, 16 * i + 8);
+			h1 ^= mixK1(k1);
+			h1 = Long.rotateLeft(h1, 27) + h2;
+			h1 = h1 * 5 + 0x52dce729;
+			h2 ^= mixK2(k2);
+			h2 = Long.rotateLeft(h2, 31) + h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+		long k1 = 0, k2 = 0;
+		int tail = 16 * noOfBlocks;
+		for (int i = data.length - 1; i >= tail; i--) { // remaining bytes
+			if (i - tail >= 8) {
+				k2 ^= (long) (data[i] & 0xFF) << (8 * (i - tail - 8));
+			} else {
+				k1 ^= (long) (data[i] & 0xFF) << (8 * (i - tail));
+			}
+		}
+		h2 ^= mixK2(k2);
+		h1 ^= mixK1(k1);
+		h1 ^= data.length;
+		h2 ^= data.length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+		return new PuzzleHash(h1, h2);
+	}
+
+	private static long getLittleEndianLong(byte[] data, int offset) {
+		long value = 0;
+		for (int i = 7; i >= 0; i--) {
+			value = value << 8 | (data[offset + i] & 0xFF);
+		}
+		return value;
+	}
+
+	private static long mixK1(long k1) {
+		return Long.rotateLeft(k1 * C1, 31) * C2;
+	}
+
+	private static long mixK2(long k2) {
+		return Long.rotateLeft(k2 * C2, 33) * C1;
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	/**
+	 * Parses a hash from the 32 hex digits returned by {@link #toString()
+	 * toString}.
+	 *
+	 * @param hex string of 32 hex digits
+	 * @return parsed hash
+	 * @throws IllegalArgumentException if <code>hex</code> is not a valid hash
+	 */
+	public static PuzzleHash fromString(String hex) throws IllegalArgumentException {
+		if (hex.length() != 32)
+			throw new IllegalArgumentException(hex + " is not a 128-bit hash.");
+		try {
+			return new PuzzleHash(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+					Long.parseUnsignedLong(hex.substring(16), 16));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(hex + " is not a 128-bit hash.", e);
+		}
+	}
+
+	public long getHigh() {
+		return high;
+	}
+
+	public long getLow() {
+		return low;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof PuzzleHash) {
+			PuzzleHash other = (PuzzleHash) obj;
+			return high == other.high && low == other.low;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (low ^ low >>> 32);
+	}
+
+	/**
+	 * Returns the hash as 32 hex digits.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+
+}
@@ -0,0 +1,169 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+import common.Direction;
+import model.HashiModel.Bridge;
+import model.HashiModel.Island;
+
+/**
+ * A <code>PuzzleSnapshot</code> is an immutable copy of the situation of a
+ * Hashiwokakeru puzzle at one point in time: its islands, the number of bridges
+ * built on each edge of its {@link CandidateEdgeGraph}, the bridge last
+ * inserted and the state of the puzzle.
+ *
+ * <p>
+ * Snapshots are taken by the thread writing the model and handed to the view,
+ * which reads them without locking while the model is changed further. A
+ * snapshot may carry the edges whose number of bridges changed since the
+ * previous snapshot of the same puzzle, so the view only needs to repaint
+ * these.
+ * </p>
+ */
+public final class PuzzleSnapshot {
+
+	private final IPuzzleSituationModel hashiModel;
+	private final CandidateEdgeGraph graph;
+	private final List<Island> islands;
+	private final byte[] bridges;
+	private final int lastInsertedEdge;
+	private final PuzzleState puzzleState;
+	private final int[] changedEdges;
+
+	/**
+	 * Constructs an instance of a <code>PuzzleSnapshot</code>. The
+	 * <code>bridges</code> are copied.
+	 *
+	 * @param hashiModel       the snapshot is taken of
+	 * @param graph            of the islands of the puzzle
+	 * @param islands          of the model in the order of the graph
+	 * @param bridges          number of bridges (0, 1 or 2) on each edge of the
+	 *                         graph
+	 * @param lastInsertedEdge index of the edge of the bridge last inserted or -1
+	 * @param puzzleState      state of the puzzle
+	 * @param changedEdges     indices of the edges changed since the previous
+	 *                         snapshot or null if all edges may have changed
+	 */
+	public PuzzleSnapshot(IPuzzleSituationModel hashiModel, CandidateEdgeGraph graph, List<Island> islands,
+			byte[] bridges, int lastInsertedEdge, PuzzleState puzzleState, int[] changedEdges) {
+		this.hashiModel = hashiModel;
+		this.graph = graph;
+		this.islands = islands;
+		this.bridges = bridges.clone();
+		this.lastInsertedEdge = lastInsertedEdge;
+		this.puzzleState = puzzleState;
+		this.changedEdges = changedEdges;
+	}
+
+	/**
+	 * Takes a snapshot of the <code>hashiModel</code> in time proportional to the
+	 * number of its islands. The model must not be changed while the snapshot is
+	 * taken.
+	 *
+	 * @param hashiModel the snapshot is taken of
+	 * @return snapshot in which all edges may have changed
+	 */
+	public static PuzzleSnapshot of(IPuzzleSituationModel hashiModel) {
+		CandidateEdgeGraph graph = CandidateEdgeGraph.of(hashiModel);
+		int[] bridges = graph.getBridges(hashiModel);
+		byte[] packedBridges = new byte[bridges.length];
+		for (int e = 0; e < bridges.length; e++) {
+			packedBridges[e] = (byte) bridges[e];
+		}
+		return new PuzzleSnapshot(hashiModel, graph, Collections.unmodifiableList(hashiModel.getIslands()),
+				packedBridges, getEdgeOfLastInsertedBridge(hashiModel, graph), hashiModel.getPuzzleState(), null);
+	}
+
+	/**
+	 * Gets the index of the edge of the bridge last inserted into the
+	 * <code>hashiModel</code>.
+	 *
+	 * @param hashiModel containing the bridge
+	 * @param graph      of the islands of the model
+	 * @return index of the edge or -1 if there is no bridge last inserted
+	 */
+	public static int getEdgeOfLastInsertedBridge(IPuzzleSituationModel hashiModel, CandidateEdgeGraph graph) {
+		Bridge bridge = hashiModel.getLastInsertedBridge();
+		return bridge == null ? -1 : graph.getEdgeBetween(bridge.getStart(), bridge.getEnd());
+	}
+
+	/**
+	 * Gets the model the snapshot was taken of. <strong>Important:</strong> Only
+	 * parts of the model that never change, i.e. its size and islands, may be
+	 * read from it without being the thread writing the model.
+	 *
+	 * @return model of the puzzle
+	 */
+	public IPuzzleSituationModel getPuzzleSituationModel() {
+		return hashiModel;
+	}
+
+	public CandidateEdgeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Gets the islands in the order of the graph. <strong>Important:</strong> The
+	 * bridges of the islands must not be read from them; use
+	 * {@link #getNoOfBridgesMissing(int) getNoOfBridgesMissing} instead.
+	 *
+	 * @return unmodifiable list of islands
+	 */
+	public List<Island> getIslands() {
+		return islands;
+	}
+
+	/**
+	 * Gets the number of bridges built on the <code>edge</code>.
+	 *
+	 * @param edge index of the edge in the graph
+	 * @return 0, 1 or 2
+	 */
+	public int getNoOfBridges(int edge) {
+		return bridges[edge];
+	}
+
+	/**
+	 * Gets the number of bridges the <code>island</code> still needs, which is
+	 * negative if it has too many.
+	 *
+	 * @param island index of the island in the graph
+	 * @return number of bridges missing
+	 */
+	public int getNoOfBridgesMissing(int island) {
+		int noOfBridgesMissing = graph.getClue(island);
+		for (Direction direction : Direction.values()) {
+			int edge = graph.getEdge(island, direction);
+			if (edge >= 0) {
+				noOfBridgesMissing -= bridges[edge];
+			}
+		}
+		return noOfBridgesMissing;
+	}
+
+	/**
+	 * Gets the index of the edge of the bridge last inserted.
+	 *
+	 * @return index of the edge or -1 if there is none
+	 */
+	public int getLastInsertedEdge() {
+		return lastInsertedEdge;
+	}
+
+	public PuzzleState getPuzzleState() {
+		return puzzleState;
+	}
+
+	/**
+	 * Gets the edges whose number of bridges changed since the previous snapshot
+	 * of the same puzzle. <strong>Important:</strong> Returns null if all edges
+	 * may have changed, e.g. for the first snapshot of a puzzle.
+	 *
+	 * @return indices of the edges changed or null; must not be modified
+	 */
+	public int[] getChangedEdges() {
+		return changedEdges;
+	}
+
+}
@@ -0,0 +1,287 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import common.Direction;
+
+/**
+ *
+ * This class models a Hashiwokakero puzzle and its current state without
+ * storing its field cell by cell, so its memory is proportional to the number
+ * of its islands and bridges rather than to its area. It suits large puzzles
+ * with few islands, e.g. a 1000 x 1000 puzzle with 20000 islands.
+ *
+ * <p>
+ * The islands are indexed by row and by column, the bridges as lists of edges
+ * sorted by their start per row and per column. The element at a field position
+ * is found by looking up the island at the position and the bridge of its row
+ * and column starting last before it. Whether a bridge crosses a row or column
+ * between two islands is answered by a segment tree over the rows (columns)
+ * whose nodes hold the columns (rows) of the bridges crossing all their rows
+ * (columns). Therefore all queries of {@link IPuzzleSituationModel}, e.g.
+ * {@link #getNeighborIsland(Island, Direction) getNeighborIsland},
+ * {@link #getBridgeAt(int, int) getBridgeAt} or
+ * {@link #isValidIslandPosition(int, int) isValidIslandPosition}, take
+ * logarithmic time, finding a neighbor island not connected at most squared
+ * logarithmic time.
+ * </p>
+ */
+public class SparseHashiModel extends HashiModel {
+
+	// islands by row and column, the columns ordered so the islands are collected naturally
+	private final Map<Integer, NavigableMap<Integer, Island>> islandsOfRows = new HashMap<>();
+	private final NavigableMap<Integer, NavigableMap<Integer, Island>> islandsOfColumns = new TreeMap<>();
+
+	// horizontal bridges by row and vertical bridges by column, each sorted by its start
+	private final Map<Integer, NavigableMap<Integer, Bridge>> horizontalBridgesOfRows = new HashMap<>();
+	private final Map<Integer, NavigableMap<Integer, Bridge>> verticalBridgesOfColumns = new HashMap<>();
+
+	// columns of the vertical bridges crossing each row and rows of the horizontal bridges crossing each column
+	private final CrossingIndex verticalBridgesCrossingRows, horizontalBridgesCrossingColumns;
+
+	/**
+	 *
+	 * Constructs an instance of an empty <code>width x height</code> Hashiwokakeru
+	 * puzzle, i.e. a Hashiwokakeru puzzle with <code>width</code> columns and
+	 * <code>height</code> rows without any islands or bridges. Islands must be
+	 * added after construction.
+	 *
+	 * @param width
+	 *            of the Hashiwokakeru puzzle
+	 * @param height
+	 *            of the Hashiwokakeru puzzle
+	 */
+	public SparseHashiModel(int width, int height) {
+		super(width, height, false);
+		verticalBridgesCrossingRows = new CrossingIndex(height);
+		horizontalBridgesCrossingColumns = new CrossingIndex(width);
+	}
+
+	@Override
+	protected FieldElement getElementAt(int x, int y) {
+		NavigableMap<Integer, Island> islandsOfRow = islandsOfRows.get(y);
+		Island island = islandsOfRow == null ? null : islandsOfRow.get(x);
+		if (island != null) {
+			return island;
+		}
+		Bridge bridge = getBridgeCovering(horizontalBridgesOfRows.get(y), x);
+		if (bridge != null) {
+			return bridge;
+		}
+		return getBridgeCovering(verticalBridgesOfColumns.get(x), y);
+	}
+
+	// the bridge starting last before the position if it ends after it
+	private static Bridge getBridgeCovering(NavigableMap<Integer, Bridge> bridges, int position) {
+		if (bridges == null) {
+			return null;
+		}
+		Map.Entry<Integer, Bridge> entry = bridges.lowerEntry(position);
+		if (entry == null) {
+			return null;
+		}
+		Bridge bridge = entry.getValue();
+		int end = bridge.isVertical() ? bridge.getEnd().getY() : bridge.getEnd().getX();
+		return end > position ? bridge : null;
+	}
+
+	@Override
+	protected void putIsland(Island island) {
+		getOrCreate(islandsOfRows, island.getY()).put(island.getX(), island);
+		getOrCreate(islandsOfColumns, island.getX()).put(island.getY(), island);
+	}
+
+	@Override
+	protected void putBridge(Bridge bridge) {
+		Island start = bridge.getStart();
+		Island end = bridge.getEnd();
+		if (bridge.isVertical()) {
+			getOrCreate(verticalBridgesOfColumns, start.getX()).put(start.getY(), bridge);
+			verticalBridgesCrossingRows.add(start.getY() + 1, end.getY() - 1, start.getX());
+		} else {
+			getOrCreate(horizontalBridgesOfRows, start.getY()).put(start.getX(), bridge);
+			horizontalBridgesCrossingColumns.add(start.getX() + 1, end.getX() - 1, start.getY());
+		}
+	}
+
+	@Override
+	protected void clearBridge(Bridge bridge) {
+		Island start = bridge.getStart();
+		Island end = bridge.getEnd();
+		if (bridge.isVertical()) {
+			remove(verticalBridgesOfColumns, start.getX(), start.getY());
+			verticalBridgesCrossingRows.remove(start.getY() + 1, end.getY() - 1, start.getX());
+		} else {
+			remove(horizontalBridgesOfRows, start.getY(), start.getX());
+			horizontalBridgesCrossingColumns.remove(start.getX() + 1, end.getX() - 1, start.getY());
+		}
+	}
+
+	private static <V> NavigableMap<Integer, V> getOrCreate(Map<Integer, NavigableMap<Integer, V>> maps, int key) {
+		NavigableMap<Integer, V> map = maps.get(key);
+		if (map == null) {
+			map = new TreeMap<>();
+			maps.put(key, map);
+		}
+		return map;
+	}
+
+	private static <V> void remove(Map<Integer, NavigableMap<Integer, V>> maps, int key, int keyInMap) {
+		NavigableMap<Integer, V> map = maps.get(key);
+		map.remove(keyInMap);
+		if (map.isEmpty()) {
+			maps.remove(key);
+		}
+	}
+
+	@Override
+	protected Island getNeighbourIslandNotConnected(Island island, Direction direction) {
+		int x = island.getX();
+		int y = island.getY();
+		Island neighbor;
+		switch (direction) {
+		case NORTH:
+			neighbor = getValue(islandsOfColumns.get(x).lowerEntry(y));
+			break;
+		case SOUTH:
+			neighbor = getValue(islandsOfColumns.get(x).higherEntry(y));
+			break;
+		case WEST:
+			neighbor = getValue(islandsOfRows.get(y).lowerEntry(x));
+			break;
+		default: // EAST
+			neighbor = getValue(islandsOfRows.get(y).higherEntry(x));
+		}
+		if (neighbor == null) {
+			return null;
+		}
+		// only a bridge between both islands or a bridge crossing them can lie between them
+		if (direction == Direction.NORTH || direction == Direction.SOUTH) {
+			int fromY = Math.min(y, neighbor.getY());
+			int toY = Math.max(y, neighbor.getY());
+			NavigableMap<Integer, Bridge> bridgesOfColumn = verticalBridgesOfColumns.get(x);
+			if (bridgesOfColumn != null && bridgesOfColumn.containsKey(fromY)
+					|| horizontalBridgesCrossingColumns.containsKeyBetween(x, fromY, toY)) {
+				return null;
+			}
+		} else {
+			int fromX = Math.min(x, neighbor.getX());
+			int toX = Math.max(x, neighbor.getX());
+			NavigableMap<Integer, Bridge> bridgesOfRow = horizontalBridgesOfRows.get(y);
+			if (bridgesOfRow != null && bridgesOfRow.containsKey(fromX)
+					|| verticalBridgesCrossingRows.containsKeyBetween(y, fromX, toX)) {
+				return null;
+			}
+		}
+		return neighbor;
+	}
+
+	private static Island getValue(Map.Entry<Integer, Island> entry) {
+		return entry == null ? null : entry.getValue();
+	}
+
+	@Override
+	protected List<Island> collectIslands() {
+		List<Island> islands = new ArrayList<>(getNoOfIslands());
+		for (NavigableMap<Integer, Island> islandsOfColumn : islandsOfColumns.values()) {
+			islands.addAll(islandsOfColumn.values());
+		}
+		return islands;
+	}
+
+	@Override
+	protected List<Bridge> collectBridges() {
+		List<Bridge> bridges = new ArrayList<>();
+		for (NavigableMap<Integer, Bridge> bridgesOfRow : horizontalBridgesOfRows.values()) {
+			bridges.addAll(bridgesOfRow.values());
+		}
+		for (NavigableMap<Integer, Bridge> bridgesOfColumn : verticalBridgesOfColumns.values()) {
+			bridges.addAll(bridgesOfColumn.values());
+		}
+		return bridges;
+	}
+
+	/**
+	 * A <code>CrossingIndex</code> is a segment tree over the rows (columns) of
+	 * the field. A bridge crossing the rows (columns) <code>from</code> to
+	 * <code>to</code> is added to the O(log n) nodes covering exactly these
+	 * rows (columns), keyed by its column (row). The bridges crossing a row
+	 * (column) are those of the nodes on the path from its leaf to the root.
+	 * Nodes without bridges are not stored.
+	 */
+	private static class CrossingIndex {
+
+		private final int size;
+		private final Map<Integer, NavigableSet<Integer>> keysOfNodes = new HashMap<>();
+
+		CrossingIndex(int size) {
+			this.size = size;
+		}
+
+		void add(int from, int to, int key) {
+			for (int left = from + size, right = to + size + 1; left < right; left >>= 1, right >>= 1) {
+				if ((left & 1) == 1) {
+					addKey(left++, key);
+				}
+				if ((right & 1) == 1) {
+					addKey(--right, key);
+				}
+			}
+		}
+
+		void remove(int from, int to, int key) {
+			for (int left = from + size, right = to + size + 1; left < right; left >>= 1, right >>= 1) {
+				if ((left & 1) == 1) {
+					removeKey(left++, key);
+				}
+				if ((right & 1) == 1) {
+					removeKey(--right, key);
+				}
+			}
+		}
+
+		private void addKey(int node, int key) {
+			NavigableSet<Integer> keys = keysOfNodes.get(node);
+			if (keys == null) {
+				keys = new TreeSet<>();
+				keysOfNodes.put(node, keys);
+			}
+			keys.add(key);
+		}
+
+		private void removeKey(int node, int key) {
+			NavigableSet<Integer> keys = keysOfNodes.get(node);
+			keys.remove(key);
+			if (keys.isEmpty()) {
+				keysOfNodes.remove(node);
+			}
+		}
+
+		/**
+		 * Returns true if a bridge crossing the row (column) <code>position</code>
+		 * lies strictly between the columns (rows) <code>low</code> and
+		 * <code>high</code>.
+		 */
+		boolean containsKeyBetween(int position, int low, int high) {
+			for (int node = position + size; node > 0; node >>= 1) {
+				NavigableSet<Integer> keys = keysOfNodes.get(node);
+				if (keys != null) {
+					Integer key = keys.higher(low);
+					if (key != null && key < high) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+	}
+
+}